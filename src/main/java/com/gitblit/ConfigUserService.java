@@ -23,6 +23,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -44,7 +45,6 @@ import com.gitblit.models.TeamModel;
 import com.gitblit.models.UserModel;
 import com.gitblit.models.UserRepositoryPreferences;
 import com.gitblit.utils.ArrayUtils;
-import com.gitblit.utils.DeepCopier;
 import com.gitblit.utils.StringUtils;
 
 /**
@@ -121,6 +121,8 @@ public class ConfigUserService implements IUserService {
 
 	private volatile boolean forceReload;
 
+	private volatile long revision;
+
 	public ConfigUserService(File realmFile) {
 		this.realmFile = realmFile;
 	}
@@ -174,7 +176,7 @@ public class ConfigUserService implements IUserService {
 		if (model != null) {
 			// clone the model, otherwise all changes to this object are
 			// live and unpersisted
-			model = DeepCopier.copy(model);
+			model = model.copy();
 		}
 		return model;
 	}
@@ -192,7 +194,7 @@ public class ConfigUserService implements IUserService {
 		if (model != null) {
 			// clone the model, otherwise all changes to this object are
 			// live and unpersisted
-			model = DeepCopier.copy(model);
+			model = model.copy();
 		}
 		return model;
 	}
@@ -397,8 +399,10 @@ public class ConfigUserService implements IUserService {
 	@Override
 	public synchronized List<TeamModel> getAllTeams() {
 		read();
-		List<TeamModel> list = new ArrayList<TeamModel>(teams.values());
-		list = DeepCopier.copy(list);
+		List<TeamModel> list = new ArrayList<TeamModel>(teams.size());
+		for (TeamModel team : teams.values()) {
+			list.add(team.copy());
+		}
 		Collections.sort(list);
 		return list;
 	}
@@ -443,7 +447,7 @@ public class ConfigUserService implements IUserService {
 		if (model != null) {
 			// clone the model, otherwise all changes to this object are
 			// live and unpersisted
-			model = DeepCopier.copy(model);
+			model = model.copy();
 		}
 		return model;
 	}
@@ -569,8 +573,11 @@ public class ConfigUserService implements IUserService {
 	@Override
 	public synchronized List<UserModel> getAllUsers() {
 		read();
-		List<UserModel> list = new ArrayList<UserModel>(users.values());
-		list = DeepCopier.copy(list);
+		List<UserModel> list = new ArrayList<UserModel>(users.size());
+		Map<TeamModel, TeamModel> teamCopies = new IdentityHashMap<TeamModel, TeamModel>();
+		for (UserModel user : users.values()) {
+			list.add(user.copy(teamCopies));
+		}
 		Collections.sort(list);
 		return list;
 	}
@@ -876,6 +883,7 @@ public class ConfigUserService implements IUserService {
 		if (realmFile.exists() && (forceReload || (realmFile.lastModified() != lastModified))) {
 			forceReload = false;
 			lastModified = realmFile.lastModified();
+			revision++;
 			users.clear();
 			cookies.clear();
 			teams.clear();
@@ -983,6 +991,18 @@ public class ConfigUserService implements IUserService {
 		return lastModified;
 	}
 
+	/**
+	 * Returns the revision of the users and teams.  The revision changes each
+	 * time the realm file is reloaded, including edits of the realm file on
+	 * disk which are picked up by this call.
+	 *
+	 * @return the revision
+	 */
+	public long getRevision() {
+		read();
+		return revision;
+	}
+
 	@Override
 	public String toString() {
 		return getClass().getSimpleName() + "(" + realmFile.getAbsolutePath() + ")";
@@ -87,6 +87,10 @@ public class Constants {
 
 	public static final String BRANCH_GRAPH_PATH = "/graph/";
 
+	public static final String DIFF_PATH = "/diff/";
+
+	public static final String METRICS_PATH = "/prometheus";
+
 	public static final String BORDER = "*****************************************************************";
 
 	public static final String BORDER2 = "#################################################################";
@@ -410,7 +414,7 @@ public class Constants {
 		// Order is important here.  anything after LIST_SETTINGS requires
 		// administrator privileges and web.allowRpcManagement.
 		CLEAR_REPOSITORY_CACHE, REINDEX_TICKETS, GET_PROTOCOL, LIST_REPOSITORIES, LIST_BRANCHES, GET_USER,
-		FORK_REPOSITORY, LIST_SETTINGS,
+		FORK_REPOSITORY, LIST_LAST_COMMITS, LIST_SETTINGS,
 		CREATE_REPOSITORY, EDIT_REPOSITORY, DELETE_REPOSITORY,
 		LIST_USERS, CREATE_USER, EDIT_USER, DELETE_USER,
 		LIST_TEAMS, CREATE_TEAM, EDIT_TEAM, DELETE_TEAM,
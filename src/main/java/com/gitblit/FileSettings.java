@@ -28,13 +28,20 @@ import com.gitblit.utils.StringUtils;
 
 /**
  * Dynamically loads and reloads a properties file by keeping track of the last
- * modification date.
+ * modification date.  The modification date is checked at most once per
+ * reload check interval so that settings reads do not hit the filesystem.
  *
  * @author James Moger
  *
  */
 public class FileSettings extends IStoredSettings {
 
+	/**
+	 * The default number of milliseconds between checks of the properties
+	 * file modification date.
+	 */
+	public static final long DEFAULT_RELOAD_CHECK_INTERVAL = 2000L;
+
 	protected File propertiesFile;
 
 	private final Properties properties = new Properties();
@@ -43,6 +50,10 @@ public class FileSettings extends IStoredSettings {
 
 	private volatile boolean forceReload;
 
+	private volatile long reloadCheckInterval = DEFAULT_RELOAD_CHECK_INTERVAL;
+
+	private volatile long lastCheck;
+
 	public FileSettings() {
 		super(FileSettings.class);
 	}
@@ -54,6 +65,35 @@ public class FileSettings extends IStoredSettings {
 
 	public void load(String file) {
 		this.propertiesFile = new File(file);
+		invalidate();
+	}
+
+	/**
+	 * Sets the minimum number of milliseconds between checks of the properties
+	 * file modification date.  An interval of 0 checks on every read.
+	 *
+	 * @param msecs
+	 */
+	public void setReloadCheckInterval(long msecs) {
+		this.reloadCheckInterval = Math.max(0, msecs);
+	}
+
+	/**
+	 * Returns true if the properties file has been saved or if it has been
+	 * modified since it was last read.  The modification date is only checked
+	 * once per reload check interval.
+	 */
+	@Override
+	protected boolean isOutdated() {
+		if (forceReload) {
+			return true;
+		}
+		long now = System.currentTimeMillis();
+		if (now - lastCheck < reloadCheckInterval) {
+			return false;
+		}
+		lastCheck = now;
+		return propertiesFile != null && propertiesFile.lastModified() > lastModified;
 	}
 
 	/**
@@ -68,6 +108,7 @@ public class FileSettings extends IStoredSettings {
 		// sneaky: set the target file from the merge source
 		if (propertiesFile == null && settings instanceof FileSettings) {
 			this.propertiesFile = ((FileSettings) settings).propertiesFile;
+			invalidate();
 		}
 	}
 
@@ -15,22 +15,26 @@
  */
 package com.gitblit;
 
-import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.gitblit.utils.StringUtils;
-
 /**
  * Base class for stored settings implementations.
  *
+ * Reads are served from an immutable {@link SettingsSnapshot} which merges the
+ * backing store with the runtime overrides.  The snapshot is only rebuilt when
+ * it has been invalidated or when the implementation reports that its backing
+ * store is outdated, so the common read path takes no locks and performs no
+ * I/O.
+ *
  * @author James Moger
  *
  */
@@ -42,12 +46,65 @@ public abstract class IStoredSettings {
 
 	protected final Set<String> removals = new TreeSet<String>();
 
+	private final AtomicLong modCount = new AtomicLong();
+
+	private volatile SettingsSnapshot snapshot;
+
 	public IStoredSettings(Class<? extends IStoredSettings> clazz) {
 		logger = LoggerFactory.getLogger(clazz);
 	}
 
 	protected abstract Properties read();
 
+	/**
+	 * Returns true if the backing store may have changed since the current
+	 * snapshot was built.  Implementations which can not cheaply detect
+	 * changes should return true, which rebuilds the snapshot on every read.
+	 * Implementations which return false must call {@link #invalidate()}
+	 * whenever they change the properties returned by {@link #read()}.
+	 *
+	 * @return true if the snapshot must be rebuilt
+	 */
+	protected boolean isOutdated() {
+		return true;
+	}
+
+	/**
+	 * Discards the current snapshot.  The next read builds a new snapshot.
+	 */
+	protected void invalidate() {
+		modCount.incrementAndGet();
+	}
+
+	/**
+	 * Returns the current immutable settings snapshot.  Callers which read
+	 * many settings in a row may hold onto the snapshot for a consistent view.
+	 *
+	 * @return the current snapshot
+	 */
+	public SettingsSnapshot getSnapshot() {
+		SettingsSnapshot current = snapshot;
+		if (current == null || current.getVersion() != modCount.get() || isOutdated()) {
+			current = rebuild();
+		}
+		return current;
+	}
+
+	private synchronized SettingsSnapshot rebuild() {
+		long version = modCount.get();
+		Properties props = new Properties();
+		Properties source = read();
+		synchronized (source) {
+			props.putAll(source);
+		}
+		synchronized (overrides) {
+			props.putAll(overrides);
+		}
+		SettingsSnapshot current = new SettingsSnapshot(version, props, logger);
+		snapshot = current;
+		return current;
+	}
+
 	private Properties getSettings() {
 		Properties props = read();
 		props.putAll(overrides);
@@ -62,20 +119,7 @@ public abstract class IStoredSettings {
 	 * @return list of keys
 	 */
 	public List<String> getAllKeys(String startingWith) {
-		List<String> keys = new ArrayList<String>();
-		Properties props = getSettings();
-		if (StringUtils.isEmpty(startingWith)) {
-			keys.addAll(props.stringPropertyNames());
-		} else {
-			startingWith = startingWith.toLowerCase();
-			for (Object o : props.keySet()) {
-				String key = o.toString();
-				if (key.toLowerCase().startsWith(startingWith)) {
-					keys.add(key);
-				}
-			}
-		}
-		return keys;
+		return getSnapshot().getAllKeys(startingWith);
 	}
 
 	/**
@@ -88,14 +132,7 @@ public abstract class IStoredSettings {
 	 * @return key value or defaultValue
 	 */
 	public boolean getBoolean(String name, boolean defaultValue) {
-		Properties props = getSettings();
-		if (props.containsKey(name)) {
-			String value = props.getProperty(name);
-			if (!StringUtils.isEmpty(value)) {
-				return Boolean.parseBoolean(value.trim());
-			}
-		}
-		return defaultValue;
+		return getSnapshot().getBoolean(name, defaultValue);
 	}
 
 	/**
@@ -108,19 +145,7 @@ public abstract class IStoredSettings {
 	 * @return key value or defaultValue
 	 */
 	public int getInteger(String name, int defaultValue) {
-		Properties props = getSettings();
-		if (props.containsKey(name)) {
-			try {
-				String value = props.getProperty(name);
-				if (!StringUtils.isEmpty(value)) {
-					return Integer.parseInt(value.trim());
-				}
-			} catch (NumberFormatException e) {
-				logger.warn("Failed to parse integer for " + name + " using default of "
-						+ defaultValue);
-			}
-		}
-		return defaultValue;
+		return getSnapshot().getInteger(name, defaultValue);
 	}
 
 	/**
@@ -133,19 +158,7 @@ public abstract class IStoredSettings {
 	 * @return key value or defaultValue
 	 */
 	public long getLong(String name, long defaultValue) {
-		Properties props = getSettings();
-		if (props.containsKey(name)) {
-			try {
-				String value = props.getProperty(name);
-				if (!StringUtils.isEmpty(value)) {
-					return Long.parseLong(value.trim());
-				}
-			} catch (NumberFormatException e) {
-				logger.warn("Failed to parse long for " + name + " using default of "
-						+ defaultValue);
-			}
-		}
-		return defaultValue;
+		return getSnapshot().getLong(name, defaultValue);
 	}
 
 	/**
@@ -156,11 +169,7 @@ public abstract class IStoredSettings {
 	 *         not be parsed
 	 */
 	public int getFilesize(String name, int defaultValue) {
-		String val = getString(name, null);
-		if (StringUtils.isEmpty(val)) {
-			return defaultValue;
-		}
-		return com.gitblit.utils.FileUtils.convertSizeToInt(val, defaultValue);
+		return (int) getSnapshot().getFilesize(name, defaultValue);
 	}
 
 	/**
@@ -171,11 +180,7 @@ public abstract class IStoredSettings {
 	 *         not be parsed
 	 */
 	public long getFilesize(String key, long defaultValue) {
-		String val = getString(key, null);
-		if (StringUtils.isEmpty(val)) {
-			return defaultValue;
-		}
-		return com.gitblit.utils.FileUtils.convertSizeToLong(val, defaultValue);
+		return getSnapshot().getFilesize(key, defaultValue);
 	}
 
 	/**
@@ -188,14 +193,7 @@ public abstract class IStoredSettings {
 	 * @return key value or defaultValue
 	 */
 	public char getChar(String name, char defaultValue) {
-		Properties props = getSettings();
-		if (props.containsKey(name)) {
-			String value = props.getProperty(name);
-			if (!StringUtils.isEmpty(value)) {
-				return value.trim().charAt(0);
-			}
-		}
-		return defaultValue;
+		return getSnapshot().getChar(name, defaultValue);
 	}
 
 	/**
@@ -208,14 +206,7 @@ public abstract class IStoredSettings {
 	 * @return key value or defaultValue
 	 */
 	public String getString(String name, String defaultValue) {
-		Properties props = getSettings();
-		if (props.containsKey(name)) {
-			String value = props.getProperty(name);
-			if (value != null) {
-				return value.trim();
-			}
-		}
-		return defaultValue;
+		return getSnapshot().getString(name, defaultValue);
 	}
 
 	/**
@@ -226,12 +217,9 @@ public abstract class IStoredSettings {
 	 * @return key value
 	 */
 	public String getRequiredString(String name) {
-		Properties props = getSettings();
-		if (props.containsKey(name)) {
-			String value = props.getProperty(name);
-			if (value != null) {
-				return value.trim();
-			}
+		String value = getSnapshot().getString(name, null);
+		if (value != null) {
+			return value;
 		}
 		throw new RuntimeException("Property (" + name + ") does not exist");
 	}
@@ -255,13 +243,7 @@ public abstract class IStoredSettings {
 	 * @return list of strings
 	 */
 	public List<String> getStrings(String name, String separator) {
-		List<String> strings = new ArrayList<String>();
-		Properties props = getSettings();
-		if (props.containsKey(name)) {
-			String value = props.getProperty(name);
-			strings = StringUtils.getStringsFromValue(value, separator);
-		}
-		return strings;
+		return getSnapshot().getStrings(name, separator);
 	}
 
 	/**
@@ -283,20 +265,7 @@ public abstract class IStoredSettings {
 	 * @return list of integers
 	 */
 	public List<Integer> getIntegers(String name, String separator) {
-		List<Integer> ints = new ArrayList<Integer>();
-		Properties props = getSettings();
-		if (props.containsKey(name)) {
-			String value = props.getProperty(name);
-			List<String> strings = StringUtils.getStringsFromValue(value, separator);
-			for (String str : strings) {
-				try {
-					int i = Integer.parseInt(str);
-					ints.add(i);
-				} catch (NumberFormatException e) {
-				}
-			}
-		}
-		return ints;
+		return getSnapshot().getIntegers(name, separator);
 	}
 
 	/**
@@ -324,6 +293,7 @@ public abstract class IStoredSettings {
 	 */
 	public void overrideSetting(String key, String value) {
 		overrides.put(key, value);
+		invalidate();
 	}
 
 	/**
@@ -334,6 +304,7 @@ public abstract class IStoredSettings {
 	 */
 	public void overrideSetting(String key, int value) {
 		overrides.put(key, "" + value);
+		invalidate();
 	}
 
 	/**
@@ -344,6 +315,7 @@ public abstract class IStoredSettings {
 	 */
 	public void overrideSetting(String key, boolean value) {
 		overrides.put(key, "" + value);
+		invalidate();
 	}
 
 	/**
@@ -365,6 +337,7 @@ public abstract class IStoredSettings {
 		getSettings().remove(key);
 		overrides.remove(key);
 		removals.add(key);
+		invalidate();
 	}
 
 	/**
@@ -392,5 +365,6 @@ public abstract class IStoredSettings {
 	public void merge(IStoredSettings settings) {
 		getSettings().putAll(settings.getSettings());
 		overrides.putAll(settings.overrides);
+		invalidate();
 	}
 }
\ No newline at end of file
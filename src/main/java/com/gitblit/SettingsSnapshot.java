@@ -0,0 +1,276 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+
+import com.gitblit.utils.FileUtils;
+import com.gitblit.utils.StringUtils;
+
+/**
+ * An immutable, pre-merged view of a settings source at a point in time.
+ * Snapshots are published by {@link IStoredSettings} and may be shared freely
+ * between threads.  Parsed values are memoized for the lifetime of the
+ * snapshot so repeated typed lookups of the same key do not re-parse the raw
+ * string value.
+ *
+ * @author agent
+ *
+ */
+public final class SettingsSnapshot {
+
+	private static final Object NONE = new Object();
+
+	private final long version;
+
+	private final Logger logger;
+
+	private final Set<String> keys;
+
+	private final Map<String, String> values;
+
+	private final ConcurrentMap<String, Object> booleans = new ConcurrentHashMap<String, Object>();
+
+	private final ConcurrentMap<String, Object> integers = new ConcurrentHashMap<String, Object>();
+
+	private final ConcurrentMap<String, Object> longs = new ConcurrentHashMap<String, Object>();
+
+	private final ConcurrentMap<String, Object> filesizes = new ConcurrentHashMap<String, Object>();
+
+	private final ConcurrentMap<String, List<String>> strings = new ConcurrentHashMap<String, List<String>>();
+
+	private final ConcurrentMap<String, List<Integer>> ints = new ConcurrentHashMap<String, List<Integer>>();
+
+	SettingsSnapshot(long version, Properties properties, Logger logger) {
+		this.version = version;
+		this.logger = logger;
+		Set<String> keys = new TreeSet<String>();
+		Map<String, String> values = new HashMap<String, String>();
+		for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+			String key = entry.getKey().toString();
+			keys.add(key);
+			if (entry.getValue() instanceof String) {
+				values.put(key, (String) entry.getValue());
+			}
+		}
+		this.keys = Collections.unmodifiableSet(keys);
+		this.values = Collections.unmodifiableMap(values);
+	}
+
+	/**
+	 * @return the version of the settings source this snapshot was built from
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the unmodifiable set of all keys in this snapshot
+	 */
+	public Set<String> getKeys() {
+		return keys;
+	}
+
+	/**
+	 * Returns true if the key is defined in this snapshot.
+	 *
+	 * @param name
+	 * @return true if the key is defined
+	 */
+	public boolean containsKey(String name) {
+		return keys.contains(name);
+	}
+
+	/**
+	 * Returns the untrimmed raw value of a key or null.
+	 *
+	 * @param name
+	 * @return the raw value or null
+	 */
+	public String getRaw(String name) {
+		return values.get(name);
+	}
+
+	/**
+	 * Returns the list of keys whose name starts with the specified prefix. If
+	 * the prefix is null or empty, all key names are returned.
+	 *
+	 * @param startingWith
+	 * @return list of keys
+	 */
+	public List<String> getAllKeys(String startingWith) {
+		List<String> list = new ArrayList<String>();
+		if (StringUtils.isEmpty(startingWith)) {
+			list.addAll(values.keySet());
+		} else {
+			startingWith = startingWith.toLowerCase();
+			for (String key : keys) {
+				if (key.toLowerCase().startsWith(startingWith)) {
+					list.add(key);
+				}
+			}
+		}
+		return list;
+	}
+
+	public boolean getBoolean(String name, boolean defaultValue) {
+		Object o = booleans.get(name);
+		if (o == null) {
+			o = NONE;
+			String value = values.get(name);
+			if (!StringUtils.isEmpty(value)) {
+				o = Boolean.parseBoolean(value.trim());
+			}
+			booleans.putIfAbsent(name, o);
+		}
+		return o == NONE ? defaultValue : (Boolean) o;
+	}
+
+	public int getInteger(String name, int defaultValue) {
+		Object o = integers.get(name);
+		if (o == null) {
+			o = NONE;
+			String value = values.get(name);
+			if (!StringUtils.isEmpty(value)) {
+				try {
+					o = Integer.parseInt(value.trim());
+				} catch (NumberFormatException e) {
+					logger.warn("Failed to parse integer for " + name + " using default of "
+							+ defaultValue);
+				}
+			}
+			integers.putIfAbsent(name, o);
+		}
+		return o == NONE ? defaultValue : (Integer) o;
+	}
+
+	public long getLong(String name, long defaultValue) {
+		Object o = longs.get(name);
+		if (o == null) {
+			o = NONE;
+			String value = values.get(name);
+			if (!StringUtils.isEmpty(value)) {
+				try {
+					o = Long.parseLong(value.trim());
+				} catch (NumberFormatException e) {
+					logger.warn("Failed to parse long for " + name + " using default of "
+							+ defaultValue);
+				}
+			}
+			longs.putIfAbsent(name, o);
+		}
+		return o == NONE ? defaultValue : (Long) o;
+	}
+
+	public long getFilesize(String name, long defaultValue) {
+		Object o = filesizes.get(name);
+		if (o == null) {
+			o = NONE;
+			String value = getString(name, null);
+			if (!StringUtils.isEmpty(value)) {
+				long size = FileUtils.convertSizeToLong(value, Long.MIN_VALUE);
+				if (size != Long.MIN_VALUE) {
+					o = size;
+				}
+			}
+			filesizes.putIfAbsent(name, o);
+		}
+		return o == NONE ? defaultValue : (Long) o;
+	}
+
+	public char getChar(String name, char defaultValue) {
+		String value = values.get(name);
+		if (!StringUtils.isEmpty(value)) {
+			return value.trim().charAt(0);
+		}
+		return defaultValue;
+	}
+
+	public String getString(String name, String defaultValue) {
+		String value = values.get(name);
+		if (value != null) {
+			return value.trim();
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Returns a list of strings from the specified key using the specified
+	 * string separator.  The returned list is a private copy.
+	 *
+	 * @param name
+	 * @param separator
+	 * @return list of strings
+	 */
+	public List<String> getStrings(String name, String separator) {
+		String cacheKey = " ".equals(separator) ? name : separator + '\n' + name;
+		List<String> list = strings.get(cacheKey);
+		if (list == null) {
+			String value = values.get(name);
+			if (value == null) {
+				list = Collections.emptyList();
+			} else {
+				list = Collections.unmodifiableList(StringUtils.getStringsFromValue(value, separator));
+			}
+			strings.putIfAbsent(cacheKey, list);
+		}
+		return new ArrayList<String>(list);
+	}
+
+	/**
+	 * Returns a list of integers from the specified key using the specified
+	 * string separator.  The returned list is a private copy.
+	 *
+	 * @param name
+	 * @param separator
+	 * @return list of integers
+	 */
+	public List<Integer> getIntegers(String name, String separator) {
+		String cacheKey = " ".equals(separator) ? name : separator + '\n' + name;
+		List<Integer> list = ints.get(cacheKey);
+		if (list == null) {
+			List<Integer> parsed = new ArrayList<Integer>();
+			String value = values.get(name);
+			if (value != null) {
+				for (String str : StringUtils.getStringsFromValue(value, separator)) {
+					try {
+						parsed.add(Integer.parseInt(str));
+					} catch (NumberFormatException e) {
+					}
+				}
+			}
+			list = Collections.unmodifiableList(parsed);
+			ints.putIfAbsent(cacheKey, list);
+		}
+		return new ArrayList<Integer>(list);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " v" + version + " (" + keys.size() + " keys)";
+	}
+}
@@ -61,6 +61,7 @@ public class WebXmlSettings extends IStoredSettings {
 				InputStream is = new FileInputStream(overrideFile);
 				properties.load(is);
 				is.close();
+				invalidate();
 			} catch (Throwable t) {
 				logger.error(
 						MessageFormat.format("Failed to apply {0} setting overrides",
@@ -79,6 +80,11 @@ public class WebXmlSettings extends IStoredSettings {
 		return properties;
 	}
 
+	@Override
+	protected boolean isOutdated() {
+		return false;
+	}
+
 	@Override
 	public synchronized boolean saveSettings() {
 		try {
@@ -102,6 +108,7 @@ public class WebXmlSettings extends IStoredSettings {
 			// override current runtime settings
 			properties.clear();
 			properties.putAll(props);
+			invalidate();
 			return true;
 		} catch (Throwable t) {
 			logger.error("Failed to save settings!", t);
@@ -128,6 +135,7 @@ public class WebXmlSettings extends IStoredSettings {
 
 			// override current runtime settings
 			properties.putAll(settings);
+			invalidate();
 			return true;
 		} catch (Throwable t) {
 			logger.error("Failed to save settings!", t);
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.cache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The configuration of a cache.
+ *
+ * A cache may be bounded by its number of entries, by the total weight of its
+ * entries or by both.  Entries may also expire after they were written.  A
+ * value of 0 disables a bound.
+ *
+ * @author agent
+ *
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ */
+public class CacheConfig<K, V> {
+
+	private final String name;
+
+	private long maximumSize;
+
+	private long maximumWeight;
+
+	private Weigher<K, V> weigher;
+
+	private long expireAfterWrite;
+
+	/**
+	 * @param name
+	 *            the unique name of the cache
+	 */
+	public CacheConfig(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Sets the maximum number of entries.
+	 *
+	 * @param entries
+	 * @return this configuration
+	 */
+	public CacheConfig<K, V> maximumSize(long entries) {
+		this.maximumSize = Math.max(0, entries);
+		return this;
+	}
+
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	public Weigher<K, V> getWeigher() {
+		return weigher;
+	}
+
+	/**
+	 * Sets the maximum total weight of the entries.
+	 *
+	 * @param weight
+	 * @param weigher
+	 *            computes the weight of an entry
+	 * @return this configuration
+	 */
+	public CacheConfig<K, V> maximumWeight(long weight, Weigher<K, V> weigher) {
+		this.maximumWeight = Math.max(0, weight);
+		this.weigher = weigher;
+		return this;
+	}
+
+	/**
+	 * Returns the duration after which written entries expire.
+	 *
+	 * @return the duration in milliseconds, 0 if entries do not expire
+	 */
+	public long getExpireAfterWrite() {
+		return expireAfterWrite;
+	}
+
+	/**
+	 * Sets the duration after which written entries expire.
+	 *
+	 * @param duration
+	 * @param unit
+	 * @return this configuration
+	 */
+	public CacheConfig<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+		this.expireAfterWrite = Math.max(0, unit.toMillis(duration));
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gitblit.utils.JsonUtils;
+import com.gitblit.utils.StringUtils;
+
+/**
+ * A folder of cached values persisted as json files to survive restarts.
+ *
+ * The file of a value is named by the SHA-1 of its key.  The size of the
+ * folder is bounded, the least recently read or written files are deleted
+ * first when the folder exceeds its maximum size.
+ *
+ * @author agent
+ *
+ * @param <V>
+ *            the value type
+ */
+public class CacheFolder<V> {
+
+	private static final String SUFFIX = ".json";
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final String name;
+
+	private final File root;
+
+	private final Type type;
+
+	private final AtomicLong bytes = new AtomicLong();
+
+	private volatile long maximumBytes;
+
+	/**
+	 * @param name
+	 *            the name of the cached values, for logging
+	 * @param root
+	 *            the folder of the json files
+	 * @param type
+	 *            the type of the values
+	 * @param maximumBytes
+	 *            the maximum size of the folder
+	 */
+	public CacheFolder(String name, File root, Type type, long maximumBytes) {
+		this.name = name;
+		this.root = root;
+		this.type = type;
+		this.maximumBytes = maximumBytes;
+		this.bytes.set(getBytes(listFiles()));
+	}
+
+	public File getRoot() {
+		return root;
+	}
+
+	/**
+	 * Sets the maximum size of the folder.  The folder is pruned on the next
+	 * write if it exceeds the new size.
+	 *
+	 * @param maximumBytes
+	 */
+	public void setMaximumBytes(long maximumBytes) {
+		this.maximumBytes = maximumBytes;
+	}
+
+	/**
+	 * Returns the size of the json files in the folder.
+	 *
+	 * @return the size in bytes
+	 */
+	public long getBytes() {
+		return bytes.get();
+	}
+
+	/**
+	 * Reads a persisted value.
+	 *
+	 * @param key
+	 * @return the value or null if it is not persisted or can not be read
+	 */
+	public V read(String key) {
+		File file = getFile(key);
+		if (file == null || !file.exists()) {
+			return null;
+		}
+		try {
+			String json = new String(Files.readAllBytes(file.toPath()), "UTF-8");
+			// the least recently used files are pruned first
+			file.setLastModified(System.currentTimeMillis());
+			return JsonUtils.fromJsonString(json, type);
+		} catch (Exception e) {
+			logger.warn(MessageFormat.format("Failed to read {0} {1}", name, file), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Persists a value, pruning the folder if it exceeds its maximum size.
+	 *
+	 * @param key
+	 * @param value
+	 */
+	public void write(String key, V value) {
+		File file = getFile(key);
+		if (file == null) {
+			return;
+		}
+		File parent = file.getParentFile();
+		if (!parent.exists()) {
+			parent.mkdirs();
+		}
+		File temp = new File(parent, file.getName() + ".tmp");
+		try {
+			byte[] content = JsonUtils.toJsonString(value).getBytes("UTF-8");
+			Files.write(temp.toPath(), content);
+			long replaced = file.length();
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			if (bytes.addAndGet(content.length - replaced) > maximumBytes) {
+				prune();
+			}
+		} catch (IOException e) {
+			logger.error(MessageFormat.format("Failed to write {0} {1}", name, file), e);
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Deletes the least recently used files until the folder is three
+	 * quarters of its maximum size.
+	 */
+	private synchronized void prune() {
+		if (bytes.get() <= maximumBytes) {
+			return;
+		}
+		List<File> files = listFiles();
+		final Map<File, Long> lastModified = new HashMap<File, Long>();
+		for (File file : files) {
+			lastModified.put(file, file.lastModified());
+		}
+		Collections.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				return Long.compare(lastModified.get(a), lastModified.get(b));
+			}
+		});
+		long size = getBytes(files);
+		long target = maximumBytes / 4 * 3;
+		int deleted = 0;
+		for (File file : files) {
+			if (size <= target) {
+				break;
+			}
+			long length = file.length();
+			if (file.delete()) {
+				size -= length;
+				deleted++;
+			}
+		}
+		bytes.set(size);
+		logger.debug("Pruned {} {} files from {}", deleted, name, root);
+	}
+
+	private List<File> listFiles() {
+		List<File> files = new ArrayList<File>();
+		File[] folders = root.listFiles();
+		if (folders == null) {
+			return files;
+		}
+		for (File folder : folders) {
+			File[] children = folder.listFiles();
+			if (children == null) {
+				continue;
+			}
+			for (File file : children) {
+				if (file.getName().endsWith(SUFFIX)) {
+					files.add(file);
+				}
+			}
+		}
+		return files;
+	}
+
+	private static long getBytes(List<File> files) {
+		long size = 0;
+		for (File file : files) {
+			size += file.length();
+		}
+		return size;
+	}
+
+	private File getFile(String key) {
+		String sha1;
+		try {
+			sha1 = StringUtils.getSHA1(key.getBytes("UTF-8"));
+		} catch (IOException e) {
+			return null;
+		}
+		return new File(new File(root, sha1.substring(0, 2)), sha1.substring(2) + SUFFIX);
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.cache;
+
+import com.gitblit.models.CacheStatistics;
+
+/**
+ * A cache created by an {@link ICacheProvider}.
+ *
+ * Each entry carries a stamp, e.g. the last modification time of the source
+ * of the value.  A lookup with a stamp only returns an entry which was stored
+ * with the same stamp so that stale entries are reloaded.  Concurrent loads of
+ * the same key and stamp are performed only once.
+ *
+ * @author agent
+ *
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ */
+public interface ICache<K, V> {
+
+	/**
+	 * Returns the name of the cache.
+	 *
+	 * @return the name
+	 */
+	String getName();
+
+	/**
+	 * Returns the cached value of a key, regardless of its stamp.
+	 *
+	 * @param key
+	 * @return the value or null
+	 */
+	V get(K key);
+
+	/**
+	 * Returns the cached value of a key, regardless of its stamp, without
+	 * counting a hit or a miss.  Used by loaders which update a stale value.
+	 *
+	 * @param key
+	 * @return the value or null
+	 */
+	V peek(K key);
+
+	/**
+	 * Returns the cached value of a key if it was stored with the stamp.
+	 *
+	 * @param key
+	 * @param stamp
+	 * @return the value or null
+	 */
+	V get(K key, long stamp);
+
+	/**
+	 * Returns the cached value of a key if it was stored with the stamp,
+	 * otherwise the value is loaded and stored with the stamp.  Concurrent
+	 * callers for the same key and stamp wait for a single load.
+	 *
+	 * @param key
+	 * @param stamp
+	 * @param loader
+	 * @return the value or null if the loader returned null
+	 */
+	V get(K key, long stamp, CacheLoader<K, V> loader);
+
+	/**
+	 * Stores a value with the stamp 0.
+	 *
+	 * @param key
+	 * @param value
+	 */
+	void put(K key, V value);
+
+	/**
+	 * Stores a value with a stamp.
+	 *
+	 * @param key
+	 * @param stamp
+	 * @param value
+	 */
+	void put(K key, long stamp, V value);
+
+	/**
+	 * Removes an entry.
+	 *
+	 * @param key
+	 * @return the removed value or null
+	 */
+	V remove(K key);
+
+	/**
+	 * Removes all entries.
+	 */
+	void clear();
+
+	/**
+	 * Returns the number of entries.
+	 *
+	 * @return the number of entries
+	 */
+	long size();
+
+	/**
+	 * Returns the statistics of the cache.
+	 *
+	 * @return the statistics
+	 */
+	CacheStatistics getStatistics();
+}
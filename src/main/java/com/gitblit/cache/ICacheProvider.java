@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.cache;
+
+import java.util.List;
+
+import com.gitblit.models.CacheStatistics;
+
+/**
+ * Creates the caches of Gitblit.  The provider is specified by the
+ * <i>cache.provider</i> setting and must have a public constructor which
+ * accepts an IRuntimeManager or a public no-argument constructor.
+ *
+ * @author agent
+ *
+ */
+public interface ICacheProvider {
+
+	/**
+	 * Returns the cache with the name of the configuration.  The cache is
+	 * created on the first request of the name.
+	 *
+	 * @param config
+	 * @return the cache
+	 */
+	<K, V> ICache<K, V> getCache(CacheConfig<K, V> config);
+
+	/**
+	 * Returns the statistics of all caches.
+	 *
+	 * @return the statistics sorted by cache name
+	 */
+	List<CacheStatistics> getStatistics();
+
+	/**
+	 * Removes all entries of all caches.
+	 */
+	void clear();
+}
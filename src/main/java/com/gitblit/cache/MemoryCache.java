@@ -0,0 +1,293 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.gitblit.models.CacheStatistics;
+
+/**
+ * An in-memory cache which evicts its least recently used entries when it
+ * exceeds its maximum size or weight.  Expired entries are removed when they
+ * are requested.
+ *
+ * @author agent
+ *
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ */
+public class MemoryCache<K, V> implements ICache<K, V> {
+
+	private final String name;
+
+	private final long maximumSize;
+
+	private final long maximumWeight;
+
+	private final Weigher<K, V> weigher;
+
+	private final long expireAfterWrite;
+
+	/**
+	 * The entries in access order.  This map also guards the total weight.
+	 */
+	private final LinkedHashMap<K, Entry<V>> entries;
+
+	private long weight;
+
+	private final ConcurrentMap<K, Load<V>> loads;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private final AtomicLong loadTime = new AtomicLong();
+
+	private static class Entry<V> {
+
+		final V value;
+
+		final long stamp;
+
+		final int weight;
+
+		final long written;
+
+		Entry(V value, long stamp, int weight) {
+			this.value = value;
+			this.stamp = stamp;
+			this.weight = weight;
+			this.written = System.nanoTime();
+		}
+	}
+
+	/**
+	 * A load in progress.  Callers which request the same key and stamp wait
+	 * for the load to complete.
+	 */
+	private static class Load<V> {
+
+		final long stamp;
+
+		final CountDownLatch done = new CountDownLatch(1);
+
+		volatile V value;
+
+		volatile RuntimeException failure;
+
+		Load(long stamp) {
+			this.stamp = stamp;
+		}
+
+		V await() {
+			boolean interrupted = false;
+			while (true) {
+				try {
+					done.await();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			return value;
+		}
+	}
+
+	public MemoryCache(CacheConfig<K, V> config) {
+		this.name = config.getName();
+		this.maximumSize = config.getMaximumSize();
+		this.maximumWeight = config.getMaximumWeight();
+		this.weigher = config.getWeigher();
+		this.expireAfterWrite = TimeUnit.MILLISECONDS.toNanos(config.getExpireAfterWrite());
+		this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+		this.loads = new ConcurrentHashMap<K, Load<V>>();
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public V get(K key) {
+		Entry<V> entry = lookup(key);
+		return count(entry == null ? null : entry.value);
+	}
+
+	@Override
+	public V peek(K key) {
+		Entry<V> entry = lookup(key);
+		return entry == null ? null : entry.value;
+	}
+
+	@Override
+	public V get(K key, long stamp) {
+		Entry<V> entry = lookup(key);
+		return count(entry == null || entry.stamp != stamp ? null : entry.value);
+	}
+
+	@Override
+	public V get(K key, long stamp, CacheLoader<K, V> loader) {
+		V value = get(key, stamp);
+		if (value != null) {
+			return value;
+		}
+		Load<V> load = new Load<V>(stamp);
+		Load<V> existing = loads.putIfAbsent(key, load);
+		if (existing != null) {
+			if (existing.stamp == stamp) {
+				return existing.await();
+			}
+			// a load for another stamp is in progress, do not wait for it
+			return load(key, stamp, loader);
+		}
+		try {
+			// the entry may have been loaded since the lookup
+			Entry<V> entry = lookup(key);
+			if (entry != null && entry.stamp == stamp) {
+				value = entry.value;
+			} else {
+				value = load(key, stamp, loader);
+			}
+			load.value = value;
+			return value;
+		} catch (RuntimeException e) {
+			load.failure = e;
+			throw e;
+		} finally {
+			loads.remove(key, load);
+			load.done.countDown();
+		}
+	}
+
+	@Override
+	public void put(K key, V value) {
+		put(key, 0, value);
+	}
+
+	@Override
+	public void put(K key, long stamp, V value) {
+		int w = weigher == null ? 1 : Math.max(1, weigher.weigh(key, value));
+		Entry<V> entry = new Entry<V>(value, stamp, w);
+		synchronized (entries) {
+			Entry<V> previous = entries.put(key, entry);
+			weight += w - (previous == null ? 0 : previous.weight);
+			Iterator<Entry<V>> eldest = entries.values().iterator();
+			while (exceeded() && eldest.hasNext()) {
+				weight -= eldest.next().weight;
+				eldest.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public V remove(K key) {
+		synchronized (entries) {
+			Entry<V> entry = entries.remove(key);
+			if (entry == null) {
+				return null;
+			}
+			weight -= entry.weight;
+			return entry.value;
+		}
+	}
+
+	@Override
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+			weight = 0;
+		}
+	}
+
+	@Override
+	public long size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	@Override
+	public CacheStatistics getStatistics() {
+		long size;
+		long total;
+		synchronized (entries) {
+			size = entries.size();
+			total = weight;
+		}
+		return new CacheStatistics(name, size, total, maximumWeight > 0 ? maximumWeight : maximumSize,
+				hits.get(), misses.get(), evictions.get(), loadTime.get());
+	}
+
+	private Entry<V> lookup(K key) {
+		synchronized (entries) {
+			Entry<V> entry = entries.get(key);
+			if (entry != null && expireAfterWrite > 0 && System.nanoTime() - entry.written > expireAfterWrite) {
+				entries.remove(key);
+				weight -= entry.weight;
+				evictions.incrementAndGet();
+				return null;
+			}
+			return entry;
+		}
+	}
+
+	private V count(V value) {
+		if (value == null) {
+			misses.incrementAndGet();
+		} else {
+			hits.incrementAndGet();
+		}
+		return value;
+	}
+
+	private V load(K key, long stamp, CacheLoader<K, V> loader) {
+		long start = System.nanoTime();
+		V value = loader.load(key);
+		loadTime.addAndGet(System.nanoTime() - start);
+		if (value != null) {
+			put(key, stamp, value);
+		}
+		return value;
+	}
+
+	private boolean exceeded() {
+		return (maximumSize > 0 && entries.size() > maximumSize)
+				|| (maximumWeight > 0 && weight > maximumWeight);
+	}
+
+	@Override
+	public String toString() {
+		return getStatistics().toString();
+	}
+}
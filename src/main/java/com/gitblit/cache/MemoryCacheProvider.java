@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.gitblit.models.CacheStatistics;
+
+/**
+ * The default cache provider which keeps each cache in the memory of this
+ * Gitblit instance.
+ *
+ * @author agent
+ *
+ */
+public class MemoryCacheProvider implements ICacheProvider {
+
+	private final Map<String, ICache<?, ?>> caches = new TreeMap<String, ICache<?, ?>>();
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public synchronized <K, V> ICache<K, V> getCache(CacheConfig<K, V> config) {
+		ICache<?, ?> cache = caches.get(config.getName());
+		if (cache == null) {
+			cache = new MemoryCache<K, V>(config);
+			caches.put(config.getName(), cache);
+		}
+		return (ICache<K, V>) cache;
+	}
+
+	@Override
+	public synchronized List<CacheStatistics> getStatistics() {
+		List<CacheStatistics> list = new ArrayList<CacheStatistics>();
+		for (ICache<?, ?> cache : caches.values()) {
+			list.add(cache.getStatistics());
+		}
+		return list;
+	}
+
+	@Override
+	public synchronized void clear() {
+		for (ICache<?, ?> cache : caches.values()) {
+			cache.clear();
+		}
+	}
+}
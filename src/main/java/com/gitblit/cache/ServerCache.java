@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.cache;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gitblit.models.CacheStatistics;
+import com.gitblit.utils.ServerMetrics;
+
+/**
+ * The base of the server-wide singleton caches.  The values are held by a
+ * bounded memory cache which is reported to the server metrics under the
+ * name of the cache.
+ *
+ * @author agent
+ *
+ * @param <V>
+ *            the value type
+ */
+public abstract class ServerCache<V> {
+
+	protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final String name;
+
+	protected volatile ICache<String, V> cache;
+
+	/**
+	 * Registers the cache with the server metrics.  The constructor of the
+	 * subclass must bound the cache with {@link #setMaximumWeight(long, Weigher)}.
+	 *
+	 * @param name
+	 *            the name of the cache
+	 */
+	protected ServerCache(String name) {
+		this.name = name;
+		ServerMetrics.instance().caches(name, new ServerMetrics.CacheSource() {
+			@Override
+			public List<CacheStatistics> getStatistics() {
+				return getAllStatistics();
+			}
+		});
+	}
+
+	/**
+	 * Replaces the cache with an empty cache which evicts the least recently
+	 * used values when the total weight of the values exceeds the maximum.
+	 *
+	 * @param maximumWeight
+	 * @param weigher
+	 */
+	protected void setMaximumWeight(long maximumWeight, Weigher<String, V> weigher) {
+		cache = new MemoryCache<String, V>(new CacheConfig<String, V>(name).maximumWeight(maximumWeight, weigher));
+	}
+
+	/**
+	 * Returns the statistics reported to the server metrics.
+	 *
+	 * @return the statistics of the cache and of any auxiliary caches
+	 */
+	protected List<CacheStatistics> getAllStatistics() {
+		return Collections.singletonList(cache.getStatistics());
+	}
+
+	/**
+	 * Returns the statistics of the cache.
+	 *
+	 * @return the cache statistics
+	 */
+	public CacheStatistics getStatistics() {
+		return cache.getStatistics();
+	}
+
+	/**
+	 * Clears the entire cache.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.cache;
+
+/**
+ * Computes the weight of a cache entry.
+ *
+ * @author agent
+ *
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ */
+public interface Weigher<K, V> {
+
+	/**
+	 * Returns the weight of an entry.  The weight of an entry is computed
+	 * when the entry is stored and must not change afterwards.
+	 *
+	 * @param key
+	 * @param value
+	 * @return the weight, at least 1
+	 */
+	int weigh(K key, V value);
+}
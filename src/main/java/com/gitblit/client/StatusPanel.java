@@ -24,6 +24,7 @@ import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
+import java.text.MessageFormat;
 
 import javax.swing.JButton;
 import javax.swing.JLabel;
@@ -33,6 +34,7 @@ import javax.swing.JTable;
 
 import com.gitblit.Constants;
 import com.gitblit.Constants.RpcRequest;
+import com.gitblit.models.CacheStatistics;
 import com.gitblit.models.ServerStatus;
 import com.gitblit.utils.ByteFormat;
 
@@ -51,6 +53,7 @@ public class StatusPanel extends JPanel {
 	private JLabel heapMaximum;
 	private JLabel heapAllocated;
 	private JLabel heapUsed;
+	private JLabel commitCache;
 	private PropertiesTableModel tableModel;
 	private HeaderPanel header;
 	private JLabel version;
@@ -80,6 +83,7 @@ public class StatusPanel extends JPanel {
 		heapMaximum = new JLabel();
 		heapAllocated = new JLabel();
 		heapUsed = new JLabel();
+		commitCache = new JLabel();
 
 		JPanel fieldsPanel = new JPanel(new GridLayout(0, 1, 0, Utils.MARGIN)) {
 
@@ -98,6 +102,7 @@ public class StatusPanel extends JPanel {
 		fieldsPanel.add(createFieldPanel("gb.heapUsed", heapUsed));
 		fieldsPanel.add(createFieldPanel("gb.heapAllocated", heapAllocated));
 		fieldsPanel.add(createFieldPanel("gb.heapMaximum", heapMaximum));
+		fieldsPanel.add(createFieldPanel("gb.commitCache", commitCache));
 
 		tableModel = new PropertiesTableModel();
 		JTable propertiesTable = Utils.newTable(tableModel, Utils.DATE_FORMAT);
@@ -164,6 +169,11 @@ public class StatusPanel extends JPanel {
 		heapAllocated.setText(byteFormat.format(status.heapAllocated));
 		heapUsed.setText(byteFormat.format(status.heapAllocated - status.heapFree) + " ("
 				+ byteFormat.format(status.heapFree) + " " + Translation.get("gb.free") + ")");
+		if (status.commitCache != null) {
+			CacheStatistics stats = status.commitCache;
+			commitCache.setText(MessageFormat.format(Translation.get("gb.commitCacheStatistics"),
+					stats.weight, stats.entries, Math.round(stats.getHitRate() * 100), stats.evictions));
+		}
 		tableModel.setProperties(status.systemProperties);
 		tableModel.fireTableDataChanged();
 	}
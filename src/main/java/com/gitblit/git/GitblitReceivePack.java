@@ -74,7 +74,9 @@ import com.gitblit.tickets.TicketNotifier;
 import com.gitblit.utils.ArrayUtils;
 import com.gitblit.utils.ClientLogger;
 import com.gitblit.utils.CommitCache;
+import com.gitblit.utils.CommitGraphCache;
 import com.gitblit.utils.JGitUtils;
+import com.gitblit.utils.LastChangeCache;
 import com.gitblit.utils.RefLogUtils;
 import com.gitblit.utils.StringUtils;
 import com.google.common.collect.Lists;
@@ -365,6 +367,10 @@ public class GitblitReceivePack extends ReceivePack implements PreReceiveHook, P
 		}
 
 		logRefChange(commands);
+		LastChangeCache.instance().update(rp.getRepository(), commands);
+		CommitGraphCache.instance().update(rp.getRepository(), commands);
+		// do not wait for the watch event
+		gitblit.setRepositoryChanged(repository.name);
 		updateIncrementalPushTags(commands);
 		updateGitblitRefLog(commands);
 
@@ -22,6 +22,8 @@ import com.gitblit.AvatarGenerator;
 import com.gitblit.Constants;
 import com.gitblit.servlet.AccessDeniedServlet;
 import com.gitblit.servlet.BranchGraphServlet;
+import com.gitblit.servlet.DiffFilter;
+import com.gitblit.servlet.DiffServlet;
 import com.gitblit.servlet.DownloadZipFilter;
 import com.gitblit.servlet.DownloadZipServlet;
 import com.gitblit.servlet.EnforceAuthenticationFilter;
@@ -30,12 +32,15 @@ import com.gitblit.servlet.FilestoreServlet;
 import com.gitblit.servlet.GitFilter;
 import com.gitblit.servlet.GitServlet;
 import com.gitblit.servlet.LogoServlet;
+import com.gitblit.servlet.MetricsFilter;
+import com.gitblit.servlet.MetricsServlet;
 import com.gitblit.servlet.PagesFilter;
 import com.gitblit.servlet.PagesServlet;
 import com.gitblit.servlet.ProxyFilter;
 import com.gitblit.servlet.PtServlet;
 import com.gitblit.servlet.RawFilter;
 import com.gitblit.servlet.RawServlet;
+import com.gitblit.servlet.RequestMetricsFilter;
 import com.gitblit.servlet.RobotsTxtServlet;
 import com.gitblit.servlet.RpcFilter;
 import com.gitblit.servlet.RpcServlet;
@@ -75,7 +80,9 @@ public class WebModule extends ServletModule {
 		serve(fuzzy(Constants.FEDERATION_PATH)).with(FederationServlet.class);
 		serve(fuzzy(Constants.SPARKLESHARE_INVITE_PATH)).with(SparkleShareInviteServlet.class);
 		serve(fuzzy(Constants.BRANCH_GRAPH_PATH)).with(BranchGraphServlet.class);
+		serve(fuzzy(Constants.DIFF_PATH)).with(DiffServlet.class);
 		serve(Constants.PT_PATH).with(PtServlet.class);
+		serve(Constants.METRICS_PATH).with(MetricsServlet.class);
 		serve("/robots.txt").with(RobotsTxtServlet.class);
 		serve("/logo.png").with(LogoServlet.class);
 
@@ -91,23 +98,26 @@ public class WebModule extends ServletModule {
 		serve(fuzzy("/com/")).with(AccessDeniedServlet.class);
 
 		// global filters
+		filter(ALL).through(RequestMetricsFilter.class);
 		filter(ALL).through(ProxyFilter.class);
 		filter(ALL).through(EnforceAuthenticationFilter.class);
 
 		// security filters
 		filter(fuzzy(Constants.R_PATH), fuzzy(Constants.GIT_PATH)).through(GitFilter.class);
 		filter(fuzzy(Constants.RAW_PATH)).through(RawFilter.class);
+		filter(fuzzy(Constants.DIFF_PATH)).through(DiffFilter.class);
 		filter(fuzzy(Constants.PAGES)).through(PagesFilter.class);
 		filter(fuzzy(Constants.RPC_PATH)).through(RpcFilter.class);
 		filter(fuzzy(Constants.ZIP_PATH)).through(DownloadZipFilter.class);
 		filter(fuzzy(Constants.SYNDICATION_PATH)).through(SyndicationFilter.class);
+		filter(Constants.METRICS_PATH).through(MetricsFilter.class);
 		
 		
 		// Wicket
 		String toIgnore = Joiner.on(",").join(Constants.R_PATH, Constants.GIT_PATH, Constants.RAW_PATH,
 				Constants.PAGES, Constants.RPC_PATH, Constants.ZIP_PATH, Constants.SYNDICATION_PATH,
 				Constants.FEDERATION_PATH, Constants.SPARKLESHARE_INVITE_PATH, Constants.BRANCH_GRAPH_PATH,
-				Constants.PT_PATH, "/robots.txt", "/logo.png");
+				Constants.DIFF_PATH, Constants.PT_PATH, Constants.METRICS_PATH, "/robots.txt", "/logo.png");
 
 		Map<String, String> params = new HashMap<String, String>();
 		params.put(GitblitWicketFilter.FILTER_MAPPING_PARAM, ALL);
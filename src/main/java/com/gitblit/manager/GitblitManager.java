@@ -55,6 +55,10 @@ import com.gitblit.Constants.FederationToken;
 import com.gitblit.Constants.Role;
 import com.gitblit.GitBlitException;
 import com.gitblit.IStoredSettings;
+import com.gitblit.cache.CacheConfig;
+import com.gitblit.cache.CacheLoader;
+import com.gitblit.cache.ICache;
+import com.gitblit.cache.ICacheProvider;
 import com.gitblit.extensions.RepositoryLifeCycleListener;
 import com.gitblit.models.FederationModel;
 import com.gitblit.models.FederationProposal;
@@ -81,7 +85,6 @@ import com.gitblit.transport.ssh.IPublicKeyManager;
 import com.gitblit.transport.ssh.SshKey;
 import com.gitblit.utils.ArrayUtils;
 import com.gitblit.utils.JsonUtils;
-import com.gitblit.utils.ObjectCache;
 import com.gitblit.utils.StringUtils;
 import com.gitblit.utils.XssFilter;
 import com.google.gson.Gson;
@@ -110,7 +113,7 @@ public class GitblitManager implements IGitblit {
 
 	protected final Logger logger = LoggerFactory.getLogger(getClass());
 
-	protected final ObjectCache<Collection<GitClientApplication>> clientApplications = new ObjectCache<Collection<GitClientApplication>>();
+	protected final ICache<String, Collection<GitClientApplication>> clientApplications;
 
 	protected final Provider<IPublicKeyManager> publicKeyManagerProvider;
 
@@ -163,6 +166,9 @@ public class GitblitManager implements IGitblit {
 		this.projectManager = projectManager;
 		this.federationManager = federationManager;
 		this.filestoreManager = filestoreManager;
+
+		this.clientApplications = runtimeManager.getCacheProvider().getCache(
+				new CacheConfig<String, Collection<GitClientApplication>>("clientApplications"));
 	}
 
 	@Override
@@ -391,42 +397,44 @@ public class GitblitManager implements IGitblit {
 	@Override
 	public Collection<GitClientApplication> getClientApplications() {
 		// prefer user definitions, if they exist
-		File userDefs = new File(runtimeManager.getBaseFolder(), "clientapps.json");
+		final File userDefs = new File(runtimeManager.getBaseFolder(), "clientapps.json");
 		if (userDefs.exists()) {
-			Date lastModified = new Date(userDefs.lastModified());
-			if (clientApplications.hasCurrent("user", lastModified)) {
-				return clientApplications.getObject("user");
-			} else {
-				// (re)load user definitions
-				try {
-					InputStream is = new FileInputStream(userDefs);
-					Collection<GitClientApplication> clients = readClientApplications(is);
-					is.close();
-					if (clients != null) {
-						clientApplications.updateObject("user", lastModified, clients);
+			Collection<GitClientApplication> clients = clientApplications.get("user", userDefs.lastModified(),
+					new CacheLoader<String, Collection<GitClientApplication>>() {
+				@Override
+				public Collection<GitClientApplication> load(String key) {
+					// (re)load user definitions
+					try {
+						InputStream is = new FileInputStream(userDefs);
+						Collection<GitClientApplication> clients = readClientApplications(is);
+						is.close();
 						return clients;
+					} catch (IOException e) {
+						logger.error("Failed to deserialize " + userDefs.getAbsolutePath(), e);
 					}
-				} catch (IOException e) {
-					logger.error("Failed to deserialize " + userDefs.getAbsolutePath(), e);
+					return null;
 				}
+			});
+			if (clients != null) {
+				return clients;
 			}
 		}
 
 		// no user definitions, use system definitions
-		if (!clientApplications.hasCurrent("system", new Date(0))) {
-			try {
-				InputStream is = GitblitManager.class.getResourceAsStream("/clientapps.json");
-				Collection<GitClientApplication> clients = readClientApplications(is);
-				is.close();
-				if (clients != null) {
-					clientApplications.updateObject("system", new Date(0), clients);
+		return clientApplications.get("system", 0, new CacheLoader<String, Collection<GitClientApplication>>() {
+			@Override
+			public Collection<GitClientApplication> load(String key) {
+				try {
+					InputStream is = GitblitManager.class.getResourceAsStream("/clientapps.json");
+					Collection<GitClientApplication> clients = readClientApplications(is);
+					is.close();
+					return clients;
+				} catch (IOException e) {
+					logger.error("Failed to deserialize clientapps.json resource!", e);
 				}
-			} catch (IOException e) {
-				logger.error("Failed to deserialize clientapps.json resource!", e);
+				return null;
 			}
-		}
-
-		return clientApplications.getObject("system");
+		});
 	}
 
 	private Collection<GitClientApplication> readClientApplications(InputStream is) {
@@ -615,6 +623,11 @@ public class GitblitManager implements IGitblit {
 		return runtimeManager.getXssFilter();
 	}
 
+	@Override
+	public ICacheProvider getCacheProvider() {
+		return runtimeManager.getCacheProvider();
+	}
+
 	/*
 	 * NOTIFICATION MANAGER
 	 */
@@ -756,6 +769,11 @@ public class GitblitManager implements IGitblit {
 		return userManager.isInternalAccount(username);
 	}
 
+	@Override
+	public long getStarCount(String repository) {
+		return userManager.getStarCount(repository);
+	}
+
 	@Override
 	public List<String> getAllUsernames() {
 		return userManager.getAllUsernames();
@@ -948,6 +966,11 @@ public class GitblitManager implements IGitblit {
 		repositoryManager.resetRepositoryCache(repositoryName);
 	}
 
+	@Override
+	public void setRepositoryChanged(String repositoryName) {
+		repositoryManager.setRepositoryChanged(repositoryName);
+	}
+
 	@Override
 	public List<String> getRepositoryList() {
 		return repositoryManager.getRepositoryList();
@@ -166,6 +166,15 @@ public interface IRepositoryManager extends IManager {
 	 */
 	void resetRepositoryCache(String repositoryName);
 
+	/**
+	 * Flags the cached data of a repository as changed so that it is refreshed
+	 * on the next read without waiting for the repository watcher.
+	 *
+	 * @param repositoryName
+	 * @since 1.9.2
+	 */
+	void setRepositoryChanged(String repositoryName);
+
 	/**
 	 * Returns the list of all repositories available to Gitblit. This method
 	 * does not consider user access permissions.
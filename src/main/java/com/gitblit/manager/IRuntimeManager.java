@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.TimeZone;
 
 import com.gitblit.IStoredSettings;
+import com.gitblit.cache.ICacheProvider;
 import com.gitblit.models.ServerSettings;
 import com.gitblit.models.ServerStatus;
 import com.gitblit.utils.XssFilter;
@@ -126,4 +127,12 @@ public interface IRuntimeManager extends IManager {
 	 * @return the HTML sanitizer
 	 */
 	XssFilter getXssFilter();
+
+	/**
+	 * Returns the provider of the caches of Gitblit.
+	 *
+	 * @return the cache provider
+	 * @since 1.9.2
+	 */
+	ICacheProvider getCacheProvider();
 }
\ No newline at end of file
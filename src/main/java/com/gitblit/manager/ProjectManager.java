@@ -19,7 +19,6 @@ import java.io.File;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -34,12 +33,16 @@ import org.slf4j.LoggerFactory;
 
 import com.gitblit.IStoredSettings;
 import com.gitblit.Keys;
+import com.gitblit.cache.CacheConfig;
+import com.gitblit.cache.CacheLoader;
+import com.gitblit.cache.ICache;
+import com.gitblit.cache.ICacheProvider;
+import com.gitblit.cache.Weigher;
 import com.gitblit.models.ProjectModel;
 import com.gitblit.models.RepositoryModel;
 import com.gitblit.models.UserModel;
 import com.gitblit.utils.DeepCopier;
 import com.gitblit.utils.ModelUtils;
-import com.gitblit.utils.ObjectCache;
 import com.gitblit.utils.StringUtils;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -57,9 +60,9 @@ public class ProjectManager implements IProjectManager {
 
 	private final Map<String, ProjectModel> projectCache = new ConcurrentHashMap<String, ProjectModel>();
 
-	private final ObjectCache<String> projectMarkdownCache = new ObjectCache<String>();
+	private final ICache<String, String> projectMarkdownCache;
 
-	private final ObjectCache<String> projectRepositoriesMarkdownCache = new ObjectCache<String>();
+	private final ICache<String, String> projectRepositoriesMarkdownCache;
 
 	private final IStoredSettings settings;
 
@@ -81,6 +84,43 @@ public class ProjectManager implements IProjectManager {
 		this.runtimeManager = runtimeManager;
 		this.userManager = userManager;
 		this.repositoryManager = repositoryManager;
+
+		ICacheProvider caches = runtimeManager.getCacheProvider();
+		this.projectMarkdownCache = caches.getCache(markdownCacheConfig("projectMarkdown"));
+		this.projectRepositoriesMarkdownCache = caches.getCache(markdownCacheConfig("projectRepositoriesMarkdown"));
+	}
+
+	/**
+	 * Returns the configuration of a markdown cache, bounded by the total
+	 * length of the cached markdown.
+	 *
+	 * @param name
+	 * @return the cache configuration
+	 */
+	private static CacheConfig<String, String> markdownCacheConfig(String name) {
+		return new CacheConfig<String, String>(name).maximumWeight(4 * 1024 * 1024, new Weigher<String, String>() {
+			@Override
+			public int weigh(String project, String markdown) {
+				return markdown.length();
+			}
+		});
+	}
+
+	/**
+	 * Reads the markdown file of a project.
+	 */
+	private static class MarkdownLoader implements CacheLoader<String, String> {
+
+		private final File file;
+
+		MarkdownLoader(File file) {
+			this.file = file;
+		}
+
+		@Override
+		public String load(String project) {
+			return com.gitblit.utils.FileUtils.readContent(file,  "\n");
+		}
 	}
 
 	@Override
@@ -101,23 +141,13 @@ public class ProjectManager implements IProjectManager {
 		// project markdown
 		File pmkd = new File(repositoryManager.getRepositoriesFolder(), (project.isRoot ? "" : project.name) + "/project.mkd");
 		if (pmkd.exists()) {
-			Date lm = new Date(pmkd.lastModified());
-			if (!projectMarkdownCache.hasCurrent(project.name, lm)) {
-				String mkd = com.gitblit.utils.FileUtils.readContent(pmkd,  "\n");
-				projectMarkdownCache.updateObject(project.name, lm, mkd);
-			}
-			project.projectMarkdown = projectMarkdownCache.getObject(project.name);
+			project.projectMarkdown = projectMarkdownCache.get(project.name, pmkd.lastModified(), new MarkdownLoader(pmkd));
 		}
 
 		// project repositories markdown
 		File rmkd = new File(repositoryManager.getRepositoriesFolder(), (project.isRoot ? "" : project.name) + "/repositories.mkd");
 		if (rmkd.exists()) {
-			Date lm = new Date(rmkd.lastModified());
-			if (!projectRepositoriesMarkdownCache.hasCurrent(project.name, lm)) {
-				String mkd = com.gitblit.utils.FileUtils.readContent(rmkd,  "\n");
-				projectRepositoriesMarkdownCache.updateObject(project.name, lm, mkd);
-			}
-			project.repositoriesMarkdown = projectRepositoriesMarkdownCache.getObject(project.name);
+			project.repositoriesMarkdown = projectRepositoriesMarkdownCache.get(project.name, rmkd.lastModified(), new MarkdownLoader(rmkd));
 		}
 	}
 
@@ -19,6 +19,7 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
@@ -39,6 +40,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -69,6 +71,10 @@ import com.gitblit.Constants.RegistrantType;
 import com.gitblit.GitBlitException;
 import com.gitblit.IStoredSettings;
 import com.gitblit.Keys;
+import com.gitblit.cache.CacheConfig;
+import com.gitblit.cache.CacheLoader;
+import com.gitblit.cache.ICache;
+import com.gitblit.cache.Weigher;
 import com.gitblit.extensions.RepositoryLifeCycleListener;
 import com.gitblit.models.ForkModel;
 import com.gitblit.models.Metric;
@@ -81,17 +87,32 @@ import com.gitblit.models.UserModel;
 import com.gitblit.service.GarbageCollectorService;
 import com.gitblit.service.LuceneService;
 import com.gitblit.service.MirrorService;
+import com.gitblit.service.RepositoryWatchService;
 import com.gitblit.utils.ArrayUtils;
+import com.gitblit.utils.BlameCache;
+import com.gitblit.utils.BranchMetrics;
 import com.gitblit.utils.ByteFormat;
 import com.gitblit.utils.CommitCache;
-import com.gitblit.utils.DeepCopier;
+import com.gitblit.utils.CommitCacheStore;
+import com.gitblit.utils.CommitGraphCache;
+import com.gitblit.utils.DiffCache;
 import com.gitblit.utils.JGitUtils;
 import com.gitblit.utils.JGitUtils.LastChange;
+import com.gitblit.utils.LastChangeCache;
+import com.gitblit.utils.LastCommitCache;
 import com.gitblit.utils.MetricUtils;
 import com.gitblit.utils.ModelUtils;
-import com.gitblit.utils.ObjectCache;
+import com.gitblit.utils.RefCache;
+import com.gitblit.utils.RevLogIndex;
+import com.gitblit.utils.RepositoryFingerprint;
+import com.gitblit.utils.RepositoryForkIndex;
+import com.gitblit.utils.RepositoryManifest;
+import com.gitblit.utils.RepositorySizeTracker;
+import com.gitblit.utils.RepositoryVisibilityIndex;
+import com.gitblit.utils.ServerMetrics;
 import com.gitblit.utils.StringUtils;
 import com.gitblit.utils.TimeUtils;
+import com.gitblit.utils.TreeListingCache;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -109,14 +130,27 @@ public class RepositoryManager implements IRepositoryManager {
 
 	private final ScheduledExecutorService scheduledExecutor = Executors.newScheduledThreadPool(5);
 
-	private final ObjectCache<Long> repositorySizeCache = new ObjectCache<Long>();
+	private final RepositorySizeTracker repositorySizeTracker = new RepositorySizeTracker();
 
-	private final ObjectCache<List<Metric>> repositoryMetricsCache = new ObjectCache<List<Metric>>();
+	private final ICache<String, BranchMetrics> repositoryMetricsCache;
 
 	private final Map<String, RepositoryModel> repositoryListCache = new ConcurrentHashMap<String, RepositoryModel>();
 
 	private final AtomicReference<String> repositoryListSettingsChecksum = new AtomicReference<String>("");
 
+	private final Map<String, RepositoryFingerprint> repositoryFingerprints = new ConcurrentHashMap<String, RepositoryFingerprint>();
+
+	private final Set<String> unverifiedRepositories = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	private final RepositoryVisibilityIndex visibilityIndex = new RepositoryVisibilityIndex() {
+		@Override
+		protected RepositoryModel getCachedModel(String name) {
+			return repositoryListCache.get(getRepositoryKey(name));
+		}
+	};
+
+	private final RepositoryForkIndex forkIndex = new RepositoryForkIndex();
+
 	private final IStoredSettings settings;
 
 	private final IRuntimeManager runtimeManager;
@@ -133,6 +167,10 @@ public class RepositoryManager implements IRepositoryManager {
 
 	private MirrorService mirrorExecutor;
 
+	private RepositoryManifest repositoryManifest;
+
+	private RepositoryWatchService repositoryWatcher;
+
 	@Inject
 	public RepositoryManager(
 			IRuntimeManager runtimeManager,
@@ -143,6 +181,13 @@ public class RepositoryManager implements IRepositoryManager {
 		this.runtimeManager = runtimeManager;
 		this.pluginManager = pluginManager;
 		this.userManager = userManager;
+		this.repositoryMetricsCache = runtimeManager.getCacheProvider().getCache(
+				new CacheConfig<String, BranchMetrics>("repositoryMetrics").maximumWeight(1000000, new Weigher<String, BranchMetrics>() {
+					@Override
+					public int weigh(String name, BranchMetrics metrics) {
+						return metrics.getWeight();
+					}
+				}));
 	}
 
 	@Override
@@ -159,15 +204,30 @@ public class RepositoryManager implements IRepositoryManager {
 
 		// build initial repository list
 		if (settings.getBoolean(Keys.git.cacheRepositoryList,  true)) {
-			logger.info("Identifying repositories...");
-			getRepositoryList();
+			configureRepositoryWatcher();
+			configureRepositoryManifest();
+			if (!loadRepositoryManifest()) {
+				logger.info("Identifying repositories...");
+				getRepositoryList();
+				saveRepositoryManifest();
+			}
 		}
 
 		configureLuceneIndexing();
 		configureGarbageCollector();
 		configureMirrorExecutor();
 		configureJGit();
+		configureCommitGraph();
+		configureRefCache();
+		configureLastChangeCache();
 		configureCommitCache();
+		configureTreeListingCache();
+		configureLastCommitCache();
+		configureBlameCache();
+		configureDiffCache();
+		configureLogIndex();
+		configureRepositorySizeTracker();
+		configureMetrics();
 
 		confirmWriteAccess();
 
@@ -180,7 +240,12 @@ public class RepositoryManager implements IRepositoryManager {
 		luceneExecutor.close();
 		gcExecutor.close();
 		mirrorExecutor.close();
+		if (repositoryWatcher != null) {
+			repositoryWatcher.close();
+		}
 
+		saveRepositoryManifest();
+		CommitCache.instance().save();
 		closeAll();
 		return this;
 	}
@@ -430,15 +495,32 @@ public class RepositoryManager implements IRepositoryManager {
 	public void addToCachedRepositoryList(RepositoryModel model) {
 		if (settings.getBoolean(Keys.git.cacheRepositoryList, true)) {
 			String key = getRepositoryKey(model.name);
+			// reconcile the fork list of the model with the fork index
+			if (!ArrayUtils.isEmpty(model.forks)) {
+				for (String fork : model.forks) {
+					String forkKey = getRepositoryKey(fork);
+					if (repositoryListCache.containsKey(forkKey)) {
+						forkIndex.add(forkKey, fork, key);
+					}
+				}
+			}
+			for (String fork : forkIndex.getForks(key)) {
+				model.addFork(fork);
+			}
 			repositoryListCache.put(key, model);
+			visibilityIndex.add(model.name);
+			watchRepository(key, model.name);
 
 			// update the fork origin repository with this repository clone
 			if (!StringUtils.isEmpty(model.originRepository)) {
 				String originKey = getRepositoryKey(model.originRepository);
-				if (repositoryListCache.containsKey(originKey)) {
-					RepositoryModel origin = repositoryListCache.get(originKey);
+				forkIndex.add(key, model.name, originKey);
+				RepositoryModel origin = repositoryListCache.get(originKey);
+				if (origin != null) {
 					origin.addFork(model.name);
 				}
+			} else {
+				forkIndex.remove(key);
 			}
 		}
 	}
@@ -454,7 +536,24 @@ public class RepositoryManager implements IRepositoryManager {
 			return null;
 		}
 		String key = getRepositoryKey(name);
-		return repositoryListCache.remove(key);
+		repositoryFingerprints.remove(key);
+		unverifiedRepositories.remove(key);
+		if (repositoryWatcher != null) {
+			repositoryWatcher.unwatch(key);
+		}
+		RepositoryModel model = repositoryListCache.remove(key);
+		visibilityIndex.remove(model == null ? name : model.name);
+
+		// remove this repository from the fork list of its origin
+		String originKey = forkIndex.getOrigin(key);
+		forkIndex.remove(key);
+		if (originKey != null && model != null) {
+			RepositoryModel origin = repositoryListCache.get(originKey);
+			if (origin != null) {
+				origin.removeFork(model.name);
+			}
+		}
+		return model;
 	}
 
 	/**
@@ -463,9 +562,12 @@ public class RepositoryManager implements IRepositoryManager {
 	 * @param repositoryName
 	 */
 	private void clearRepositoryMetadataCache(String repositoryName) {
-		repositorySizeCache.remove(repositoryName);
+		repositorySizeTracker.remove(repositoryName);
 		repositoryMetricsCache.remove(repositoryName);
 		CommitCache.instance().clear(repositoryName);
+		LastChangeCache.instance().clear(new File(repositoriesFolder, repositoryName));
+		CommitGraphCache.instance().clear(new File(repositoriesFolder, repositoryName));
+		RefCache.instance().clear(new File(repositoriesFolder, repositoryName));
 	}
 
 	/**
@@ -482,6 +584,24 @@ public class RepositoryManager implements IRepositoryManager {
 		getRepositoryModel(repositoryName);
 	}
 
+	/**
+	 * Flags the cached data of a repository as changed so that it is refreshed
+	 * on the next read without waiting for the repository watcher.  The size
+	 * of the repository is re-measured by the next reconciliation.
+	 *
+	 * @param repositoryName
+	 */
+	@Override
+	public void setRepositoryChanged(String repositoryName) {
+		if (StringUtils.isEmpty(repositoryName)) {
+			return;
+		}
+		repositorySizeTracker.invalidate(repositoryName);
+		if (repositoryWatcher != null) {
+			repositoryWatcher.setChanged(getRepositoryKey(repositoryName));
+		}
+	}
+
 	/**
 	 * Resets the repository list cache.
 	 *
@@ -490,9 +610,19 @@ public class RepositoryManager implements IRepositoryManager {
 	public void resetRepositoryListCache() {
 		logger.info("Repository cache manually reset");
 		repositoryListCache.clear();
-		repositorySizeCache.clear();
+		visibilityIndex.invalidate();
+		forkIndex.clear();
+		repositoryFingerprints.clear();
+		unverifiedRepositories.clear();
+		if (repositoryWatcher != null) {
+			repositoryWatcher.unwatchAll();
+		}
+		repositorySizeTracker.clear();
 		repositoryMetricsCache.clear();
 		CommitCache.instance().clear();
+		LastChangeCache.instance().clear();
+		CommitGraphCache.instance().clear();
+		RefCache.instance().clear();
 	}
 
 	/**
@@ -523,6 +653,13 @@ public class RepositoryManager implements IRepositoryManager {
 		if (!valid && settings.getBoolean(Keys.git.cacheRepositoryList,  true)) {
 			logger.info("Repository list settings have changed. Clearing repository list cache.");
 			repositoryListCache.clear();
+			visibilityIndex.invalidate();
+			forkIndex.clear();
+			repositoryFingerprints.clear();
+			unverifiedRepositories.clear();
+			if (repositoryWatcher != null) {
+				repositoryWatcher.unwatchAll();
+			}
 		}
 		return valid;
 	}
@@ -538,11 +675,7 @@ public class RepositoryManager implements IRepositoryManager {
 		if (repositoryListCache.size() == 0 || !isValidRepositoryList()) {
 			// we are not caching OR we have not yet cached OR the cached list is invalid
 			long startTime = System.currentTimeMillis();
-			List<String> repositories = JGitUtils.getRepositoryList(repositoriesFolder,
-					settings.getBoolean(Keys.git.onlyAccessBareRepositories, false),
-					settings.getBoolean(Keys.git.searchRepositoriesSubfolders, true),
-					settings.getInteger(Keys.git.searchRecursionDepth, -1),
-					settings.getStrings(Keys.git.searchExclusions));
+			List<String> repositories = findRepositories(repositoriesFolder);
 
 			if (!settings.getBoolean(Keys.git.cacheRepositoryList,  true)) {
 				// we are not caching
@@ -561,15 +694,7 @@ public class RepositoryManager implements IRepositoryManager {
 				}
 
 				// rebuild fork networks
-				for (RepositoryModel model : repositoryListCache.values()) {
-					if (!StringUtils.isEmpty(model.originRepository)) {
-						String originKey = getRepositoryKey(model.originRepository);
-						if (repositoryListCache.containsKey(originKey)) {
-							RepositoryModel origin = repositoryListCache.get(originKey);
-							origin.addFork(model.name);
-						}
-					}
-				}
+				rebuildForkNetworks();
 
 				long duration = System.currentTimeMillis() - startTime;
 				logger.info(MessageFormat.format(msg, repositoryListCache.size(), duration));
@@ -585,6 +710,40 @@ public class RepositoryManager implements IRepositoryManager {
 		return list;
 	}
 
+	/**
+	 * Searches the specified folder for repositories using the repository
+	 * search settings.
+	 *
+	 * @param folder
+	 * @return the sorted list of repository names relative to the folder
+	 */
+	private List<String> findRepositories(File folder) {
+		return JGitUtils.getRepositoryList(folder,
+				settings.getBoolean(Keys.git.onlyAccessBareRepositories, false),
+				settings.getBoolean(Keys.git.searchRepositoriesSubfolders, true),
+				settings.getInteger(Keys.git.searchRecursionDepth, -1),
+				settings.getStrings(Keys.git.searchExclusions),
+				settings.getInteger(Keys.git.searchParallelism, 0));
+	}
+
+	/**
+	 * Indexes every cached fork and adds it to the fork list of its cached
+	 * origin.
+	 */
+	private void rebuildForkNetworks() {
+		for (Map.Entry<String, RepositoryModel> entry : repositoryListCache.entrySet()) {
+			RepositoryModel model = entry.getValue();
+			if (!StringUtils.isEmpty(model.originRepository)) {
+				String originKey = getRepositoryKey(model.originRepository);
+				forkIndex.add(entry.getKey(), model.name, originKey);
+				RepositoryModel origin = repositoryListCache.get(originKey);
+				if (origin != null) {
+					origin.addFork(model.name);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Returns the JGit repository for the specified name.
 	 *
@@ -659,19 +818,30 @@ public class RepositoryManager implements IRepositoryManager {
 	@Override
 	public List<RepositoryModel> getRepositoryModels(UserModel user) {
 		long methodStart = System.currentTimeMillis();
+		// the generation is read first so that the index never adopts a stale list
+		long generation = visibilityIndex.getGeneration();
 		List<String> list = getRepositoryList();
 		List<RepositoryModel> repositories = new ArrayList<RepositoryModel>();
-		for (String repo : list) {
-			RepositoryModel model = getRepositoryModel(user, repo);
-			if (model != null) {
-				if (!model.hasCommits) {
-					// only add empty repositories that user can push to
-					if (UserModel.ANONYMOUS.canPush(model)
-							|| user != null && user.canPush(model)) {
-						repositories.add(model);
-					}
-				} else {
-					repositories.add(model);
+		UserModel viewer = user == null ? UserModel.ANONYMOUS : user;
+		if (settings.getBoolean(Keys.git.cacheRepositoryList, true) && visibilityIndex.isIndexable(viewer)) {
+			// scan the precomputed visibility of the user
+			RepositoryVisibilityIndex.Visible visible = visibilityIndex.getVisible(viewer, list, generation);
+			for (int i = visible.visible.nextSetBit(0); i >= 0; i = visible.visible.nextSetBit(i + 1)) {
+				RepositoryModel model = getRepositoryModel(visible.names.get(i));
+				if (model == null) {
+					continue;
+				}
+				if (visible.generation != visibilityIndex.getGeneration() && !viewer.canView(model)) {
+					// a repository was reloaded during the scan, confirm access
+					continue;
+				}
+				addAccessibleModel(repositories, user, model);
+			}
+		} else {
+			for (String repo : list) {
+				RepositoryModel model = getRepositoryModel(user, repo);
+				if (model != null) {
+					addAccessibleModel(repositories, user, model);
 				}
 			}
 		}
@@ -681,6 +851,26 @@ public class RepositoryManager implements IRepositoryManager {
 		return repositories;
 	}
 
+	/**
+	 * Adds a viewable repository to the list unless it is empty and the user
+	 * can not push to it.
+	 *
+	 * @param repositories
+	 * @param user
+	 * @param model
+	 */
+	private void addAccessibleModel(List<RepositoryModel> repositories, UserModel user, RepositoryModel model) {
+		if (!model.hasCommits) {
+			// only add empty repositories that user can push to
+			if (UserModel.ANONYMOUS.canPush(model)
+					|| user != null && user.canPush(model)) {
+				repositories.add(model);
+			}
+		} else {
+			repositories.add(model);
+		}
+	}
+
 	/**
 	 * Returns a repository model if the repository exists and the user may
 	 * access the repository.
@@ -722,19 +912,36 @@ public class RepositoryManager implements IRepositoryManager {
 				return null;
 			}
 			addToCachedRepositoryList(model);
-			return DeepCopier.copy(model);
+			return model.copy();
+		}
+
+		if (unverifiedRepositories.contains(repositoryKey)) {
+			// model was restored from the manifest, confirm it is current
+			verifyCachedModel(repositoryKey);
 		}
 
 		// cached model
 		RepositoryModel model = repositoryListCache.get(repositoryKey);
+		if (model == null) {
+			return null;
+		}
 
 		if (isCollectingGarbage(model.name)) {
 			// Gitblit is busy collecting garbage, use our cached model
-			RepositoryModel rm = DeepCopier.copy(model);
+			RepositoryModel rm = model.copy();
 			rm.isCollectingGarbage = true;
 			return rm;
 		}
 
+		if (repositoryWatcher != null) {
+			if (!repositoryWatcher.isChanged(repositoryKey)) {
+				// nothing has changed since the model was last refreshed
+				return model.copy();
+			}
+			// clear before refreshing so that concurrent changes are not lost
+			repositoryWatcher.clearChanged(repositoryKey);
+		}
+
 		// check for updates
 		Repository r = getRepository(model.name);
 		if (r == null) {
@@ -763,7 +970,7 @@ public class RepositoryManager implements IRepositoryManager {
 		r.close();
 
 		// return a copy of the cached model
-		return DeepCopier.copy(model);
+		return model.copy();
 	}
 
 	/**
@@ -774,13 +981,7 @@ public class RepositoryManager implements IRepositoryManager {
 	 */
 	@Override
 	public long getStarCount(RepositoryModel repository) {
-		long count = 0;
-		for (UserModel user : userManager.getAllUsers()) {
-			if (user.getPreferences().isStarredRepository(repository.name)) {
-				count++;
-			}
-		}
-		return count;
+		return userManager.getStarCount(repository.name);
 	}
 
 	/**
@@ -863,6 +1064,11 @@ public class RepositoryManager implements IRepositoryManager {
 		if (r == null) {
 			return null;
 		}
+		// fingerprint the repository before reading it for the manifest
+		RepositoryFingerprint fingerprint = null;
+		if (repositoryManifest != null) {
+			fingerprint = RepositoryFingerprint.of(r.getDirectory());
+		}
 		RepositoryModel model = new RepositoryModel();
 		model.isBare = r.isBare();
 		File basePath = getRepositoriesFolder();
@@ -960,6 +1166,10 @@ public class RepositoryManager implements IRepositoryManager {
 		updateLastChangeFields(r, model);
 		r.close();
 
+		if (fingerprint != null) {
+			repositoryFingerprints.put(getRepositoryKey(model.name), fingerprint);
+		}
+
 		if (StringUtils.isEmpty(model.originRepository) && model.origin != null && model.origin.startsWith("file://")) {
 			// repository was cloned locally... perhaps as a fork
 			try {
@@ -1049,47 +1259,28 @@ public class RepositoryManager implements IRepositoryManager {
 
 			// collect all origin nodes in fork network
 			Set<String> roots = new HashSet<String>();
-			roots.add(originKey);
-			RepositoryModel originModel = repositoryListCache.get(originKey);
-			while (originModel != null) {
-				if (!ArrayUtils.isEmpty(originModel.forks)) {
-					for (String fork : originModel.forks) {
-						if (!fork.startsWith(userPath)) {
-							roots.add(fork.toLowerCase());
-						}
+			String key = originKey;
+			while (key != null && roots.add(key)) {
+				for (String fork : forkIndex.getForks(key)) {
+					if (!fork.startsWith(userPath)) {
+						roots.add(getRepositoryKey(fork));
 					}
 				}
-
-				if (originModel.originRepository != null) {
-					String ooKey = getRepositoryKey(originModel.originRepository);
-					roots.add(ooKey);
-					originModel = repositoryListCache.get(ooKey);
-				} else {
-					// break
-					originModel = null;
-				}
+				key = forkIndex.getOrigin(key);
 			}
 
-			for (String repository : repositoryListCache.keySet()) {
-				if (repository.startsWith(userPath)) {
-					RepositoryModel model = repositoryListCache.get(repository);
-					if (!StringUtils.isEmpty(model.originRepository)) {
-						String ooKey = getRepositoryKey(model.originRepository);
-						if (roots.contains(ooKey)) {
-							// user has a fork in this graph
-							return model.name;
-						}
+			for (String root : roots) {
+				for (String fork : forkIndex.getForks(root)) {
+					if (getRepositoryKey(fork).startsWith(userPath)) {
+						// user has a fork in this graph
+						return fork;
 					}
 				}
 			}
 		} else {
 			// not caching
 			File subfolder = new File(getRepositoriesFolder(), userProject);
-			List<String> repositories = JGitUtils.getRepositoryList(subfolder,
-					settings.getBoolean(Keys.git.onlyAccessBareRepositories, false),
-					settings.getBoolean(Keys.git.searchRepositoriesSubfolders, true),
-					settings.getInteger(Keys.git.searchRecursionDepth, -1),
-					settings.getStrings(Keys.git.searchExclusions));
+			List<String> repositories = findRepositories(subfolder);
 			for (String repository : repositories) {
 				RepositoryModel model = getRepositoryModel(userProject + "/" + repository);
 				if (model.originRepository != null && model.originRepository.equalsIgnoreCase(origin)) {
@@ -1114,19 +1305,19 @@ public class RepositoryManager implements IRepositoryManager {
 		if (settings.getBoolean(Keys.git.cacheRepositoryList, true)) {
 			// find the root, cached
 			String key = getRepositoryKey(repository);
-			RepositoryModel model = repositoryListCache.get(key);
-			if (model == null) {
+			if (!repositoryListCache.containsKey(key)) {
 				return null;
 			}
 
-			while (model.originRepository != null) {
-				String originKey = getRepositoryKey(model.originRepository);
-				model = repositoryListCache.get(originKey);
-				if (model == null) {
+			Set<String> visited = new HashSet<String>();
+			String originKey;
+			while ((originKey = forkIndex.getOrigin(key)) != null && visited.add(key)) {
+				if (!repositoryListCache.containsKey(originKey)) {
 					return null;
 				}
+				key = originKey;
 			}
-			ForkModel root = getForkModelFromCache(model.name);
+			ForkModel root = getForkModelFromCache(key);
 			return root;
 		} else {
 			// find the root, non-cached
@@ -1139,19 +1330,16 @@ public class RepositoryManager implements IRepositoryManager {
 		}
 	}
 
-	private ForkModel getForkModelFromCache(String repository) {
-		String key = getRepositoryKey(repository);
+	private ForkModel getForkModelFromCache(String key) {
 		RepositoryModel model = repositoryListCache.get(key);
 		if (model == null) {
 			return null;
 		}
 		ForkModel fork = new ForkModel(model);
-		if (!ArrayUtils.isEmpty(model.forks)) {
-			for (String aFork : model.forks) {
-				ForkModel fm = getForkModelFromCache(aFork);
-				if (fm != null) {
-					fork.forks.add(fm);
-				}
+		for (String aFork : forkIndex.getForks(key)) {
+			ForkModel fm = getForkModelFromCache(getRepositoryKey(aFork));
+			if (fm != null) {
+				fork.forks.add(fm);
 			}
 		}
 		return fork;
@@ -1176,9 +1364,10 @@ public class RepositoryManager implements IRepositoryManager {
 
 	/**
 	 * Updates the last changed fields and optionally calculates the size of the
-	 * repository.  Gitblit caches the repository sizes to reduce the performance
-	 * penalty of recursive calculation. The cache is updated if the repository
-	 * has been changed since the last calculation.
+	 * repository.  Gitblit tracks the repository sizes to reduce the performance
+	 * penalty of recursive calculation.  Pack files are summed from the pack
+	 * list of the repository and everything else is reconciled by a periodic
+	 * task if the repository has been changed since the last calculation.
 	 *
 	 * @param model
 	 * @return size in bytes of the repository
@@ -1193,12 +1382,7 @@ public class RepositoryManager implements IRepositoryManager {
 			model.size = null;
 			return 0L;
 		}
-		if (!repositorySizeCache.hasCurrent(model.name, model.lastChange)) {
-			File gitDir = r.getDirectory();
-			long sz = com.gitblit.utils.FileUtils.folderSize(gitDir);
-			repositorySizeCache.updateObject(model.name, model.lastChange, sz);
-		}
-		long size = repositorySizeCache.getObject(model.name);
+		long size = repositorySizeTracker.getSize(model.name, r, model.lastChange);
 		ByteFormat byteFormat = new ByteFormat();
 		model.size = byteFormat.format(size);
 		return size;
@@ -1286,22 +1470,27 @@ public class RepositoryManager implements IRepositoryManager {
 
 	/**
 	 * Returns the metrics for the default branch of the specified repository.
-	 * This method builds a metrics cache. The cache is updated if the
-	 * repository is updated. A new copy of the metrics list is returned on each
-	 * call so that modifications to the list are non-destructive.
+	 * This method builds a metrics cache. The cache is updated with the commits
+	 * since the cached metrics were computed if the repository is updated. A
+	 * new copy of the metrics list is returned on each call so that
+	 * modifications to the list are non-destructive.
 	 *
 	 * @param model
 	 * @param repository
 	 * @return a new array list of metrics
 	 */
 	@Override
-	public List<Metric> getRepositoryDefaultMetrics(RepositoryModel model, Repository repository) {
-		if (repositoryMetricsCache.hasCurrent(model.name, model.lastChange)) {
-			return new ArrayList<Metric>(repositoryMetricsCache.getObject(model.name));
-		}
-		List<Metric> metrics = MetricUtils.getDateMetrics(repository, null, true, null, runtimeManager.getTimezone());
-		repositoryMetricsCache.updateObject(model.name, model.lastChange, metrics);
-		return new ArrayList<Metric>(metrics);
+	public List<Metric> getRepositoryDefaultMetrics(RepositoryModel model, final Repository repository) {
+		long stamp = model.lastChange == null ? 0 : model.lastChange.getTime();
+		BranchMetrics metrics = repositoryMetricsCache.get(model.name, stamp, new CacheLoader<String, BranchMetrics>() {
+			@Override
+			public BranchMetrics load(String name) {
+				// update the stale metrics with the commits since they were computed
+				BranchMetrics previous = repositoryMetricsCache.peek(name);
+				return MetricUtils.getBranchMetrics(repository, null, runtimeManager.getTimezone(), previous);
+			}
+		});
+		return metrics.getDateMetrics(true, null);
 	}
 
 	/**
@@ -1511,8 +1700,10 @@ public class RepositoryManager implements IRepositoryManager {
 
 		// update repository cache
 		removeFromCachedRepositoryList(repositoryName);
-		// model will actually be replaced on next load because config is stale
 		addToCachedRepositoryList(repository);
+		// the new watch starts unchanged, flag it so that the next read
+		// refreshes the last change, size, and config of the cached model
+		setRepositoryChanged(repository.name);
 
 		if (isCreate && pluginManager != null) {
 			for (RepositoryLifeCycleListener listener : pluginManager.getExtensions(RepositoryLifeCycleListener.class)) {
@@ -1638,6 +1829,8 @@ public class RepositoryManager implements IRepositoryManager {
 		} catch (IOException e) {
 			logger.error("Failed to save repository config!", e);
 		}
+		// do not wait for the watch event
+		setRepositoryChanged(repository.name);
 	}
 
 	private void updateList(StoredConfig config, String field, List<String> list) {
@@ -1944,6 +2137,7 @@ public class RepositoryManager implements IRepositoryManager {
 		} catch (IllegalArgumentException e) {
 			logger.error("Failed to configure JGit parameters!", e);
 		}
+		configureJGitMetrics(cfg);
 
 		try {
 			// issue-486/ticket-151: UTF-9 & UTF-18
@@ -1960,6 +2154,342 @@ public class RepositoryManager implements IRepositoryManager {
 		}
 	}
 
+	protected void configureCommitGraph() {
+		CommitGraphCache.instance().setEnabled(settings.getBoolean(Keys.git.enableCommitGraph, true));
+		CommitGraphCache.instance().setMaximumCommits(settings.getLong(Keys.git.commitGraphCacheSize, 5000000L));
+		CommitGraphCache.instance().setChangedPathsEnabled(settings.getBoolean(Keys.git.enableChangedPathFilters, true));
+		CommitGraphCache.instance().setExecutor(scheduledExecutor);
+	}
+
+	protected void configureRefCache() {
+		RefCache.instance().setMaximumRefs(settings.getLong(Keys.git.refCacheSize, 200000L));
+	}
+
+	protected void configureLastChangeCache() {
+		LastChangeCache.instance().setMaximumTips(settings.getLong(Keys.git.lastChangeCacheSize, 100000L));
+	}
+
+	/**
+	 * Registers the configured limits and the open packs of the JGit window
+	 * cache with the server metrics.  JGit does not expose its window cache
+	 * so the open files and bytes are read by reflection.
+	 *
+	 * @param cfg
+	 */
+	protected void configureJGitMetrics(final WindowCacheConfig cfg) {
+		ServerMetrics metrics = ServerMetrics.instance();
+		metrics.gauge("jgit_window_cache_limit_bytes", "The maximum number of bytes of the JGit window cache.",
+				new ServerMetrics.Gauge() {
+			@Override
+			public double getValue() {
+				return cfg.getPackedGitLimit();
+			}
+		});
+		metrics.gauge("jgit_delta_base_cache_limit_bytes", "The maximum number of bytes of the JGit delta base cache.",
+				new ServerMetrics.Gauge() {
+			@Override
+			public double getValue() {
+				return cfg.getDeltaBaseCacheLimit();
+			}
+		});
+		try {
+			Class<?> windowCache = Class.forName("org.eclipse.jgit.internal.storage.file.WindowCache");
+			final Method getInstance = windowCache.getDeclaredMethod("getInstance");
+			final Method getOpenFiles = windowCache.getDeclaredMethod("getOpenFiles");
+			final Method getOpenBytes = windowCache.getDeclaredMethod("getOpenBytes");
+			getInstance.setAccessible(true);
+			getOpenFiles.setAccessible(true);
+			getOpenBytes.setAccessible(true);
+			metrics.gauge("jgit_window_cache_open_files", "The number of pack files held open by the JGit window cache.",
+					new ServerMetrics.Gauge() {
+				@Override
+				public double getValue() {
+					return invoke(getInstance, getOpenFiles);
+				}
+			});
+			metrics.gauge("jgit_window_cache_open_bytes", "The number of bytes held by the JGit window cache.",
+					new ServerMetrics.Gauge() {
+				@Override
+				public double getValue() {
+					return invoke(getInstance, getOpenBytes);
+				}
+			});
+		} catch (Throwable t) {
+			logger.warn("Failed to instrument the JGit window cache", t);
+		}
+	}
+
+	private static double invoke(Method getInstance, Method getter) {
+		try {
+			return ((Number) getter.invoke(getInstance.invoke(null))).doubleValue();
+		} catch (Exception e) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Registers the executor and the repository list cache with the server
+	 * metrics.
+	 */
+	protected void configureMetrics() {
+		ServerMetrics.instance().executor("repositories", scheduledExecutor);
+		ServerMetrics.instance().gauge("gitblit_repository_list_size", "The number of cached repository models.",
+				new ServerMetrics.Gauge() {
+			@Override
+			public double getValue() {
+				return repositoryListCache.size();
+			}
+		});
+	}
+
+	protected void configureRepositorySizeTracker() {
+		if (!settings.getBoolean(Keys.web.showRepositorySizes, true)) {
+			return;
+		}
+		int mins = TimeUtils.convertFrequencyToMinutes(settings.getString(Keys.web.repositorySizeReconcilePeriod, "5 mins"), 1);
+		scheduledExecutor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					repositorySizeTracker.reconcile();
+				} catch (Exception e) {
+					logger.error("Failed to reconcile repository sizes", e);
+				}
+			}
+		}, mins, mins, TimeUnit.MINUTES);
+		logger.info("Repository sizes will be reconciled every {} minutes", mins);
+	}
+
+	protected void configureRepositoryWatcher() {
+		RepositoryWatchService watcher = new RepositoryWatchService(settings);
+		if (!watcher.isReady()) {
+			logger.info("Repository watching is disabled");
+			return;
+		}
+		watcher.start();
+		int secs = Math.max(1, settings.getInteger(Keys.git.repositoryPollInterval, 10));
+		scheduledExecutor.scheduleWithFixedDelay(watcher, secs, secs, TimeUnit.SECONDS);
+		if (watcher.isNative()) {
+			logger.info("Watching repositories for changes, polling unwatchable repositories every {} seconds", secs);
+		} else {
+			logger.info("Polling repositories for changes every {} seconds", secs);
+		}
+		repositoryWatcher = watcher;
+	}
+
+	/**
+	 * Starts watching a cached repository for changes.
+	 *
+	 * @param repositoryKey
+	 * @param repositoryName
+	 */
+	private void watchRepository(String repositoryKey, String repositoryName) {
+		if (repositoryWatcher == null) {
+			return;
+		}
+		File dir = FileKey.resolve(new File(repositoriesFolder, repositoryName), FS.DETECTED);
+		repositoryWatcher.watch(repositoryKey, dir);
+	}
+
+	protected void configureRepositoryManifest() {
+		String path = settings.getString(Keys.git.repositoryManifest, "");
+		if (StringUtils.isEmpty(path)) {
+			logger.info("Repository manifest is disabled");
+			return;
+		}
+		File file = runtimeManager.getFileOrFolder(Keys.git.repositoryManifest, path);
+		repositoryManifest = new RepositoryManifest(file);
+		logger.info("Repository manifest : {}", file.getAbsolutePath());
+	}
+
+	/**
+	 * Restores the repository list cache from the manifest and starts a
+	 * background thread to revalidate the restored models.
+	 *
+	 * @return true if the repository list cache was restored
+	 */
+	protected boolean loadRepositoryManifest() {
+		if (repositoryManifest == null) {
+			return false;
+		}
+		long start = System.currentTimeMillis();
+		List<RepositoryManifest.Entry> entries = repositoryManifest.read(repositoriesFolder,
+				repositoryListSettingsChecksum.get());
+		if (entries.isEmpty()) {
+			return false;
+		}
+		for (RepositoryManifest.Entry entry : entries) {
+			String key = getRepositoryKey(entry.model.name);
+			repositoryListCache.put(key, entry.model);
+			repositoryFingerprints.put(key, entry.fingerprint);
+			unverifiedRepositories.add(key);
+		}
+		visibilityIndex.invalidate();
+		rebuildForkNetworks();
+		logger.info(MessageFormat.format("{0} repositories restored from manifest in {1} msecs",
+				repositoryListCache.size(), System.currentTimeMillis() - start));
+
+		Thread validator = new Thread() {
+			@Override
+			public void run() {
+				validateRepositoryManifest();
+			}
+		};
+		validator.setName("RepositoryManifestValidator");
+		validator.setDaemon(true);
+		validator.start();
+		return true;
+	}
+
+	/**
+	 * Confirms that a model restored from the manifest is current by comparing
+	 * the stored fingerprint with the fingerprint of the repository.  Outdated
+	 * models are reloaded and missing repositories are removed from the cache.
+	 *
+	 * @param repositoryKey
+	 */
+	private void verifyCachedModel(String repositoryKey) {
+		RepositoryModel model = repositoryListCache.get(repositoryKey);
+		if (model == null || isCollectingGarbage(model.name)) {
+			return;
+		}
+		if (!unverifiedRepositories.remove(repositoryKey)) {
+			// verified by another thread
+			return;
+		}
+		File dir = FileKey.resolve(new File(repositoriesFolder, model.name), FS.DETECTED);
+		if (dir == null) {
+			logger.info(MessageFormat.format("Repository \"{0}\" is missing! Removing from cache.", model.name));
+			removeFromCachedRepositoryList(model.name);
+			return;
+		}
+		RepositoryFingerprint fingerprint = repositoryFingerprints.get(repositoryKey);
+		if (fingerprint != null && fingerprint.equals(RepositoryFingerprint.of(dir))) {
+			if (repositoryWatcher != null) {
+				repositoryWatcher.watch(repositoryKey, dir);
+			}
+			return;
+		}
+		logger.debug(MessageFormat.format("Repository \"{0}\" has changed. Reloading model.", model.name));
+		RepositoryModel reloaded = loadRepositoryModel(model.name);
+		if (reloaded == null) {
+			removeFromCachedRepositoryList(model.name);
+			return;
+		}
+		reloaded.forks = model.forks;
+		addToCachedRepositoryList(reloaded);
+	}
+
+	/**
+	 * Revalidates all models restored from the manifest, identifies
+	 * repositories which were added or removed while Gitblit was offline, and
+	 * saves the refreshed manifest.
+	 */
+	protected void validateRepositoryManifest() {
+		long start = System.currentTimeMillis();
+		int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (final String key : new ArrayList<String>(unverifiedRepositories)) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						verifyCachedModel(key);
+					} catch (Throwable t) {
+						logger.error("Failed to verify cached repository " + key, t);
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			return;
+		}
+
+		// identify repositories added or removed while offline
+		List<String> repositories = findRepositories(repositoriesFolder);
+		Set<String> keys = new HashSet<String>();
+		for (String repository : repositories) {
+			keys.add(getRepositoryKey(repository));
+			if (!repositoryListCache.containsKey(getRepositoryKey(repository))) {
+				getRepositoryModel(repository);
+			}
+		}
+		for (Map.Entry<String, RepositoryModel> entry : repositoryListCache.entrySet()) {
+			if (!keys.contains(entry.getKey())
+					&& FileKey.resolve(new File(repositoriesFolder, entry.getValue().name), FS.DETECTED) == null) {
+				logger.info(MessageFormat.format("Repository \"{0}\" is missing! Removing from cache.", entry.getValue().name));
+				removeFromCachedRepositoryList(entry.getValue().name);
+			}
+		}
+		rebuildForkNetworks();
+
+		logger.info(MessageFormat.format("{0} repositories revalidated in {1} msecs",
+				repositoryListCache.size(), System.currentTimeMillis() - start));
+		saveRepositoryManifest();
+	}
+
+	/**
+	 * Saves the repository list cache to the manifest.
+	 */
+	protected void saveRepositoryManifest() {
+		if (repositoryManifest == null || !settings.getBoolean(Keys.git.cacheRepositoryList, true)) {
+			return;
+		}
+		List<RepositoryManifest.Entry> entries = new ArrayList<RepositoryManifest.Entry>();
+		for (Map.Entry<String, RepositoryModel> entry : repositoryListCache.entrySet()) {
+			RepositoryFingerprint fingerprint = repositoryFingerprints.get(entry.getKey());
+			if (fingerprint != null) {
+				entries.add(new RepositoryManifest.Entry(entry.getValue(), fingerprint));
+			}
+		}
+		if (repositoryManifest.write(repositoriesFolder, repositoryListSettingsChecksum.get(), entries)) {
+			logger.debug("Saved {} repositories to the manifest", entries.size());
+		}
+	}
+
+	protected void configureTreeListingCache() {
+		TreeListingCache.instance().setMaximumEntries(settings.getLong(Keys.web.treeListingCacheSize, 100000L));
+	}
+
+	protected void configureLastCommitCache() {
+		LastCommitCache.instance().setMaximumEntries(settings.getLong(Keys.web.lastCommitCacheSize, 100000L));
+		String path = settings.getString(Keys.web.lastCommitCacheFolder, "");
+		if (StringUtils.isEmpty(path)) {
+			logger.info("Last commit cache persistence is disabled");
+		} else {
+			File folder = runtimeManager.getFileOrFolder(Keys.web.lastCommitCacheFolder, path);
+			LastCommitCache.instance().setMaximumFolderBytes(
+					settings.getFilesize(Keys.web.lastCommitCacheFolderSize, 256 * 1024 * 1024L));
+			LastCommitCache.instance().setFolder(folder);
+			logger.info("Last commit cache folder : {}", folder.getAbsolutePath());
+		}
+	}
+
+	protected void configureBlameCache() {
+		BlameCache.instance().setMaximumLines(settings.getLong(Keys.web.blameCacheSize, 100000L));
+		String path = settings.getString(Keys.web.blameCacheFolder, "");
+		if (StringUtils.isEmpty(path)) {
+			logger.info("Blame cache persistence is disabled");
+		} else {
+			File folder = runtimeManager.getFileOrFolder(Keys.web.blameCacheFolder, path);
+			BlameCache.instance().setMaximumFolderBytes(
+					settings.getFilesize(Keys.web.blameCacheFolderSize, 256 * 1024 * 1024L));
+			BlameCache.instance().setFolder(folder);
+			logger.info("Blame cache folder : {}", folder.getAbsolutePath());
+		}
+	}
+
+	protected void configureDiffCache() {
+		DiffCache.instance().setMaximumBytes(settings.getFilesize(Keys.web.diffCacheSize, 32 * 1024 * 1024L));
+	}
+
+	protected void configureLogIndex() {
+		RevLogIndex.instance().setInterval(settings.getInteger(Keys.web.logIndexInterval, 1000));
+	}
+
 	protected void configureCommitCache() {
 		final int daysToCache = settings.getInteger(Keys.web.activityCacheDays, 14);
 		if (daysToCache <= 0) {
@@ -1968,6 +2498,26 @@ public class RepositoryManager implements IRepositoryManager {
 		}
 		logger.info(MessageFormat.format("Preparing {0} day commit cache...", daysToCache));
 		CommitCache.instance().setCacheDays(daysToCache);
+		CommitCache.instance().setMaximumCommits(settings.getLong(Keys.web.activityCacheMaxCommits, 100000L));
+		String path = settings.getString(Keys.web.activityCacheFolder, "");
+		if (StringUtils.isEmpty(path)) {
+			logger.info("Commit cache persistence is disabled");
+		} else {
+			File folder = runtimeManager.getFileOrFolder(Keys.web.activityCacheFolder, path);
+			CommitCache.instance().setStore(new CommitCacheStore(folder));
+			int mins = TimeUtils.convertFrequencyToMinutes(settings.getString(Keys.web.activityCacheSavePeriod, "15 mins"), 1);
+			logger.info("Commit cache folder : {}, saved every {} mins", folder.getAbsolutePath(), mins);
+			scheduledExecutor.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						CommitCache.instance().save();
+					} catch (Exception e) {
+						logger.error("Failed to save the commit cache", e);
+					}
+				}
+			}, mins, mins, TimeUnit.MINUTES);
+		}
 		Thread loader = new Thread() {
 			@Override
 			public void run() {
@@ -1997,6 +2547,8 @@ public class RepositoryManager implements IRepositoryManager {
 				}
 				logger.info(MessageFormat.format("built {0} day commit cache of {1} commits across {2} repositories in {3} msecs",
 						daysToCache, commitCount, repoCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+				logger.info(CommitCache.instance().getStatistics().toString());
+				CommitCache.instance().save();
 			}
 		};
 		loader.setName("CommitCacheLoader");
@@ -16,8 +16,11 @@
 package com.gitblit.manager;
 
 import java.io.File;
+import java.lang.reflect.Constructor;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
@@ -28,9 +31,14 @@ import org.slf4j.LoggerFactory;
 import com.gitblit.Constants;
 import com.gitblit.IStoredSettings;
 import com.gitblit.Keys;
+import com.gitblit.cache.ICacheProvider;
+import com.gitblit.cache.MemoryCacheProvider;
+import com.gitblit.models.CacheStatistics;
 import com.gitblit.models.ServerSettings;
 import com.gitblit.models.ServerStatus;
 import com.gitblit.models.SettingModel;
+import com.gitblit.utils.CommitCache;
+import com.gitblit.utils.ServerMetrics;
 import com.gitblit.utils.StringUtils;
 import com.gitblit.utils.XssFilter;
 import com.google.inject.Inject;
@@ -54,6 +62,8 @@ public class RuntimeManager implements IRuntimeManager {
 
 	private TimeZone timezone;
 
+	private ICacheProvider cacheProvider;
+
 	@Inject
 	private Injector injector;
 
@@ -78,9 +88,26 @@ public class RuntimeManager implements IRuntimeManager {
 		logTimezone("App timezone: ", getTimezone());
 		logger.info("JVM locale  : " + Locale.getDefault());
 		logger.info("App locale  : " +  (getLocale() == null ? "<client>" : getLocale()));
+		registerMetrics();
 		return this;
 	}
 
+	/**
+	 * Registers the statistics of the commit cache and of the caches of the
+	 * cache provider with the server metrics.
+	 */
+	protected void registerMetrics() {
+		ServerMetrics.instance().caches("caches", new ServerMetrics.CacheSource() {
+			@Override
+			public List<CacheStatistics> getStatistics() {
+				List<CacheStatistics> list = new ArrayList<CacheStatistics>();
+				list.add(CommitCache.instance().getStatistics());
+				list.addAll(getCacheProvider().getStatistics());
+				return list;
+			}
+		});
+	}
+
 	@Override
 	public RuntimeManager stop() {
 		return this;
@@ -231,6 +258,9 @@ public class RuntimeManager implements IRuntimeManager {
 		// update heap memory status
 		serverStatus.heapAllocated = Runtime.getRuntime().totalMemory();
 		serverStatus.heapFree = Runtime.getRuntime().freeMemory();
+		serverStatus.commitCache = CommitCache.instance().getStatistics();
+		serverStatus.caches = getCacheProvider().getStatistics();
+		serverStatus.metrics = ServerMetrics.instance().getValues();
 		return serverStatus;
 	}
 
@@ -244,4 +274,37 @@ public class RuntimeManager implements IRuntimeManager {
 		return xssFilter;
 	}
 
+	/**
+	 * Returns the provider of the caches of Gitblit.  The provider is created
+	 * on the first request from the class specified by the cache.provider
+	 * setting.
+	 *
+	 * @return the cache provider
+	 */
+	@Override
+	public synchronized ICacheProvider getCacheProvider() {
+		if (cacheProvider != null) {
+			return cacheProvider;
+		}
+		String clazz = settings.getString(Keys.cache.provider, MemoryCacheProvider.class.getName());
+		if (!StringUtils.isEmpty(clazz) && !MemoryCacheProvider.class.getName().equals(clazz)) {
+			try {
+				Class<?> providerClass = Class.forName(clazz);
+				try {
+					Constructor<?> constructor = providerClass.getConstructor(IRuntimeManager.class);
+					cacheProvider = (ICacheProvider) constructor.newInstance(this);
+				} catch (NoSuchMethodException e) {
+					cacheProvider = (ICacheProvider) providerClass.newInstance();
+				}
+				logger.info("Cache provider: {}", clazz);
+			} catch (Exception e) {
+				logger.error("failed to create cache provider " + clazz, e);
+			}
+		}
+		if (cacheProvider == null) {
+			cacheProvider = new MemoryCacheProvider();
+		}
+		return cacheProvider;
+	}
+
 }
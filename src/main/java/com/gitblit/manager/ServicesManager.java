@@ -54,6 +54,7 @@ import com.gitblit.service.FederationPullService;
 import com.gitblit.transport.git.GitDaemon;
 import com.gitblit.transport.ssh.SshDaemon;
 import com.gitblit.utils.HttpUtils;
+import com.gitblit.utils.ServerMetrics;
 import com.gitblit.utils.StringUtils;
 import com.gitblit.utils.TimeUtils;
 import com.gitblit.utils.WorkQueue;
@@ -102,6 +103,8 @@ public class ServicesManager implements IServicesManager {
 
 	@Override
 	public ServicesManager start() {
+		ServerMetrics.instance().executor("services", scheduledExecutor);
+
 		configureFederation();
 		configureFanout();
 		configureGitDaemon();
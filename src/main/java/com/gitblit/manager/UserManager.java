@@ -37,6 +37,7 @@ import com.gitblit.Keys;
 import com.gitblit.extensions.UserTeamLifeCycleListener;
 import com.gitblit.models.TeamModel;
 import com.gitblit.models.UserModel;
+import com.gitblit.utils.RepositoryStarIndex;
 import com.gitblit.utils.StringUtils;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -62,6 +63,22 @@ public class UserManager implements IUserManager {
 
 	private IUserService userService;
 
+	private final RepositoryStarIndex starIndex = new RepositoryStarIndex() {
+		@Override
+		protected Collection<UserModel> loadUsers() {
+			return userService.getAllUsers();
+		}
+
+		@Override
+		protected long getRevision() {
+			if (userService instanceof ConfigUserService) {
+				// users.conf may be edited on disk
+				return ((ConfigUserService) userService).getRevision();
+			}
+			return 0;
+		}
+	};
+
 	@Inject
 	public UserManager(IRuntimeManager runtimeManager, IPluginManager pluginManager) {
 		this.settings = runtimeManager.getSettings();
@@ -87,6 +104,7 @@ public class UserManager implements IUserManager {
 	public void setUserService(IUserService userService) {
 		this.userService = userService;
 		this.userService.setup(runtimeManager);
+		starIndex.reset();
 		logger.info(userService.toString());
 	}
 
@@ -192,6 +210,17 @@ public class UserManager implements IUserManager {
 						|| username.equalsIgnoreCase(UserModel.ANONYMOUS.username));
 	}
 
+	/**
+	 * Returns the number of users who have starred the repository.
+	 *
+	 * @param repository
+	 * @return the star count
+	 */
+	@Override
+	public long getStarCount(String repository) {
+		return starIndex.getCount(repository);
+	}
+
 	/**
 	 * Returns the cookie value for the specified user.
 	 *
@@ -241,6 +270,7 @@ public class UserManager implements IUserManager {
 	public boolean updateUserModel(UserModel model) {
 		final boolean isCreate = null == userService.getUserModel(model.username);
 		if (userService.updateUserModel(model)) {
+			starIndex.update(model.username, model);
 			if (isCreate) {
 				callCreateUserListeners(model);
 			}
@@ -258,7 +288,13 @@ public class UserManager implements IUserManager {
 	 */
 	@Override
 	public boolean updateUserModels(Collection<UserModel> models) {
-		return userService.updateUserModels(models);
+		if (userService.updateUserModels(models)) {
+			for (UserModel model : models) {
+				starIndex.update(model.username, model);
+			}
+			return true;
+		}
+		return false;
 	}
 
 	/**
@@ -275,6 +311,7 @@ public class UserManager implements IUserManager {
 	public boolean updateUserModel(String username, UserModel model) {
 		final boolean isCreate = null == userService.getUserModel(username);
 		if (userService.updateUserModel(username, model)) {
+			starIndex.update(username, model);
 			if (isCreate) {
 				callCreateUserListeners(model);
 			}
@@ -292,6 +329,7 @@ public class UserManager implements IUserManager {
 	@Override
 	public boolean deleteUserModel(UserModel model) {
 		if (userService.deleteUserModel(model)) {
+			starIndex.remove(model.username);
 			callDeleteUserListeners(model);
 			return true;
 		}
@@ -312,6 +350,7 @@ public class UserManager implements IUserManager {
 		String usernameDecoded = StringUtils.decodeUsername(username);
 		UserModel user = getUserModel(usernameDecoded);
 		if (userService.deleteUser(usernameDecoded)) {
+			starIndex.remove(usernameDecoded);
 			callDeleteUserListeners(user);
 			return true;
 		}
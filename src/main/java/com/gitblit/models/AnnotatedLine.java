@@ -51,4 +51,19 @@ public class AnnotatedLine implements Serializable {
 		this.lineNumber = lineNumber;
 		this.data = data;
 	}
+
+	/**
+	 * Creates a line with the source commit metadata of another line.
+	 *
+	 * @param source
+	 * @param lineNumber
+	 * @param data
+	 */
+	public AnnotatedLine(AnnotatedLine source, int lineNumber, String data) {
+		this.commitId = source.commitId;
+		this.author = source.author;
+		this.when = source.when;
+		this.lineNumber = lineNumber;
+		this.data = data;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.models;
+
+import java.io.Serializable;
+
+/**
+ * A snapshot of the statistics of a cache.
+ *
+ * @author agent
+ *
+ */
+public class CacheStatistics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public final String name;
+
+	public final long entries;
+
+	public final long weight;
+
+	public final long maximumWeight;
+
+	public final long hits;
+
+	public final long misses;
+
+	public final long evictions;
+
+	public final long loadTime;
+
+	/**
+	 * @param name
+	 * @param entries
+	 *            the number of cached entries
+	 * @param weight
+	 *            the total weight of the cached entries
+	 * @param maximumWeight
+	 *            the maximum weight of the cache, 0 if unbounded
+	 * @param hits
+	 * @param misses
+	 * @param evictions
+	 * @param loadTime
+	 *            the total time spent loading entries, in nanoseconds
+	 */
+	public CacheStatistics(String name, long entries, long weight, long maximumWeight,
+			long hits, long misses, long evictions, long loadTime) {
+		this.name = name;
+		this.entries = entries;
+		this.weight = weight;
+		this.maximumWeight = maximumWeight;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.loadTime = loadTime;
+	}
+
+	public long getRequestCount() {
+		return hits + misses;
+	}
+
+	public double getHitRate() {
+		long requests = getRequestCount();
+		return requests == 0 ? 1.0 : (double) hits / requests;
+	}
+
+	public long getAverageLoadTime() {
+		return misses == 0 ? 0 : loadTime / misses;
+	}
+
+	@Override
+	public String toString() {
+		return name + ": " + entries + " entries, weight " + weight + (maximumWeight > 0 ? ("/" + maximumWeight) : "")
+				+ ", " + hits + " hits, " + misses + " misses, " + evictions + " evictions";
+	}
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.models;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+/**
+ * A compact, immutable block of commit records.
+ *
+ * The records only keep the commit properties shown by the activity and
+ * dashboard pages and store them in columns: raw object ids, int timestamps,
+ * and indexes into a pool of distinct identities.  {@link RepositoryCommit}
+ * views decode the columns of one record on demand.
+ *
+ * @author agent
+ *
+ */
+public class CommitRecords implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int ID_LENGTH = Constants.OBJECT_ID_LENGTH;
+
+	public static final CommitRecords EMPTY = new Builder(0).build();
+
+	private final int size;
+
+	private final byte [] ids;
+
+	private final int [] parentOffsets;
+
+	private final byte [] parents;
+
+	private final int [] commitTimes;
+
+	private final int [] authorTimes;
+
+	private final short [] commitZones;
+
+	private final short [] authorZones;
+
+	private final int [] committers;
+
+	private final int [] authors;
+
+	private final String [] names;
+
+	private final String [] emails;
+
+	private final String [] messages;
+
+	private final Map<Integer, List<RefModel>> refs;
+
+	private CommitRecords(Builder builder) {
+		this.size = builder.size;
+		this.ids = Arrays.copyOf(builder.ids, size * ID_LENGTH);
+		this.parentOffsets = Arrays.copyOf(builder.parentOffsets, size + 1);
+		this.parents = Arrays.copyOf(builder.parents, parentOffsets[size] * ID_LENGTH);
+		this.commitTimes = Arrays.copyOf(builder.commitTimes, size);
+		this.authorTimes = Arrays.copyOf(builder.authorTimes, size);
+		this.commitZones = Arrays.copyOf(builder.commitZones, size);
+		this.authorZones = Arrays.copyOf(builder.authorZones, size);
+		this.committers = Arrays.copyOf(builder.committers, size);
+		this.authors = Arrays.copyOf(builder.authors, size);
+		this.names = builder.names.toArray(new String[builder.names.size()]);
+		this.emails = builder.emails.toArray(new String[builder.emails.size()]);
+		this.messages = Arrays.copyOf(builder.messages, size);
+		this.refs = builder.refs.isEmpty() ? Collections.<Integer, List<RefModel>>emptyMap()
+				: new HashMap<Integer, List<RefModel>>(builder.refs);
+	}
+
+	/**
+	 * Returns a block of one record for the commit.
+	 *
+	 * @param commit
+	 * @return the commit records
+	 */
+	public static CommitRecords of(RevCommit commit) {
+		return new Builder(1).add(commit, null).build();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public ObjectId getId(int i) {
+		return ObjectId.fromRaw(ids, i * ID_LENGTH);
+	}
+
+	public int getParentCount(int i) {
+		return parentOffsets[i + 1] - parentOffsets[i];
+	}
+
+	public ObjectId getParentId(int i, int nth) {
+		if (nth < 0 || nth >= getParentCount(i)) {
+			throw new ArrayIndexOutOfBoundsException(nth);
+		}
+		return ObjectId.fromRaw(parents, (parentOffsets[i] + nth) * ID_LENGTH);
+	}
+
+	/**
+	 * Returns the commit time in seconds since the epoch.
+	 *
+	 * @param i
+	 * @return the commit time
+	 */
+	public int getCommitTime(int i) {
+		return commitTimes[i];
+	}
+
+	public PersonIdent getCommitterIdent(int i) {
+		return ident(committers[i], commitTimes[i], commitZones[i]);
+	}
+
+	public PersonIdent getAuthorIdent(int i) {
+		return ident(authors[i], authorTimes[i], authorZones[i]);
+	}
+
+	public String getShortMessage(int i) {
+		return messages[i];
+	}
+
+	public List<RefModel> getRefs(int i) {
+		return refs.get(i);
+	}
+
+	/**
+	 * Returns views of the records committed since the date.
+	 *
+	 * @param repository
+	 * @param branch
+	 * @param sinceDate
+	 *            the earliest commit date, may be null
+	 * @return a list of commits
+	 */
+	public List<RepositoryCommit> toList(String repository, String branch, Date sinceDate) {
+		List<RepositoryCommit> list = new ArrayList<RepositoryCommit>(size);
+		for (int i = 0; i < size; i++) {
+			if (sinceDate == null || getCommitTime(i) * 1000L >= sinceDate.getTime()) {
+				list.add(new RepositoryCommit(repository, branch, this, i));
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the records committed since the date.  This block is returned if
+	 * all records were committed since the date.
+	 *
+	 * @param sinceDate
+	 * @return the commit records
+	 */
+	public CommitRecords since(Date sinceDate) {
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (getCommitTime(i) * 1000L >= sinceDate.getTime()) {
+				count++;
+			}
+		}
+		if (count == size) {
+			return this;
+		}
+		Builder builder = new Builder(count);
+		for (int i = 0; i < size; i++) {
+			if (getCommitTime(i) * 1000L >= sinceDate.getTime()) {
+				builder.add(this, i);
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Returns a block of one record.
+	 *
+	 * @param i
+	 * @return the commit records
+	 */
+	public CommitRecords slice(int i) {
+		if (size == 1) {
+			return this;
+		}
+		return new Builder(1).add(this, i).build();
+	}
+
+	/**
+	 * Returns a block of the records of this block followed by the records of
+	 * the other block.
+	 *
+	 * @param other
+	 * @return the commit records
+	 */
+	public CommitRecords concat(CommitRecords other) {
+		if (other.size == 0) {
+			return this;
+		} else if (size == 0) {
+			return other;
+		}
+		Builder builder = new Builder(size + other.size);
+		for (int i = 0; i < size; i++) {
+			builder.add(this, i);
+		}
+		for (int i = 0; i < other.size; i++) {
+			builder.add(other, i);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Writes the records, without their refs.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(size);
+		out.writeInt(names.length);
+		for (int i = 0; i < names.length; i++) {
+			writeString(out, names[i]);
+			writeString(out, emails[i]);
+		}
+		out.write(ids);
+		for (int offset : parentOffsets) {
+			out.writeInt(offset);
+		}
+		out.write(parents);
+		for (int i = 0; i < size; i++) {
+			out.writeInt(commitTimes[i]);
+			out.writeShort(commitZones[i]);
+			out.writeInt(committers[i]);
+			out.writeInt(authorTimes[i]);
+			out.writeShort(authorZones[i]);
+			out.writeInt(authors[i]);
+			writeString(out, messages[i]);
+		}
+	}
+
+	/**
+	 * Reads records written by {@link #write(DataOutput)}.
+	 *
+	 * @param in
+	 * @param allRefs
+	 *            the refs of the repository, may be null
+	 * @return the commit records
+	 * @throws IOException
+	 */
+	public static CommitRecords read(DataInput in, Map<ObjectId, List<RefModel>> allRefs) throws IOException {
+		Builder builder = new Builder(0);
+		int size = in.readInt();
+		int identities = in.readInt();
+		for (int i = 0; i < identities; i++) {
+			builder.names.add(readString(in));
+			builder.emails.add(readString(in));
+		}
+		builder.ids = new byte[size * ID_LENGTH];
+		in.readFully(builder.ids);
+		builder.parentOffsets = new int[size + 1];
+		for (int i = 0; i <= size; i++) {
+			builder.parentOffsets[i] = in.readInt();
+		}
+		builder.parents = new byte[builder.parentOffsets[size] * ID_LENGTH];
+		in.readFully(builder.parents);
+		builder.commitTimes = new int[size];
+		builder.commitZones = new short[size];
+		builder.committers = new int[size];
+		builder.authorTimes = new int[size];
+		builder.authorZones = new short[size];
+		builder.authors = new int[size];
+		builder.messages = new String[size];
+		for (int i = 0; i < size; i++) {
+			builder.commitTimes[i] = in.readInt();
+			builder.commitZones[i] = in.readShort();
+			builder.committers[i] = checkIdentity(in.readInt(), identities);
+			builder.authorTimes[i] = in.readInt();
+			builder.authorZones[i] = in.readShort();
+			builder.authors[i] = checkIdentity(in.readInt(), identities);
+			builder.messages[i] = readString(in);
+		}
+		builder.size = size;
+		if (allRefs != null) {
+			for (int i = 0; i < size; i++) {
+				List<RefModel> commitRefs = allRefs.get(ObjectId.fromRaw(builder.ids, i * ID_LENGTH));
+				if (commitRefs != null) {
+					builder.refs.put(i, commitRefs);
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	private static int checkIdentity(int identity, int identities) throws IOException {
+		if (identity < 0 || identity >= identities) {
+			throw new IOException("invalid identity " + identity);
+		}
+		return identity;
+	}
+
+	private static void writeString(DataOutput out, String value) throws IOException {
+		byte [] bytes = value.getBytes(Constants.CHARSET);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		byte [] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, Constants.CHARSET);
+	}
+
+	private PersonIdent ident(int identity, int time, short zone) {
+		return new PersonIdent(names[identity], emails[identity], time * 1000L, zone);
+	}
+
+	/**
+	 * Builds a block of commit records.
+	 */
+	public static class Builder {
+
+		private int size;
+
+		private byte [] ids;
+
+		private int [] parentOffsets;
+
+		private byte [] parents;
+
+		private int [] commitTimes;
+
+		private int [] authorTimes;
+
+		private short [] commitZones;
+
+		private short [] authorZones;
+
+		private int [] committers;
+
+		private int [] authors;
+
+		private String [] messages;
+
+		private final List<String> names = new ArrayList<String>();
+
+		private final List<String> emails = new ArrayList<String>();
+
+		private final Map<String, Integer> identities = new HashMap<String, Integer>();
+
+		private final Map<Integer, List<RefModel>> refs = new HashMap<Integer, List<RefModel>>();
+
+		public Builder(int capacity) {
+			int n = Math.max(1, capacity);
+			ids = new byte[n * ID_LENGTH];
+			parentOffsets = new int[n + 1];
+			parents = new byte[n * ID_LENGTH];
+			commitTimes = new int[n];
+			authorTimes = new int[n];
+			commitZones = new short[n];
+			authorZones = new short[n];
+			committers = new int[n];
+			authors = new int[n];
+			messages = new String[n];
+		}
+
+		/**
+		 * Adds a parsed commit.
+		 *
+		 * @param commit
+		 * @param commitRefs
+		 *            the refs which point to the commit, may be null
+		 * @return this builder
+		 */
+		public Builder add(RevCommit commit, List<RefModel> commitRefs) {
+			PersonIdent committer = commit.getCommitterIdent();
+			PersonIdent author = commit.getAuthorIdent();
+			int parentCount = commit.getParentCount();
+			ensureCapacity(parentCount);
+			commit.copyRawTo(ids, size * ID_LENGTH);
+			for (int p = 0; p < parentCount; p++) {
+				commit.getParent(p).copyRawTo(parents, (parentOffsets[size] + p) * ID_LENGTH);
+			}
+			parentOffsets[size + 1] = parentOffsets[size] + parentCount;
+			commitTimes[size] = commit.getCommitTime();
+			if (committer == null) {
+				// unparseable identity
+				committers[size] = identity("", "");
+			} else {
+				commitZones[size] = (short) committer.getTimeZoneOffset();
+				committers[size] = identity(committer.getName(), committer.getEmailAddress());
+			}
+			if (author == null) {
+				authorTimes[size] = commit.getCommitTime();
+				authorZones[size] = commitZones[size];
+				authors[size] = committers[size];
+			} else {
+				authorTimes[size] = (int) (author.getWhen().getTime() / 1000L);
+				authorZones[size] = (short) author.getTimeZoneOffset();
+				authors[size] = identity(author.getName(), author.getEmailAddress());
+			}
+			messages[size] = commit.getShortMessage();
+			if (commitRefs != null) {
+				refs.put(size, commitRefs);
+			}
+			size++;
+			return this;
+		}
+
+		/**
+		 * Adds a record of another block.
+		 *
+		 * @param records
+		 * @param i
+		 * @return this builder
+		 */
+		public Builder add(CommitRecords records, int i) {
+			int parentCount = records.getParentCount(i);
+			ensureCapacity(parentCount);
+			System.arraycopy(records.ids, i * ID_LENGTH, ids, size * ID_LENGTH, ID_LENGTH);
+			System.arraycopy(records.parents, records.parentOffsets[i] * ID_LENGTH,
+					parents, parentOffsets[size] * ID_LENGTH, parentCount * ID_LENGTH);
+			parentOffsets[size + 1] = parentOffsets[size] + parentCount;
+			commitTimes[size] = records.commitTimes[i];
+			commitZones[size] = records.commitZones[i];
+			committers[size] = identity(records.names[records.committers[i]], records.emails[records.committers[i]]);
+			authorTimes[size] = records.authorTimes[i];
+			authorZones[size] = records.authorZones[i];
+			authors[size] = identity(records.names[records.authors[i]], records.emails[records.authors[i]]);
+			messages[size] = records.messages[i];
+			List<RefModel> commitRefs = records.getRefs(i);
+			if (commitRefs != null) {
+				refs.put(size, commitRefs);
+			}
+			size++;
+			return this;
+		}
+
+		public CommitRecords build() {
+			return new CommitRecords(this);
+		}
+
+		private int identity(String name, String email) {
+			String key = name + '\n' + email;
+			Integer identity = identities.get(key);
+			if (identity == null) {
+				identity = names.size();
+				identities.put(key, identity);
+				names.add(name);
+				emails.add(email);
+			}
+			return identity;
+		}
+
+		private void ensureCapacity(int parentCount) {
+			if (size == commitTimes.length) {
+				int n = size * 2;
+				ids = Arrays.copyOf(ids, n * ID_LENGTH);
+				parentOffsets = Arrays.copyOf(parentOffsets, n + 1);
+				commitTimes = Arrays.copyOf(commitTimes, n);
+				authorTimes = Arrays.copyOf(authorTimes, n);
+				commitZones = Arrays.copyOf(commitZones, n);
+				authorZones = Arrays.copyOf(authorZones, n);
+				committers = Arrays.copyOf(committers, n);
+				authors = Arrays.copyOf(authors, n);
+				messages = Arrays.copyOf(messages, n);
+			}
+			int required = (parentOffsets[size] + parentCount) * ID_LENGTH;
+			if (required > parents.length) {
+				parents = Arrays.copyOf(parents, Math.max(required, parents.length * 2));
+			}
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.models;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+/**
+ * LastCommitModel is a serializable model class that represents the commit
+ * which last changed an entry of a folder.
+ *
+ * @author agent
+ *
+ */
+public class LastCommitModel implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public final String path;
+	public final String commitId;
+	public final String shortMessage;
+	public final String author;
+	public final String authorEmail;
+	public final Date date;
+
+	public LastCommitModel(String path, RevCommit commit) {
+		PersonIdent ident = commit.getAuthorIdent();
+		this.path = path;
+		this.commitId = commit.getName();
+		this.shortMessage = commit.getShortMessage();
+		this.author = ident.getName();
+		this.authorEmail = ident.getEmailAddress();
+		this.date = ident.getWhen();
+	}
+}
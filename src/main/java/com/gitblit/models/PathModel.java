@@ -90,6 +90,18 @@ public class PathModel implements Serializable, Comparable<PathModel> {
 		return null;
 	}
 
+	/**
+	 * Returns a copy of this model with another name, path and commit id.
+	 *
+	 * @param name
+	 * @param path
+	 * @param commitId
+	 * @return a copy of this model
+	 */
+	public PathModel copy(String name, String path, String commitId) {
+		return new PathModel(name, path, filestoreItem, size, mode, objectId, commitId);
+	}
+
 	@Override
 	public int hashCode() {
 		return commitId.hashCode() + path.hashCode();
@@ -148,6 +160,20 @@ public class PathModel implements Serializable, Comparable<PathModel> {
 			this.changeType = type;
 		}
 
+		/**
+		 * Returns a copy of this model for a commit.
+		 *
+		 * @param commitId
+		 * @return a copy of this model
+		 */
+		public PathChangeModel copy(String commitId) {
+			PathChangeModel copy = new PathChangeModel(name, path, super.filestoreItem, size, mode, objectId, commitId,
+					changeType);
+			copy.insertions = insertions;
+			copy.deletions = deletions;
+			return copy;
+		}
+
 		public void update(char op) {
 			switch (op) {
 			case '+':
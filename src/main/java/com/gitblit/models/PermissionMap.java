@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.models;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.gitblit.Constants.AccessPermission;
+
+/**
+ * The repository permissions of a user or a team which counts its
+ * modifications so that the compiled permissions are only compared by their
+ * modification count.  The views of the map are read-only, the permissions
+ * are modified through the map itself.
+ *
+ * @author agent
+ *
+ */
+public class PermissionMap extends LinkedHashMap<String, AccessPermission> {
+
+	private static final long serialVersionUID = 1L;
+
+	private transient volatile int modifications;
+
+	/**
+	 * Returns the number of modifications of the map.
+	 *
+	 * @return the modification count
+	 */
+	public int getModifications() {
+		return modifications;
+	}
+
+	private void modified() {
+		modifications++;
+	}
+
+	@Override
+	public AccessPermission put(String key, AccessPermission value) {
+		try {
+			return super.put(key, value);
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends AccessPermission> m) {
+		try {
+			super.putAll(m);
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public AccessPermission remove(Object key) {
+		try {
+			return super.remove(key);
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public void clear() {
+		try {
+			super.clear();
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public AccessPermission putIfAbsent(String key, AccessPermission value) {
+		try {
+			return super.putIfAbsent(key, value);
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		try {
+			return super.remove(key, value);
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public boolean replace(String key, AccessPermission oldValue, AccessPermission newValue) {
+		try {
+			return super.replace(key, oldValue, newValue);
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public AccessPermission replace(String key, AccessPermission value) {
+		try {
+			return super.replace(key, value);
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public void replaceAll(BiFunction<? super String, ? super AccessPermission, ? extends AccessPermission> function) {
+		try {
+			super.replaceAll(function);
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public AccessPermission computeIfAbsent(String key,
+			Function<? super String, ? extends AccessPermission> mappingFunction) {
+		try {
+			return super.computeIfAbsent(key, mappingFunction);
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public AccessPermission computeIfPresent(String key,
+			BiFunction<? super String, ? super AccessPermission, ? extends AccessPermission> remappingFunction) {
+		try {
+			return super.computeIfPresent(key, remappingFunction);
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public AccessPermission compute(String key,
+			BiFunction<? super String, ? super AccessPermission, ? extends AccessPermission> remappingFunction) {
+		try {
+			return super.compute(key, remappingFunction);
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public AccessPermission merge(String key, AccessPermission value,
+			BiFunction<? super AccessPermission, ? super AccessPermission, ? extends AccessPermission> remappingFunction) {
+		try {
+			return super.merge(key, value, remappingFunction);
+		} finally {
+			modified();
+		}
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return Collections.unmodifiableSet(super.keySet());
+	}
+
+	@Override
+	public Collection<AccessPermission> values() {
+		return Collections.unmodifiableCollection(super.values());
+	}
+
+	@Override
+	public Set<Map.Entry<String, AccessPermission>> entrySet() {
+		return Collections.unmodifiableSet(super.entrySet());
+	}
+}
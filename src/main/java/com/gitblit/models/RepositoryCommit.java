@@ -20,6 +20,7 @@ import java.text.MessageFormat;
 import java.util.Date;
 import java.util.List;
 
+import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -28,24 +29,45 @@ import org.eclipse.jgit.revwalk.RevCommit;
  * Model class to represent a RevCommit, it's source repository, and the branch.
  * This class is used by the activity page.
  *
+ * A repository commit is a view of one record of a block of
+ * {@link CommitRecords}.
+ *
  * @author James Moger
  */
 public class RepositoryCommit implements Serializable, Comparable<RepositoryCommit> {
 
-	private static final long serialVersionUID = 1L;
+	private static final long serialVersionUID = 2L;
 
 	public final String repository;
 
 	public final String branch;
 
-	private final RevCommit commit;
+	private final CommitRecords records;
+
+	private final int index;
 
 	private List<RefModel> refs;
 
+	/**
+	 * An unparsed parent of a cached commit.
+	 */
+	private static class ParentCommit extends RevCommit {
+
+		ParentCommit(AnyObjectId id) {
+			super(id);
+		}
+	}
+
 	public RepositoryCommit(String repository, String branch, RevCommit commit) {
+		this(repository, branch, CommitRecords.of(commit), 0);
+	}
+
+	public RepositoryCommit(String repository, String branch, CommitRecords records, int index) {
 		this.repository = repository;
 		this.branch = branch;
-		this.commit = commit;
+		this.records = records;
+		this.index = index;
+		this.refs = records.getRefs(index);
 	}
 
 	public void setRefs(List<RefModel> refs) {
@@ -57,39 +79,55 @@ public class RepositoryCommit implements Serializable, Comparable<RepositoryComm
 	}
 
 	public ObjectId getId() {
-		return commit.getId();
+		return records.getId(index);
 	}
 
 	public String getName() {
-		return commit.getName();
+		return getId().getName();
 	}
 
 	public String getShortName() {
-		return commit.getName().substring(0, 8);
+		return getName().substring(0, 8);
 	}
 
 	public String getShortMessage() {
-		return commit.getShortMessage();
+		return records.getShortMessage(index);
 	}
 
 	public Date getCommitDate() {
-		return new Date(commit.getCommitTime() * 1000L);
+		return new Date(records.getCommitTime(index) * 1000L);
 	}
 
 	public int getParentCount() {
-		return commit.getParentCount();
+		return records.getParentCount(index);
+	}
+
+	public ObjectId getParentId(int nth) {
+		return records.getParentId(index, nth);
 	}
 
+	/**
+	 * Returns the parents of the commit.  The parents are not parsed, only
+	 * their ids are available.
+	 *
+	 * @return the unparsed parents
+	 * @deprecated use {@link #getParentCount()} and {@link #getParentId(int)}
+	 */
+	@Deprecated
 	public RevCommit [] getParents() {
-		return commit.getParents();
+		RevCommit [] parents = new RevCommit[getParentCount()];
+		for (int i = 0; i < parents.length; i++) {
+			parents[i] = new ParentCommit(getParentId(i));
+		}
+		return parents;
 	}
 
 	public PersonIdent getAuthorIdent() {
-		return commit.getAuthorIdent();
+		return records.getAuthorIdent(index);
 	}
 
 	public PersonIdent getCommitterIdent() {
-		return commit.getCommitterIdent();
+		return records.getCommitterIdent(index);
 	}
 
 	@Override
@@ -103,22 +141,38 @@ public class RepositoryCommit implements Serializable, Comparable<RepositoryComm
 
 	@Override
 	public int hashCode() {
-		return (repository + commit).hashCode();
+		return 31 * repository.hashCode() + getId().hashCode();
 	}
 
 	@Override
 	public int compareTo(RepositoryCommit o) {
 		// reverse-chronological order
-		if (commit.getCommitTime() > o.commit.getCommitTime()) {
+		int commitTime = records.getCommitTime(index);
+		int otherTime = o.records.getCommitTime(o.index);
+		if (commitTime > otherTime) {
 			return -1;
-		} else if (commit.getCommitTime() < o.commit.getCommitTime()) {
+		} else if (commitTime < otherTime) {
 			return 1;
 		}
 		return 0;
 	}
 
 	public RepositoryCommit clone(String withRef) {
-		return new RepositoryCommit(repository, withRef, commit);
+		RepositoryCommit clone = new RepositoryCommit(repository, withRef, records, index);
+		clone.refs = refs;
+		return clone;
+	}
+
+	/**
+	 * Serializes only the record of this commit instead of the whole block.
+	 */
+	private Object writeReplace() {
+		if (records.size() == 1) {
+			return this;
+		}
+		RepositoryCommit commit = new RepositoryCommit(repository, branch, records.slice(index), 0);
+		commit.refs = refs;
+		return commit;
 	}
 
 	@Override
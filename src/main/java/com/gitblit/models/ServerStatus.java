@@ -17,6 +17,7 @@ package com.gitblit.models;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -51,6 +52,12 @@ public class ServerStatus implements Serializable {
 
 	public String servletContainer;
 
+	public volatile CacheStatistics commitCache;
+
+	public volatile List<CacheStatistics> caches;
+
+	public volatile Map<String, Double> metrics;
+
 	public ServerStatus() {
 		this.bootDate = new Date();
 		this.version = Constants.getVersion();
@@ -20,7 +20,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -30,6 +29,7 @@ import com.gitblit.Constants.AccessRestrictionType;
 import com.gitblit.Constants.AccountType;
 import com.gitblit.Constants.PermissionType;
 import com.gitblit.Constants.RegistrantType;
+import com.gitblit.utils.PermissionMatcher;
 import com.gitblit.utils.StringUtils;
 
 /**
@@ -53,16 +53,43 @@ public class TeamModel implements Serializable, Comparable<TeamModel> {
 	// retained for backwards-compatibility with RPC clients
 	@Deprecated
 	public final Set<String> repositories = new HashSet<String>();
-	public final Map<String, AccessPermission> permissions = new LinkedHashMap<String, AccessPermission>();
+	public final Map<String, AccessPermission> permissions = new PermissionMap();
 	public final Set<String> mailingLists = new HashSet<String>();
 	public final List<String> preReceiveScripts = new ArrayList<String>();
 	public final List<String> postReceiveScripts = new ArrayList<String>();
 
+	// compiled permissions, rebuilt when the permissions change
+	private transient volatile PermissionMatcher permissionMatcher;
+
 	public TeamModel(String name) {
 		this.name = name;
 		this.accountType = AccountType.LOCAL;
 	}
 
+	/**
+	 * Returns a structural copy of this team.  The collections are copied, the
+	 * strings and enums are shared.  This is equivalent to, but much cheaper
+	 * than, a serialization round-trip through DeepCopier.
+	 *
+	 * @return a copy of this team
+	 */
+	public TeamModel copy() {
+		TeamModel copy = new TeamModel(name);
+		copy.canAdmin = canAdmin;
+		copy.canFork = canFork;
+		copy.canCreate = canCreate;
+		copy.accountType = accountType;
+		copy.users.addAll(users);
+		copy.repositories.addAll(repositories);
+		copy.permissions.putAll(permissions);
+		copy.mailingLists.addAll(mailingLists);
+		copy.preReceiveScripts.addAll(preReceiveScripts);
+		copy.postReceiveScripts.addAll(postReceiveScripts);
+		// the matcher is an immutable snapshot of the permissions
+		copy.permissionMatcher = permissionMatcher;
+		return copy;
+	}
+
 	/**
 	 * Returns a list of repository permissions for this team.
 	 *
@@ -90,6 +117,18 @@ public class TeamModel implements Serializable, Comparable<TeamModel> {
 		return list;
 	}
 
+	/**
+	 * Returns the compiled form of the permissions of this team.  The matcher is
+	 * reused until the permissions change.
+	 *
+	 * @return the permission matcher
+	 */
+	private PermissionMatcher getPermissionMatcher() {
+		PermissionMatcher matcher = PermissionMatcher.of(permissionMatcher, permissions);
+		permissionMatcher = matcher;
+		return matcher;
+	}
+
 	/**
 	 * Returns true if the team has any type of specified access permission for
 	 * this repository.
@@ -104,9 +143,9 @@ public class TeamModel implements Serializable, Comparable<TeamModel> {
 			return true;
 		} else {
 			// search for regex permission match
-			for (String key : permissions.keySet()) {
-				if (name.matches(key)) {
-					AccessPermission p = permissions.get(key);
+			for (PermissionMatcher.Entry entry : getPermissionMatcher().getEntries()) {
+				if (entry.matches(name)) {
+					AccessPermission p = entry.permission;
 					if (p != null) {
 						return true;
 					}
@@ -217,9 +256,9 @@ public class TeamModel implements Serializable, Comparable<TeamModel> {
 			}
 		} else {
 			// search for case-insensitive regex permission match
-			for (String key : permissions.keySet()) {
-				if (StringUtils.matchesIgnoreCase(repository.name, key)) {
-					AccessPermission p = permissions.get(key);
+			for (PermissionMatcher.Entry entry : getPermissionMatcher().getEntries()) {
+				if (entry.matchesIgnoreCase(repository.name)) {
+					AccessPermission p = entry.permission;
 					if (p != null && repository.accessRestriction.isValidPermission(p)) {
 						// take first match
 						ap.permissionType = PermissionType.REGEX;
@@ -228,7 +267,7 @@ public class TeamModel implements Serializable, Comparable<TeamModel> {
 						} else {
 							ap.permission = maxPermission;
 						}
-						ap.source = key;
+						ap.source = entry.key;
 						return ap;
 					}
 				}
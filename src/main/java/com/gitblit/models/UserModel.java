@@ -20,7 +20,7 @@ import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -35,7 +35,9 @@ import com.gitblit.Constants.AuthorizationControl;
 import com.gitblit.Constants.PermissionType;
 import com.gitblit.Constants.RegistrantType;
 import com.gitblit.utils.ArrayUtils;
+import com.gitblit.utils.DeepCopier;
 import com.gitblit.utils.ModelUtils;
+import com.gitblit.utils.PermissionMatcher;
 import com.gitblit.utils.SecureRandom;
 import com.gitblit.utils.StringUtils;
 
@@ -74,7 +76,7 @@ public class UserModel implements Principal, Serializable, Comparable<UserModel>
 	// retained for backwards-compatibility with RPC clients
 	@Deprecated
 	public final Set<String> repositories = new HashSet<String>();
-	public final Map<String, AccessPermission> permissions = new LinkedHashMap<String, AccessPermission>();
+	public final Map<String, AccessPermission> permissions = new PermissionMap();
 	public final Set<TeamModel> teams = new TreeSet<TeamModel>();
 
 	// non-persisted fields
@@ -83,6 +85,9 @@ public class UserModel implements Principal, Serializable, Comparable<UserModel>
 
 	public UserPreferences userPreferences;
 
+	// compiled permissions, rebuilt when the permissions change
+	private transient volatile PermissionMatcher permissionMatcher;
+
 	public UserModel(String username) {
 		this.username = username;
 		this.isAuthenticated = true;
@@ -97,6 +102,64 @@ public class UserModel implements Principal, Serializable, Comparable<UserModel>
 		this.userPreferences = new UserPreferences(this.username);
 	}
 
+	/**
+	 * Returns a structural copy of this user including copies of its teams.
+	 * The collections are copied, the strings and enums are shared.  This is
+	 * equivalent to, but much cheaper than, a serialization round-trip through
+	 * DeepCopier.  Subclasses are copied by serialization.
+	 *
+	 * @return a copy of this user
+	 */
+	public UserModel copy() {
+		return copy(new IdentityHashMap<TeamModel, TeamModel>());
+	}
+
+	/**
+	 * Returns a structural copy of this user.  Teams which are shared by
+	 * several users are copied once per map, as they would be by a single
+	 * serialization of a list of users.
+	 *
+	 * @param teamCopies
+	 *            the copies of the teams copied so far
+	 * @return a copy of this user
+	 */
+	public UserModel copy(Map<TeamModel, TeamModel> teamCopies) {
+		if (getClass() != UserModel.class) {
+			return DeepCopier.copy(this);
+		}
+		UserModel copy = new UserModel(username);
+		copy.password = password;
+		copy.cookie = cookie;
+		copy.displayName = displayName;
+		copy.emailAddress = emailAddress;
+		copy.organizationalUnit = organizationalUnit;
+		copy.organization = organization;
+		copy.locality = locality;
+		copy.stateProvince = stateProvince;
+		copy.countryCode = countryCode;
+		copy.canAdmin = canAdmin;
+		copy.canFork = canFork;
+		copy.canCreate = canCreate;
+		copy.excludeFromFederation = excludeFromFederation;
+		copy.disabled = disabled;
+		copy.repositories.addAll(repositories);
+		copy.permissions.putAll(permissions);
+		for (TeamModel team : teams) {
+			TeamModel teamCopy = teamCopies.get(team);
+			if (teamCopy == null) {
+				teamCopy = team.copy();
+				teamCopies.put(team, teamCopy);
+			}
+			copy.teams.add(teamCopy);
+		}
+		copy.isAuthenticated = isAuthenticated;
+		copy.accountType = accountType;
+		copy.userPreferences = userPreferences == null ? null : userPreferences.copy();
+		// the matcher is an immutable snapshot of the permissions
+		copy.permissionMatcher = permissionMatcher;
+		return copy;
+	}
+
 	public boolean isLocalAccount() {
 		return !Constants.EXTERNAL_ACCOUNT.equals(password)
 				|| accountType == null
@@ -149,6 +212,18 @@ public class UserModel implements Principal, Serializable, Comparable<UserModel>
 		return new ArrayList<RegistrantAccessPermission>(set);
 	}
 
+	/**
+	 * Returns the compiled form of the permissions of this user.  The matcher is
+	 * reused until the permissions change.
+	 *
+	 * @return the permission matcher
+	 */
+	private PermissionMatcher getPermissionMatcher() {
+		PermissionMatcher matcher = PermissionMatcher.of(permissionMatcher, permissions);
+		permissionMatcher = matcher;
+		return matcher;
+	}
+
 	/**
 	 * Returns true if the user has any type of specified access permission for
 	 * this repository.
@@ -163,9 +238,9 @@ public class UserModel implements Principal, Serializable, Comparable<UserModel>
 			return true;
 		} else {
 			// search for regex permission match
-			for (String key : permissions.keySet()) {
-				if (name.matches(key)) {
-					AccessPermission p = permissions.get(key);
+			for (PermissionMatcher.Entry entry : getPermissionMatcher().getEntries()) {
+				if (entry.matches(name)) {
+					AccessPermission p = entry.permission;
 					if (p != null) {
 						return true;
 					}
@@ -319,9 +394,9 @@ public class UserModel implements Principal, Serializable, Comparable<UserModel>
 			}
 		} else {
 			// search for case-insensitive regex permission match
-			for (String key : permissions.keySet()) {
-				if (StringUtils.matchesIgnoreCase(repository.name, key)) {
-					AccessPermission p = permissions.get(key);
+			for (PermissionMatcher.Entry entry : getPermissionMatcher().getEntries()) {
+				if (entry.matchesIgnoreCase(repository.name)) {
+					AccessPermission p = entry.permission;
 					if (p != null && repository.accessRestriction.isValidPermission(p)) {
 						// take first match
 						ap.permissionType = PermissionType.REGEX;
@@ -330,7 +405,7 @@ public class UserModel implements Principal, Serializable, Comparable<UserModel>
 						} else {
 							ap.permission = maxPermission;
 						}
-						ap.source = key;
+						ap.source = entry.key;
 						return ap;
 					}
 				}
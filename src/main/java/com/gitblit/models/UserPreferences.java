@@ -50,6 +50,22 @@ public class UserPreferences implements Serializable {
 		this.username = username;
 	}
 
+	/**
+	 * Returns a structural copy of these preferences.
+	 *
+	 * @return a copy of these preferences
+	 */
+	public UserPreferences copy() {
+		UserPreferences copy = new UserPreferences(username);
+		copy.locale = locale;
+		copy.emailMeOnMyTicketChanges = emailMeOnMyTicketChanges;
+		copy.transport = transport;
+		for (Map.Entry<String, UserRepositoryPreferences> entry : repositoryPreferences.entrySet()) {
+			copy.repositoryPreferences.put(entry.getKey(), entry.getValue().copy());
+		}
+		return copy;
+	}
+
 	public Locale getLocale() {
 		if (StringUtils.isEmpty(locale)) {
 			return null;
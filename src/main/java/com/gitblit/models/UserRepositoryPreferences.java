@@ -33,6 +33,14 @@ public class UserRepositoryPreferences implements Serializable {
 
 	public boolean starred;
 
+	public UserRepositoryPreferences copy() {
+		UserRepositoryPreferences copy = new UserRepositoryPreferences();
+		copy.username = username;
+		copy.repositoryName = repositoryName;
+		copy.starred = starred;
+		return copy;
+	}
+
 	@Override
 	public String toString() {
 		return username + ":" + repositoryName;
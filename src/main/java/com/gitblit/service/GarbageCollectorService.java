@@ -33,6 +33,7 @@ import com.gitblit.IStoredSettings;
 import com.gitblit.Keys;
 import com.gitblit.manager.IRepositoryManager;
 import com.gitblit.models.RepositoryModel;
+import com.gitblit.utils.CommitGraphCache;
 import com.gitblit.utils.FileUtils;
 
 /**
@@ -202,6 +203,12 @@ public class GarbageCollectorService implements Runnable {
 					gc.call();
 
 					garbageCollected = true;
+
+					// rebuild the commit graph without the collected commits
+					CommitGraphCache.instance().rebuild(repository);
+
+					// re-measure the repository without the collected objects
+					repositoryManager.setRepositoryChanged(repositoryName);
 				}
 			} catch (Exception e) {
 				logger.error("Error collecting garbage in " + repositoryName, e);
@@ -93,6 +93,7 @@ import com.gitblit.models.RepositoryModel;
 import com.gitblit.models.SearchResult;
 import com.gitblit.utils.ArrayUtils;
 import com.gitblit.utils.JGitUtils;
+import com.gitblit.utils.ServerMetrics;
 import com.gitblit.utils.StringUtils;
 
 /**
@@ -144,6 +145,21 @@ public class LuceneService implements Runnable {
 			exts = settings.getString(Keys.web.luceneIgnoreExtensions, exts);
 		}
 		excludedExtensions = new TreeSet<String>(StringUtils.getStringsFromValue(exts));
+
+		ServerMetrics.instance().gauge("gitblit_lucene_searchers", "The number of open Lucene index searchers.",
+				new ServerMetrics.Gauge() {
+			@Override
+			public double getValue() {
+				return searchers.size();
+			}
+		});
+		ServerMetrics.instance().gauge("gitblit_lucene_writers", "The number of open Lucene index writers.",
+				new ServerMetrics.Gauge() {
+			@Override
+			public double getValue() {
+				return writers.size();
+			}
+		});
 	}
 
 	/**
@@ -47,6 +47,7 @@ import org.slf4j.LoggerFactory;
 import com.gitblit.IStoredSettings;
 import com.gitblit.Keys;
 import com.gitblit.models.Mailing;
+import com.gitblit.utils.ServerMetrics;
 import com.gitblit.utils.StringUtils;
 
 /**
@@ -68,6 +69,14 @@ public class MailService implements Runnable {
 	public MailService(IStoredSettings settings) {
 		this.settings = settings;
 
+		ServerMetrics.instance().gauge("gitblit_mail_queue_depth", "The number of queued mail messages.",
+				new ServerMetrics.Gauge() {
+			@Override
+			public double getValue() {
+				return queue.size();
+			}
+		});
+
 		final String mailUser = settings.getString(Keys.mail.username, null);
 		final String mailPassword = settings.getString(Keys.mail.password, null);
 		final boolean smtps = settings.getBoolean(Keys.mail.smtps, false);
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.service;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jgit.lib.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gitblit.IStoredSettings;
+import com.gitblit.Keys;
+import com.gitblit.utils.LastChangeCache;
+import com.gitblit.utils.RepositoryFingerprint;
+
+/**
+ * The Repository Watch service tracks changes to the config, HEAD,
+ * packed-refs, and loose refs of the cached repositories so that cached
+ * repository models only need to be refreshed after a change.
+ *
+ * Repositories are watched with the native filesystem watch service.  If the
+ * native watch service is unavailable, or a repository can not be registered
+ * (e.g. the inotify watch limit has been reached or the filesystem is a
+ * network share), the repository is polled by comparing its
+ * {@link RepositoryFingerprint} each time this service runs.
+ *
+ * The changes of the watched repositories are reported to the
+ * {@link LastChangeCache}, which serves the last change of a watched
+ * repository without reading its refs.
+ *
+ * @author agent
+ *
+ */
+public class RepositoryWatchService implements Runnable {
+
+	private final Logger logger = LoggerFactory.getLogger(RepositoryWatchService.class);
+
+	private final IStoredSettings settings;
+
+	private final Map<String, Watch> watches = new ConcurrentHashMap<String, Watch>();
+
+	private final Map<WatchKey, Watch> keys = new ConcurrentHashMap<WatchKey, Watch>();
+
+	private final AtomicBoolean running = new AtomicBoolean(false);
+
+	private WatchService watchService;
+
+	private Thread watchThread;
+
+	public RepositoryWatchService(IStoredSettings settings) {
+		this.settings = settings;
+	}
+
+	/**
+	 * A watched repository.
+	 */
+	private static class Watch {
+		final String name;
+		final File gitDir;
+		final List<WatchKey> keys = new ArrayList<WatchKey>();
+		final AtomicBoolean changed = new AtomicBoolean(false);
+		volatile RepositoryFingerprint fingerprint;
+		volatile long config;
+
+		Watch(String name, File gitDir) {
+			this.name = name;
+			this.gitDir = gitDir;
+			this.config = RepositoryFingerprint.configStamp(gitDir);
+		}
+
+		boolean isPolled() {
+			return fingerprint != null;
+		}
+
+		/**
+		 * Flags the repository as changed and reports the change to the last
+		 * change cache.
+		 */
+		void changed() {
+			changed.set(true);
+			LastChangeCache.instance().changed(gitDir);
+		}
+	}
+
+	/**
+	 * Indicates if the watch service is enabled.
+	 *
+	 * @return true if repositories should be watched for changes
+	 */
+	public boolean isReady() {
+		return !"off".equalsIgnoreCase(getMode());
+	}
+
+	/**
+	 * @return true if repositories are watched with the native watch service
+	 */
+	public boolean isNative() {
+		return watchService != null;
+	}
+
+	private String getMode() {
+		return settings.getString(Keys.git.watchRepositories, "auto");
+	}
+
+	/**
+	 * Starts the native watch service thread, unless polling has been
+	 * requested or the native watch service is unavailable.
+	 */
+	public void start() {
+		if (!isReady() || !"auto".equalsIgnoreCase(getMode())) {
+			return;
+		}
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+		} catch (Exception e) {
+			logger.warn("Native filesystem watch service is unavailable, repositories will be polled", e);
+			return;
+		}
+		running.set(true);
+		watchThread = new Thread() {
+			@Override
+			public void run() {
+				processEvents();
+			}
+		};
+		watchThread.setName("RepositoryWatchService");
+		watchThread.setDaemon(true);
+		watchThread.start();
+	}
+
+	/**
+	 * Stops watching all repositories.
+	 */
+	public void close() {
+		running.set(false);
+		unwatchAll();
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				logger.error("Failed to close the watch service", e);
+			}
+			watchService = null;
+		}
+	}
+
+	/**
+	 * Starts watching a repository.  Watching a repository which is already
+	 * watched does not reset its changed flag.
+	 *
+	 * @param name
+	 *            the repository cache key
+	 * @param gitDir
+	 *            the git folder of the repository
+	 */
+	public void watch(String name, File gitDir) {
+		if (!isReady() || gitDir == null) {
+			return;
+		}
+		Watch current = watches.get(name);
+		if (current != null && current.gitDir.equals(gitDir)) {
+			return;
+		}
+		unwatch(name);
+		Watch watch = new Watch(name, gitDir);
+		if (watchService != null) {
+			try {
+				register(watch, gitDir.toPath());
+				registerAll(watch, new File(gitDir, Constants.R_REFS).toPath());
+			} catch (IOException e) {
+				logger.debug(MessageFormat.format("Failed to watch {0}, polling instead", gitDir), e);
+				cancel(watch);
+			}
+		}
+		if (watch.keys.isEmpty()) {
+			watch.fingerprint = RepositoryFingerprint.of(gitDir);
+		}
+		watches.put(name, watch);
+		LastChangeCache.instance().watch(gitDir);
+	}
+
+	/**
+	 * Stops watching a repository.
+	 *
+	 * @param name
+	 *            the repository cache key
+	 */
+	public void unwatch(String name) {
+		Watch watch = watches.remove(name);
+		if (watch != null) {
+			cancel(watch);
+			LastChangeCache.instance().unwatch(watch.gitDir);
+		}
+	}
+
+	/**
+	 * Stops watching all repositories.
+	 */
+	public void unwatchAll() {
+		for (String name : new ArrayList<String>(watches.keySet())) {
+			unwatch(name);
+		}
+	}
+
+	/**
+	 * Returns true if the repository is not watched or if it has changed since
+	 * the changed flag was last cleared.  Native events are delivered
+	 * asynchronously so the config file of a natively watched repository is
+	 * also checked to make direct config edits visible immediately.
+	 *
+	 * @param name
+	 *            the repository cache key
+	 * @return true if the cached data of the repository must be refreshed
+	 */
+	public boolean isChanged(String name) {
+		Watch watch = watches.get(name);
+		if (watch == null || watch.changed.get()) {
+			return true;
+		}
+		return !watch.isPolled() && watch.config != RepositoryFingerprint.configStamp(watch.gitDir);
+	}
+
+	/**
+	 * Clears the changed flag of a repository.  This must be called before
+	 * refreshing the cached data so that concurrent changes are not lost.
+	 *
+	 * @param name
+	 *            the repository cache key
+	 */
+	public void clearChanged(String name) {
+		Watch watch = watches.get(name);
+		if (watch != null) {
+			watch.config = RepositoryFingerprint.configStamp(watch.gitDir);
+			watch.changed.set(false);
+		}
+	}
+
+	/**
+	 * Flags a repository as changed.
+	 *
+	 * @param name
+	 *            the repository cache key
+	 */
+	public void setChanged(String name) {
+		Watch watch = watches.get(name);
+		if (watch != null) {
+			watch.changed.set(true);
+		}
+	}
+
+	/**
+	 * Polls the fingerprints of the repositories which are not watched by the
+	 * native watch service.
+	 */
+	@Override
+	public void run() {
+		for (Watch watch : watches.values()) {
+			if (!watch.isPolled()) {
+				continue;
+			}
+			RepositoryFingerprint fingerprint = RepositoryFingerprint.of(watch.gitDir);
+			if (!fingerprint.equals(watch.fingerprint)) {
+				watch.fingerprint = fingerprint;
+				watch.changed();
+			}
+		}
+	}
+
+	private void register(Watch watch, Path folder) throws IOException {
+		WatchKey key = folder.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+		synchronized (watch.keys) {
+			watch.keys.add(key);
+		}
+		keys.put(key, watch);
+	}
+
+	private void registerAll(Watch watch, Path folder) throws IOException {
+		if (!Files.isDirectory(folder)) {
+			return;
+		}
+		register(watch, folder);
+		File[] files = folder.toFile().listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.isDirectory()) {
+					registerAll(watch, file.toPath());
+				}
+			}
+		}
+	}
+
+	private void cancel(Watch watch) {
+		synchronized (watch.keys) {
+			for (WatchKey key : watch.keys) {
+				keys.remove(key);
+				key.cancel();
+			}
+			watch.keys.clear();
+		}
+	}
+
+	private void processEvents() {
+		while (running.get()) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			} catch (InterruptedException e) {
+				break;
+			} catch (ClosedWatchServiceException e) {
+				break;
+			}
+			Watch watch = keys.get(key);
+			if (watch == null) {
+				key.cancel();
+				continue;
+			}
+			Path folder = (Path) key.watchable();
+			boolean isGitDir = folder.equals(watch.gitDir.toPath());
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == OVERFLOW) {
+					// events were lost, refresh every repository
+					for (Watch w : watches.values()) {
+						w.changed();
+					}
+					continue;
+				}
+				Path name = (Path) event.context();
+				String fileName = name.toString();
+				if (fileName.endsWith(".lock")) {
+					continue;
+				}
+				if (isGitDir && !isTracked(fileName)) {
+					continue;
+				}
+				if (event.kind() == ENTRY_CREATE && !isGitDir && watches.get(watch.name) == watch) {
+					// watch new ref folders, e.g. refs/heads/feature
+					try {
+						registerAll(watch, folder.resolve(name));
+					} catch (IOException e) {
+						logger.debug(MessageFormat.format("Failed to watch {0}, polling instead", folder.resolve(name)), e);
+						cancel(watch);
+						watch.fingerprint = RepositoryFingerprint.of(watch.gitDir);
+					}
+				}
+				watch.changed();
+			}
+			if (!key.reset()) {
+				// the folder was deleted
+				keys.remove(key);
+				watch.changed();
+			}
+		}
+	}
+
+	private boolean isTracked(String fileName) {
+		return "config".equals(fileName) || Constants.HEAD.equals(fileName)
+				|| Constants.PACKED_REFS.equals(fileName) || "refs".equals(fileName);
+	}
+}
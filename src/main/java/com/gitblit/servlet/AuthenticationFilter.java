@@ -39,7 +39,6 @@ import com.gitblit.Constants;
 import com.gitblit.Constants.Role;
 import com.gitblit.manager.IAuthenticationManager;
 import com.gitblit.models.UserModel;
-import com.gitblit.utils.DeepCopier;
 import com.gitblit.utils.StringUtils;
 
 /**
@@ -155,7 +154,7 @@ public abstract class AuthenticationFilter implements Filter {
 
 		public AuthenticatedRequest(HttpServletRequest req) {
 			super(req);
-			user = DeepCopier.copy(UserModel.ANONYMOUS);
+			user = UserModel.ANONYMOUS.copy();
 		}
 
 		UserModel getUser() {
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.servlet;
+
+import com.gitblit.manager.IAuthenticationManager;
+import com.gitblit.manager.IRepositoryManager;
+import com.gitblit.manager.IRuntimeManager;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * The DiffFilter is an AccessRestrictionFilter which ensures diff requests
+ * for a view-restricted repository are authenticated and authorized.
+ *
+ * @author agent
+ *
+ */
+@Singleton
+public class DiffFilter extends RawFilter {
+
+	@Inject
+	public DiffFilter(
+			IRuntimeManager runtimeManager,
+			IAuthenticationManager authenticationManager,
+			IRepositoryManager repositoryManager) {
+
+		super(runtimeManager, authenticationManager, repositoryManager);
+	}
+
+	/**
+	 * Extract the repository name from the url.  The path of the diff is a
+	 * request parameter so the repository is the whole path of the url.  The
+	 * repository prefixes of the path are not searched, a path which is not a
+	 * repository is not authorized and the DiffServlet serves exactly the
+	 * repository which was authorized.
+	 *
+	 * @param url
+	 * @return repository name
+	 */
+	@Override
+	protected String extractRepositoryName(String url) {
+		int query = url.indexOf('?');
+		return query < 0 ? url : url.substring(0, query);
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.servlet;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.text.MessageFormat;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gitblit.Constants;
+import com.gitblit.IStoredSettings;
+import com.gitblit.Keys;
+import com.gitblit.manager.IRepositoryManager;
+import com.gitblit.utils.DiffUtils;
+import com.gitblit.utils.DiffUtils.DiffComparator;
+import com.gitblit.utils.DiffUtils.DiffStat;
+import com.gitblit.utils.JGitUtils;
+import com.gitblit.utils.StringUtils;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Serves the html diff of a single file of a commit or of a comparison.  The
+ * commit diff and compare pages of large diffs load the file diffs from this
+ * servlet on demand.  Only the trees of the file are compared and a file diff
+ * larger than web.maxDiffBytesPerFile is not shown, so the work and memory of
+ * a request are bounded by the size of one file diff.
+ *
+ * @author agent
+ *
+ */
+@Singleton
+public class DiffServlet extends HttpServlet {
+
+	private static final long serialVersionUID = 1L;
+
+	private transient Logger logger = LoggerFactory.getLogger(DiffServlet.class);
+
+	private final IStoredSettings settings;
+
+	private final IRepositoryManager repositoryManager;
+
+	@Inject
+	public DiffServlet(
+			IStoredSettings settings,
+			IRepositoryManager repositoryManager) {
+
+		this.settings = settings;
+		this.repositoryManager = repositoryManager;
+	}
+
+	/**
+	 * Returns an url to this servlet for the specified parameters.
+	 *
+	 * @param baseURL
+	 * @param repository
+	 * @param baseId
+	 *            if null, the diff is to the primary parent of the commit
+	 * @param objectId
+	 * @param path
+	 * @param oldPath
+	 *            the path of a renamed file in the base commit, may be null
+	 * @param comparator
+	 * @return an url
+	 */
+	public static String asLink(String baseURL, String repository, String baseId, String objectId,
+			String path, String oldPath, DiffComparator comparator) {
+		if (baseURL.length() > 0 && baseURL.charAt(baseURL.length() - 1) == '/') {
+			baseURL = baseURL.substring(0, baseURL.length() - 1);
+		}
+		return baseURL + Constants.DIFF_PATH + repository + "?h=" + objectId
+				+ (StringUtils.isEmpty(baseId) ? "" : ("&b=" + baseId))
+				+ "&f=" + encode(path)
+				+ (StringUtils.isEmpty(oldPath) ? "" : ("&o=" + encode(oldPath)))
+				+ (comparator == null ? "" : ("&w=" + comparator.ordinal()));
+	}
+
+	private static String encode(String path) {
+		try {
+			return URLEncoder.encode(path, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			return StringUtils.encodeURL(path);
+		}
+	}
+
+	/**
+	 * Returns the repository of the request.  This is the whole path of the
+	 * request uri, exactly as the DiffFilter extracts the repository it
+	 * authorizes.
+	 *
+	 * @param request
+	 * @return the repository name
+	 */
+	private String getRepositoryName(HttpServletRequest request) {
+		String servletUrl = request.getContextPath() + request.getServletPath();
+		String url = request.getRequestURI().substring(servletUrl.length());
+		if (url.length() > 0 && url.charAt(0) == '/') {
+			url = url.substring(1);
+		}
+		return url;
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		String repository = getRepositoryName(request);
+		String objectId = request.getParameter("h");
+		String baseId = request.getParameter("b");
+		String path = request.getParameter("f");
+		String oldPath = request.getParameter("o");
+		if (StringUtils.isEmpty(repository) || StringUtils.isEmpty(objectId) || StringUtils.isEmpty(path)) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+			return;
+		}
+		DiffComparator comparator = DiffComparator.SHOW_WHITESPACE;
+		String w = request.getParameter("w");
+		if (!StringUtils.isEmpty(w)) {
+			try {
+				comparator = DiffComparator.values()[Integer.parseInt(w)];
+			} catch (RuntimeException e) {
+				response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+				return;
+			}
+		}
+
+		Repository r = repositoryManager.getRepository(repository);
+		if (r == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		try {
+			RevCommit commit = JGitUtils.getCommit(r, objectId);
+			RevCommit base = StringUtils.isEmpty(baseId) ? null : JGitUtils.getCommit(r, baseId);
+			if (commit == null || (!StringUtils.isEmpty(baseId) && base == null)) {
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+
+			int tabLength = settings.getInteger(Keys.web.tabLength, 4);
+			int maxBytes = settings.getFilesize(Keys.web.maxDiffBytesPerFile, 1024 * 1024);
+			response.setContentType("text/html; charset=UTF-8");
+			Writer writer = response.getWriter();
+			DiffStat stat = DiffUtils.writeDiff(r, base, commit, path, oldPath, comparator, tabLength, maxBytes,
+					writer);
+			if (stat == null) {
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+			writer.flush();
+		} catch (Exception e) {
+			logger.error(MessageFormat.format("Failed to write the diff of {0} {1} {2}",
+					repository, objectId, path), e);
+			if (!response.isCommitted()) {
+				response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			}
+		} finally {
+			r.close();
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.servlet;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.gitblit.IStoredSettings;
+import com.gitblit.Keys;
+import com.gitblit.manager.IAuthenticationManager;
+import com.gitblit.models.UserModel;
+
+/**
+ * The MetricsFilter is a servlet filter that secures the MetricsServlet.
+ *
+ * The metrics are only available to administrators.  If no credentials are
+ * stored in the "Authorization" header, then a basic authentication challenge
+ * is issued.
+ *
+ * @author agent
+ *
+ */
+@Singleton
+public class MetricsFilter extends AuthenticationFilter {
+
+	private IStoredSettings settings;
+
+	@Inject
+	public MetricsFilter(
+			IStoredSettings settings,
+			IAuthenticationManager authenticationManager) {
+
+		super(authenticationManager);
+
+		this.settings = settings;
+	}
+
+	@Override
+	public void doFilter(final ServletRequest request, final ServletResponse response,
+			final FilterChain chain) throws IOException, ServletException {
+
+		HttpServletRequest httpRequest = (HttpServletRequest) request;
+		HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+		if (!settings.getBoolean(Keys.web.enableMetricsServlet, false)) {
+			logger.warn(Keys.web.enableMetricsServlet + " must be set TRUE for metrics requests.");
+			httpResponse.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+
+		UserModel user = getUser(httpRequest);
+		if (user == null) {
+			// challenge client to provide credentials. send 401.
+			httpResponse.setHeader("WWW-Authenticate", CHALLENGE);
+			httpResponse.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+			return;
+		}
+		if (!user.canAdmin()) {
+			// valid user, but not an administrator. send 403.
+			logger.warn(MessageFormat.format("METRICS: {0} forbidden to access {1}",
+					user.username, getFullUrl(httpRequest)));
+			httpResponse.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+
+		AuthenticatedRequest authenticatedRequest = new AuthenticatedRequest(httpRequest);
+		authenticatedRequest.setUser(user);
+		chain.doFilter(authenticatedRequest, httpResponse);
+	}
+}
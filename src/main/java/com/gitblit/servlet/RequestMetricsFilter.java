@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.servlet;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.inject.Singleton;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import com.gitblit.Constants;
+import com.gitblit.utils.ServerMetrics;
+import com.gitblit.utils.ServerMetrics.Histogram;
+
+/**
+ * Records the latency of the requests by servlet.  The servlet of a request
+ * is identified by the path prefix of its mapping, requests for the web
+ * pages are recorded as "web".
+ *
+ * @author agent
+ *
+ */
+@Singleton
+public class RequestMetricsFilter implements Filter {
+
+	private static final String NAME = "gitblit_http_request_duration_seconds";
+
+	private static final String HELP = "The duration of the HTTP requests.";
+
+	private final Map<String, Histogram> histograms = new LinkedHashMap<String, Histogram>();
+
+	private final Histogram web;
+
+	public RequestMetricsFilter() {
+		add(Constants.R_PATH, "git");
+		add(Constants.GIT_PATH, "git");
+		add(Constants.RAW_PATH, "raw");
+		add(Constants.PAGES, "pages");
+		add(Constants.RPC_PATH, "rpc");
+		add(Constants.ZIP_PATH, "zip");
+		add(Constants.SYNDICATION_PATH, "feed");
+		add(Constants.FEDERATION_PATH, "federation");
+		add(Constants.SPARKLESHARE_INVITE_PATH, "sparkleshare");
+		add(Constants.BRANCH_GRAPH_PATH, "graph");
+		add(Constants.DIFF_PATH, "diff");
+		add(Constants.PT_PATH, "pt");
+		add(Constants.METRICS_PATH, "prometheus");
+		web = ServerMetrics.instance().histogram(NAME, HELP, "servlet=\"web\"");
+	}
+
+	private void add(String path, String servlet) {
+		histograms.put(path, ServerMetrics.instance().histogram(NAME, HELP, "servlet=\"" + servlet + "\""));
+	}
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+			throws IOException, ServletException {
+		long start = System.nanoTime();
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			getHistogram((HttpServletRequest) request).observe(System.nanoTime() - start);
+		}
+	}
+
+	private Histogram getHistogram(HttpServletRequest request) {
+		String path = request.getServletPath();
+		if (request.getPathInfo() != null) {
+			path += request.getPathInfo();
+		}
+		for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+			if (path.startsWith(entry.getKey())) {
+				return entry.getValue();
+			}
+		}
+		return web;
+	}
+
+	@Override
+	public void destroy() {
+	}
+}
@@ -30,6 +30,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
 
 import com.gitblit.Constants;
 import com.gitblit.Constants.RpcRequest;
@@ -37,15 +38,16 @@ import com.gitblit.GitBlitException;
 import com.gitblit.IStoredSettings;
 import com.gitblit.Keys;
 import com.gitblit.manager.IGitblit;
+import com.gitblit.models.LastCommitModel;
 import com.gitblit.models.RefModel;
 import com.gitblit.models.RegistrantAccessPermission;
 import com.gitblit.models.RepositoryModel;
 import com.gitblit.models.ServerSettings;
 import com.gitblit.models.TeamModel;
 import com.gitblit.models.UserModel;
-import com.gitblit.utils.DeepCopier;
 import com.gitblit.utils.HttpUtils;
 import com.gitblit.utils.JGitUtils;
+import com.gitblit.utils.LastCommitCache;
 import com.gitblit.utils.RpcUtils;
 import com.gitblit.utils.StringUtils;
 
@@ -59,7 +61,7 @@ public class RpcServlet extends JsonServlet {
 
 	private static final long serialVersionUID = 1L;
 
-	public static final int PROTOCOL_VERSION = 8;
+	public static final int PROTOCOL_VERSION = 9;
 
 	private IStoredSettings settings;
 
@@ -160,7 +162,7 @@ public class RpcServlet extends JsonServlet {
 					response.sendError(forbiddenCode);
 				} else {
 					// return the current user, reset credentials
-					UserModel requestedUser = DeepCopier.copy(user);
+					UserModel requestedUser = user.copy();
 					result = requestedUser;
 				}
 			} else {
@@ -227,6 +229,27 @@ public class RpcServlet extends JsonServlet {
 					}
 				}
 			}
+		} else if (RpcRequest.LIST_LAST_COMMITS.equals(reqType)) {
+			// list the commits which last changed the entries of a folder
+			RepositoryModel model = gitblit.getRepositoryModel(user, objectName);
+			if (model == null) {
+				response.sendError(forbiddenCode);
+			} else if (model.hasCommits) {
+				Repository repository = gitblit.getRepository(model.name);
+				try {
+					RevCommit commit = JGitUtils.getCommit(repository, request.getParameter("objectId"));
+					if (commit == null) {
+						response.setStatus(failureCode);
+					} else {
+						result = LastCommitCache.instance().getLastCommits(repository,
+								request.getParameter("path"), commit);
+					}
+				} finally {
+					repository.close();
+				}
+			} else {
+				result = new ArrayList<LastCommitModel>();
+			}
 		} else if (RpcRequest.EDIT_REPOSITORY.equals(reqType)) {
 			// edit repository
 			RepositoryModel model = deserialize(request, response, RepositoryModel.class);
@@ -42,6 +42,7 @@ import com.gitblit.manager.IPluginManager;
 import com.gitblit.manager.IRepositoryManager;
 import com.gitblit.manager.IRuntimeManager;
 import com.gitblit.manager.IUserManager;
+import com.gitblit.models.CacheStatistics;
 import com.gitblit.models.RepositoryModel;
 import com.gitblit.models.TicketModel;
 import com.gitblit.models.TicketModel.Attachment;
@@ -56,9 +57,11 @@ import com.gitblit.utils.DeepCopier;
 import com.gitblit.utils.DiffUtils;
 import com.gitblit.utils.JGitUtils;
 import com.gitblit.utils.DiffUtils.DiffStat;
+import com.gitblit.utils.ServerMetrics;
 import com.gitblit.utils.StringUtils;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 
 /**
  * Abstract parent class of a ticket service that stubs out required methods
@@ -168,7 +171,17 @@ public abstract class ITicketService implements IManager {
 		this.ticketsCache = cb
 				.maximumSize(1000)
 				.expireAfterAccess(30, TimeUnit.MINUTES)
+				.recordStats()
 				.build();
+		ServerMetrics.instance().caches("tickets", new ServerMetrics.CacheSource() {
+			@Override
+			public List<CacheStatistics> getStatistics() {
+				CacheStats stats = ticketsCache.stats();
+				long size = ticketsCache.size();
+				return Collections.singletonList(new CacheStatistics("tickets", size, size, 1000,
+						stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.totalLoadTime()));
+			}
+		});
 
 		this.labelsCache = new ConcurrentHashMap<String, List<TicketLabel>>();
 		this.milestonesCache = new ConcurrentHashMap<String, List<TicketMilestone>>();
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.HistogramDiff;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import com.gitblit.cache.CacheFolder;
+import com.gitblit.cache.CacheLoader;
+import com.gitblit.cache.ServerCache;
+import com.gitblit.cache.Weigher;
+import com.gitblit.models.AnnotatedLine;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Caches the blame of a file at a commit.
+ *
+ * The blame of a file is keyed by the commit and the path of the file and may
+ * also be persisted in a folder to survive restarts.  The size of the folder
+ * is bounded, the least recently used blamed files are deleted first.
+ * Clearing the cache keeps the persisted blamed files.
+ *
+ * A file which is not cached is blamed incrementally when the blame of an
+ * ancestor commit is cached.  Up to that ancestor the commits must have a
+ * single parent which has the file, the blame of each commit is then the
+ * blame of its parent for the lines the commit did not change and the commit
+ * itself for the changed lines.  This is the attribution of a full blame, so
+ * only the changes since the cached blame are diffed instead of walking the
+ * whole history of the file.
+ *
+ * @author agent
+ *
+ */
+public class BlameCache extends ServerCache<List<AnnotatedLine>> {
+
+	private static final BlameCache instance;
+
+	/**
+	 * The maximum number of commits walked back to a cached blame.
+	 */
+	private static final int MAX_INCREMENTAL_COMMITS = 256;
+
+	private static final Type ANNOTATED_LINES_TYPE = new TypeToken<List<AnnotatedLine>>() {
+	}.getType();
+
+	protected volatile CacheFolder<List<AnnotatedLine>> folder;
+
+	protected volatile long maximumFolderBytes = 256 * 1024 * 1024L;
+
+	public static BlameCache instance() {
+		return instance;
+	}
+
+	static {
+		instance = new BlameCache();
+	}
+
+	protected BlameCache() {
+		super("blame");
+		setMaximumLines(100000L);
+	}
+
+	/**
+	 * Sets the maximum number of blamed lines held by the cache.  The least
+	 * recently used files are evicted first.  This clears the cache.
+	 *
+	 * @param maximumLines
+	 */
+	public void setMaximumLines(long maximumLines) {
+		setMaximumWeight(maximumLines, new Weigher<String, List<AnnotatedLine>>() {
+			@Override
+			public int weigh(String key, List<AnnotatedLine> lines) {
+				return Math.max(1, lines.size());
+			}
+		});
+	}
+
+	/**
+	 * Sets the folder in which the blamed files are persisted.
+	 *
+	 * @param folder
+	 *            if null, the blamed files are not persisted
+	 */
+	public void setFolder(File folder) {
+		this.folder = folder == null ? null
+				: new CacheFolder<List<AnnotatedLine>>("blame", folder, ANNOTATED_LINES_TYPE, maximumFolderBytes);
+	}
+
+	/**
+	 * Sets the maximum size of the persisted blamed files.
+	 *
+	 * @param maximumFolderBytes
+	 */
+	public void setMaximumFolderBytes(long maximumFolderBytes) {
+		this.maximumFolderBytes = maximumFolderBytes;
+		CacheFolder<List<AnnotatedLine>> folder = this.folder;
+		if (folder != null) {
+			folder.setMaximumBytes(maximumFolderBytes);
+		}
+	}
+
+	public File getFolder() {
+		CacheFolder<List<AnnotatedLine>> folder = this.folder;
+		return folder == null ? null : folder.getRoot();
+	}
+
+	/**
+	 * Returns the lines of a file annotated with their source commits,
+	 * blaming the file if it is neither cached nor persisted.
+	 *
+	 * @param repository
+	 * @param blobPath
+	 * @param commit
+	 * @return the annotated lines
+	 * @see DiffUtils#blame(Repository, String, String)
+	 */
+	public List<AnnotatedLine> getBlame(final Repository repository, final String blobPath, final RevCommit commit) {
+		List<AnnotatedLine> lines = cache.get(getKey(commit, blobPath), 0, new CacheLoader<String, List<AnnotatedLine>>() {
+			@Override
+			public List<AnnotatedLine> load(String key) {
+				List<AnnotatedLine> lines = read(key);
+				if (lines == null) {
+					try {
+						lines = blameIncrementally(repository, blobPath, commit);
+					} catch (IOException e) {
+						logger.error(MessageFormat.format("failed to incrementally blame {0} {1}",
+								blobPath, commit.getName()), e);
+					}
+					if (lines == null) {
+						lines = DiffUtils.blame(repository, blobPath, commit.getName());
+					}
+					if (lines.isEmpty()) {
+						// failed or empty, not cached
+						return null;
+					}
+					write(key, lines);
+				}
+				return Collections.unmodifiableList(lines);
+			}
+		});
+		if (lines == null) {
+			return Collections.emptyList();
+		}
+		return lines;
+	}
+
+	/**
+	 * Returns the cached or persisted blame without blaming the file.
+	 */
+	private List<AnnotatedLine> getCached(ObjectId commit, String blobPath) {
+		String key = getKey(commit, blobPath);
+		List<AnnotatedLine> lines = cache.peek(key);
+		if (lines == null) {
+			lines = read(key);
+		}
+		return lines;
+	}
+
+	/**
+	 * Blames a file from the cached blame of an ancestor commit.
+	 *
+	 * @return the annotated lines or null if no ancestor blame applies
+	 */
+	private List<AnnotatedLine> blameIncrementally(Repository repository, String blobPath, RevCommit commit)
+			throws IOException {
+		List<RevCommit> changes = new ArrayList<RevCommit>();
+		List<ObjectId> blobs = new ArrayList<ObjectId>();
+		List<AnnotatedLine> lines = null;
+		RevWalk rw = new RevWalk(repository);
+		try {
+			RevCommit current = rw.parseCommit(commit);
+			ObjectId blob = getBlobId(repository, current, blobPath);
+			if (blob == null) {
+				return null;
+			}
+			blobs.add(blob);
+			for (int i = 0; i < MAX_INCREMENTAL_COMMITS && lines == null; i++) {
+				if (current.getParentCount() != 1) {
+					// merges and root commits are blamed in full
+					return null;
+				}
+				RevCommit parent = rw.parseCommit(current.getParent(0));
+				ObjectId parentBlob = getBlobId(repository, parent, blobPath);
+				if (parentBlob == null) {
+					// added or renamed, blamed in full
+					return null;
+				}
+				if (!parentBlob.equals(blob)) {
+					changes.add(current);
+					blobs.add(parentBlob);
+				}
+				lines = getCached(parent, blobPath);
+				current = parent;
+				blob = parentBlob;
+			}
+		} finally {
+			rw.dispose();
+		}
+		if (lines == null) {
+			return null;
+		}
+
+		// replay the changes since the cached blame, the oldest first
+		RawText text = getText(repository, blobs.get(blobs.size() - 1));
+		if (text.size() != lines.size()) {
+			return null;
+		}
+		for (int i = changes.size() - 1; i >= 0; i--) {
+			RevCommit change = changes.get(i);
+			RawText changed = getText(repository, blobs.get(i));
+			EditList edits = new HistogramDiff().diff(RawTextComparator.DEFAULT, text, changed);
+			List<AnnotatedLine> blamed = new ArrayList<AnnotatedLine>(changed.size());
+			int a = 0;
+			for (Edit edit : edits) {
+				// unchanged lines keep the blame of the parent
+				for (; a < edit.getBeginA(); a++) {
+					blamed.add(new AnnotatedLine(lines.get(a), blamed.size() + 1, changed.getString(blamed.size())));
+				}
+				for (int b = edit.getBeginB(); b < edit.getEndB(); b++) {
+					blamed.add(new AnnotatedLine(change, b + 1, changed.getString(b)));
+				}
+				a = edit.getEndA();
+			}
+			for (; a < text.size(); a++) {
+				blamed.add(new AnnotatedLine(lines.get(a), blamed.size() + 1, changed.getString(blamed.size())));
+			}
+			lines = blamed;
+			text = changed;
+		}
+		logger.debug("Blamed {} {} from {} changes since a cached blame", blobPath, commit.getName(),
+				changes.size());
+		return lines;
+	}
+
+	private ObjectId getBlobId(Repository repository, RevCommit commit, String blobPath) throws IOException {
+		TreeWalk tw = TreeWalk.forPath(repository, blobPath, commit.getTree());
+		if (tw == null) {
+			return null;
+		}
+		try {
+			if ((tw.getRawMode(0) & FileMode.TYPE_MASK) != FileMode.TYPE_FILE) {
+				return null;
+			}
+			return tw.getObjectId(0);
+		} finally {
+			tw.close();
+		}
+	}
+
+	private RawText getText(Repository repository, ObjectId blob) throws IOException {
+		return new RawText(repository.open(blob, Constants.OBJ_BLOB).getCachedBytes(Integer.MAX_VALUE));
+	}
+
+	private String getKey(ObjectId commit, String blobPath) {
+		return commit.getName() + ":" + blobPath;
+	}
+
+	private List<AnnotatedLine> read(String key) {
+		CacheFolder<List<AnnotatedLine>> folder = this.folder;
+		return folder == null ? null : folder.read(key);
+	}
+
+	private void write(String key, List<AnnotatedLine> lines) {
+		CacheFolder<List<AnnotatedLine>> folder = this.folder;
+		if (folder != null && !lines.isEmpty()) {
+			folder.write(key, lines);
+		}
+	}
+}
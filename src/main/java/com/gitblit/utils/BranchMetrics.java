@@ -0,0 +1,387 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.gitblit.models.Metric;
+import com.gitblit.models.RefModel;
+
+/**
+ * The commit counts of a branch per author day and per author, computed at a
+ * tip of the branch.
+ *
+ * The counts are updated incrementally.  If the new tip of the branch
+ * descends from the tip of the counts only the commits between the two tips
+ * are walked, otherwise all commits are walked again.  The tagged commits are
+ * tracked with the counts so that tags which are added to or removed from
+ * already counted commits are reflected without walking the branch.
+ *
+ * Instances are immutable.
+ *
+ * @author agent
+ *
+ */
+public class BranchMetrics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int UNREACHABLE = -1;
+
+	private final String timezone;
+
+	private final ObjectId tip;
+
+	private final int tipTime;
+
+	private final int firstTime;
+
+	private final long count;
+
+	/**
+	 * The commit counts by author day, encoded as yyyymmdd.
+	 */
+	private final Map<Integer, Long> days;
+
+	private final Map<String, Long> emails;
+
+	private final Map<String, Long> names;
+
+	/**
+	 * The author day of each tagged commit or UNREACHABLE if the tagged
+	 * commit is not part of the branch.
+	 */
+	private final Map<ObjectId, Integer> tagged;
+
+	private BranchMetrics(String timezone, ObjectId tip, int tipTime, int firstTime, long count,
+			Map<Integer, Long> days, Map<String, Long> emails, Map<String, Long> names,
+			Map<ObjectId, Integer> tagged) {
+		this.timezone = timezone;
+		this.tip = tip;
+		this.tipTime = tipTime;
+		this.firstTime = firstTime;
+		this.count = count;
+		this.days = days;
+		this.emails = emails;
+		this.names = names;
+		this.tagged = tagged;
+	}
+
+	/**
+	 * Returns the metrics of an empty branch.
+	 *
+	 * @param timezone
+	 * @return empty metrics
+	 */
+	public static BranchMetrics empty(TimeZone timezone) {
+		return new BranchMetrics(timezone.getID(), null, 0, 0, 0,
+				Collections.<Integer, Long>emptyMap(), Collections.<String, Long>emptyMap(),
+				Collections.<String, Long>emptyMap(), Collections.<ObjectId, Integer>emptyMap());
+	}
+
+	/**
+	 * Returns the metrics of a branch at its current tip.  The previous metrics
+	 * of the branch are updated with the commits since their tip or returned
+	 * unchanged if neither the tip nor the tags have changed.
+	 *
+	 * @param repository
+	 * @param branch
+	 *            the tip of the branch
+	 * @param timezone
+	 *            the timezone of the author days
+	 * @param previous
+	 *            the previous metrics of the branch, may be null
+	 * @return the metrics
+	 * @throws IOException
+	 */
+	public static BranchMetrics update(Repository repository, ObjectId branch, TimeZone timezone,
+			BranchMetrics previous) throws IOException {
+		Set<ObjectId> tags = new HashSet<ObjectId>();
+		for (RefModel tag : JGitUtils.getTags(repository, true, -1)) {
+			tags.add(tag.getReferencedObjectId());
+		}
+
+		RevWalk walk = new RevWalk(repository);
+		try {
+			RevCommit head = walk.parseCommit(branch);
+			if (previous != null && !timezone.getID().equals(previous.timezone)) {
+				previous = null;
+			}
+			if (previous != null && previous.tip != null) {
+				if (previous.tip.equals(head) && tags.equals(previous.tagged.keySet())) {
+					return previous;
+				}
+				if (!isAncestor(walk, previous.tip, head)) {
+					// non-fast-forward update
+					previous = null;
+				}
+				walk.reset();
+			} else {
+				previous = null;
+			}
+
+			Calendar cal = Calendar.getInstance(timezone);
+			Map<Integer, Long> days;
+			Map<String, Long> emails;
+			Map<String, Long> names;
+			Map<ObjectId, Integer> tagged = new HashMap<ObjectId, Integer>();
+			long count;
+			int firstTime;
+			if (previous == null) {
+				days = new HashMap<Integer, Long>();
+				emails = new HashMap<String, Long>();
+				names = new HashMap<String, Long>();
+				count = 0;
+				firstTime = head.getCommitTime();
+			} else {
+				days = new HashMap<Integer, Long>(previous.days);
+				emails = new HashMap<String, Long>(previous.emails);
+				names = new HashMap<String, Long>(previous.names);
+				for (Map.Entry<ObjectId, Integer> entry : previous.tagged.entrySet()) {
+					if (tags.contains(entry.getKey())) {
+						tagged.put(entry.getKey(), entry.getValue());
+					}
+				}
+				count = previous.count;
+				firstTime = previous.firstTime;
+				walk.markUninteresting(walk.parseCommit(previous.tip));
+			}
+
+			walk.markStart(walk.parseCommit(head));
+			for (RevCommit rev : walk) {
+				int day = getDay(cal, JGitUtils.getAuthorDate(rev).getTime());
+				increment(days, day);
+				PersonIdent author = rev.getAuthorIdent();
+				if (author != null) {
+					increment(emails, getAuthor(author, true));
+					increment(names, getAuthor(author, false));
+				}
+				count++;
+				if (tags.contains(rev)) {
+					tagged.put(rev.copy(), day);
+				}
+				if (previous == null) {
+					// the last commit of the walk is the first commit
+					firstTime = rev.getCommitTime();
+				}
+			}
+
+			// resolve the new tags of commits which were not walked
+			for (ObjectId tag : tags) {
+				if (tagged.containsKey(tag)) {
+					continue;
+				}
+				int day = UNREACHABLE;
+				if (previous != null) {
+					walk.reset();
+					try {
+						RevCommit commit = walk.parseCommit(tag);
+						if (walk.isMergedInto(commit, walk.parseCommit(head))) {
+							walk.parseBody(commit);
+							day = getDay(cal, JGitUtils.getAuthorDate(commit).getTime());
+						}
+					} catch (IOException e) {
+						// the tag does not reference a commit
+					}
+				}
+				tagged.put(tag.copy(), day);
+			}
+			return new BranchMetrics(timezone.getID(), head.copy(), head.getCommitTime(), firstTime, count,
+					days, emails, names, tagged);
+		} finally {
+			walk.dispose();
+		}
+	}
+
+	private static boolean isAncestor(RevWalk walk, ObjectId id, RevCommit head) throws IOException {
+		try {
+			return walk.isMergedInto(walk.parseCommit(id), head);
+		} catch (MissingObjectException e) {
+			return false;
+		}
+	}
+
+	private static int getDay(Calendar cal, long time) {
+		cal.setTimeInMillis(time);
+		return cal.get(Calendar.YEAR) * 10000 + (cal.get(Calendar.MONTH) + 1) * 100 + cal.get(Calendar.DAY_OF_MONTH);
+	}
+
+	private static String getAuthor(PersonIdent author, boolean byEmailAddress) {
+		String p;
+		if (byEmailAddress) {
+			p = author.getEmailAddress().toLowerCase();
+			if (StringUtils.isEmpty(p)) {
+				p = author.getName().toLowerCase();
+			}
+		} else {
+			p = author.getName().toLowerCase();
+			if (StringUtils.isEmpty(p)) {
+				p = author.getEmailAddress().toLowerCase();
+			}
+		}
+		return p.replace('\n', ' ').replace('\r', ' ').trim();
+	}
+
+	private static <K> void increment(Map<K, Long> map, K key) {
+		Long value = map.get(key);
+		map.put(key, value == null ? 1 : value + 1);
+	}
+
+	/**
+	 * Returns the tip the metrics were computed at.
+	 *
+	 * @return the tip or null if the branch is empty
+	 */
+	public ObjectId getTip() {
+		return tip;
+	}
+
+	/**
+	 * Returns the number of commits of the branch.
+	 *
+	 * @return the commit count
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of entries held by the metrics.
+	 *
+	 * @return the weight
+	 */
+	public int getWeight() {
+		return 1 + days.size() + emails.size() + names.size() + tagged.size();
+	}
+
+	/**
+	 * Returns the commit counts by author date.  If includeTotal is true, the
+	 * total of all the metrics will be included as the first element in the
+	 * returned list.
+	 *
+	 * If the date format is unspecified, the commits are counted by day if
+	 * the branch spans a year at most, otherwise by month.  A specified date
+	 * format must not be finer than a day.
+	 *
+	 * @param includeTotal
+	 * @param dateFormat
+	 * @return list of metrics sorted by date
+	 */
+	public List<Metric> getDateMetrics(boolean includeTotal, String dateFormat) {
+		Metric total = new Metric("TOTAL");
+		Map<String, Metric> metricMap = new TreeMap<String, Metric>();
+		if (tip != null) {
+			DateFormat df;
+			if (StringUtils.isEmpty(dateFormat)) {
+				// dynamically determine date format
+				int diffDays = (tipTime - firstTime) / (60 * 60 * 24);
+				total.duration = diffDays;
+				if (diffDays <= 365) {
+					// Days
+					df = new SimpleDateFormat("yyyy-MM-dd");
+				} else {
+					// Months
+					df = new SimpleDateFormat("yyyy-MM");
+				}
+			} else {
+				// use specified date format
+				df = new SimpleDateFormat(dateFormat);
+			}
+			TimeZone tz = TimeZone.getTimeZone(timezone);
+			df.setTimeZone(tz);
+			Calendar cal = Calendar.getInstance(tz);
+
+			Map<Integer, String> periods = new HashMap<Integer, String>();
+			for (Map.Entry<Integer, Long> entry : days.entrySet()) {
+				String p = getPeriod(df, cal, entry.getKey(), periods);
+				Metric m = metricMap.get(p);
+				if (m == null) {
+					m = new Metric(p);
+					metricMap.put(p, m);
+				}
+				m.count += entry.getValue();
+				total.count += entry.getValue();
+			}
+			for (int day : tagged.values()) {
+				if (day == UNREACHABLE) {
+					continue;
+				}
+				Metric m = metricMap.get(getPeriod(df, cal, day, periods));
+				if (m != null) {
+					m.tag++;
+					total.tag++;
+				}
+			}
+		}
+		List<Metric> metrics = new ArrayList<Metric>(metricMap.values());
+		if (includeTotal) {
+			metrics.add(0, total);
+		}
+		return metrics;
+	}
+
+	private static String getPeriod(DateFormat df, Calendar cal, int day, Map<Integer, String> periods) {
+		String period = periods.get(day);
+		if (period == null) {
+			cal.clear();
+			// noon is not affected by daylight saving time changes
+			cal.set(day / 10000, (day / 100) % 100 - 1, day % 100, 12, 0, 0);
+			period = df.format(cal.getTime());
+			periods.put(day, period);
+		}
+		return period;
+	}
+
+	/**
+	 * Returns the commit counts by author.
+	 *
+	 * @param byEmailAddress
+	 *            group metrics by author email address otherwise by author name
+	 * @return list of metrics sorted by author
+	 */
+	public List<Metric> getAuthorMetrics(boolean byEmailAddress) {
+		Map<String, Long> authors = byEmailAddress ? emails : names;
+		List<String> keys = new ArrayList<String>(authors.keySet());
+		Collections.sort(keys);
+		List<Metric> metrics = new ArrayList<Metric>();
+		for (String key : keys) {
+			Metric m = new Metric(key);
+			m.count = authors.get(key);
+			metrics.add(m);
+		}
+		return metrics;
+	}
+}
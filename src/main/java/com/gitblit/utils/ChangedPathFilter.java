@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.TreeRevFilter;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Includes the commits which change a path, like a walk with a path tree
+ * filter.  The changed-path filters of the commit graph rule out most
+ * commits without reading their trees, the remaining commits are diffed
+ * against their parents.
+ *
+ * Unlike a walk with a tree filter the parents of the included commits are
+ * not rewritten to the previous commits which changed the path.
+ *
+ * @author agent
+ *
+ */
+public class ChangedPathFilter extends RevFilter {
+
+	private final RevWalk walk;
+
+	private final CommitGraph graph;
+
+	private final String path;
+
+	private final CommitGraph.PathKey key;
+
+	private final RevFilter treeFilter;
+
+	private int skipped;
+
+	public ChangedPathFilter(RevWalk walk, CommitGraph graph, String path) {
+		this.walk = walk;
+		this.graph = graph;
+		this.path = path;
+		this.key = new CommitGraph.PathKey(path);
+		this.treeFilter = new TreeRevFilter(walk, AndTreeFilter.create(
+				PathFilterGroup.createFromStrings(Collections.singleton(path)),
+				TreeFilter.ANY_DIFF));
+	}
+
+	@Override
+	public boolean include(RevWalk walker, RevCommit c) throws MissingObjectException,
+			IncorrectObjectTypeException, IOException {
+		// merges are left to the tree filter which simplifies their parents
+		if (c.getParentCount() <= 1 && Boolean.FALSE.equals(graph.mayChangePath(c, key))) {
+			skipped++;
+			return false;
+		}
+		return treeFilter.include(walker, c);
+	}
+
+	/**
+	 * Returns the number of commits which were excluded without diffing
+	 * their trees.
+	 *
+	 * @return the number of skipped commits
+	 */
+	public int getSkipped() {
+		return skipped;
+	}
+
+	@Override
+	public boolean requiresCommitBody() {
+		return false;
+	}
+
+	@Override
+	public RevFilter clone() {
+		return new ChangedPathFilter(walk, graph, path);
+	}
+
+	@Override
+	public String toString() {
+		return "CHANGED_PATH";
+	}
+}
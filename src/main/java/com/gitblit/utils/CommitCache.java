@@ -15,27 +15,46 @@
  */
 package com.gitblit.utils;
 
+import java.io.IOException;
 import java.text.MessageFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.gitblit.models.CacheStatistics;
+import com.gitblit.models.CommitRecords;
 import com.gitblit.models.RefModel;
 import com.gitblit.models.RepositoryCommit;
 
 /**
  * Caches repository commits for re-use in the dashboard and activity pages.
  *
+ * The cache may be bounded by a maximum number of commits.  Each branch of a
+ * repository is an entry weighted by its number of commits and the least
+ * recently used branches are evicted when the cache exceeds the maximum.
+ * Loads are serialized per repository.  A loaded branch is cached and
+ * weighed in one step under the lock of the weights, so that a branch is
+ * never evicted or cleared without its weight and a repository which is
+ * cleared during a load does not cache the loaded branch.
+ *
+ * The cached branches may be persisted to a {@link CommitCacheStore}.  The
+ * stored branches of a repository are restored on its first request and only
+ * the commits since the stored tip of a branch are then parsed.
+ *
  * @author James Moger
  *
  */
@@ -45,10 +64,98 @@ public class CommitCache {
 
 	protected final Logger logger = LoggerFactory.getLogger(getClass());
 
-	protected final Map<String, ObjectCache<List<RepositoryCommit>>> cache;
+	protected final Map<String, RepositoryCommits> cache;
+
+	/**
+	 * The weights of the cached branches in access order.  This map also
+	 * guards the total weight and every modification of the cached
+	 * repositories and branches.
+	 */
+	private final LinkedHashMap<BranchKey, Integer> lru;
+
+	private long weight;
 
 	protected int cacheDays = -1;
 
+	protected volatile long maximumWeight;
+
+	protected volatile CommitCacheStore store;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private final AtomicLong loadTime = new AtomicLong();
+
+	/**
+	 * The cached branches of a repository.  The monitor of this object
+	 * serializes the loads of the repository, the branches are only modified
+	 * while holding the lock of the weights as well.
+	 */
+	protected static class RepositoryCommits {
+
+		final Map<String, BranchCommits> branches = new ConcurrentHashMap<String, BranchCommits>();
+
+		/**
+		 * The stored branches which have not been requested since they were
+		 * restored.
+		 */
+		Map<String, BranchCommits> stored;
+
+		boolean restored;
+
+		/**
+		 * True if the branches changed since they were saved.  Set while
+		 * holding the lock of the repository or of the weights, save() resets
+		 * it while holding both so that no eviction is lost.
+		 */
+		boolean dirty;
+	}
+
+	/**
+	 * The cached commit records of a branch and the date of the tip they were
+	 * loaded for.
+	 */
+	protected static class BranchCommits {
+
+		final Date tipDate;
+
+		final CommitRecords commits;
+
+		BranchCommits(Date tipDate, CommitRecords commits) {
+			this.tipDate = tipDate;
+			this.commits = commits;
+		}
+	}
+
+	private static class BranchKey {
+
+		final String repository;
+
+		final String branch;
+
+		BranchKey(String repository, String branch) {
+			this.repository = repository;
+			this.branch = branch;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * repository.hashCode() + branch.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o instanceof BranchKey) {
+				BranchKey other = (BranchKey) o;
+				return repository.equals(other.repository) && branch.equals(other.branch);
+			}
+			return false;
+		}
+	}
+
 	public static CommitCache instance() {
 		return instance;
 	}
@@ -58,7 +165,8 @@ public class CommitCache {
 	}
 
 	protected CommitCache() {
-		cache = new HashMap<>();
+		cache = new ConcurrentHashMap<>();
+		lru = new LinkedHashMap<>(16, 0.75f, true);
 	}
 
 	/**
@@ -85,16 +193,98 @@ public class CommitCache {
 	 */
 	public synchronized void setCacheDays(int days) {
 		this.cacheDays = days;
-		clear();
+		clearMemory();
+	}
+
+	/**
+	 * Sets the store used to persist the cached branches.
+	 *
+	 * @param store
+	 *            the store, may be null
+	 */
+	public void setStore(CommitCacheStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * Sets the maximum number of commits to cache.  The least recently used
+	 * branches are evicted once the cache exceeds this number.
+	 *
+	 * @param commits
+	 *            the maximum number of commits, 0 for an unbounded cache
+	 */
+	public void setMaximumCommits(long commits) {
+		this.maximumWeight = Math.max(0, commits);
+		synchronized (lru) {
+			evict(null);
+		}
 	}
 
 	/**
-	 * Clears the entire commit cache.
+	 * Returns the statistics of the cache.
+	 *
+	 * @return the cache statistics
+	 */
+	public CacheStatistics getStatistics() {
+		long entries;
+		long total;
+		synchronized (lru) {
+			entries = lru.size();
+			total = weight;
+		}
+		return new CacheStatistics("commits", entries, total, maximumWeight,
+				hits.get(), misses.get(), evictions.get(), loadTime.get());
+	}
+
+	/**
+	 * Clears the entire commit cache, including the stored branches.
 	 *
 	 */
 	public void clear() {
-		synchronized (cache) {
+		clearMemory();
+		CommitCacheStore store = this.store;
+		if (store != null) {
+			store.clear();
+		}
+	}
+
+	private void clearMemory() {
+		synchronized (lru) {
 			cache.clear();
+			lru.clear();
+			weight = 0;
+		}
+	}
+
+	/**
+	 * Writes the cached branches of the repositories which have changed since
+	 * they were last saved to the store.
+	 */
+	public void save() {
+		CommitCacheStore store = this.store;
+		if (store == null || cacheDays <= 0) {
+			return;
+		}
+		for (Map.Entry<String, RepositoryCommits> entry : cache.entrySet()) {
+			RepositoryCommits repoCache = entry.getValue();
+			Map<String, BranchCommits> segments = new HashMap<String, BranchCommits>();
+			synchronized (repoCache) {
+				synchronized (lru) {
+					if (!repoCache.dirty) {
+						continue;
+					}
+					if (repoCache.stored != null) {
+						segments.putAll(repoCache.stored);
+					}
+					segments.putAll(repoCache.branches);
+					repoCache.dirty = false;
+				}
+			}
+			if (!store.write(entry.getKey(), cacheDays, segments)) {
+				synchronized (repoCache) {
+					repoCache.dirty = true;
+				}
+			}
 		}
 	}
 
@@ -105,9 +295,21 @@ public class CommitCache {
 	 */
 	public void clear(String repositoryName) {
 		String repoKey = repositoryName.toLowerCase();
-		boolean hadEntries = false;
-		synchronized (cache) {
+		boolean hadEntries;
+		synchronized (lru) {
 			hadEntries = cache.remove(repoKey) != null;
+			Iterator<Map.Entry<BranchKey, Integer>> entries = lru.entrySet().iterator();
+			while (entries.hasNext()) {
+				Map.Entry<BranchKey, Integer> entry = entries.next();
+				if (entry.getKey().repository.equals(repoKey)) {
+					weight -= entry.getValue();
+					entries.remove();
+				}
+			}
+		}
+		CommitCacheStore store = this.store;
+		if (store != null) {
+			store.delete(repoKey);
 		}
 		if (hadEntries) {
 			logger.info(MessageFormat.format("{0} commit cache cleared", repositoryName));
@@ -122,12 +324,23 @@ public class CommitCache {
 	 */
 	public void clear(String repositoryName, String branch) {
 		String repoKey = repositoryName.toLowerCase();
+		String branchKey = branch.toLowerCase();
 		boolean hadEntries = false;
-		synchronized (cache) {
-			ObjectCache<List<RepositoryCommit>> repoCache = cache.get(repoKey);
-			if (repoCache != null) {
-				List<RepositoryCommit> commits = repoCache.remove(branch.toLowerCase());
-				hadEntries = !ArrayUtils.isEmpty(commits);
+		RepositoryCommits repoCache = cache.get(repoKey);
+		if (repoCache != null) {
+			synchronized (repoCache) {
+				synchronized (lru) {
+					BranchCommits cached = repoCache.branches.remove(branchKey);
+					hadEntries = cached != null && cached.commits.size() > 0;
+					Integer previous = lru.remove(new BranchKey(repoKey, branchKey));
+					if (previous != null) {
+						weight -= previous;
+					}
+				}
+				if (repoCache.stored != null) {
+					repoCache.stored.remove(branchKey);
+				}
+				repoCache.dirty = true;
 			}
 		}
 		if (hadEntries) {
@@ -170,56 +383,59 @@ public class CommitCache {
 			RevCommit tip = JGitUtils.getCommit(repository, branch);
 			Date tipDate = JGitUtils.getCommitDate(tip);
 
-			ObjectCache<List<RepositoryCommit>> repoCache;
-			synchronized (cache) {
-				repoCache = cache.get(repoKey);
+			RepositoryCommits repoCache = cache.get(repoKey);
+			if (repoCache == null) {
+				RepositoryCommits newCache = new RepositoryCommits();
+				repoCache = cache.putIfAbsent(repoKey, newCache);
 				if (repoCache == null) {
-					repoCache = new ObjectCache<>();
-					cache.put(repoKey, repoCache);
+					repoCache = newCache;
 				}
 			}
 			synchronized (repoCache) {
-				List<RepositoryCommit> commits;
-				if (!repoCache.hasCurrent(branchKey, tipDate)) {
-					commits = repoCache.getObject(branchKey);
-					if (ArrayUtils.isEmpty(commits)) {
+				CommitRecords commits;
+				BranchCommits cached = repoCache.branches.get(branchKey);
+				if (cached == null) {
+					cached = restore(repoKey, repoCache, repository, branchKey, tip);
+				}
+				if (cached == null || cached.tipDate.compareTo(tipDate) != 0) {
+					misses.incrementAndGet();
+					if (cached == null || cached.commits.size() == 0) {
 						// we don't have any cached commits for this branch, reload
 						commits = get(repositoryName, repository, branch, cacheCutoffDate);
-						repoCache.updateObject(branchKey, tipDate, commits);
 						logger.debug(MessageFormat.format("parsed {0} commits from {1}:{2} since {3,date,yyyy-MM-dd} in {4} msecs",
 								commits.size(), repositoryName, branch, cacheCutoffDate, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
 					} else {
 						// incrementally update cache since the last cached commit
-						ObjectId sinceCommit = commits.get(0).getId();
-						List<RepositoryCommit> incremental = get(repositoryName, repository, branch, sinceCommit);
+						ObjectId sinceCommit = cached.commits.getId(0);
+						CommitRecords incremental = get(repositoryName, repository, branch, sinceCommit);
 						logger.info(MessageFormat.format("incrementally added {0} commits to cache for {1}:{2} in {3} msecs",
 								incremental.size(), repositoryName, branch, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
-						incremental.addAll(commits);
-						repoCache.updateObject(branchKey, tipDate, incremental);
-						commits = incremental;
+						commits = incremental.concat(cached.commits);
 					}
+					repoCache.dirty = true;
+					loadTime.addAndGet(System.nanoTime() - start);
 				} else {
 					// cache is current
-					commits = repoCache.getObject(branchKey);
+					hits.incrementAndGet();
 					// evict older commits outside the cache window
-					commits = reduce(commits, cacheCutoffDate);
-					// update cache
-					repoCache.updateObject(branchKey, tipDate, commits);
+					commits = cached.commits.since(cacheCutoffDate);
 				}
-
-				if (sinceDate.equals(cacheCutoffDate)) {
-					// Mustn't hand out the cached list; that's not thread-safe
-					list = new ArrayList<>(commits);
-				} else {
-					// reduce the commits to those since the specified date
-					list = reduce(commits, sinceDate);
+				// update cache unless the repository was cleared during the load
+				synchronized (lru) {
+					if (cache.get(repoKey) == repoCache) {
+						repoCache.branches.put(branchKey, new BranchCommits(tipDate, commits));
+						record(new BranchKey(repoKey, branchKey), commits.size());
+					}
 				}
+
+				// hand out views of the immutable records since the specified date
+				list = commits.toList(repositoryName, branch, sinceDate);
 			}
 			logger.debug(MessageFormat.format("retrieved {0} commits from cache of {1}:{2} since {3,date,yyyy-MM-dd} in {4} msecs",
 					list.size(), repositoryName, branch, sinceDate, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
 		} else {
 			// not caching or request outside cache window
-			list = get(repositoryName, repository, branch, sinceDate);
+			list = get(repositoryName, repository, branch, sinceDate).toList(repositoryName, branch, null);
 			logger.debug(MessageFormat.format("parsed {0} commits from {1}:{2} since {3,date,yyyy-MM-dd} in {4} msecs",
 					list.size(), repositoryName, branch, sinceDate, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
 		}
@@ -227,63 +443,146 @@ public class CommitCache {
 	}
 
 	/**
-	 * Returns a list of commits for the specified repository branch.
+	 * Records the access of a cached branch and evicts the least recently
+	 * used branches while the cache exceeds its maximum weight.  Must be
+	 * called while holding the lock of the weights.
+	 *
+	 * @param key
+	 * @param size
+	 *            the number of cached commits of the branch
+	 */
+	private void record(BranchKey key, int size) {
+		// an empty branch still costs an entry
+		int w = Math.max(1, size);
+		Integer previous = lru.put(key, w);
+		weight += w - (previous == null ? 0 : previous);
+		evict(key);
+	}
+
+	/**
+	 * Evicts the least recently used branches while the cache exceeds its
+	 * maximum weight.  Must be called while holding the lock of the weights.
+	 *
+	 * @param accessed
+	 *            the branch which was just accessed, may be null
+	 */
+	private void evict(BranchKey accessed) {
+		if (maximumWeight <= 0) {
+			return;
+		}
+		Iterator<Map.Entry<BranchKey, Integer>> entries = lru.entrySet().iterator();
+		while (weight > maximumWeight && entries.hasNext()) {
+			Map.Entry<BranchKey, Integer> eldest = entries.next();
+			weight -= eldest.getValue();
+			entries.remove();
+			BranchKey key = eldest.getKey();
+			RepositoryCommits repoCache = cache.get(key.repository);
+			if (repoCache != null) {
+				repoCache.branches.remove(key.branch);
+				repoCache.dirty = true;
+			}
+			evictions.incrementAndGet();
+			if (key.equals(accessed)) {
+				logger.debug(MessageFormat.format("{0}:{1} exceeds the commit cache", key.repository, key.branch));
+			}
+		}
+	}
+
+	/**
+	 * Returns the stored branch of a repository, restoring the stored branches
+	 * of the repository on its first request.  The stored branch is discarded
+	 * if its tip is not an ancestor of the current tip, i.e. if the branch was
+	 * rewritten while the cache was not running.  Must be called while
+	 * holding the lock of the repository cache.
+	 *
+	 * @param repoKey
+	 * @param repoCache
+	 * @param repository
+	 * @param branchKey
+	 * @param tip
+	 *            the current tip of the branch, may be null
+	 * @return the stored branch or null
+	 */
+	private BranchCommits restore(String repoKey, RepositoryCommits repoCache, Repository repository,
+			String branchKey, RevCommit tip) {
+		CommitCacheStore store = this.store;
+		if (!repoCache.restored) {
+			repoCache.restored = true;
+			if (store != null) {
+				Map<String, BranchCommits> segments = store.read(repoKey, cacheDays, repository);
+				if (!segments.isEmpty()) {
+					repoCache.stored = segments;
+					logger.debug(MessageFormat.format("restored {0} cached branches of {1}", segments.size(), repoKey));
+				}
+			}
+		}
+		if (repoCache.stored == null) {
+			return null;
+		}
+		BranchCommits stored = repoCache.stored.remove(branchKey);
+		if (repoCache.stored.isEmpty()) {
+			repoCache.stored = null;
+		}
+		if (stored == null || stored.commits.size() == 0 || tip == null) {
+			return null;
+		}
+		if (!isAncestor(repository, stored.commits.getId(0), tip)) {
+			logger.info(MessageFormat.format("discarded stored commit cache of rewritten {0}:{1}", repoKey, branchKey));
+			repoCache.dirty = true;
+			return null;
+		}
+		return stored;
+	}
+
+	private boolean isAncestor(Repository repository, ObjectId id, RevCommit tip) {
+		RevWalk rw = new RevWalk(repository);
+		try {
+			return rw.isMergedInto(rw.parseCommit(id), rw.parseCommit(tip.getId()));
+		} catch (IOException e) {
+			// the stored tip is missing
+			return false;
+		} finally {
+			rw.close();
+		}
+	}
+
+	/**
+	 * Returns the commit records of the specified repository branch.
 	 *
 	 * @param repositoryName
 	 * @param repository
 	 * @param branch
 	 * @param sinceDate
-	 * @return a list of commits
+	 * @return the commit records
 	 */
-	protected List<RepositoryCommit> get(String repositoryName, Repository repository, String branch, Date sinceDate) {
-		Map<ObjectId, List<RefModel>> allRefs = JGitUtils.getAllRefs(repository, false);
+	protected CommitRecords get(String repositoryName, Repository repository, String branch, Date sinceDate) {
 		List<RevCommit> revLog = JGitUtils.getRevLog(repository, branch, sinceDate);
-		List<RepositoryCommit> commits = new ArrayList<RepositoryCommit>(revLog.size());
-		for (RevCommit commit : revLog) {
-			RepositoryCommit commitModel = new RepositoryCommit(repositoryName, branch, commit);
-			List<RefModel> commitRefs = allRefs.get(commitModel.getId());
-			commitModel.setRefs(commitRefs);
-			commits.add(commitModel);
-		}
-		return commits;
+		return toRecords(repository, revLog);
 	}
 
 	/**
-	 * Returns a list of commits for the specified repository branch since the specified commit.
+	 * Returns the commit records of the specified repository branch since the specified commit.
 	 *
 	 * @param repositoryName
 	 * @param repository
 	 * @param branch
 	 * @param sinceCommit
-	 * @return a list of commits
+	 * @return the commit records
 	 */
-	protected List<RepositoryCommit> get(String repositoryName, Repository repository, String branch, ObjectId sinceCommit) {
-		Map<ObjectId, List<RefModel>> allRefs = JGitUtils.getAllRefs(repository, false);
+	protected CommitRecords get(String repositoryName, Repository repository, String branch, ObjectId sinceCommit) {
 		List<RevCommit> revLog = JGitUtils.getRevLog(repository, sinceCommit.getName(), branch);
-		List<RepositoryCommit> commits = new ArrayList<RepositoryCommit>(revLog.size());
-		for (RevCommit commit : revLog) {
-			RepositoryCommit commitModel = new RepositoryCommit(repositoryName, branch, commit);
-			List<RefModel> commitRefs = allRefs.get(commitModel.getId());
-			commitModel.setRefs(commitRefs);
-			commits.add(commitModel);
-		}
-		return commits;
+		return toRecords(repository, revLog);
 	}
 
-	/**
-	 * Reduces the list of commits to those since the specified date.
-	 *
-	 * @param commits
-	 * @param sinceDate
-	 * @return  a list of commits
-	 */
-	protected List<RepositoryCommit> reduce(List<RepositoryCommit> commits, Date sinceDate) {
-		List<RepositoryCommit> filtered = new ArrayList<RepositoryCommit>(commits.size());
-		for (RepositoryCommit commit : commits) {
-			if (commit.getCommitDate().compareTo(sinceDate) >= 0) {
-				filtered.add(commit);
-			}
+	private CommitRecords toRecords(Repository repository, List<RevCommit> revLog) {
+		if (revLog.isEmpty()) {
+			return CommitRecords.EMPTY;
+		}
+		Map<ObjectId, List<RefModel>> allRefs = JGitUtils.getAllRefs(repository, false);
+		CommitRecords.Builder builder = new CommitRecords.Builder(revLog.size());
+		for (RevCommit commit : revLog) {
+			builder.add(commit, allRefs.get(commit.getId()));
 		}
-		return filtered;
+		return builder.build();
 	}
 }
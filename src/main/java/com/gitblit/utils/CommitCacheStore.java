@@ -0,0 +1,185 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gitblit.models.CommitRecords;
+import com.gitblit.models.RefModel;
+import com.gitblit.utils.CommitCache.BranchCommits;
+
+/**
+ * Persists the commit cache segments of each repository so that the commit
+ * cache can be restored after a restart.
+ *
+ * Each repository is stored in its own file which holds the cached commit
+ * records of its branches and the tip date they were loaded for.  Segments
+ * which were written for a different number of cache days are ignored.  The
+ * refs of the commits are not stored, they are resolved again when the
+ * segments are read.
+ *
+ * @author agent
+ *
+ */
+public class CommitCacheStore {
+
+	private static final int VERSION = 1;
+
+	private static final String SUFFIX = ".commits";
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final File folder;
+
+	public CommitCacheStore(File folder) {
+		this.folder = folder;
+	}
+
+	public File getFolder() {
+		return folder;
+	}
+
+	/**
+	 * Reads the stored segments of a repository.  An empty map is returned if
+	 * there are no segments or if they can not be read.
+	 *
+	 * @param repositoryKey
+	 * @param cacheDays
+	 *            the current number of cache days
+	 * @param repository
+	 *            the repository whose refs are resolved for the commits
+	 * @return the segments keyed by branch
+	 */
+	public Map<String, BranchCommits> read(String repositoryKey, int cacheDays, Repository repository) {
+		Map<String, BranchCommits> segments = new HashMap<String, BranchCommits>();
+		File file = getFile(repositoryKey);
+		if (!file.exists()) {
+			return segments;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new GZIPInputStream(new FileInputStream(file))))) {
+			if (in.readInt() != VERSION || in.readInt() != cacheDays) {
+				logger.debug("Ignoring commit cache {}, unsupported version or cache days", file);
+				return segments;
+			}
+			Map<ObjectId, List<RefModel>> allRefs = JGitUtils.getAllRefs(repository, false);
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String branch = in.readUTF();
+				Date tipDate = new Date(in.readLong());
+				CommitRecords commits = CommitRecords.read(in, allRefs);
+				segments.put(branch, new BranchCommits(tipDate, commits));
+			}
+		} catch (Exception e) {
+			logger.warn(MessageFormat.format("Failed to read commit cache {0}", file), e);
+			segments.clear();
+		}
+		return segments;
+	}
+
+	/**
+	 * Writes the segments of a repository.  The segments are written to a
+	 * temporary file which then replaces the existing file.  The file is
+	 * deleted if there are no segments.
+	 *
+	 * @param repositoryKey
+	 * @param cacheDays
+	 * @param segments
+	 *            the segments keyed by branch
+	 * @return true if the segments were written
+	 */
+	public boolean write(String repositoryKey, int cacheDays, Map<String, BranchCommits> segments) {
+		File file = getFile(repositoryKey);
+		if (segments.isEmpty()) {
+			delete(repositoryKey);
+			return true;
+		}
+		File parent = file.getParentFile();
+		if (!parent.exists()) {
+			parent.mkdirs();
+		}
+		File temp = new File(parent, file.getName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new GZIPOutputStream(new FileOutputStream(temp))))) {
+			out.writeInt(VERSION);
+			out.writeInt(cacheDays);
+			out.writeInt(segments.size());
+			for (Map.Entry<String, BranchCommits> entry : segments.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeLong(entry.getValue().tipDate.getTime());
+				entry.getValue().commits.write(out);
+			}
+		} catch (IOException e) {
+			logger.error(MessageFormat.format("Failed to write commit cache {0}", temp), e);
+			temp.delete();
+			return false;
+		}
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			logger.error(MessageFormat.format("Failed to replace commit cache {0}", file), e);
+			temp.delete();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Deletes the stored segments of a repository.
+	 *
+	 * @param repositoryKey
+	 */
+	public void delete(String repositoryKey) {
+		File file = getFile(repositoryKey);
+		if (file.exists()) {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Deletes the stored segments of all repositories.
+	 */
+	public void clear() {
+		if (folder.exists() && !FileUtils.delete(folder)) {
+			logger.error(MessageFormat.format("Failed to clear commit cache {0}", folder));
+		}
+	}
+
+	private File getFile(String repositoryKey) {
+		return new File(folder, repositoryKey + SUFFIX);
+	}
+}
@@ -0,0 +1,1062 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * An immutable index of the commits of a repository which answers ancestry,
+ * merge base and commit count queries without parsing commit objects.
+ *
+ * Each commit is identified by its ordinal, the position at which it was
+ * added to the index, and holds the ordinals of its parents, its commit time
+ * and its generation number.  Commits are found by their ids through the
+ * ordinals sorted by id.
+ * The generation of a root commit is 1 and the generation of any other commit
+ * is one more than the largest generation of its parents, so an ancestor of a
+ * commit always has a smaller generation than the commit.  Walks visit the
+ * commits by descending generation and stop descending as soon as the
+ * generations of the remaining commits rule out the answer.
+ *
+ * Commits are immutable so an index never becomes wrong, it only misses the
+ * commits which were created after it was built.  Missing commits are added
+ * by extending the index from new tips.  An extended index appends the added
+ * commits to the arrays it shares with the index it extends, so a push only
+ * writes its own commits instead of copying the whole index.
+ *
+ * The index may also hold a changed-path Bloom filter for each commit with at
+ * most one parent.  The filter holds every path which differs between the
+ * commit and its parent, including the directories of changed files, so a
+ * path-limited walk can skip the commits which certainly did not change a
+ * path without diffing their trees.  Filters are computed separately from the
+ * index because they require reading the trees of every commit.
+ *
+ * @author agent
+ *
+ */
+public class CommitGraph {
+
+	public static final CommitGraph EMPTY = new CommitGraph(new Extent(), 0, new int[0], new int[0], new int[0],
+			new int[0], new int[0], new int[1], new int[0], new int[1], new byte[0], new BitSet());
+
+	private static final int VERSION = 3;
+
+	private static final int WORDS = 5;
+
+	/**
+	 * The minimum number of added commits which are sorted separately from
+	 * the sorted ordinals.
+	 */
+	private static final int MIN_TAIL = 64;
+
+	/**
+	 * The number of bits of a filter per changed path and the number of bits
+	 * set for each path which give a false positive rate of about 1%.
+	 */
+	private static final int BITS_PER_PATH = 10;
+
+	private static final int HASHES = 7;
+
+	/**
+	 * Commits which change more paths get a filter which matches any path.
+	 */
+	private static final int MAX_PATHS = 512;
+
+	private static final byte[] ANY_PATH = { (byte) 0xff };
+
+	private static final int SEED0 = 0x293ae76f;
+
+	private static final int SEED1 = 0x7e646e2c;
+
+	/**
+	 * The number of commits written to the arrays shared by this index and
+	 * the indexes it was extended from or extended to.
+	 */
+	private final Extent extent;
+
+	private final int size;
+
+	/**
+	 * The commit ids by ordinal, five words per commit.  The arrays of the
+	 * commits may be longer than the index, the indexes which share them
+	 * never read beyond their own size.
+	 */
+	private final int[] ids;
+
+	/**
+	 * The ordinals sorted by commit id.
+	 */
+	private final int[] sorted;
+
+	/**
+	 * The ordinals added since the sorted ordinals were last merged, sorted by
+	 * commit id.
+	 */
+	private final int[] tail;
+
+	private final int[] times;
+
+	private final int[] generations;
+
+	/**
+	 * The offset of the first parent of each commit in the parents array
+	 * followed by the length of the parents array.
+	 */
+	private final int[] parentOffsets;
+
+	private final int[] parents;
+
+	/**
+	 * The offset of the filter of each commit in the filters array followed
+	 * by the length of the filters array.  Empty filters belong to commits
+	 * which do not change any path, to merge commits and to commits whose
+	 * filter has not been computed.  Commits added after the filters were
+	 * computed have no offset.
+	 */
+	private final int[] filterOffsets;
+
+	private final byte[] filters;
+
+	/**
+	 * The commits whose filter has been computed.
+	 */
+	private final BitSet filtered;
+
+	private CommitGraph(Extent extent, int size, int[] ids, int[] sorted, int[] tail, int[] times, int[] generations,
+			int[] parentOffsets, int[] parents, int[] filterOffsets, byte[] filters, BitSet filtered) {
+		this.extent = extent;
+		this.size = size;
+		this.ids = ids;
+		this.sorted = sorted;
+		this.tail = tail;
+		this.times = times;
+		this.generations = generations;
+		this.parentOffsets = parentOffsets;
+		this.parents = parents;
+		this.filterOffsets = filterOffsets;
+		this.filters = filters;
+		this.filtered = filtered;
+	}
+
+	/**
+	 * Returns an index which shares the commits of this index with other
+	 * filters.
+	 */
+	private CommitGraph withFilters(int[] filterOffsets, byte[] filters, BitSet filtered) {
+		return new CommitGraph(extent, size, ids, sorted, tail, times, generations, parentOffsets, parents,
+				filterOffsets, filters, filtered);
+	}
+
+	/**
+	 * Builds the index of all commits reachable from the refs of a
+	 * repository.
+	 *
+	 * @param repository
+	 * @return the index
+	 * @throws IOException
+	 */
+	public static CommitGraph build(Repository repository) throws IOException {
+		List<ObjectId> tips = new ArrayList<ObjectId>();
+		for (Ref ref : repository.getRefDatabase().getRefs(RefDatabase.ALL).values()) {
+			ObjectId id = ref.getPeeledObjectId() == null ? ref.getObjectId() : ref.getPeeledObjectId();
+			if (id != null) {
+				tips.add(id);
+			}
+		}
+		return EMPTY.extend(repository, tips);
+	}
+
+	/**
+	 * Returns the number of indexed commits.
+	 *
+	 * @return the commit count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns true if the commit is indexed.
+	 *
+	 * @param id
+	 * @return true if the commit is indexed
+	 */
+	public boolean contains(AnyObjectId id) {
+		return find(id) >= 0;
+	}
+
+	/**
+	 * Returns the generation number of a commit.
+	 *
+	 * @param id
+	 * @return the generation or 0 if the commit is not indexed
+	 */
+	public int getGeneration(AnyObjectId id) {
+		int c = find(id);
+		return c < 0 ? 0 : generations[c];
+	}
+
+	/**
+	 * Returns true if a commit is the tip or an ancestor of the tip.
+	 *
+	 * @param commitId
+	 * @param tipId
+	 * @return true if the commit is reachable from the tip, null if either
+	 *         commit is not indexed
+	 */
+	public Boolean isMergedInto(AnyObjectId commitId, AnyObjectId tipId) {
+		int commit = find(commitId);
+		int tip = find(tipId);
+		if (commit < 0 || tip < 0) {
+			return null;
+		}
+		return isAncestor(commit, tip);
+	}
+
+	private boolean isAncestor(int commit, int tip) {
+		if (commit == tip) {
+			return true;
+		}
+		int generation = generations[commit];
+		if (generation >= generations[tip]) {
+			return false;
+		}
+		// only commits with a larger generation can descend from the commit
+		BitSet seen = new BitSet();
+		Deque<Integer> pending = new ArrayDeque<Integer>();
+		pending.push(tip);
+		seen.set(tip);
+		while (!pending.isEmpty()) {
+			int c = pending.pop();
+			for (int i = parentOffsets[c]; i < parentOffsets[c + 1]; i++) {
+				int p = parents[i];
+				if (p == commit) {
+					return true;
+				}
+				if (generations[p] > generation && !seen.get(p)) {
+					seen.set(p);
+					pending.push(p);
+				}
+			}
+		}
+		return false;
+	}
+
+	private static final byte A = 1;
+	private static final byte B = 2;
+	private static final byte STALE = 4;
+	private static final byte RESULT = 8;
+	private static final byte QUEUED = 16;
+
+	/**
+	 * Returns the best common ancestor of two commits.  If there are several
+	 * merge bases the one with the largest generation and the most recent
+	 * commit time is returned.
+	 *
+	 * @param idA
+	 * @param idB
+	 * @return the merge base, {@link ObjectId#zeroId()} if the commits have
+	 *         no common ancestor or null if either commit is not indexed
+	 */
+	public ObjectId getMergeBase(AnyObjectId idA, AnyObjectId idB) {
+		int a = find(idA);
+		int b = find(idB);
+		if (a < 0 || b < 0) {
+			return null;
+		}
+		if (a == b) {
+			return getId(a);
+		}
+
+		// paint the ancestors of both commits down to their common ancestors
+		byte[] flags = new byte[size()];
+		Queue queue = new Queue();
+		queue.flag(a, A, flags, STALE);
+		queue.flag(b, B, flags, STALE);
+		List<Integer> results = new ArrayList<Integer>();
+		while (queue.hasUnflagged()) {
+			int c = queue.poll(flags, STALE);
+			int f = flags[c] & (A | B | STALE);
+			if (f == (A | B)) {
+				if ((flags[c] & RESULT) == 0) {
+					flags[c] |= RESULT;
+					results.add(c);
+				}
+				// the ancestors of a merge base are not merge bases
+				f |= STALE;
+			}
+			for (int i = parentOffsets[c]; i < parentOffsets[c + 1]; i++) {
+				int p = parents[i];
+				if ((flags[p] & f) == f) {
+					continue;
+				}
+				queue.flag(p, (byte) f, flags, STALE);
+			}
+		}
+
+		List<Integer> bases = new ArrayList<Integer>();
+		for (int c : results) {
+			if ((flags[c] & STALE) == 0) {
+				bases.add(c);
+			}
+		}
+		if (bases.isEmpty()) {
+			return ObjectId.zeroId();
+		}
+		int best = -1;
+		for (int c : bases) {
+			boolean redundant = false;
+			for (int other : bases) {
+				if (other != c && isAncestor(c, other)) {
+					redundant = true;
+					break;
+				}
+			}
+			if (!redundant && (best < 0 || compare(c, best) < 0)) {
+				best = c;
+			}
+		}
+		return getId(best);
+	}
+
+	/**
+	 * Counts the commits which are reachable from the tip but not from the
+	 * base, like git rev-list --count base..tip.
+	 *
+	 * @param baseId
+	 * @param tipId
+	 * @return the commit count or -1 if either commit is not indexed
+	 */
+	public int countCommits(AnyObjectId baseId, AnyObjectId tipId) {
+		int base = find(baseId);
+		int tip = find(tipId);
+		if (base < 0 || tip < 0) {
+			return -1;
+		}
+		if (base == tip) {
+			return 0;
+		}
+
+		// every child of a commit has a larger generation, so a commit is
+		// polled after all its children and its flags are final when polled
+		byte[] flags = new byte[size()];
+		Queue queue = new Queue();
+		queue.flag(tip, A, flags, B);
+		queue.flag(base, B, flags, B);
+		int count = 0;
+		while (queue.hasUnflagged()) {
+			int c = queue.poll(flags, B);
+			byte f = (byte) (flags[c] & (A | B));
+			if (f == A) {
+				count++;
+			}
+			for (int i = parentOffsets[c]; i < parentOffsets[c + 1]; i++) {
+				int p = parents[i];
+				if ((flags[p] & f) == f) {
+					continue;
+				}
+				queue.flag(p, f, flags, B);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * A priority queue of commit ordinals which polls the commit with the
+	 * largest generation first.  The queue tracks how many of the queued
+	 * commits lack a terminal flag so that walks can stop when only flagged
+	 * commits remain.
+	 */
+	private class Queue {
+
+		private int[] heap = new int[16];
+
+		private int size;
+
+		private int unflagged;
+
+		private void add(int c, byte[] flags) {
+			flags[c] |= QUEUED;
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (compare(heap[parent], c) <= 0) {
+					break;
+				}
+				heap[i] = heap[parent];
+				i = parent;
+			}
+			heap[i] = c;
+		}
+
+		/**
+		 * Adds flags to a commit and queues it if it is not queued.
+		 */
+		void flag(int c, byte f, byte[] flags, byte terminal) {
+			boolean queued = (flags[c] & QUEUED) != 0;
+			boolean wasUnflagged = (flags[c] & terminal) == 0;
+			flags[c] |= f;
+			boolean isUnflagged = (flags[c] & terminal) == 0;
+			if (!queued) {
+				add(c, flags);
+				if (isUnflagged) {
+					unflagged++;
+				}
+			} else if (wasUnflagged && !isUnflagged) {
+				unflagged--;
+			}
+		}
+
+		boolean hasUnflagged() {
+			return unflagged > 0;
+		}
+
+		int poll(byte[] flags, byte terminal) {
+			int c = heap[0];
+			int last = heap[--size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && compare(heap[child + 1], heap[child]) < 0) {
+					child++;
+				}
+				if (compare(last, heap[child]) <= 0) {
+					break;
+				}
+				heap[i] = heap[child];
+				i = child;
+			}
+			if (size > 0) {
+				heap[i] = last;
+			}
+			flags[c] &= ~QUEUED;
+			if ((flags[c] & terminal) == 0) {
+				unflagged--;
+			}
+			return c;
+		}
+	}
+
+	/**
+	 * Orders commits by descending generation, then by descending commit time.
+	 */
+	private int compare(int a, int b) {
+		if (generations[a] != generations[b]) {
+			return generations[a] > generations[b] ? -1 : 1;
+		}
+		if (times[a] != times[b]) {
+			return times[a] > times[b] ? -1 : 1;
+		}
+		return a < b ? -1 : (a == b ? 0 : 1);
+	}
+
+	/**
+	 * Returns an index which also holds the commits reachable from the
+	 * specified tips.  Only the commits which are not indexed are parsed.
+	 * Tips which do not reference a commit are ignored.
+	 *
+	 * @param repository
+	 * @param tips
+	 * @return this index if it holds all commits of the tips or a new index
+	 *         which appends the added commits to this index
+	 * @throws IOException
+	 *             if a commit can not be read
+	 */
+	public CommitGraph extend(Repository repository, Collection<? extends AnyObjectId> tips) throws IOException {
+		List<RevCommit> added = new ArrayList<RevCommit>();
+		// the generation of each added commit
+		Map<ObjectId, Integer> addedGenerations = new HashMap<ObjectId, Integer>();
+		RevWalk walk = new RevWalk(repository);
+		walk.setRetainBody(false);
+		try {
+			for (AnyObjectId tip : tips) {
+				if (tip == null || contains(tip) || addedGenerations.containsKey(tip)) {
+					continue;
+				}
+				RevObject object = walk.peel(walk.parseAny(tip));
+				if (!(object instanceof RevCommit)) {
+					continue;
+				}
+				// visit the parents before their children
+				Deque<RevCommit> pending = new ArrayDeque<RevCommit>();
+				pending.push((RevCommit) object);
+				while (!pending.isEmpty()) {
+					RevCommit commit = pending.peek();
+					if (addedGenerations.containsKey(commit)) {
+						pending.pop();
+						continue;
+					}
+					if (contains(commit)) {
+						pending.pop();
+						continue;
+					}
+					walk.parseHeaders(commit);
+					int generation = 0;
+					boolean ready = true;
+					for (RevCommit parent : commit.getParents()) {
+						int p = find(parent);
+						if (p >= 0) {
+							generation = Math.max(generation, generations[p]);
+						} else if (addedGenerations.containsKey(parent)) {
+							generation = Math.max(generation, addedGenerations.get(parent));
+						} else {
+							pending.push(parent);
+							ready = false;
+						}
+					}
+					if (ready) {
+						pending.pop();
+						added.add(commit);
+						addedGenerations.put(commit.copy(), generation + 1);
+					}
+				}
+			}
+		} finally {
+			walk.dispose();
+		}
+		if (added.isEmpty()) {
+			return this;
+		}
+		return append(added, addedGenerations);
+	}
+
+	/**
+	 * Appends the added commits, parents before children, to a new index.
+	 * The arrays of this index are appended in place if no other index was
+	 * extended from this index, otherwise they are copied with room for the
+	 * next commits.
+	 */
+	private CommitGraph append(List<RevCommit> added, Map<ObjectId, Integer> addedGenerations) {
+		int n = size();
+		int m = added.size();
+		Map<ObjectId, Integer> addedOrdinals = new HashMap<ObjectId, Integer>();
+		int addedParents = 0;
+		for (int j = 0; j < m; j++) {
+			addedOrdinals.put(added.get(j), n + j);
+			addedParents += added.get(j).getParentCount();
+		}
+		int parentCount = parentOffsets[n];
+		Extent newExtent = extent;
+		int[] newIds = ids;
+		int[] newTimes = times;
+		int[] newGenerations = generations;
+		int[] newOffsets = parentOffsets;
+		int[] newParents = parents;
+		synchronized (extent) {
+			if (extent.size != n || times.length < n + m || parents.length < parentCount + addedParents) {
+				int capacity = n + m + Math.max(MIN_TAIL, (n + m) / 8);
+				int parentCapacity = parentCount + addedParents + Math.max(MIN_TAIL, (parentCount + addedParents) / 8);
+				newExtent = new Extent();
+				newIds = Arrays.copyOf(ids, capacity * WORDS);
+				newTimes = Arrays.copyOf(times, capacity);
+				newGenerations = Arrays.copyOf(generations, capacity);
+				newOffsets = Arrays.copyOf(parentOffsets, capacity + 1);
+				newParents = Arrays.copyOf(parents, parentCapacity);
+			}
+			int offset = parentCount;
+			for (int j = 0; j < m; j++) {
+				RevCommit commit = added.get(j);
+				int c = n + j;
+				commit.copyRawTo(newIds, c * WORDS);
+				newTimes[c] = commit.getCommitTime();
+				newGenerations[c] = addedGenerations.get(commit);
+				newOffsets[c] = offset;
+				for (RevCommit parent : commit.getParents()) {
+					int p = find(parent);
+					newParents[offset++] = p >= 0 ? p : addedOrdinals.get(parent);
+				}
+			}
+			newOffsets[n + m] = offset;
+			newExtent.size = n + m;
+		}
+
+		// the added commits are sorted separately until they are too many
+		int[] addedSorted = new int[m];
+		for (int j = 0; j < m; j++) {
+			addedSorted[j] = n + j;
+		}
+		addedSorted = sort(newIds, addedSorted);
+		int[] newTail = merge(newIds, tail, addedSorted);
+		int[] newSorted = sorted;
+		if (newTail.length > Math.max(MIN_TAIL, (int) Math.sqrt(n + m))) {
+			newSorted = merge(newIds, sorted, newTail);
+			newTail = new int[0];
+		}
+		// the added commits have no filters
+		return new CommitGraph(newExtent, n + m, newIds, newSorted, newTail, newTimes, newGenerations, newOffsets,
+				newParents, filterOffsets, filters, filtered);
+	}
+
+	/**
+	 * Sorts ordinals by commit id.
+	 */
+	private static int[] sort(final int[] ids, int[] ordinals) {
+		Integer[] boxed = new Integer[ordinals.length];
+		for (int i = 0; i < ordinals.length; i++) {
+			boxed[i] = ordinals[i];
+		}
+		Arrays.sort(boxed, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return compareIds(ids, a, b);
+			}
+		});
+		int[] result = new int[ordinals.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = boxed[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Merges two arrays of ordinals sorted by commit id.
+	 */
+	private static int[] merge(int[] ids, int[] a, int[] b) {
+		int[] result = new int[a.length + b.length];
+		int i = 0;
+		int j = 0;
+		for (int k = 0; k < result.length; k++) {
+			if (j == b.length || (i < a.length && compareIds(ids, a[i], b[j]) < 0)) {
+				result[k] = a[i++];
+			} else {
+				result[k] = b[j++];
+			}
+		}
+		return result;
+	}
+
+	private static int compareIds(int[] ids, int a, int b) {
+		for (int w = 0; w < WORDS; w++) {
+			int cmp = Integer.compareUnsigned(ids[a * WORDS + w], ids[b * WORDS + w]);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the number of commits whose changed-path filter has not been
+	 * computed.
+	 *
+	 * @return the number of commits without a filter
+	 */
+	public int getMissingFilters() {
+		return size() - filtered.cardinality();
+	}
+
+	/**
+	 * Returns true if the changed-path filter of any commit has been computed.
+	 *
+	 * @return true if the index has filters
+	 */
+	public boolean hasFilters() {
+		return !filtered.isEmpty();
+	}
+
+	/**
+	 * Returns false if a commit certainly does not change a path compared to
+	 * its parent.
+	 *
+	 * @param id
+	 * @param path
+	 * @return false if the commit does not change the path, true if it may
+	 *         change the path or null if the commit is not indexed, is a
+	 *         merge or does not have a filter
+	 */
+	public Boolean mayChangePath(AnyObjectId id, PathKey path) {
+		int c = find(id);
+		if (c < 0 || !filtered.get(c) || parentOffsets[c + 1] - parentOffsets[c] > 1) {
+			return null;
+		}
+		int start = filterOffsets[c];
+		long bits = (filterOffsets[c + 1] - start) * 8L;
+		if (bits == 0) {
+			return false;
+		}
+		for (int i = 0; i < HASHES; i++) {
+			int bit = (int) ((path.hash0 + i * path.hash1) % bits);
+			if ((filters[start + (bit >>> 3)] & (1 << (bit & 7))) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns an index which holds the changed-path filters of all commits.
+	 * Only the filters which have not been computed are computed.
+	 *
+	 * @param repository
+	 * @return this index if it holds all filters or a new index
+	 * @throws IOException
+	 *             if a commit or tree can not be read
+	 */
+	public CommitGraph computeFilters(Repository repository) throws IOException {
+		if (getMissingFilters() == 0) {
+			return this;
+		}
+		int n = size();
+		int[] newFilterOffsets = new int[n + 1];
+		BitSet newFiltered = new BitSet(n);
+		ByteArrayOutputStream data = new ByteArrayOutputStream(filters.length + getMissingFilters() * 8);
+		ObjectReader reader = repository.newObjectReader();
+		try {
+			TreeWalk tw = new TreeWalk(reader);
+			tw.setFilter(TreeFilter.ANY_DIFF);
+			for (int c = 0; c < n; c++) {
+				newFilterOffsets[c] = data.size();
+				newFiltered.set(c);
+				if (filtered.get(c)) {
+					data.write(filters, filterOffsets[c], filterOffsets[c + 1] - filterOffsets[c]);
+				} else if (parentOffsets[c + 1] - parentOffsets[c] == 1) {
+					ObjectId parentTree = getTree(reader, getId(parents[parentOffsets[c]]));
+					data.write(computeFilter(tw, parentTree, getTree(reader, getId(c))));
+				} else if (parentOffsets[c + 1] == parentOffsets[c]) {
+					data.write(computeFilter(tw, null, getTree(reader, getId(c))));
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		newFilterOffsets[n] = data.size();
+		return withFilters(newFilterOffsets, data.toByteArray(), newFiltered);
+	}
+
+	/**
+	 * Returns an index which also holds the filters of another index for the
+	 * commits whose filter has not been computed in this index.
+	 *
+	 * @param other
+	 * @return this index if the other index does not add any filter or a new
+	 *         index
+	 */
+	public CommitGraph withFilters(CommitGraph other) {
+		int n = size();
+		int[] sources = new int[n];
+		boolean found = false;
+		for (int c = 0; c < n; c++) {
+			sources[c] = -1;
+			if (!filtered.get(c)) {
+				int o = other.find(getId(c));
+				if (o >= 0 && other.filtered.get(o)) {
+					sources[c] = o;
+					found = true;
+				}
+			}
+		}
+		if (!found) {
+			return this;
+		}
+		int[] newFilterOffsets = new int[n + 1];
+		BitSet newFiltered = new BitSet(n);
+		ByteArrayOutputStream data = new ByteArrayOutputStream(filters.length + other.filters.length);
+		for (int c = 0; c < n; c++) {
+			newFilterOffsets[c] = data.size();
+			if (sources[c] >= 0) {
+				int o = sources[c];
+				data.write(other.filters, other.filterOffsets[o], other.filterOffsets[o + 1] - other.filterOffsets[o]);
+				newFiltered.set(c);
+			} else if (filtered.get(c)) {
+				data.write(filters, filterOffsets[c], filterOffsets[c + 1] - filterOffsets[c]);
+				newFiltered.set(c);
+			}
+		}
+		newFilterOffsets[n] = data.size();
+		return withFilters(newFilterOffsets, data.toByteArray(), newFiltered);
+	}
+
+	/**
+	 * Builds the filter of the paths which differ between two trees.  The
+	 * walk is not recursive so that every changed directory is visited
+	 * before the changed entries within it.
+	 */
+	private static byte[] computeFilter(TreeWalk tw, ObjectId parentTree, ObjectId tree) throws IOException {
+		tw.reset();
+		if (parentTree == null) {
+			tw.addTree(new EmptyTreeIterator());
+		} else {
+			tw.addTree(parentTree);
+		}
+		tw.addTree(tree);
+		long[] hashes = new long[MAX_PATHS];
+		int count = 0;
+		while (tw.next()) {
+			if (count == MAX_PATHS) {
+				return ANY_PATH;
+			}
+			byte[] path = tw.getRawPath();
+			hashes[count++] = ((long) murmur3(SEED0, path) << 32) | (murmur3(SEED1, path) & 0xffffffffL);
+			if (tw.isSubtree()) {
+				tw.enterSubtree();
+			}
+		}
+		if (count == 0) {
+			return new byte[0];
+		}
+		byte[] filter = new byte[(count * BITS_PER_PATH + 7) / 8];
+		long bits = filter.length * 8L;
+		for (int p = 0; p < count; p++) {
+			long hash0 = hashes[p] >>> 32;
+			long hash1 = hashes[p] & 0xffffffffL;
+			for (int i = 0; i < HASHES; i++) {
+				int bit = (int) ((hash0 + i * hash1) % bits);
+				filter[bit >>> 3] |= 1 << (bit & 7);
+			}
+		}
+		return filter;
+	}
+
+	private static ObjectId getTree(ObjectReader reader, ObjectId commit) throws IOException {
+		// a commit object starts with "tree " and the hex id of its tree
+		byte[] raw = reader.open(commit, Constants.OBJ_COMMIT).getCachedBytes();
+		return ObjectId.fromString(raw, 5);
+	}
+
+	/**
+	 * The 32-bit murmur3 hash.
+	 */
+	@SuppressWarnings("fallthrough")
+	private static int murmur3(int seed, byte[] data) {
+		final int c1 = 0xcc9e2d51;
+		final int c2 = 0x1b873593;
+		int h = seed;
+		int i = 0;
+		for (; i + 4 <= data.length; i += 4) {
+			int k = (data[i] & 0xff) | (data[i + 1] & 0xff) << 8 | (data[i + 2] & 0xff) << 16 | (data[i + 3] & 0xff) << 24;
+			k *= c1;
+			k = Integer.rotateLeft(k, 15);
+			k *= c2;
+			h ^= k;
+			h = Integer.rotateLeft(h, 13);
+			h = h * 5 + 0xe6546b64;
+		}
+		int k = 0;
+		switch (data.length & 3) {
+		case 3:
+			k ^= (data[i + 2] & 0xff) << 16;
+			// fall through
+		case 2:
+			k ^= (data[i + 1] & 0xff) << 8;
+			// fall through
+		case 1:
+			k ^= data[i] & 0xff;
+			k *= c1;
+			k = Integer.rotateLeft(k, 15);
+			k *= c2;
+			h ^= k;
+			// fall through
+		default:
+			break;
+		}
+		h ^= data.length;
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	/**
+	 * The hashes of a path for querying the changed-path filters.  The path is
+	 * normalized like a {@link PathFilter}.
+	 */
+	public static class PathKey {
+
+		private final long hash0;
+
+		private final long hash1;
+
+		public PathKey(String path) {
+			byte[] raw = Constants.encode(PathFilter.create(path).getPath());
+			hash0 = murmur3(SEED0, raw) & 0xffffffffL;
+			hash1 = murmur3(SEED1, raw) & 0xffffffffL;
+		}
+	}
+
+	private int find(AnyObjectId id) {
+		int c = find(id, sorted);
+		return c >= 0 ? c : find(id, tail);
+	}
+
+	private int find(AnyObjectId id, int[] ordinals) {
+		int low = 0;
+		int high = ordinals.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = id.compareTo(ids, ordinals[mid] * WORDS);
+			if (cmp < 0) {
+				high = mid - 1;
+			} else if (cmp > 0) {
+				low = mid + 1;
+			} else {
+				return ordinals[mid];
+			}
+		}
+		return -1;
+	}
+
+	private ObjectId getId(int c) {
+		return ObjectId.fromRaw(ids, c * WORDS);
+	}
+
+	/**
+	 * Writes the index.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(DataOutput out) throws IOException {
+		int n = size();
+		out.writeInt(VERSION);
+		out.writeInt(n);
+		out.writeInt(parentOffsets[n]);
+		writeInts(out, ids, n * WORDS);
+		writeInts(out, merge(ids, sorted, tail), n);
+		writeInts(out, times, n);
+		writeInts(out, generations, n);
+		writeInts(out, parentOffsets, n + 1);
+		writeInts(out, parents, parentOffsets[n]);
+		out.writeInt(filterOffsets.length - 1);
+		out.writeInt(filters.length);
+		writeInts(out, filterOffsets, filterOffsets.length);
+		out.write(filters);
+		long[] words = filtered.toLongArray();
+		out.writeInt(words.length);
+		for (long word : words) {
+			out.writeLong(word);
+		}
+	}
+
+	/**
+	 * Reads an index written by {@link #write(DataOutput)}.
+	 *
+	 * @param in
+	 * @return the index
+	 * @throws IOException
+	 *             if the index can not be read or has an unsupported version
+	 */
+	public static CommitGraph read(DataInput in) throws IOException {
+		int version = in.readInt();
+		if (version < 1 || version > VERSION) {
+			throw new IOException("Unsupported commit graph version");
+		}
+		int size = in.readInt();
+		int parentCount = in.readInt();
+		int[] ids = readInts(in, size * WORDS);
+		int[] sorted;
+		if (version < 3) {
+			// written when the ordinals were sorted by commit id
+			sorted = new int[size];
+			for (int i = 0; i < size; i++) {
+				sorted[i] = i;
+			}
+		} else {
+			sorted = readInts(in, size);
+		}
+		int[] times = readInts(in, size);
+		int[] generations = readInts(in, size);
+		int[] parentOffsets = readInts(in, size + 1);
+		int[] parents = readInts(in, parentCount);
+		if (parentOffsets[size] != parentCount) {
+			throw new IOException("Corrupt commit graph");
+		}
+		Extent extent = new Extent();
+		extent.size = size;
+		if (version == 1) {
+			// written before the changed-path filters
+			return new CommitGraph(extent, size, ids, sorted, new int[0], times, generations, parentOffsets, parents,
+					new int[size + 1], new byte[0], new BitSet());
+		}
+		int filterCount = version < 3 ? size : in.readInt();
+		int filterLength = in.readInt();
+		int[] filterOffsets = readInts(in, filterCount + 1);
+		byte[] filters = new byte[filterLength];
+		in.readFully(filters);
+		long[] words = new long[in.readInt()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = in.readLong();
+		}
+		if (filterCount > size || filterOffsets[filterCount] != filterLength) {
+			throw new IOException("Corrupt commit graph");
+		}
+		return new CommitGraph(extent, size, ids, sorted, new int[0], times, generations, parentOffsets, parents,
+				filterOffsets, filters, BitSet.valueOf(words));
+	}
+
+	private static void writeInts(DataOutput out, int[] values, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			out.writeInt(values[i]);
+		}
+	}
+
+	private static int[] readInts(DataInput in, int count) throws IOException {
+		int[] values = new int[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = in.readInt();
+		}
+		return values;
+	}
+
+	@Override
+	public String toString() {
+		return "CommitGraph[" + size() + " commits]";
+	}
+
+	/**
+	 * The number of commits written to shared arrays.  An index appends to
+	 * the arrays in place only if it holds all the written commits.
+	 */
+	private static class Extent {
+
+		private int size;
+	}
+}
@@ -0,0 +1,513 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import org.eclipse.jgit.transport.ReceiveCommand.Result;
+
+import com.gitblit.cache.ServerCache;
+import com.gitblit.cache.Weigher;
+
+/**
+ * Holds the {@link CommitGraph} of each repository.
+ *
+ * The graph of a repository is stored next to its objects in the
+ * gitblit-commit-graph file.  The graph is built from the refs in the
+ * background when it is first requested, the queries walk the commits
+ * meanwhile.  The graph is extended with the commits of each push and rebuilt
+ * by the garbage collector which drops the commits that are no longer
+ * referenced.
+ * Graphs are not used for shallow repositories or repositories with grafts
+ * because their parents differ from the parents recorded in the commits.
+ *
+ * The changed-path filters of a graph are computed when a path-limited log is
+ * first requested, for the commits of each push and after garbage collection.
+ * Filters of large histories are computed in the background, the logs diff
+ * the trees of the commits without filters meanwhile.
+ *
+ * @author agent
+ *
+ */
+public class CommitGraphCache extends ServerCache<CommitGraph> {
+
+	public static final String FILENAME = "gitblit-commit-graph";
+
+	/**
+	 * The maximum number of filters computed while a request waits.
+	 */
+	private static final int SYNCHRONOUS_FILTERS = 1000;
+
+	private static final CommitGraphCache instance;
+
+	protected final ConcurrentMap<String, Object> locks;
+
+	protected volatile boolean enabled;
+
+	protected volatile boolean changedPaths;
+
+	protected volatile Executor executor;
+
+	protected final Set<String> computing;
+
+	protected final Set<String> building;
+
+	public static CommitGraphCache instance() {
+		return instance;
+	}
+
+	static {
+		instance = new CommitGraphCache();
+	}
+
+	protected CommitGraphCache() {
+		super("commitGraphs");
+		locks = new ConcurrentHashMap<String, Object>();
+		computing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		building = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		enabled = true;
+		changedPaths = true;
+		setMaximumCommits(5000000L);
+	}
+
+	/**
+	 * Enables or disables the commit graphs.  Disabled graphs are neither
+	 * built nor returned.
+	 *
+	 * @param enabled
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled) {
+			clear();
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables the changed-path filters.
+	 *
+	 * @param enabled
+	 */
+	public void setChangedPathsEnabled(boolean enabled) {
+		this.changedPaths = enabled;
+	}
+
+	/**
+	 * Sets the executor which builds the graphs and computes the filters of
+	 * large histories.  If no executor is set the graphs and filters are
+	 * computed while the request waits.
+	 *
+	 * @param executor
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the maximum number of commits held by the graphs in memory.  The
+	 * least recently used graphs are evicted first.  This clears the cache.
+	 *
+	 * @param maximumCommits
+	 */
+	public void setMaximumCommits(long maximumCommits) {
+		setMaximumWeight(maximumCommits, new Weigher<String, CommitGraph>() {
+			@Override
+			public int weigh(String key, CommitGraph graph) {
+				return graph.size();
+			}
+		});
+	}
+
+	/**
+	 * Clears the cached graph of the bare or non-bare repository in the
+	 * specified folder.  The stored graph is kept.
+	 *
+	 * @param folder
+	 */
+	public void clear(File folder) {
+		cache.remove(folder.getAbsolutePath());
+		cache.remove(new File(folder, Constants.DOT_GIT).getAbsolutePath());
+	}
+
+	/**
+	 * Returns the graph of a repository which holds the specified commits.
+	 * Commits which are not in the graph are added to the cached graph, they
+	 * are stored with the next push or garbage collection.
+	 *
+	 * @param repository
+	 * @param ids
+	 *            the commits the graph must hold
+	 * @return the graph or null if graphs are disabled, not supported for the
+	 *         repository, the graph is being built or can not be built
+	 */
+	public CommitGraph get(Repository repository, AnyObjectId... ids) {
+		if (!enabled || repository == null || !isSupported(repository)) {
+			return null;
+		}
+		String key = getKey(repository);
+		synchronized (getLock(key)) {
+			try {
+				CommitGraph graph = load(repository, key);
+				if (graph == null) {
+					return null;
+				}
+				CommitGraph extended = graph.extend(repository, Arrays.asList(ids));
+				if (extended != graph) {
+					cache.put(key, extended);
+				}
+				return extended;
+			} catch (IOException e) {
+				logger.warn(MessageFormat.format("Failed to load commit graph of {0}", repository.getDirectory()), e);
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Returns the graph of a repository with the changed-path filters of the
+	 * commits reachable from the specified tip.  If many filters are missing
+	 * they are computed in the background and the returned graph lacks them.
+	 *
+	 * @param repository
+	 * @param tip
+	 * @return the graph or null if graphs or filters are disabled or the
+	 *         graph is not available
+	 */
+	public CommitGraph getChangedPaths(Repository repository, AnyObjectId tip) {
+		if (!changedPaths) {
+			return null;
+		}
+		CommitGraph graph = get(repository, tip);
+		if (graph == null || graph.getMissingFilters() == 0) {
+			return graph;
+		}
+		Executor background = executor;
+		if (background == null || graph.getMissingFilters() <= SYNCHRONOUS_FILTERS) {
+			return computeFilters(repository, graph);
+		}
+		final File folder = repository.getDirectory();
+		final String key = getKey(repository);
+		if (computing.add(key)) {
+			try {
+				background.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							Repository repository = new FileRepositoryBuilder().setGitDir(folder).setMustExist(true).build();
+							try {
+								CommitGraph graph = get(repository);
+								if (graph != null) {
+									computeFilters(repository, graph);
+								}
+							} finally {
+								repository.close();
+							}
+						} catch (Throwable t) {
+							logger.error(MessageFormat.format("Failed to compute changed-path filters of {0}", folder), t);
+						} finally {
+							computing.remove(key);
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				computing.remove(key);
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Computes the missing filters of a graph without holding the lock of the
+	 * repository and stores them in the cached graph.
+	 */
+	private CommitGraph computeFilters(Repository repository, CommitGraph graph) {
+		String key = getKey(repository);
+		try {
+			long start = System.currentTimeMillis();
+			int missing = graph.getMissingFilters();
+			CommitGraph computed = graph.computeFilters(repository);
+			synchronized (getLock(key)) {
+				CommitGraph current = cache.get(key);
+				if (current != null && current != graph) {
+					// the graph was extended or rebuilt meanwhile
+					computed = current.withFilters(computed);
+				}
+				cache.put(key, computed);
+				write(repository, computed);
+			}
+			if (missing > SYNCHRONOUS_FILTERS) {
+				logger.info(MessageFormat.format("Computed {0} changed-path filters of {1} in {2} msecs",
+						missing, repository.getDirectory(), System.currentTimeMillis() - start));
+			}
+			return computed;
+		} catch (IOException e) {
+			logger.warn(MessageFormat.format("Failed to compute changed-path filters of {0}", repository.getDirectory()), e);
+			return graph;
+		}
+	}
+
+	/**
+	 * Extends the graph of a repository with the commits of a push and
+	 * stores the graph.  If the repository does not have a graph yet this
+	 * method does nothing, the graph is built when it is first requested.
+	 *
+	 * @param repository
+	 * @param commands
+	 */
+	public void update(Repository repository, Collection<ReceiveCommand> commands) {
+		if (!enabled || !isSupported(repository)) {
+			return;
+		}
+		String key = getKey(repository);
+		synchronized (getLock(key)) {
+			CommitGraph graph = cache.get(key);
+			if (graph == null && !getFile(repository).exists()) {
+				return;
+			}
+			List<ObjectId> tips = new ArrayList<ObjectId>();
+			for (ReceiveCommand cmd : commands) {
+				if (Result.OK.equals(cmd.getResult()) && !ReceiveCommand.Type.DELETE.equals(cmd.getType())) {
+					tips.add(cmd.getNewId());
+				}
+			}
+			try {
+				if (graph == null) {
+					graph = load(repository, key);
+					if (graph == null) {
+						// unreadable, the rebuilt graph will hold the pushed commits
+						return;
+					}
+				}
+				CommitGraph extended = graph.extend(repository, tips);
+				if (changedPaths && extended.hasFilters() && extended.getMissingFilters() <= SYNCHRONOUS_FILTERS) {
+					extended = extended.computeFilters(repository);
+				}
+				if (extended != graph || !getFile(repository).exists()) {
+					cache.put(key, extended);
+					write(repository, extended);
+				}
+			} catch (IOException e) {
+				logger.warn(MessageFormat.format("Failed to update commit graph of {0}", repository.getDirectory()), e);
+				cache.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Rebuilds and stores the graph of a repository from its refs.  The
+	 * filters of the previous graph are kept and the missing filters are
+	 * computed if the changed-path filters are enabled.
+	 *
+	 * @param repository
+	 * @return true if the graph was rebuilt
+	 */
+	public boolean rebuild(Repository repository) {
+		if (!enabled || !isSupported(repository)) {
+			return false;
+		}
+		String key = getKey(repository);
+		CommitGraph graph;
+		synchronized (getLock(key)) {
+			try {
+				CommitGraph previous = cache.get(key);
+				if (previous == null) {
+					previous = read(getFile(repository));
+				}
+				graph = CommitGraph.build(repository);
+				if (previous != null) {
+					graph = graph.withFilters(previous);
+				}
+				cache.put(key, graph);
+				if (!write(repository, graph)) {
+					return false;
+				}
+			} catch (IOException e) {
+				logger.error(MessageFormat.format("Failed to build commit graph of {0}", repository.getDirectory()), e);
+				cache.remove(key);
+				return false;
+			}
+		}
+		if (changedPaths) {
+			computeFilters(repository, graph);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the cached graph, reading the stored graph if it is not cached.
+	 * A graph which is not stored is built in the background if an executor
+	 * is set, otherwise it is built while the request waits.
+	 *
+	 * @return the graph or null if it is being built
+	 */
+	private CommitGraph load(Repository repository, String key) throws IOException {
+		CommitGraph graph = cache.get(key);
+		if (graph != null) {
+			return graph;
+		}
+		graph = read(getFile(repository));
+		if (graph == null) {
+			Executor background = executor;
+			if (background != null) {
+				buildInBackground(background, repository, key);
+				return null;
+			}
+			graph = build(repository);
+			write(repository, graph);
+		}
+		cache.put(key, graph);
+		return graph;
+	}
+
+	/**
+	 * Builds the graph of a repository on the executor without holding the
+	 * lock of the repository, unless the graph is already being built.
+	 */
+	private void buildInBackground(Executor background, Repository repository, final String key) {
+		if (!building.add(key)) {
+			return;
+		}
+		final File folder = repository.getDirectory();
+		try {
+			background.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						Repository repository = new FileRepositoryBuilder().setGitDir(folder).setMustExist(true).build();
+						try {
+							CommitGraph graph = build(repository);
+							synchronized (getLock(key)) {
+								if (cache.get(key) == null) {
+									cache.put(key, graph);
+									write(repository, graph);
+								}
+							}
+						} finally {
+							repository.close();
+						}
+					} catch (Throwable t) {
+						logger.error(MessageFormat.format("Failed to build commit graph of {0}", folder), t);
+					} finally {
+						building.remove(key);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			building.remove(key);
+		}
+	}
+
+	private CommitGraph build(Repository repository) throws IOException {
+		long start = System.currentTimeMillis();
+		CommitGraph graph = CommitGraph.build(repository);
+		logger.info(MessageFormat.format("Built commit graph of {0} with {1} commits in {2} msecs",
+				repository.getDirectory(), graph.size(), System.currentTimeMillis() - start));
+		return graph;
+	}
+
+	private CommitGraph read(File file) {
+		if (!file.exists()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			return CommitGraph.read(in);
+		} catch (IOException e) {
+			logger.warn(MessageFormat.format("Ignoring unreadable commit graph {0}", file), e);
+			return null;
+		}
+	}
+
+	private boolean write(Repository repository, CommitGraph graph) {
+		File file = getFile(repository);
+		File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			graph.write(out);
+		} catch (IOException e) {
+			logger.error(MessageFormat.format("Failed to write commit graph {0}", temp), e);
+			temp.delete();
+			return false;
+		}
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			logger.error(MessageFormat.format("Failed to replace commit graph {0}", file), e);
+			temp.delete();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean isSupported(Repository repository) {
+		File dir = repository.getDirectory();
+		return dir != null && !new File(dir, "shallow").exists() && !new File(dir, "info/grafts").exists();
+	}
+
+	private Object getLock(String key) {
+		Object lock = locks.get(key);
+		if (lock == null) {
+			Object newLock = new Object();
+			lock = locks.putIfAbsent(key, newLock);
+			if (lock == null) {
+				lock = newLock;
+			}
+		}
+		return lock;
+	}
+
+	/**
+	 * Returns the file of the stored graph of a repository.
+	 *
+	 * @param repository
+	 * @return the graph file
+	 */
+	public File getFile(Repository repository) {
+		return new File(repository.getDirectory(), FILENAME);
+	}
+
+	private String getKey(Repository repository) {
+		return repository.getDirectory().getAbsolutePath();
+	}
+}
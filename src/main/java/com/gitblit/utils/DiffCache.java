@@ -0,0 +1,227 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+
+import com.gitblit.cache.CacheConfig;
+import com.gitblit.cache.ICache;
+import com.gitblit.cache.MemoryCache;
+import com.gitblit.cache.ServerCache;
+import com.gitblit.cache.Weigher;
+import com.gitblit.models.CacheStatistics;
+import com.gitblit.utils.DiffUtils.DiffOutput;
+import com.gitblit.utils.DiffUtils.DiffStat;
+
+/**
+ * Caches diffs and diffstats by the content they are computed from.
+ *
+ * A diff only depends on the base and tip trees, the path filter and the
+ * options of the diff, so the key is built from these and not from the
+ * commits.  The same trees are compared by the commit, compare and ticket
+ * pages, the rpc servlet and the patchset receive pack, which share the
+ * cached results.  The diffstats refer to the commit they were requested for
+ * so the cached diffstats are copied for the requesting commit.
+ *
+ * The cache is bounded by the approximate size of the cached diffs in bytes.
+ * The sizes of the changed blobs, which decide whether a diff is rendered
+ * with a page, are cached separately and bounded by their count.
+ *
+ * @author agent
+ *
+ */
+public class DiffCache extends ServerCache<DiffOutput> {
+
+	private static final DiffCache instance;
+
+	/**
+	 * The approximate size of a cached path change in bytes.
+	 */
+	private static final int PATH_WEIGHT = 256;
+
+	/**
+	 * The maximum number of cached changed blob sizes.
+	 */
+	private static final int MAX_SIZES = 4096;
+
+	protected final ICache<String, Long> sizes;
+
+	protected volatile long maximumBytes;
+
+	public static DiffCache instance() {
+		return instance;
+	}
+
+	static {
+		instance = new DiffCache();
+	}
+
+	protected DiffCache() {
+		super("diffs");
+		setMaximumBytes(32 * 1024 * 1024L);
+		sizes = new MemoryCache<String, Long>(new CacheConfig<String, Long>("diff sizes").maximumSize(MAX_SIZES));
+	}
+
+	/**
+	 * Sets the maximum size of the cached diffs in bytes.  The least recently
+	 * used diffs are evicted first.  This clears the cache.
+	 *
+	 * @param maximumBytes
+	 *            if <= 0 diffs are not cached
+	 */
+	public void setMaximumBytes(long maximumBytes) {
+		this.maximumBytes = maximumBytes;
+		setMaximumWeight(Math.max(1, maximumBytes), new Weigher<String, DiffOutput>() {
+			@Override
+			public int weigh(String key, DiffOutput diff) {
+				return weight(key, diff);
+			}
+		});
+	}
+
+	@Override
+	protected List<CacheStatistics> getAllStatistics() {
+		return Arrays.asList(cache.getStatistics(), sizes.getStatistics());
+	}
+
+	/**
+	 * Clears the entire cache.
+	 */
+	@Override
+	public void clear() {
+		super.clear();
+		sizes.clear();
+	}
+
+	/**
+	 * Returns the key of a diff.
+	 *
+	 * @param baseTree
+	 * @param tipTree
+	 * @param path
+	 *            the path filter, may be null
+	 * @param options
+	 *            the comparator, output type and any other options which
+	 *            change the output of the diff
+	 * @return the key
+	 */
+	public static String getKey(AnyObjectId baseTree, AnyObjectId tipTree, String path, Object... options) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(baseTree.getName()).append(':').append(tipTree.getName());
+		for (Object option : options) {
+			sb.append(':').append(option);
+		}
+		if (!StringUtils.isEmpty(path)) {
+			sb.append(':').append(path);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns a cached diff.
+	 *
+	 * @param key
+	 * @param commitId
+	 *            the commit of the diffstat of the returned diff
+	 * @return the diff or null if the diff is not cached
+	 */
+	public DiffOutput getDiff(String key, String commitId) {
+		if (maximumBytes <= 0) {
+			return null;
+		}
+		DiffOutput diff = cache.get(key);
+		if (diff == null) {
+			return null;
+		}
+		return new DiffOutput(diff.type, diff.content, diff.stat == null ? null : diff.stat.copy(commitId));
+	}
+
+	/**
+	 * Caches a diff.  Diffs larger than a quarter of the cache are not cached.
+	 *
+	 * @param key
+	 * @param diff
+	 */
+	public void putDiff(String key, DiffOutput diff) {
+		if (maximumBytes <= 0 || weight(key, diff) > maximumBytes / 4) {
+			return;
+		}
+		cache.put(key, new DiffOutput(diff.type, diff.content, diff.stat == null ? null : diff.stat.copy(null)));
+	}
+
+	/**
+	 * Returns a cached diffstat.
+	 *
+	 * @param key
+	 * @param commitId
+	 *            the commit of the returned diffstat
+	 * @return the diffstat or null if the diffstat is not cached
+	 */
+	public DiffStat getDiffStat(String key, String commitId) {
+		DiffOutput diff = getDiff(key, commitId);
+		return diff == null ? null : diff.stat;
+	}
+
+	/**
+	 * Caches a diffstat.
+	 *
+	 * @param key
+	 * @param stat
+	 */
+	public void putDiffStat(String key, DiffStat stat) {
+		putDiff(key, new DiffOutput(null, null, stat));
+	}
+
+	/**
+	 * Returns the cached size of the blobs changed between two trees.
+	 *
+	 * @param key
+	 * @return the size in bytes or null if the size is not cached
+	 */
+	public Long getChangedBytes(String key) {
+		if (maximumBytes <= 0) {
+			return null;
+		}
+		return sizes.get(key);
+	}
+
+	/**
+	 * Caches the size of the blobs changed between two trees.
+	 *
+	 * @param key
+	 * @param bytes
+	 */
+	public void putChangedBytes(String key, long bytes) {
+		if (maximumBytes <= 0) {
+			return;
+		}
+		sizes.put(key, bytes);
+	}
+
+	private static int weight(String key, DiffOutput diff) {
+		long bytes = 2L * key.length();
+		if (diff.content != null) {
+			bytes += 2L * diff.content.length();
+		}
+		if (diff.stat != null) {
+			bytes += (long) PATH_WEIGHT * diff.stat.paths.size();
+		}
+		return (int) Math.min(Integer.MAX_VALUE, bytes);
+	}
+}
@@ -16,6 +16,7 @@
 package com.gitblit.utils;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -24,14 +25,21 @@ import java.util.List;
 import org.eclipse.jgit.api.BlameCommand;
 import org.eclipse.jgit.blame.BlameResult;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.RawText;
 import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -187,6 +195,20 @@ public class DiffUtils {
 			return val;
 		}
 
+		/**
+		 * Returns a copy of this diffstat for a commit.
+		 *
+		 * @param commitId
+		 * @return a copy of this diffstat
+		 */
+		public DiffStat copy(String commitId) {
+			DiffStat copy = new DiffStat(commitId, null);
+			for (PathChangeModel path : paths) {
+				copy.paths.add(path.copy(commitId));
+			}
+			return copy;
+		}
+
 		public PathChangeModel getPath(String path) {
 			PathChangeModel stat = null;
 			for (PathChangeModel p : paths) {
@@ -377,12 +399,34 @@ public class DiffUtils {
 		DiffStat stat = null;
 		String diff = null;
 		try {
+			if (comparator == null) {
+				comparator = DiffComparator.SHOW_WHITESPACE;
+			}
+
+			RevTree commitTree = commit.getTree();
+			RevTree baseTree = getBaseTree(repository, baseCommit, commit);
+
+			String key;
+			if (DiffOutputType.HTML == outputType) {
+				// the html diff has localized messages and is truncated by the line limits
+				key = DiffCache.getKey(baseTree, commitTree, path, outputType, comparator, tabLength,
+						GitBlitDiffFormatter.getLocale(), GitBlitDiffFormatter.getLimits(path));
+			} else {
+				key = DiffCache.getKey(baseTree, commitTree, path, outputType, comparator);
+			}
+			DiffOutput cached = DiffCache.instance().getDiff(key, commit.getName());
+			if (cached != null) {
+				return cached;
+			}
+
 			ByteArrayOutputStream os = null;
+			RenderedBinaryDiffHandler rendered = null;
 
 			DiffFormatter df;
 			switch (outputType) {
 			case HTML:
-				df = new GitBlitDiffFormatter(commit.getName(), repository, path, handler, tabLength);
+				rendered = new RenderedBinaryDiffHandler(handler);
+				df = new GitBlitDiffFormatter(commit.getName(), repository, path, rendered, tabLength);
 				break;
 			case PLAIN:
 			default:
@@ -391,25 +435,9 @@ public class DiffUtils {
 				break;
 			}
 			df.setRepository(repository);
-			df.setDiffComparator((comparator == null ? DiffComparator.SHOW_WHITESPACE : comparator).textComparator);
+			df.setDiffComparator(comparator.textComparator);
 			df.setDetectRenames(true);
 
-			RevTree commitTree = commit.getTree();
-			RevTree baseTree;
-			if (baseCommit == null) {
-				if (commit.getParentCount() > 0) {
-					final RevWalk rw = new RevWalk(repository);
-					RevCommit parent = rw.parseCommit(commit.getParent(0).getId());
-					rw.dispose();
-					baseTree = parent.getTree();
-				} else {
-					// FIXME initial commit. no parent?!
-					baseTree = commitTree;
-				}
-			} else {
-				baseTree = baseCommit.getTree();
-			}
-
 			List<DiffEntry> diffEntries = df.scan(baseTree, commitTree);
 			if (path != null && path.length() > 0) {
 				for (DiffEntry diffEntry : diffEntries) {
@@ -429,6 +457,10 @@ public class DiffUtils {
 			} else {
 				diff = os.toString();
 			}
+			if (rendered == null || !rendered.hasRendered) {
+				// binary diffs rendered by the handler are specific to the caller
+				DiffCache.instance().putDiff(key, new DiffOutput(outputType, diff, stat));
+			}
 		} catch (Throwable t) {
 			LOGGER.error("failed to generate commit diff!", t);
 		}
@@ -436,6 +468,171 @@ public class DiffUtils {
 		return new DiffOutput(outputType, diff, stat);
 	}
 
+	/**
+	 * Writes the html diff of a file between two commits.  Only the diff of
+	 * the file is buffered, the html is written to the writer instead of
+	 * being returned as a string.  A diff which exceeds the byte limit is
+	 * replaced by a message that the diff is too large.
+	 *
+	 * Only the trees of the file are compared, renames are detected between
+	 * the file and its old path.
+	 *
+	 * @param repository
+	 * @param baseCommit
+	 *            if base commit is null the diff is to the primary parent of
+	 *            the commit.
+	 * @param commit
+	 * @param path
+	 *            the path of the changed file
+	 * @param oldPath
+	 *            the path of a renamed file in the base commit, may be null
+	 * @param comparator
+	 * @param tabLength
+	 * @param maxBytes
+	 *            the limit of the html of the diff, if <= 0 the diff is not
+	 *            limited
+	 * @param writer
+	 *            the writer of the html
+	 * @return the diffstat of the file or null if the file is unchanged
+	 * @throws IOException
+	 */
+	public static DiffStat writeDiff(Repository repository, RevCommit baseCommit, RevCommit commit, String path,
+			String oldPath, DiffComparator comparator, int tabLength, int maxBytes, Appendable writer)
+			throws IOException {
+		RevTree commitTree = commit.getTree();
+		RevTree baseTree = getBaseTree(repository, baseCommit, commit);
+
+		GitBlitDiffFormatter df = new GitBlitDiffFormatter(commit.getName(), repository, path, null, tabLength);
+		try {
+			df.setRepository(repository);
+			df.setDiffComparator((comparator == null ? DiffComparator.SHOW_WHITESPACE : comparator).textComparator);
+			df.setDetectRenames(true);
+			df.setMaxDiffBytesPerFile(maxBytes);
+			if (StringUtils.isEmpty(oldPath) || oldPath.equals(path)) {
+				df.setPathFilter(PathFilter.create(path));
+			} else {
+				df.setPathFilter(PathFilterGroup.createFromStrings(path, oldPath));
+			}
+			for (DiffEntry diffEntry : df.scan(baseTree, commitTree)) {
+				String entryPath = ChangeType.DELETE == diffEntry.getChangeType()
+						? diffEntry.getOldPath() : diffEntry.getNewPath();
+				if (entryPath.equals(path)) {
+					df.format(diffEntry);
+					df.flush();
+					df.writeHtml(writer);
+					return df.getDiffStat();
+				}
+			}
+			return null;
+		} finally {
+			df.close();
+		}
+	}
+
+	/**
+	 * Returns the total size of the blobs changed between the two commits,
+	 * counting both the old and the new blob of each change.  The size is an
+	 * estimate of the size of the diff which is read from the object headers
+	 * without diffing the blobs, so it is cheap enough to decide whether a
+	 * diff is computed at all.
+	 *
+	 * @param repository
+	 * @param baseCommit
+	 *            if base commit is null the size is of the changes to the
+	 *            primary parent of the commit.
+	 * @param commit
+	 * @return the size of the changed blobs in bytes
+	 * @throws IOException
+	 */
+	public static long getChangedBytes(Repository repository, RevCommit baseCommit, RevCommit commit)
+			throws IOException {
+		RevTree commitTree = commit.getTree();
+		RevTree baseTree = getBaseTree(repository, baseCommit, commit);
+
+		String key = DiffCache.getKey(baseTree, commitTree, null, "changedbytes");
+		Long cached = DiffCache.instance().getChangedBytes(key);
+		if (cached != null) {
+			return cached;
+		}
+
+		long bytes = 0;
+		DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE);
+		ObjectReader reader = repository.newObjectReader();
+		try {
+			df.setRepository(repository);
+			for (DiffEntry diffEntry : df.scan(baseTree, commitTree)) {
+				if (isBlob(diffEntry.getOldMode())) {
+					bytes += reader.getObjectSize(diffEntry.getOldId().toObjectId(), Constants.OBJ_BLOB);
+				}
+				if (isBlob(diffEntry.getNewMode())) {
+					bytes += reader.getObjectSize(diffEntry.getNewId().toObjectId(), Constants.OBJ_BLOB);
+				}
+			}
+		} finally {
+			reader.close();
+			df.close();
+		}
+		DiffCache.instance().putChangedBytes(key, bytes);
+		return bytes;
+	}
+
+	private static boolean isBlob(FileMode mode) {
+		return FileMode.REGULAR_FILE.equals(mode) || FileMode.EXECUTABLE_FILE.equals(mode);
+	}
+
+	/**
+	 * Returns the tree a commit is compared to.
+	 *
+	 * @param repository
+	 * @param baseCommit
+	 *            if base commit is null the primary parent of the commit is
+	 *            the base commit.
+	 * @param commit
+	 * @return the tree of the base commit
+	 * @throws IOException
+	 */
+	private static RevTree getBaseTree(Repository repository, RevCommit baseCommit, RevCommit commit)
+			throws IOException {
+		if (baseCommit != null) {
+			return baseCommit.getTree();
+		}
+		if (commit.getParentCount() == 0) {
+			// FIXME initial commit. no parent?!
+			return commit.getTree();
+		}
+		final RevWalk rw = new RevWalk(repository);
+		try {
+			return rw.parseCommit(commit.getParent(0).getId()).getTree();
+		} finally {
+			rw.dispose();
+		}
+	}
+
+	/**
+	 * Delegates to a binary diff handler and records whether it rendered a
+	 * binary diff.
+	 */
+	private static class RenderedBinaryDiffHandler implements BinaryDiffHandler {
+
+		private final BinaryDiffHandler handler;
+
+		boolean hasRendered;
+
+		RenderedBinaryDiffHandler(BinaryDiffHandler handler) {
+			this.handler = handler;
+		}
+
+		@Override
+		public String renderBinaryDiff(DiffEntry diffEntry) {
+			if (handler == null) {
+				return null;
+			}
+			String html = handler.renderBinaryDiff(diffEntry);
+			hasRendered |= html != null;
+			return html;
+		}
+	}
+
 	/**
 	 * Returns the diff between the two commits for the specified file or folder
 	 * formatted as a patch.
@@ -463,19 +660,7 @@ public class DiffUtils {
 			df.setDetectRenames(true);
 
 			RevTree commitTree = commit.getTree();
-			RevTree baseTree;
-			if (baseCommit == null) {
-				if (commit.getParentCount() > 0) {
-					final RevWalk rw = new RevWalk(repository);
-					RevCommit parent = rw.parseCommit(commit.getParent(0).getId());
-					baseTree = parent.getTree();
-				} else {
-					// FIXME initial commit. no parent?!
-					baseTree = commitTree;
-				}
-			} else {
-				baseTree = baseCommit.getTree();
-			}
+			RevTree baseTree = getBaseTree(repository, baseCommit, commit);
 
 			List<DiffEntry> diffEntries = df.scan(baseTree, commitTree);
 			if (path != null && path.length() > 0) {
@@ -548,29 +733,44 @@ public class DiffUtils {
 	 */
 	public static DiffStat getDiffStat(Repository repository, RevCommit baseCommit,
 			RevCommit commit, String path) {
+		return getDiffStat(repository, baseCommit, commit, path, DiffComparator.SHOW_WHITESPACE);
+	}
+
+	/**
+	 * Returns the diffstat between the two commits for the specified file or
+	 * folder, comparing lines with the specified comparator.
+	 *
+	 * @param repository
+	 * @param baseCommit
+	 *            if base commit is unspecified, the diffstat is generated against
+	 *            the primary parent of the specified commit.
+	 * @param commit
+	 * @param path
+	 *            if path is specified, the diffstat is generated only for the
+	 *            specified file or folder. if unspecified, the diffstat is
+	 *            generated for the entire diff between the two commits.
+	 * @param comparator
+	 * @return the diffstat
+	 */
+	public static DiffStat getDiffStat(Repository repository, RevCommit baseCommit,
+			RevCommit commit, String path, DiffComparator comparator) {
 		DiffStat stat = null;
 		try {
-			RawTextComparator cmp = RawTextComparator.DEFAULT;
+			RevTree commitTree = commit.getTree();
+			RevTree baseTree = getBaseTree(repository, baseCommit, commit);
+
+			String key = DiffCache.getKey(baseTree, commitTree, path, "diffstat", comparator);
+			DiffStat cached = DiffCache.instance().getDiffStat(key, commit.getName());
+			if (cached != null) {
+				return cached;
+			}
+
+			RawTextComparator cmp = (comparator == null ? DiffComparator.SHOW_WHITESPACE : comparator).textComparator;
 			DiffStatFormatter df = new DiffStatFormatter(commit.getName(), repository);
 			df.setRepository(repository);
 			df.setDiffComparator(cmp);
 			df.setDetectRenames(true);
 
-			RevTree commitTree = commit.getTree();
-			RevTree baseTree;
-			if (baseCommit == null) {
-				if (commit.getParentCount() > 0) {
-					final RevWalk rw = new RevWalk(repository);
-					RevCommit parent = rw.parseCommit(commit.getParent(0).getId());
-					baseTree = parent.getTree();
-				} else {
-					// FIXME initial commit. no parent?!
-					baseTree = commitTree;
-				}
-			} else {
-				baseTree = baseCommit.getTree();
-			}
-
 			List<DiffEntry> diffEntries = df.scan(baseTree, commitTree);
 			if (path != null && path.length() > 0) {
 				for (DiffEntry diffEntry : diffEntries) {
@@ -584,6 +784,7 @@ public class DiffUtils {
 			}
 			stat = df.getDiffStat();
 			df.flush();
+			DiffCache.instance().putDiffStat(key, stat);
 		} catch (Throwable t) {
 			LOGGER.error("failed to generate commit diff!", t);
 		}
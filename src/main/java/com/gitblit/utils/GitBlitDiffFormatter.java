@@ -29,6 +29,7 @@ import java.util.regex.Pattern;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.Localizer;
+import org.apache.wicket.Session;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffEntry.ChangeType;
 import org.eclipse.jgit.diff.DiffFormatter;
@@ -103,6 +104,12 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 	 */
 	private final int globalDiffLimit;
 
+	/**
+	 * Limit on the number of html bytes of a single file diff. Diffs which exceed it are not shown. Off
+	 * (-1) unless set.
+	 */
+	private int maxDiffBytesPerFile = -1;
+
 	/** Number of lines for the current file diff. Set to zero when a new DiffEntry is started. */
 	private int nofLinesCurrent;
 	/**
@@ -148,6 +155,11 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 			this.binaryDiffHandler = handler;
 		}
 
+		/** Returns the internal buffer, valid up to {@link #size()}. */
+		byte[] buffer() {
+			return buf;
+		}
+
 		@Override
 		public void write(byte[] b, int offset, int length) {
 			if (binaryDiffHandler != null
@@ -177,6 +189,18 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 		globalDiffLimit = path != null ? -1 : getLimit(GLOBAL_DIFF_LIMIT_KEY, 1000, GLOBAL_DIFF_LIMIT);
 	}
 
+	/**
+	 * Sets the limit on the number of html bytes of a single file diff. A file diff which exceeds it is
+	 * replaced by a message that the diff is too large, so no more than about this number of bytes is
+	 * buffered per file.
+	 *
+	 * @param maxBytes
+	 *            if <= 0, the size of a file diff is not limited
+	 */
+	public void setMaxDiffBytesPerFile(int maxBytes) {
+		this.maxDiffBytesPerFile = maxBytes;
+	}
+
 	/**
 	 * Determines a limit to use for HTML diff output.
 	 *
@@ -188,7 +212,7 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 	 *            maximum (and default) value to enforce
 	 * @return the limit
 	 */
-	private int getLimit(String key, int minimum, int maximum) {
+	private static int getLimit(String key, int minimum, int maximum) {
 		if (Application.exists()) {
 			Application application = Application.get();
 			if (application instanceof GitBlitWebApp) {
@@ -204,6 +228,34 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 		return maximum;
 	}
 
+	/**
+	 * Returns the line limits of the rendered diffs of a path, which change
+	 * the rendered html when the settings are changed.
+	 *
+	 * @param path
+	 * @return the limits
+	 */
+	static String getLimits(String path) {
+		if (path != null) {
+			// the diff of a path is not limited
+			return "";
+		}
+		return getLimit(DIFF_LIMIT_PER_FILE_KEY, 500, DIFF_LIMIT_PER_FILE) + "/"
+				+ getLimit(GLOBAL_DIFF_LIMIT_KEY, 1000, GLOBAL_DIFF_LIMIT);
+	}
+
+	/**
+	 * Returns the locale of the localized messages of the rendered diffs.
+	 *
+	 * @return the locale of the session or an empty string
+	 */
+	static String getLocale() {
+		if (Session.exists()) {
+			return String.valueOf(Session.get().getLocale());
+		}
+		return "";
+	}
+
 	/**
 	 * Returns a localized message string, if there is a localization; otherwise the given default value.
 	 *
@@ -253,8 +305,7 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 				path = ent.getNewPath();
 				id = ent.getNewId().name();
 			}
-			StringBuilder sb = new StringBuilder(MessageFormat.format("<div class='header'><div class=\"diffHeader\" id=\"n{0}\"><i class=\"icon-file\"></i> ", id));
-			sb.append(StringUtils.escapeForHtml(path, false)).append("</div></div>");
+			StringBuilder sb = new StringBuilder(getHeaderHtml(id, path));
 			sb.append("<div class=\"diff\"><table cellpadding='0'><tbody>\n");
 			os.write(sb.toString().getBytes());
 		}
@@ -266,6 +317,44 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 		}
 	}
 
+	/**
+	 * Returns the html header of a file diff.
+	 *
+	 * @param id
+	 *            the object id of the file, the anchor of the header
+	 * @param path
+	 * @return the html of the header
+	 */
+	public static String getHeaderHtml(String id, String path) {
+		StringBuilder sb = new StringBuilder(MessageFormat.format("<div class='header'><div class=\"diffHeader\" id=\"n{0}\"><i class=\"icon-file\"></i> ", id));
+		sb.append(StringUtils.escapeForHtml(path, false)).append("</div></div>");
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the html of a file diff which is loaded later from an url. The header is shown until the
+	 * diff is loaded.
+	 *
+	 * @param path
+	 *            the changed path
+	 * @param url
+	 *            the url of the html of the file diff
+	 * @param load
+	 *            true if the diff is loaded with the page, false if it is loaded when clicked
+	 * @return the html of the placeholder
+	 */
+	public static String getPlaceholderHtml(PathChangeModel path, String url, boolean load) {
+		StringBuilder sb = new StringBuilder("<div class='lazyDiff' data-url=\"");
+		sb.append(StringUtils.escapeForHtml(url, false)).append('"');
+		if (load) {
+			sb.append(" data-load=\"true\"");
+		}
+		sb.append('>');
+		sb.append(getHeaderHtml(path.objectId, path.path));
+		sb.append("<div class='diff'></div></div>\n");
+		return sb.toString();
+	}
+
 	@Override
 	public void flush() throws IOException {
 		if (truncated) {
@@ -274,6 +363,14 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 		super.flush();
 	}
 
+	/**
+	 * Returns true if the current file diff exceeds the line or byte limit per file.
+	 */
+	private boolean isTooLarge() {
+		return (nofLinesCurrent > maxDiffLinesPerFile && maxDiffLinesPerFile > 0)
+				|| (maxDiffBytesPerFile > 0 && os.size() - startCurrent > maxDiffBytesPerFile);
+	}
+
 	/**
 	 * Rewind and issue a message that the diff is too large.
 	 */
@@ -340,7 +437,7 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 		}
 		if (!isOff) {
 			totalNofLinesCurrent++;
-			if (nofLinesCurrent > maxDiffLinesPerFile && maxDiffLinesPerFile > 0) {
+			if (isTooLarge()) {
 				reset();
 			} else {
 				os.write("<tr><th class='diff-line' data-lineno='..'></th><th class='diff-line' data-lineno='..'></th><th class='diff-state'></th><td class='hunk_header'>"
@@ -416,7 +513,7 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 			return;
 		}
 		totalNofLinesCurrent++;
-		if (nofLinesCurrent > maxDiffLinesPerFile && maxDiffLinesPerFile > 0) {
+		if (isTooLarge()) {
 			reset();
 		} else {
 			// output diff
@@ -473,10 +570,40 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 	 * @return
 	 */
 	public String getHtml() {
-		String html = RawParseUtils.decode(os.toByteArray());
-		String[] lines = html.split("\n");
 		StringBuilder sb = new StringBuilder();
-		for (String line : lines) {
+		try {
+			writeHtml(sb);
+		} catch (IOException ex) {
+			// Cannot happen with a StringBuilder
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the html of the formatted diffs, like {@link #getHtml()}, without building the whole html
+	 * in memory. The buffered diff is cleared, so the diffs of the next entries may be formatted and
+	 * written after it.
+	 *
+	 * @param sb
+	 *            the writer of the html
+	 * @throws IOException
+	 */
+	public void writeHtml(Appendable sb) throws IOException {
+		byte[] html = os.buffer();
+		int end = os.size();
+		int blankLines = 0;
+		for (int ptr = 0; ptr < end;) {
+			int next = Math.min(RawParseUtils.nextLF(html, ptr), end);
+			String line = RawParseUtils.decode(html, ptr, next > ptr && html[next - 1] == '\n' ? next - 1 : next);
+			ptr = next;
+			if (line.isEmpty()) {
+				// like String.split, trailing empty lines are dropped
+				blankLines++;
+				continue;
+			}
+			for (; blankLines > 0; blankLines--) {
+				sb.append('\n');
+			}
 			if (line.startsWith("index") || line.startsWith("similarity")
 					|| line.startsWith("rename from ") || line.startsWith("rename to ")) {
 				// skip index lines
@@ -506,7 +633,8 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 				sb.append('\n');
 			}
 		}
-		if (truncated) {
+		os.reset();
+		if (truncated && !skipped.isEmpty()) {
 			sb.append(MessageFormat.format("<div class='header'><div class='diffHeader'>{0}</div></div>",
 					StringUtils.escapeForHtml(getMsg("gb.diffTruncated", "Diff truncated after the above file"), false)));
 			// List all files not shown. We can be sure we do have at least one path in skipped.
@@ -527,7 +655,6 @@ public class GitBlitDiffFormatter extends DiffFormatter {
 			skipped.clear();
 			sb.append("</td></tr></tbody></table></div>");
 		}
-		return sb.toString();
 	}
 
 	public DiffStat getDiffStat() {
@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -63,6 +64,7 @@ import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.RefUpdate;
@@ -106,6 +108,7 @@ import com.gitblit.Keys;
 import com.gitblit.git.PatchsetCommand;
 import com.gitblit.models.FilestoreModel;
 import com.gitblit.models.GitNote;
+import com.gitblit.models.LastCommitModel;
 import com.gitblit.models.PathModel;
 import com.gitblit.models.PathModel.PathChangeModel;
 import com.gitblit.models.TicketModel.TicketAction;
@@ -124,6 +127,11 @@ public class JGitUtils {
 
 	static final Logger LOGGER = LoggerFactory.getLogger(JGitUtils.class);
 
+	/**
+	 * The id of the tree without entries.
+	 */
+	private static final ObjectId EMPTY_TREE_ID = ObjectId.fromString("4b825dc642cb6eb9a060e54bf8d69288fbee4904");
+
 	/**
 	 * Log an error message and exception.
 	 *
@@ -471,7 +479,7 @@ public class JGitUtils {
 	 *
 	 * @param repositoriesFolder
 	 * @param onlyBare
-	 *            if true, only bare repositories repositories are listed. If
+	 *            if true, only bare repositories are listed. If
 	 *            false all repositories are included.
 	 * @param searchSubfolders
 	 *            recurse into subfolders to find grouped repositories
@@ -483,88 +491,32 @@ public class JGitUtils {
 	 */
 	public static List<String> getRepositoryList(File repositoriesFolder, boolean onlyBare,
 			boolean searchSubfolders, int depth, List<String> exclusions) {
-		List<String> list = new ArrayList<String>();
-		if (repositoriesFolder == null || !repositoriesFolder.exists()) {
-			return list;
-		}
-		List<Pattern> patterns = new ArrayList<Pattern>();
-		if (!ArrayUtils.isEmpty(exclusions)) {
-			for (String regex : exclusions) {
-				patterns.add(Pattern.compile(regex));
-			}
-		}
-		list.addAll(getRepositoryList(repositoriesFolder.getAbsolutePath(), repositoriesFolder,
-				onlyBare, searchSubfolders, depth, patterns));
-		StringUtils.sortRepositorynames(list);
-		list.remove(".git"); // issue-256
-		return list;
+		return getRepositoryList(repositoriesFolder, onlyBare, searchSubfolders, depth, exclusions, 1);
 	}
 
 	/**
-	 * Recursive function to find git repositories.
+	 * Returns a list of repository names in the specified folder.  Sibling
+	 * folders are scanned concurrently by a fork-join pool.
 	 *
-	 * @param basePath
-	 *            basePath is stripped from the repository name as repositories
-	 *            are relative to this path
-	 * @param searchFolder
+	 * @param repositoriesFolder
 	 * @param onlyBare
-	 *            if true only bare repositories will be listed. if false all
-	 *            repositories are included.
+	 *            if true, only bare repositories are listed. If
+	 *            false all repositories are included.
 	 * @param searchSubfolders
 	 *            recurse into subfolders to find grouped repositories
 	 * @param depth
-	 *            recursion depth, -1 = infinite recursion
-	 * @param patterns
-	 *            list of regex patterns for matching to folder names
-	 * @return
-	 */
-	private static List<String> getRepositoryList(String basePath, File searchFolder,
-			boolean onlyBare, boolean searchSubfolders, int depth, List<Pattern> patterns) {
-		File baseFile = new File(basePath);
-		List<String> list = new ArrayList<String>();
-		if (depth == 0) {
-			return list;
-		}
-
-		int nextDepth = (depth == -1) ? -1 : depth - 1;
-		for (File file : searchFolder.listFiles()) {
-			if (file.isDirectory()) {
-				boolean exclude = false;
-				for (Pattern pattern : patterns) {
-					String path = FileUtils.getRelativePath(baseFile, file).replace('\\',  '/');
-					if (pattern.matcher(path).matches()) {
-						LOGGER.debug(MessageFormat.format("excluding {0} because of rule {1}", path, pattern.pattern()));
-						exclude = true;
-						break;
-					}
-				}
-				if (exclude) {
-					// skip to next file
-					continue;
-				}
-
-				File gitDir = FileKey.resolve(new File(searchFolder, file.getName()), FS.DETECTED);
-				if (gitDir != null) {
-					if (onlyBare && gitDir.getName().equals(".git")) {
-						continue;
-					}
-					if (gitDir.equals(file) || gitDir.getParentFile().equals(file)) {
-						// determine repository name relative to base path
-						String repository = FileUtils.getRelativePath(baseFile, file);
-						list.add(repository);
-					} else if (searchSubfolders && file.canRead()) {
-						// look for repositories in subfolders
-						list.addAll(getRepositoryList(basePath, file, onlyBare, searchSubfolders,
-								nextDepth, patterns));
-					}
-				} else if (searchSubfolders && file.canRead()) {
-					// look for repositories in subfolders
-					list.addAll(getRepositoryList(basePath, file, onlyBare, searchSubfolders,
-							nextDepth, patterns));
-				}
-			}
-		}
-		return list;
+	 *            optional recursion depth, -1 = infinite recursion
+	 * @param exclusions
+	 *            list of regex exclusions for matching to folder names
+	 * @param parallelism
+	 *            number of folders to scan concurrently, 0 = number of
+	 *            processors, 1 = scan on the calling thread
+	 * @return list of repository names
+	 */
+	public static List<String> getRepositoryList(File repositoriesFolder, boolean onlyBare,
+			boolean searchSubfolders, int depth, List<String> exclusions, int parallelism) {
+		return new RepositoryDiscovery(parallelism).find(repositoriesFolder, onlyBare,
+				searchSubfolders, depth, exclusions);
 	}
 
 	/**
@@ -660,34 +612,14 @@ public class JGitUtils {
 	 * repository does not exist Date(0) is returned. If it does exist but is
 	 * empty, the last modified date of the repository folder is returned.
 	 *
+	 * The result is served from the {@link LastChangeCache} while the refs of
+	 * the repository are unchanged.
+	 *
 	 * @param repository
 	 * @return a LastChange object
 	 */
 	public static LastChange getLastChange(Repository repository) {
-		if (!hasCommits(repository)) {
-			// null repository
-			if (repository == null) {
-				return new LastChange();
-			}
-			// fresh repository
-			return new LastChange(repository.getDirectory().lastModified());
-		}
-
-		List<RefModel> branchModels = getLocalBranches(repository, true, -1);
-		if (branchModels.size() > 0) {
-			// find most recent branch update
-			LastChange lastChange = new LastChange();
-			for (RefModel branchModel : branchModels) {
-				if (branchModel.getDate().after(lastChange.when)) {
-					lastChange.when = branchModel.getDate();
-					lastChange.who = branchModel.getAuthorIdent().getName();
-				}
-			}
-			return lastChange;
-		}
-
-		// default to the repository folder modification date
-		return new LastChange(repository.getDirectory().lastModified());
+		return LastChangeCache.instance().getLastChange(repository);
 	}
 
 	/**
@@ -922,6 +854,10 @@ public class JGitUtils {
 	 * returned.
 	 *
 	 * This is modified version that implements path compression feature.
+	 * Folders which only hold a single folder are listed together with that
+	 * folder, like "src/main/java".  Only the tree of the folder and the trees
+	 * of the compressed folders are read and the entries of a tree are cached
+	 * by its id.
 	 *
 	 * @param repository
 	 * @param path
@@ -939,40 +875,279 @@ public class JGitUtils {
 		if (commit == null) {
 			commit = getCommit(repository, null);
 		}
-		final TreeWalk tw = new TreeWalk(repository);
+		String prefix = "";
+		ObjectId treeId = commit.getTree();
 		try {
+			if (!Strings.isNullOrEmpty(path)) {
+				prefix = PathFilter.create(path).getPath();
+				TreeWalk tw = TreeWalk.forPath(repository, prefix, commit.getTree());
+				if (tw == null) {
+					return list;
+				}
+				try {
+					if (!tw.isSubtree()) {
+						return list;
+					}
+					treeId = tw.getObjectId(0);
+				} finally {
+					tw.close();
+				}
+				prefix += "/";
+			}
+		} catch (IOException e) {
+			error(e, repository, "{0} failed to get files for commit {1}", commit.getName());
+			return list;
+		}
+		List<PathModel> entries = TreeListingCache.instance().getEntries(repository, treeId);
+		if (entries == null) {
+			return list;
+		}
+		for (PathModel entry : entries) {
+			// submodules are named by their full path
+			String name = entry.isSubmodule() ? prefix + entry.name : entry.name;
+			list.add(entry.copy(name, prefix + entry.path, commit.getName()));
+		}
+		return list;
+	}
 
-			tw.addTree(commit.getTree());
-			final boolean isPathEmpty = Strings.isNullOrEmpty(path);
+	/**
+	 * Returns the sorted entries of a tree with path compression.  The paths
+	 * of the entries are relative to the tree and the entries do not have a
+	 * commit id.  Empty folders are skipped.
+	 *
+	 * @param repository
+	 * @param treeId
+	 * @return the entries of the tree
+	 * @throws IOException
+	 *             if a tree can not be read
+	 */
+	public static List<PathModel> getTreeEntries(Repository repository, ObjectId treeId) throws IOException {
+		List<PathModel> list = new ArrayList<PathModel>();
+		ObjectReader reader = repository.newObjectReader();
+		try {
+			for (CanonicalTreeParser entry = new CanonicalTreeParser(null, reader, treeId); !entry.eof(); entry.next()) {
+				FileMode mode = entry.getEntryFileMode();
+				String name = entry.getEntryPathString();
+				ObjectId objectId = entry.getEntryObjectId();
+				if (FileMode.TREE.equals(mode)) {
+					if (EMPTY_TREE_ID.equals(objectId)) {
+						continue;
+					}
+					// descend while the folder only holds a single folder
+					while (true) {
+						String childName = null;
+						ObjectId childId = null;
+						int count = 0;
+						for (CanonicalTreeParser child = new CanonicalTreeParser(null, reader, objectId); !child.eof()
+								&& count < 2; child.next()) {
+							boolean isTree = FileMode.TREE.equals(child.getEntryFileMode());
+							if (isTree && EMPTY_TREE_ID.equals(child.getEntryObjectId())) {
+								continue;
+							}
+							count++;
+							childName = child.getEntryPathString();
+							childId = isTree ? child.getEntryObjectId() : null;
+						}
+						if (count != 1 || childId == null) {
+							break;
+						}
+						name += "/" + childName;
+						objectId = childId;
+					}
+					list.add(new PathModel(name, name, null, 0, mode.getBits(), objectId.getName(), null));
+					continue;
+				}
 
-			if (!isPathEmpty) {
-				PathFilter f = PathFilter.create(path);
-				tw.setFilter(f);
+				long size = 0;
+				FilestoreModel filestoreItem = null;
+				try {
+					if (!FileMode.GITLINK.equals(mode)) {
+						size = reader.getObjectSize(objectId, Constants.OBJ_BLOB);
+						if (isPossibleFilestoreItem(size)) {
+							filestoreItem = getFilestoreItem(reader.open(objectId));
+						}
+					}
+				} catch (Throwable t) {
+					error(t, null, "failed to retrieve blob size for " + name);
+				}
+				list.add(new PathModel(name, name, filestoreItem, size, mode.getBits(), objectId.getName(), null));
 			}
+		} finally {
+			reader.close();
+		}
+		Collections.sort(list);
+		return list;
+	}
 
-			tw.setRecursive(true);
-			List<String> paths = new ArrayList<>();
+	/**
+	 * Returns the commits which last changed the entries of the specified
+	 * folder at the specified commit.  The history of the folder is walked
+	 * once, diffing only the entries which have not been resolved yet, and
+	 * the walk stops as soon as every entry is resolved.
+	 *
+	 * A merge only changes an entry if the entry differs from every parent.
+	 *
+	 * @param repository
+	 * @param path
+	 *            if unspecified, root folder is assumed.
+	 * @param commit
+	 *            if null, HEAD is assumed.
+	 * @return the last commits of the entries, in the order of the entries
+	 */
+	public static List<LastCommitModel> getLastCommits(Repository repository, String path, RevCommit commit) {
+		return getLastCommits(repository, path, commit, null, null);
+	}
 
-			while (tw.next()) {
-				String pathString = tw.getPathString();
-				String child = isPathEmpty ? pathString : pathString.replaceFirst(Pattern.quote(String.format("%s/", path)), "");
-				paths.add(child);
+	/**
+	 * Returns the commits which last changed the entries of the specified
+	 * folder at the specified commit, reusing the last commits of the folder
+	 * at an ancestor commit.  Only the commits since the ancestor are walked,
+	 * the entries which were not changed since keep their last commit at the
+	 * ancestor.  If an entry can not be resolved this way, the history of the
+	 * folder is walked in full.
+	 *
+	 * @param repository
+	 * @param path
+	 *            if unspecified, root folder is assumed.
+	 * @param commit
+	 *            if null, HEAD is assumed.
+	 * @param ancestor
+	 *            an ancestor of the commit, if null the history is walked in
+	 *            full
+	 * @param ancestorCommits
+	 *            the last commits of the folder entries at the ancestor
+	 * @return the last commits of the entries, in the order of the entries
+	 */
+	public static List<LastCommitModel> getLastCommits(Repository repository, String path, RevCommit commit,
+			RevCommit ancestor, List<LastCommitModel> ancestorCommits) {
+		List<LastCommitModel> list = new ArrayList<LastCommitModel>();
+		if (!hasCommits(repository)) {
+			return list;
+		}
+		if (commit == null) {
+			commit = getCommit(repository, null);
+		}
+		List<PathModel> entries = getFilesInPath2(repository, path, commit);
+		if (entries.isEmpty()) {
+			return list;
+		}
+		Set<String> remaining = new LinkedHashSet<String>();
+		for (PathModel entry : entries) {
+			remaining.add(entry.path);
+		}
+		Map<String, LastCommitModel> commits = new HashMap<String, LastCommitModel>();
+		RevWalk rw = new RevWalk(repository);
+		TreeWalk tw = new TreeWalk(rw.getObjectReader());
+		try {
+			rw.markStart(rw.parseCommit(commit));
+			if (ancestor != null) {
+				rw.markUninteresting(rw.parseCommit(ancestor));
 			}
-
-			for(String p: PathUtils.compressPaths(paths)) {
-				String pathString = isPathEmpty ? p : String.format("%s/%s", path, p);
-				list.add(getPathModel(repository, pathString, path, commit));
+			if (!StringUtils.isEmpty(path)) {
+				CommitGraph graph = CommitGraphCache.instance().getChangedPaths(repository, commit);
+				if (graph != null) {
+					rw.setRevFilter(new ChangedPathFilter(rw, graph, path));
+				} else {
+					rw.setTreeFilter(AndTreeFilter.create(
+							PathFilterGroup.createFromStrings(Collections.singleton(path)),
+							TreeFilter.ANY_DIFF));
+				}
 			}
-
-		} catch (IOException e) {
-			error(e, repository, "{0} failed to get files for commit {1}", commit.getName());
+			for (RevCommit rev = rw.next(); rev != null && !remaining.isEmpty(); rev = rw.next()) {
+				tw.reset();
+				tw.setRecursive(false);
+				tw.setFilter(AndTreeFilter.create(PathFilterGroup.createFromStrings(remaining),
+						TreeFilter.ANY_DIFF));
+				tw.addTree(rev.getTree());
+				for (RevCommit parent : rev.getParents()) {
+					rw.parseHeaders(parent);
+					tw.addTree(parent.getTree());
+				}
+				while (tw.next()) {
+					String entryPath = tw.getPathString();
+					if (remaining.contains(entryPath)) {
+						if (isChangedFromAllParents(tw)) {
+							remaining.remove(entryPath);
+							commits.put(entryPath, new LastCommitModel(entryPath, rev));
+						}
+					} else if (tw.isSubtree()) {
+						// a parent folder of a remaining entry
+						tw.enterSubtree();
+					}
+				}
+			}
+			if (ancestor != null && !remaining.isEmpty()
+					&& !reuseLastCommits(tw, rw.parseCommit(commit), rw.parseCommit(ancestor), remaining,
+							ancestorCommits, commits)) {
+				// an entry was changed by a commit reachable from the ancestor
+				return getLastCommits(repository, path, commit, null, null);
+			}
+		} catch (Throwable t) {
+			error(t, repository, "{0} failed to get last commits of {1} in {2}", path, commit.getName());
+			return list;
 		} finally {
 			tw.close();
+			rw.dispose();
+		}
+		for (PathModel entry : entries) {
+			LastCommitModel model = commits.get(entry.path);
+			if (model != null) {
+				list.add(model);
+			}
 		}
-		Collections.sort(list);
 		return list;
 	}
 
+	/**
+	 * Resolves the remaining entries to their last commits at the ancestor if
+	 * they are unchanged since the ancestor.
+	 *
+	 * @return true if all the remaining entries are resolved
+	 */
+	private static boolean reuseLastCommits(TreeWalk tw, RevCommit commit, RevCommit ancestor,
+			Set<String> remaining, List<LastCommitModel> ancestorCommits, Map<String, LastCommitModel> commits)
+			throws IOException {
+		tw.reset();
+		tw.setRecursive(false);
+		tw.setFilter(AndTreeFilter.create(PathFilterGroup.createFromStrings(remaining), TreeFilter.ANY_DIFF));
+		tw.addTree(commit.getTree());
+		tw.addTree(ancestor.getTree());
+		while (tw.next()) {
+			if (remaining.contains(tw.getPathString())) {
+				return false;
+			} else if (tw.isSubtree()) {
+				tw.enterSubtree();
+			}
+		}
+		Map<String, LastCommitModel> known = new HashMap<String, LastCommitModel>();
+		for (LastCommitModel model : ancestorCommits) {
+			known.put(model.path, model);
+		}
+		for (String entryPath : remaining) {
+			if (!known.containsKey(entryPath)) {
+				return false;
+			}
+		}
+		for (String entryPath : remaining) {
+			commits.put(entryPath, known.get(entryPath));
+		}
+		remaining.clear();
+		return true;
+	}
+
+	/**
+	 * Returns true if the current entry of the tree walk differs from all the
+	 * parent trees.  The first tree is the tree of the commit.
+	 */
+	private static boolean isChangedFromAllParents(TreeWalk tw) {
+		for (int i = 1; i < tw.getTreeCount(); i++) {
+			if (tw.getRawMode(i) == tw.getRawMode(0) && tw.idEqual(0, i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Returns the list of files changed in a specified commit. If the
 	 * repository does not exist or is empty, an empty list is returned.
@@ -1256,51 +1431,6 @@ public class JGitUtils {
 		return null;
 	}
 
-	/**
-	 * Returns a path model by path string
-	 *
-	 * @param repo
-	 * @param path
-	 * @param filter
-	 * @param commit
-	 * @return a path model of the specified object
-	 */
-	private static PathModel getPathModel(Repository repo, String path, String filter, RevCommit commit)
-			throws IOException {
-
-		long size = 0;
-		FilestoreModel filestoreItem = null;
-		TreeWalk tw = TreeWalk.forPath(repo, path, commit.getTree());
-		String pathString = path;
-
-		if (!tw.isSubtree() && (tw.getFileMode(0) != FileMode.GITLINK)) {
-
-			pathString = PathUtils.getLastPathComponent(pathString);
-			
-			size = tw.getObjectReader().getObjectSize(tw.getObjectId(0), Constants.OBJ_BLOB);
-			
-			if (isPossibleFilestoreItem(size)) {
-				filestoreItem = getFilestoreItem(tw.getObjectReader().open(tw.getObjectId(0)));
-			}
-		} else if (tw.isSubtree()) {
-
-			// do not display dirs that are behind in the path
-			if (!Strings.isNullOrEmpty(filter)) {
-				pathString = path.replaceFirst(filter + "/", "");
-			}
-
-			// remove the last slash from path in displayed link
-			if (pathString != null && pathString.charAt(pathString.length()-1) == '/') {
-				pathString = pathString.substring(0, pathString.length()-1);
-			}
-		}
-
-		return new PathModel(pathString, tw.getPathString(), filestoreItem, size, tw.getFileMode(0).getBits(),
-				tw.getObjectId(0).getName(), commit.getName());
-
-	}
-
-
 	/**
 	 * Returns a permissions representation of the mode bits.
 	 *
@@ -1438,6 +1568,10 @@ public class JGitUtils {
 			if (endRange == null) {
 				return list;
 			}
+			if (offset > 0 && startRange == null && StringUtils.isEmpty(path)) {
+				// resume the walk close to the offset instead of walking the skipped commits
+				return RevLogIndex.instance().getPage(repository, endRange, offset, maxCount).commits;
+			}
 
 			RevWalk rw = new RevWalk(repository);
 			rw.markStart(rw.parseCommit(endRange));
@@ -1445,10 +1579,16 @@ public class JGitUtils {
 				rw.markUninteresting(rw.parseCommit(startRange));
 			}
 			if (!StringUtils.isEmpty(path)) {
-				TreeFilter filter = AndTreeFilter.create(
-						PathFilterGroup.createFromStrings(Collections.singleton(path)),
-						TreeFilter.ANY_DIFF);
-				rw.setTreeFilter(filter);
+				CommitGraph graph = CommitGraphCache.instance().getChangedPaths(repository, endRange);
+				if (graph != null) {
+					// skip the commits which do not change the path without diffing them
+					rw.setRevFilter(new ChangedPathFilter(rw, graph, path));
+				} else {
+					TreeFilter filter = AndTreeFilter.create(
+							PathFilterGroup.createFromStrings(Collections.singleton(path)),
+							TreeFilter.ANY_DIFF);
+					rw.setTreeFilter(filter);
+				}
 			}
 			Iterable<RevCommit> revlog = rw;
 			if (offset > 0) {
@@ -1477,6 +1617,53 @@ public class JGitUtils {
 		return list;
 	}
 
+	/**
+	 * Returns a page of the log of a commit.  The page continues from the
+	 * cursor of a previous page or starts at the offset if there is no valid
+	 * cursor of the log of the commit at the offset.  Unlike the offset of
+	 * {@link #getRevLog(Repository, String, int, int)} a cursor does not walk
+	 * the commits of the previous pages.
+	 *
+	 * @param repository
+	 * @param objectId
+	 *            if unspecified, HEAD is assumed.
+	 * @param cursor
+	 *            the encoded cursor of the page, may be null
+	 * @param offset
+	 * @param maxCount
+	 * @return the page of commits and the cursor of the next page
+	 */
+	public static RevLogIndex.Page getRevLogPage(Repository repository, String objectId, String cursor,
+			int offset, int maxCount) {
+		if (hasCommits(repository) && (objectId == null || !objectId.contains(".."))) {
+			try {
+				ObjectId tip = StringUtils.isEmpty(objectId) ? getDefaultBranch(repository) : repository.resolve(objectId);
+				if (tip == null) {
+					return new RevLogIndex.Page(new ArrayList<RevCommit>(), null);
+				}
+				RevLogIndex.Cursor start = RevLogIndex.Cursor.decode(cursor);
+				if (start != null && tip.equals(start.tip) && start.position == offset) {
+					try {
+						return RevLogIndex.instance().getPage(repository, start, maxCount);
+					} catch (IOException e) {
+						// unknown commits, fall back to the offset
+						LOGGER.debug(MessageFormat.format("{0} ignoring log cursor {1}", repository.getDirectory(), cursor), e);
+					}
+				}
+				return RevLogIndex.instance().getPage(repository, tip, offset, maxCount);
+			} catch (Throwable t) {
+				error(t, repository, "{0} failed to get {1} revlog page at {2}", objectId, offset);
+			}
+			return new RevLogIndex.Page(new ArrayList<RevCommit>(), null);
+		}
+		List<RevCommit> list = getRevLog(repository, objectId, offset, maxCount);
+		RevLogIndex.Cursor next = null;
+		if (maxCount > 0 && list.size() >= maxCount) {
+			next = new RevLogIndex.Cursor(offset + list.size(), Collections.<ObjectId> emptyList());
+		}
+		return new RevLogIndex.Page(list, next);
+	}
+
 	/**
 	 * Returns a list of commits for the repository within the range specified
 	 * by startRangeId and endRangeId. If the repository does not exist or is
@@ -1969,29 +2156,21 @@ public class JGitUtils {
 			return list;
 		}
 		try {
-			Map<String, Ref> map = repository.getRefDatabase().getRefs(refs);
-			RevWalk rw = new RevWalk(repository);
-			for (Entry<String, Ref> entry : map.entrySet()) {
-				Ref ref = entry.getValue();
-				RevObject object = rw.parseAny(ref.getObjectId());
-				String name = entry.getKey();
-				if (fullName && !StringUtils.isEmpty(refs)) {
-					name = refs + name;
-				}
-				list.add(new RefModel(name, ref, object));
-			}
-			rw.dispose();
-			Collections.sort(list);
-			Collections.reverse(list);
-			if (maxCount > 0 && list.size() > maxCount) {
-				if (offset < 0) {
-					offset = 0;
-				}
-				int endIndex = offset + maxCount;
-				if (endIndex > list.size()) {
-					endIndex = list.size();
+			// the cached models are sorted by date and named by their full name
+			List<RefModel> sorted = RefCache.instance().getRefs(repository, refs);
+			int startIndex = 0;
+			int endIndex = sorted.size();
+			if (maxCount > 0 && sorted.size() > maxCount) {
+				startIndex = Math.min(Math.max(offset, 0), sorted.size());
+				endIndex = Math.min(startIndex + maxCount, sorted.size());
+			}
+			boolean shortName = !fullName && !StringUtils.isEmpty(refs);
+			for (RefModel model : sorted.subList(startIndex, endIndex)) {
+				if (shortName) {
+					String name = model.displayName.substring(refs.length());
+					model = new RefModel(name, model.reference, model.referencedObject);
 				}
-				list = new ArrayList<RefModel>(list.subList(offset, endIndex));
+				list.add(model);
 			}
 		} catch (IOException e) {
 			error(e, repository, "{0} failed to retrieve {1}", refs);
@@ -2397,6 +2576,13 @@ public class JGitUtils {
 	 * @return true if there is the commit is an ancestor of the tip
 	 */
 	public static boolean isMergedInto(Repository repository, ObjectId commitId, ObjectId tipCommitId) {
+		if (commitId != null && tipCommitId != null) {
+			CommitGraph graph = CommitGraphCache.instance().get(repository, commitId, tipCommitId);
+			Boolean merged = graph == null ? null : graph.isMergedInto(commitId, tipCommitId);
+			if (merged != null) {
+				return merged;
+			}
+		}
 		// traverse the revlog looking for a commit chain between the endpoints
 		RevWalk rw = new RevWalk(repository);
 		try {
@@ -2422,6 +2608,13 @@ public class JGitUtils {
 	 * @return the commit id of the merge base or null if there is no common base
 	 */
 	public static String getMergeBase(Repository repository, ObjectId commitIdA, ObjectId commitIdB) {
+		if (commitIdA != null && commitIdB != null) {
+			CommitGraph graph = CommitGraphCache.instance().get(repository, commitIdA, commitIdB);
+			ObjectId mergeBase = graph == null ? null : graph.getMergeBase(commitIdA, commitIdB);
+			if (mergeBase != null) {
+				return ObjectId.zeroId().equals(mergeBase) ? null : mergeBase.getName();
+			}
+		}
 		RevWalk rw = new RevWalk(repository);
 		try {
 			RevCommit a = rw.lookupCommit(commitIdA);
@@ -3083,6 +3276,13 @@ public class JGitUtils {
 	}
 	
 	public static int countCommits(Repository repository, RevWalk walk, ObjectId baseId, ObjectId tipId) {
+		if (baseId != null && tipId != null) {
+			CommitGraph graph = CommitGraphCache.instance().get(repository, baseId, tipId);
+			int count = graph == null ? -1 : graph.countCommits(baseId, tipId);
+			if (count >= 0) {
+				return count;
+			}
+		}
 		int count = 0;
 		walk.reset();
 		walk.sort(RevSort.TOPO);
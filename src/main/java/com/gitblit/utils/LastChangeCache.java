@@ -0,0 +1,333 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import org.eclipse.jgit.transport.ReceiveCommand.Result;
+
+import com.gitblit.cache.ServerCache;
+import com.gitblit.cache.Weigher;
+import com.gitblit.models.RefModel;
+import com.gitblit.utils.JGitUtils.LastChange;
+
+/**
+ * Caches the last change of each repository.
+ *
+ * The changes of a repository which is watched by the repository watch
+ * service are reported to this cache, so the cached last change of a watched
+ * repository is served without reading its refs until the watch service
+ * reports a change.  The entry of a repository which is not watched is keyed
+ * by the refs stamp of the repository's {@link RepositoryFingerprint}.
+ *
+ * The date and author of every branch tip are retained so that a refresh only
+ * parses the branch tips which have moved.  Pushes received by Gitblit update
+ * the entry directly from the receive commands.  The cache is bounded by the
+ * number of branch tips and the least recently used repositories are evicted
+ * first.
+ *
+ * @author agent
+ *
+ */
+public class LastChangeCache extends ServerCache<LastChangeCache.Entry> {
+
+	private static final LastChangeCache instance;
+
+	/**
+	 * The version of an entry which is validated by its refs stamp.
+	 */
+	private static final long UNWATCHED = -1;
+
+	/**
+	 * The number of changes reported for each watched repository.  The count
+	 * of each watch starts at a new generation so that an entry built under a
+	 * previous watch of the repository never matches.
+	 */
+	protected final Map<String, AtomicLong> watched;
+
+	private final AtomicLong generations = new AtomicLong();
+
+	public static LastChangeCache instance() {
+		return instance;
+	}
+
+	static {
+		instance = new LastChangeCache();
+	}
+
+	protected LastChangeCache() {
+		super("lastchanges");
+		watched = new ConcurrentHashMap<String, AtomicLong>();
+		setMaximumTips(100000L);
+	}
+
+	/**
+	 * The date and author of a branch tip.
+	 */
+	private static class Tip {
+		final ObjectId id;
+		final long when;
+		final String who;
+
+		Tip(ObjectId id, long when, String who) {
+			this.id = id;
+			this.when = when;
+			this.who = who;
+		}
+	}
+
+	/**
+	 * The immutable last change state of a repository.
+	 */
+	static class Entry {
+		final long version;
+		final long refs;
+		final Map<String, Tip> tips;
+		final Tip last;
+
+		Entry(long version, long refs, Map<String, Tip> tips) {
+			this.version = version;
+			this.refs = refs;
+			this.tips = Collections.unmodifiableMap(tips);
+			Tip last = null;
+			for (Tip tip : tips.values()) {
+				if (last == null || tip.when > last.when) {
+					last = tip;
+				}
+			}
+			this.last = last;
+		}
+	}
+
+	/**
+	 * Sets the maximum number of branch tips held by the cache.  This clears
+	 * the cache.
+	 *
+	 * @param maximumTips
+	 */
+	public void setMaximumTips(long maximumTips) {
+		setMaximumWeight(maximumTips, new Weigher<String, Entry>() {
+			@Override
+			public int weigh(String key, Entry entry) {
+				return Math.max(1, entry.tips.size());
+			}
+		});
+	}
+
+	/**
+	 * Clears the cached last change of a repository.
+	 *
+	 * @param repository
+	 */
+	public void clear(Repository repository) {
+		cache.remove(getKey(repository));
+	}
+
+	/**
+	 * Registers a repository whose changes are reported by {@link #changed}.
+	 * The cached last change of the repository is then served without
+	 * checking its refs.
+	 *
+	 * @param gitDir
+	 */
+	public void watch(File gitDir) {
+		String key = gitDir.getAbsolutePath();
+		if (watched.get(key) == null) {
+			watched.put(key, new AtomicLong(generations.incrementAndGet() << 32));
+		}
+	}
+
+	/**
+	 * Unregisters a watched repository.  Its cached last change is validated
+	 * by its refs stamp again.
+	 *
+	 * @param gitDir
+	 */
+	public void unwatch(File gitDir) {
+		watched.remove(gitDir.getAbsolutePath());
+	}
+
+	/**
+	 * Reports a change of a watched repository.  The cached last change is
+	 * refreshed on the next read.
+	 *
+	 * @param gitDir
+	 */
+	public void changed(File gitDir) {
+		AtomicLong changes = watched.get(gitDir.getAbsolutePath());
+		if (changes != null) {
+			changes.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Clears the cached last change of the bare or non-bare repository in the
+	 * specified folder.
+	 *
+	 * @param folder
+	 */
+	public void clear(File folder) {
+		cache.remove(folder.getAbsolutePath());
+		cache.remove(new File(folder, Constants.DOT_GIT).getAbsolutePath());
+	}
+
+	/**
+	 * Returns the date and author of the most recent commit on a branch. If
+	 * the repository does not exist Date(0) is returned. If it does exist but
+	 * is empty or has no branches, the last modified date of the repository
+	 * folder is returned.
+	 *
+	 * @param repository
+	 * @return a LastChange object
+	 */
+	public LastChange getLastChange(Repository repository) {
+		if (repository == null) {
+			return new LastChange();
+		}
+
+		String key = getKey(repository);
+		AtomicLong changes = watched.get(key);
+		long version = changes == null ? UNWATCHED : changes.get();
+		Entry entry = cache.get(key);
+		if (entry != null && version != UNWATCHED && entry.version == version) {
+			// no change has been reported since the entry was built
+			return toLastChange(repository, entry);
+		}
+
+		if (!JGitUtils.hasCommits(repository)) {
+			// fresh repository
+			return new LastChange(repository.getDirectory().lastModified());
+		}
+
+		long refs = version == UNWATCHED ? RepositoryFingerprint.refsStamp(repository.getDirectory()) : 0;
+		if (entry == null || entry.version != version || entry.refs != refs) {
+			entry = refresh(repository, version, refs, entry);
+			if (entry == null) {
+				return new LastChange(repository.getDirectory().lastModified());
+			}
+			cache.put(key, entry);
+		}
+		return toLastChange(repository, entry);
+	}
+
+	/**
+	 * Updates the cached last change of a repository from the commands of a
+	 * push.  Only the pushed branch tips are parsed.  If the repository is not
+	 * cached this method does nothing.
+	 *
+	 * @param repository
+	 * @param commands
+	 */
+	public void update(Repository repository, Collection<ReceiveCommand> commands) {
+		String key = getKey(repository);
+		AtomicLong changes = watched.get(key);
+		long version = changes == null ? UNWATCHED : changes.get();
+		Entry entry = cache.get(key);
+		if (entry == null) {
+			return;
+		}
+		Map<String, Tip> tips = new HashMap<String, Tip>(entry.tips);
+		RevWalk rw = new RevWalk(repository);
+		try {
+			for (ReceiveCommand cmd : commands) {
+				if (!Result.OK.equals(cmd.getResult()) || !cmd.getRefName().startsWith(Constants.R_HEADS)) {
+					continue;
+				}
+				if (ReceiveCommand.Type.DELETE.equals(cmd.getType())) {
+					tips.remove(cmd.getRefName());
+				} else {
+					tips.put(cmd.getRefName(), parseTip(rw, cmd.getNewId()));
+				}
+			}
+		} catch (IOException e) {
+			logger.error(MessageFormat.format("Failed to update last change of {0}", repository.getDirectory()), e);
+			cache.remove(key);
+			return;
+		} finally {
+			rw.dispose();
+		}
+		long refs = version == UNWATCHED ? RepositoryFingerprint.refsStamp(repository.getDirectory()) : 0;
+		cache.put(key, new Entry(version, refs, tips));
+	}
+
+	/**
+	 * Builds a new entry from the current branches.  Branch tips which have not
+	 * moved since the previous entry are not parsed again.
+	 */
+	private Entry refresh(Repository repository, long version, long refs, Entry previous) {
+		Map<String, Tip> tips = new HashMap<String, Tip>();
+		RevWalk rw = new RevWalk(repository);
+		try {
+			Map<String, Ref> map = repository.getRefDatabase().getRefs(Constants.R_HEADS);
+			for (Map.Entry<String, Ref> e : map.entrySet()) {
+				String name = Constants.R_HEADS + e.getKey();
+				ObjectId id = e.getValue().getObjectId();
+				if (id == null) {
+					continue;
+				}
+				Tip tip = previous == null ? null : previous.tips.get(name);
+				if (tip == null || !tip.id.equals(id)) {
+					tip = parseTip(rw, id);
+				}
+				tips.put(name, tip);
+			}
+		} catch (IOException e) {
+			logger.error(MessageFormat.format("Failed to determine last change of {0}", repository.getDirectory()), e);
+			return null;
+		} finally {
+			rw.dispose();
+		}
+		return new Entry(version, refs, tips);
+	}
+
+	private Tip parseTip(RevWalk rw, ObjectId id) throws IOException {
+		RevObject object = rw.parseAny(id);
+		RefModel model = new RefModel(null, null, object);
+		PersonIdent ident = model.getAuthorIdent();
+		return new Tip(id.copy(), model.getDate().getTime(), ident == null ? null : ident.getName());
+	}
+
+	private LastChange toLastChange(Repository repository, Entry entry) {
+		if (entry.last == null) {
+			// default to the repository folder modification date
+			return new LastChange(repository.getDirectory().lastModified());
+		}
+		LastChange lastChange = new LastChange(entry.last.when);
+		lastChange.who = entry.last.who;
+		return lastChange;
+	}
+
+	private String getKey(Repository repository) {
+		File dir = repository.getDirectory();
+		return dir.getAbsolutePath();
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+
+import com.gitblit.cache.CacheFolder;
+import com.gitblit.cache.CacheLoader;
+import com.gitblit.cache.ServerCache;
+import com.gitblit.cache.Weigher;
+import com.gitblit.models.LastCommitModel;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Caches the commits which last changed the entries of a folder.
+ *
+ * The last commits of the entries only depend on the history of the folder
+ * so they are keyed by the folder path and the commit which last changed the
+ * folder.  The commit is shared by all branches and forks which have not
+ * changed the folder since, so their tree pages share the cached entries.
+ * The entries may also be persisted in a folder to survive restarts.  The
+ * size of the folder is bounded, the least recently used folders are deleted
+ * first.  Clearing the cache keeps the persisted last commits.
+ *
+ * A folder which is not cached is resolved from the cached entries of the
+ * folder at a first parent ancestor, so a push only walks the new commits and
+ * re-resolves the entries they changed instead of the whole history.
+ *
+ * @author agent
+ *
+ */
+public class LastCommitCache extends ServerCache<List<LastCommitModel>> {
+
+	private static final LastCommitCache instance;
+
+	private static final Type LAST_COMMITS_TYPE = new TypeToken<List<LastCommitModel>>() {
+	}.getType();
+
+	/**
+	 * The maximum number of first parents searched for cached entries.
+	 */
+	private static final int MAX_INCREMENTAL_COMMITS = 64;
+
+	protected volatile CacheFolder<List<LastCommitModel>> folder;
+
+	protected volatile long maximumFolderBytes = 256 * 1024 * 1024L;
+
+	public static LastCommitCache instance() {
+		return instance;
+	}
+
+	static {
+		instance = new LastCommitCache();
+	}
+
+	protected LastCommitCache() {
+		super("lastCommits");
+		setMaximumEntries(100000L);
+	}
+
+	/**
+	 * Sets the maximum number of folder entries held by the cache.  The least
+	 * recently used folders are evicted first.  This clears the cache.
+	 *
+	 * @param maximumEntries
+	 */
+	public void setMaximumEntries(long maximumEntries) {
+		setMaximumWeight(maximumEntries, new Weigher<String, List<LastCommitModel>>() {
+			@Override
+			public int weigh(String key, List<LastCommitModel> entries) {
+				return Math.max(1, entries.size());
+			}
+		});
+	}
+
+	/**
+	 * Sets the folder in which the last commits are persisted.
+	 *
+	 * @param folder
+	 *            if null, the last commits are not persisted
+	 */
+	public void setFolder(File folder) {
+		this.folder = folder == null ? null
+				: new CacheFolder<List<LastCommitModel>>("last commits", folder, LAST_COMMITS_TYPE,
+						maximumFolderBytes);
+	}
+
+	/**
+	 * Sets the maximum size of the persisted last commits.
+	 *
+	 * @param maximumFolderBytes
+	 */
+	public void setMaximumFolderBytes(long maximumFolderBytes) {
+		this.maximumFolderBytes = maximumFolderBytes;
+		CacheFolder<List<LastCommitModel>> folder = this.folder;
+		if (folder != null) {
+			folder.setMaximumBytes(maximumFolderBytes);
+		}
+	}
+
+	public File getFolder() {
+		CacheFolder<List<LastCommitModel>> folder = this.folder;
+		return folder == null ? null : folder.getRoot();
+	}
+
+	/**
+	 * Returns the commits which last changed the entries of a folder,
+	 * computing them if they are neither cached nor persisted.
+	 *
+	 * @param repository
+	 * @param path
+	 *            if unspecified, root folder is assumed.
+	 * @param commit
+	 * @return the last commits of the entries, in the order of the entries
+	 * @see JGitUtils#getLastCommits(Repository, String, RevCommit)
+	 */
+	public List<LastCommitModel> getLastCommits(final Repository repository, String path, RevCommit commit) {
+		final String folderPath = StringUtils.isEmpty(path) ? "" : PathFilter.create(path).getPath();
+		RevCommit head = commit;
+		if (!folderPath.isEmpty()) {
+			// the commit which last changed the folder
+			List<RevCommit> log = JGitUtils.getRevLog(repository, commit.getName(), folderPath, 0, 1);
+			if (log.isEmpty()) {
+				return Collections.emptyList();
+			}
+			head = log.get(0);
+		}
+		final RevCommit folderCommit = head;
+		List<LastCommitModel> list = cache.get(getKey(folderCommit, folderPath), 0,
+				new CacheLoader<String, List<LastCommitModel>>() {
+			@Override
+			public List<LastCommitModel> load(String key) {
+				List<LastCommitModel> entries = read(key);
+				if (entries == null) {
+					try {
+						entries = getIncrementally(repository, folderPath, folderCommit);
+					} catch (IOException e) {
+						logger.error(MessageFormat.format("failed to incrementally get last commits of {0} {1}",
+								folderPath, folderCommit.getName()), e);
+					}
+					if (entries == null) {
+						entries = JGitUtils.getLastCommits(repository, folderPath, folderCommit);
+					}
+					write(key, entries);
+				}
+				return Collections.unmodifiableList(entries);
+			}
+		});
+		if (list == null) {
+			return Collections.emptyList();
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the last commits of a folder from the cached entries of the
+	 * folder at a first parent ancestor.
+	 *
+	 * @return the last commits or null if no ancestor entries are cached
+	 */
+	private List<LastCommitModel> getIncrementally(Repository repository, String folderPath, RevCommit commit)
+			throws IOException {
+		RevWalk rw = new RevWalk(repository);
+		try {
+			RevCommit current = rw.parseCommit(commit);
+			for (int i = 0; i < MAX_INCREMENTAL_COMMITS && current.getParentCount() > 0; i++) {
+				RevCommit parent = rw.parseCommit(current.getParent(0));
+				List<LastCommitModel> cached = getCached(getKey(parent, folderPath));
+				if (cached != null) {
+					logger.debug("Resolving last commits of {} {} from {} ancestor {}", folderPath,
+							commit.getName(), i + 1, parent.getName());
+					return JGitUtils.getLastCommits(repository, folderPath, commit, parent, cached);
+				}
+				current = parent;
+			}
+			return null;
+		} finally {
+			rw.dispose();
+		}
+	}
+
+	/**
+	 * Returns the cached or persisted last commits without computing them.
+	 */
+	private List<LastCommitModel> getCached(String key) {
+		List<LastCommitModel> entries = cache.peek(key);
+		if (entries == null) {
+			entries = read(key);
+		}
+		return entries;
+	}
+
+	private String getKey(RevCommit commit, String folderPath) {
+		return commit.getName() + ":" + folderPath;
+	}
+
+	private List<LastCommitModel> read(String key) {
+		CacheFolder<List<LastCommitModel>> folder = this.folder;
+		return folder == null ? null : folder.read(key);
+	}
+
+	private void write(String key, List<LastCommitModel> entries) {
+		CacheFolder<List<LastCommitModel>> folder = this.folder;
+		if (folder != null && !entries.isEmpty()) {
+			folder.write(key, entries);
+		}
+	}
+}
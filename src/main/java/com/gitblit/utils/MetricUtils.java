@@ -15,26 +15,17 @@
  */
 package com.gitblit.utils;
 
-import java.text.DateFormat;
 import java.text.MessageFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.TimeZone;
 
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevWalk;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.gitblit.models.Metric;
-import com.gitblit.models.RefModel;
 
 /**
  * Utility class for collecting metrics on a branch, tag, or other ref within
@@ -71,35 +62,21 @@ public class MetricUtils {
 	}
 
 	/**
-	 * Returns the list of metrics for the specified commit reference, branch,
-	 * or tag within the repository. If includeTotal is true, the total of all
-	 * the metrics will be included as the first element in the returned list.
-	 *
-	 * If the dateformat is unspecified an attempt is made to determine an
-	 * appropriate date format by determining the time difference between the
-	 * first commit on the branch and the most recent commit. This assumes that
-	 * the commits are linear.
+	 * Returns the metrics of the specified commit reference, branch, or tag
+	 * within the repository.  The previous metrics of the reference are
+	 * updated with the commits since they were computed.
 	 *
 	 * @param repository
 	 * @param objectId
 	 *            if null or empty, HEAD is assumed.
-	 * @param includeTotal
-	 * @param dateFormat
 	 * @param timezone
-	 * @return list of metrics
+	 * @param previous
+	 *            the previous metrics of the reference, may be null
+	 * @return the metrics
 	 */
-	public static List<Metric> getDateMetrics(Repository repository, String objectId,
-			boolean includeTotal, String dateFormat, TimeZone timezone) {
-		Metric total = new Metric("TOTAL");
-		final Map<String, Metric> metricMap = new HashMap<String, Metric>();
-
+	public static BranchMetrics getBranchMetrics(Repository repository, String objectId,
+			TimeZone timezone, BranchMetrics previous) {
 		if (JGitUtils.hasCommits(repository)) {
-			final List<RefModel> tags = JGitUtils.getTags(repository, true, -1);
-			final Map<ObjectId, RefModel> tagMap = new HashMap<ObjectId, RefModel>();
-			for (RefModel tag : tags) {
-				tagMap.put(tag.getReferencedObjectId(), tag);
-			}
-			RevWalk revWalk = null;
 			try {
 				// resolve branch
 				ObjectId branchObject;
@@ -108,66 +85,43 @@ public class MetricUtils {
 				} else {
 					branchObject = repository.resolve(objectId);
 				}
-
-				revWalk = new RevWalk(repository);
-				RevCommit lastCommit = revWalk.parseCommit(branchObject);
-				revWalk.markStart(lastCommit);
-
-				DateFormat df;
-				if (StringUtils.isEmpty(dateFormat)) {
-					// dynamically determine date format
-					RevCommit firstCommit = JGitUtils.getFirstCommit(repository,
-							branchObject.getName());
-					int diffDays = (lastCommit.getCommitTime() - firstCommit.getCommitTime())
-							/ (60 * 60 * 24);
-					total.duration = diffDays;
-					if (diffDays <= 365) {
-						// Days
-						df = new SimpleDateFormat("yyyy-MM-dd");
-					} else {
-						// Months
-						df = new SimpleDateFormat("yyyy-MM");
-					}
-				} else {
-					// use specified date format
-					df = new SimpleDateFormat(dateFormat);
-				}
-				df.setTimeZone(timezone);
-
-				Iterable<RevCommit> revlog = revWalk;
-				for (RevCommit rev : revlog) {
-					Date d = JGitUtils.getAuthorDate(rev);
-					String p = df.format(d);
-					if (!metricMap.containsKey(p)) {
-						metricMap.put(p, new Metric(p));
-					}
-					Metric m = metricMap.get(p);
-					m.count++;
-					total.count++;
-					if (tagMap.containsKey(rev.getId())) {
-						m.tag++;
-						total.tag++;
-					}
+				long start = System.currentTimeMillis();
+				BranchMetrics metrics = BranchMetrics.update(repository, branchObject, timezone, previous);
+				if (metrics != previous) {
+					LOGGER.debug(MessageFormat.format("{0} {1} metrics of {2} commits in {3} msecs",
+							repository.getDirectory(), previous == null ? "computed" : "updated",
+							metrics.getCount(), System.currentTimeMillis() - start));
 				}
+				return metrics;
 			} catch (Throwable t) {
-				error(t, repository, "{0} failed to mine log history for date metrics of {1}",
+				error(t, repository, "{0} failed to mine log history for metrics of {1}",
 						objectId);
-			} finally {
-				if (revWalk != null) {
-					revWalk.dispose();
-				}
 			}
 		}
-		List<String> keys = new ArrayList<String>(metricMap.keySet());
-		Collections.sort(keys);
-		List<Metric> metrics = new ArrayList<Metric>();
-		for (String key : keys) {
-			metrics.add(metricMap.get(key));
-		}
-		if (includeTotal) {
-			metrics.add(0, total);
-		}
-		return metrics;
+		return BranchMetrics.empty(timezone);
+	}
+
+	/**
+	 * Returns the list of metrics for the specified commit reference, branch,
+	 * or tag within the repository. If includeTotal is true, the total of all
+	 * the metrics will be included as the first element in the returned list.
+	 *
+	 * If the dateformat is unspecified an attempt is made to determine an
+	 * appropriate date format by determining the time difference between the
+	 * first commit on the branch and the most recent commit. This assumes that
+	 * the commits are linear.
+	 *
+	 * @param repository
+	 * @param objectId
+	 *            if null or empty, HEAD is assumed.
+	 * @param includeTotal
+	 * @param dateFormat
+	 * @param timezone
+	 * @return list of metrics
+	 */
+	public static List<Metric> getDateMetrics(Repository repository, String objectId,
+			boolean includeTotal, String dateFormat, TimeZone timezone) {
+		return getBranchMetrics(repository, objectId, timezone, null).getDateMetrics(includeTotal, dateFormat);
 	}
 
 	/**
@@ -182,52 +136,6 @@ public class MetricUtils {
 	 */
 	public static List<Metric> getAuthorMetrics(Repository repository, String objectId,
 			boolean byEmailAddress) {
-		final Map<String, Metric> metricMap = new HashMap<String, Metric>();
-		if (JGitUtils.hasCommits(repository)) {
-			try {
-				RevWalk walk = new RevWalk(repository);
-				// resolve branch
-				ObjectId branchObject;
-				if (StringUtils.isEmpty(objectId)) {
-					branchObject = JGitUtils.getDefaultBranch(repository);
-				} else {
-					branchObject = repository.resolve(objectId);
-				}
-				RevCommit lastCommit = walk.parseCommit(branchObject);
-				walk.markStart(lastCommit);
-
-				Iterable<RevCommit> revlog = walk;
-				for (RevCommit rev : revlog) {
-					String p;
-					if (byEmailAddress) {
-						p = rev.getAuthorIdent().getEmailAddress().toLowerCase();
-						if (StringUtils.isEmpty(p)) {
-							p = rev.getAuthorIdent().getName().toLowerCase();
-						}
-					} else {
-						p = rev.getAuthorIdent().getName().toLowerCase();
-						if (StringUtils.isEmpty(p)) {
-							p = rev.getAuthorIdent().getEmailAddress().toLowerCase();
-						}
-					}
-					p = p.replace('\n',' ').replace('\r',  ' ').trim();
-					if (!metricMap.containsKey(p)) {
-						metricMap.put(p, new Metric(p));
-					}
-					Metric m = metricMap.get(p);
-					m.count++;
-				}
-			} catch (Throwable t) {
-				error(t, repository, "{0} failed to mine log history for author metrics of {1}",
-						objectId);
-			}
-		}
-		List<String> keys = new ArrayList<String>(metricMap.keySet());
-		Collections.sort(keys);
-		List<Metric> metrics = new ArrayList<Metric>();
-		for (String key : keys) {
-			metrics.add(metricMap.get(key));
-		}
-		return metrics;
+		return getBranchMetrics(repository, objectId, TimeZone.getDefault(), null).getAuthorMetrics(byEmailAddress);
 	}
 }
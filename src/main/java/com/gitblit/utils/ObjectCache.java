@@ -27,8 +27,10 @@ import java.util.concurrent.ConcurrentHashMap;
  * is just fine.
  *
  * @author James Moger
- *
+ * @deprecated Gitblit's caches are created by the
+ *             {@link com.gitblit.cache.ICacheProvider} of the runtime manager
  */
+@Deprecated
 public class ObjectCache<X> implements Serializable {
 
 	private static final long serialVersionUID = 1L;
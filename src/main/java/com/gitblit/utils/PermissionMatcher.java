@@ -0,0 +1,248 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.gitblit.Constants.AccessPermission;
+import com.gitblit.models.PermissionMap;
+
+/**
+ * Precompiled form of the repository permissions of a user or a team.
+ *
+ * The entries are kept in the iteration order of the permissions map so that
+ * callers retain first-match semantics.  Keys without regular expression
+ * metacharacters are matched by comparing strings and the patterns of the
+ * other keys are compiled once, on first use, instead of on every match.
+ *
+ * A matcher is a snapshot of the permissions map.  Use
+ * {@link #of(PermissionMatcher, Map)} to reuse a matcher while the map is
+ * unchanged.  The permissions of users and teams are compared by their
+ * modification count, other maps by their entries.
+ *
+ * @author agent
+ *
+ */
+public class PermissionMatcher {
+
+	private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+	private final List<Entry> entries;
+
+	private final Map<String, AccessPermission> source;
+
+	private final int modifications;
+
+	/**
+	 * A permission key and its compiled patterns.
+	 */
+	public static class Entry {
+
+		public final String key;
+
+		public final AccessPermission permission;
+
+		private final boolean literal;
+
+		private volatile Object caseSensitive;
+
+		private volatile Object caseInsensitive;
+
+		Entry(String key, AccessPermission permission) {
+			this.key = key;
+			this.permission = permission;
+			this.literal = isLiteral(key);
+		}
+
+		/**
+		 * Returns true if the name matches the key as a case-insensitive
+		 * regular expression.  This is equivalent to
+		 * {@link StringUtils#matchesIgnoreCase(String, String)}.
+		 *
+		 * @param name
+		 * @return true if the name matches
+		 */
+		public boolean matchesIgnoreCase(String name) {
+			if (literal) {
+				return equalsIgnoreAsciiCase(name, key);
+			}
+			Object p = caseInsensitive;
+			if (p == null) {
+				p = compile(key, Pattern.CASE_INSENSITIVE);
+				caseInsensitive = p;
+			}
+			return matches(p, name);
+		}
+
+		/**
+		 * Returns true if the name matches the key as a regular expression.
+		 * This is equivalent to {@link String#matches(String)}.
+		 *
+		 * @param name
+		 * @return true if the name matches
+		 */
+		public boolean matches(String name) {
+			if (literal) {
+				return key.equals(name);
+			}
+			Object p = caseSensitive;
+			if (p == null) {
+				p = compile(key, 0);
+				caseSensitive = p;
+			}
+			return matches(p, name);
+		}
+
+		private static Object compile(String regex, int flags) {
+			try {
+				return Pattern.compile(regex, flags);
+			} catch (PatternSyntaxException e) {
+				// rethrown on every match, like an uncompiled regex
+				return e;
+			}
+		}
+
+		private static boolean matches(Object p, String name) {
+			if (p instanceof PatternSyntaxException) {
+				PatternSyntaxException e = (PatternSyntaxException) p;
+				throw new PatternSyntaxException(e.getDescription(), e.getPattern(), e.getIndex());
+			}
+			return ((Pattern) p).matcher(name).matches();
+		}
+	}
+
+	private PermissionMatcher(Map<String, AccessPermission> permissions) {
+		// counted before the snapshot, a concurrent change rebuilds the matcher
+		this.modifications = getModifications(permissions);
+		this.source = permissions;
+		List<Entry> list = new ArrayList<Entry>(permissions.size());
+		for (Map.Entry<String, AccessPermission> entry : permissions.entrySet()) {
+			list.add(new Entry(entry.getKey(), entry.getValue()));
+		}
+		this.entries = Collections.unmodifiableList(list);
+	}
+
+	private PermissionMatcher(List<Entry> entries, Map<String, AccessPermission> permissions, int modifications) {
+		this.entries = entries;
+		this.source = permissions;
+		this.modifications = modifications;
+	}
+
+	/**
+	 * Returns the current matcher if it was built from the same permissions,
+	 * otherwise a new matcher is built.
+	 *
+	 * @param current
+	 *            the previous matcher, may be null
+	 * @param permissions
+	 * @return a matcher for the permissions
+	 */
+	public static PermissionMatcher of(PermissionMatcher current, Map<String, AccessPermission> permissions) {
+		if (current == null) {
+			return new PermissionMatcher(permissions);
+		}
+		if (current.isCurrent(permissions)) {
+			return current;
+		}
+		int modifications = getModifications(permissions);
+		if (current.hasEntries(permissions)) {
+			// a copy of the permissions or an unchanged modification, the
+			// compiled patterns are kept
+			return new PermissionMatcher(current.entries, permissions, modifications);
+		}
+		return new PermissionMatcher(permissions);
+	}
+
+	/**
+	 * Returns the entries in the iteration order of the permissions map.
+	 *
+	 * @return the entries
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Returns true if this matcher was built from the same keys and
+	 * permissions, in the same order, as the specified map.  The permissions
+	 * of users and teams are current if they have not been modified since
+	 * the matcher was built from them.
+	 *
+	 * @param permissions
+	 * @return true if the matcher is current
+	 */
+	public boolean isCurrent(Map<String, AccessPermission> permissions) {
+		if (permissions instanceof PermissionMap) {
+			return permissions == source && ((PermissionMap) permissions).getModifications() == modifications;
+		}
+		return hasEntries(permissions);
+	}
+
+	/**
+	 * Returns true if the map has the keys and permissions of this matcher in
+	 * the same order.
+	 */
+	private boolean hasEntries(Map<String, AccessPermission> permissions) {
+		if (permissions.size() != entries.size()) {
+			return false;
+		}
+		Iterator<Entry> it = entries.iterator();
+		for (Map.Entry<String, AccessPermission> entry : permissions.entrySet()) {
+			Entry e = it.next();
+			if (!e.key.equals(entry.getKey()) || e.permission != entry.getValue()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int getModifications(Map<String, AccessPermission> permissions) {
+		return permissions instanceof PermissionMap ? ((PermissionMap) permissions).getModifications() : 0;
+	}
+
+	private static boolean isLiteral(String key) {
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if (c > 0x7f || METACHARACTERS.indexOf(c) > -1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compares like Pattern.CASE_INSENSITIVE which folds US-ASCII only.
+	 */
+	private static boolean equalsIgnoreAsciiCase(String name, String key) {
+		if (name.length() != key.length()) {
+			return false;
+		}
+		for (int i = 0; i < key.length(); i++) {
+			char a = name.charAt(i);
+			char b = key.charAt(i);
+			if (a != b && (a > 0x7f || Character.toLowerCase(a) != Character.toLowerCase(b))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
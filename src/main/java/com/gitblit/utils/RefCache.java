@@ -0,0 +1,238 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.gitblit.cache.ServerCache;
+import com.gitblit.cache.Weigher;
+import com.gitblit.models.RefModel;
+
+/**
+ * Caches the ref models of each repository.
+ *
+ * The refs of a repository are read from its ref database on every request,
+ * which only checks the packed-refs file and the loose refs for changes.  The
+ * cached ref models are served as long as the refs are unchanged, so the
+ * commits and tags of the refs are not parsed again.  When refs change, a new
+ * snapshot is built and only the objects of new or moved refs are parsed.
+ *
+ * The refs of a namespace are sorted by date once per snapshot so a page of
+ * the most recent refs is served without sorting all refs again.
+ *
+ * @author agent
+ *
+ */
+public class RefCache extends ServerCache<RefCache.Snapshot> {
+
+	private static final RefCache instance;
+
+	public static RefCache instance() {
+		return instance;
+	}
+
+	static {
+		instance = new RefCache();
+	}
+
+	protected RefCache() {
+		super("refs");
+		setMaximumRefs(200000L);
+	}
+
+	/**
+	 * The ref models of a repository for one state of its refs.
+	 */
+	protected static class Snapshot {
+
+		final Map<String, Ref> refs;
+
+		final Map<String, RefModel> models;
+
+		final Map<String, List<RefModel>> sorted;
+
+		Snapshot(Map<String, Ref> refs, Map<String, RefModel> models) {
+			this.refs = refs;
+			this.models = models;
+			this.sorted = new ConcurrentHashMap<String, List<RefModel>>();
+		}
+
+		/**
+		 * Returns true if the refs are the refs of this snapshot.
+		 */
+		boolean matches(Map<String, Ref> current) {
+			if (current.size() != refs.size()) {
+				return false;
+			}
+			for (Map.Entry<String, Ref> entry : current.entrySet()) {
+				Ref ref = refs.get(entry.getKey());
+				if (ref == null || !isSame(ref, entry.getValue())) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the models of the refs in the namespace, the most recent
+		 * first.  Refs with the same date are in reverse name order.
+		 */
+		List<RefModel> getSorted(String namespace) {
+			List<RefModel> list = sorted.get(namespace);
+			if (list == null) {
+				list = new ArrayList<RefModel>();
+				for (Map.Entry<String, RefModel> entry : models.entrySet()) {
+					if (entry.getKey().startsWith(namespace)) {
+						list.add(entry.getValue());
+					}
+				}
+				Collections.sort(list);
+				Collections.reverse(list);
+				list = Collections.unmodifiableList(list);
+				sorted.put(namespace, list);
+			}
+			return list;
+		}
+
+		private static boolean isSame(Ref a, Ref b) {
+			if (a == b) {
+				return true;
+			}
+			if (a.isSymbolic() != b.isSymbolic()) {
+				return false;
+			}
+			if (a.isSymbolic() && !a.getTarget().getName().equals(b.getTarget().getName())) {
+				return false;
+			}
+			return equals(a.getObjectId(), b.getObjectId())
+					&& equals(a.getPeeledObjectId(), b.getPeeledObjectId())
+					&& a.isPeeled() == b.isPeeled();
+		}
+
+		private static boolean equals(ObjectId a, ObjectId b) {
+			return a == null ? b == null : b != null && a.equals(b);
+		}
+	}
+
+	/**
+	 * Sets the maximum number of refs held by the cache.  The least recently
+	 * used repositories are evicted first.  This clears the cache.
+	 *
+	 * @param maximumRefs
+	 */
+	public void setMaximumRefs(long maximumRefs) {
+		setMaximumWeight(maximumRefs, new Weigher<String, Snapshot>() {
+			@Override
+			public int weigh(String key, Snapshot snapshot) {
+				return Math.max(1, snapshot.models.size());
+			}
+		});
+	}
+
+	/**
+	 * Clears the cached refs of the bare or non-bare repository in the
+	 * specified folder.
+	 *
+	 * @param folder
+	 */
+	public void clear(File folder) {
+		cache.remove(folder.getAbsolutePath());
+		cache.remove(new File(folder, Constants.DOT_GIT).getAbsolutePath());
+	}
+
+	/**
+	 * Returns the ref models of a namespace, the most recent first.  The
+	 * models are named by the full ref names and must not be modified.
+	 *
+	 * @param repository
+	 * @param namespace
+	 *            the ref prefix, e.g. refs/heads/, or {@link RefDatabase#ALL}
+	 * @return the unmodifiable sorted ref models
+	 * @throws IOException
+	 *             if the refs can not be read
+	 */
+	public List<RefModel> getRefs(Repository repository, String namespace) throws IOException {
+		String key = repository.getDirectory().getAbsolutePath();
+		Map<String, Ref> refs = repository.getRefDatabase().getRefs(RefDatabase.ALL);
+		Snapshot snapshot = cache.get(key);
+		if (snapshot == null || !snapshot.matches(refs)) {
+			snapshot = load(repository, refs, snapshot);
+			cache.put(key, snapshot);
+		}
+		return snapshot.getSorted(namespace == null ? RefDatabase.ALL : namespace);
+	}
+
+	/**
+	 * Builds the snapshot of the refs.  The objects of the previous snapshot
+	 * are reused for the refs which still point to them.
+	 */
+	private Snapshot load(Repository repository, Map<String, Ref> refs, Snapshot previous) throws IOException {
+		Map<ObjectId, RevObject> objects = new HashMap<ObjectId, RevObject>();
+		if (previous != null) {
+			for (RefModel model : previous.models.values()) {
+				objects.put(model.referencedObject, model.referencedObject);
+			}
+		}
+		int parsed = 0;
+		Map<String, RefModel> models = new LinkedHashMap<String, RefModel>();
+		RevWalk rw = new RevWalk(repository);
+		try {
+			for (Map.Entry<String, Ref> entry : refs.entrySet()) {
+				Ref ref = entry.getValue();
+				ObjectId id = ref.getObjectId();
+				if (id == null) {
+					// unborn symbolic ref
+					continue;
+				}
+				RevObject object = objects.get(id);
+				if (object == null) {
+					try {
+						object = rw.parseAny(id);
+					} catch (MissingObjectException e) {
+						logger.error(MessageFormat.format("{0} ref {1} points to missing object {2}",
+								repository.getDirectory(), entry.getKey(), id.getName()));
+						continue;
+					}
+					objects.put(object, object);
+					parsed++;
+				}
+				models.put(entry.getKey(), new RefModel(entry.getKey(), ref, object));
+			}
+		} finally {
+			rw.dispose();
+		}
+		logger.debug("Parsed {} of {} refs of {}", parsed, models.size(), repository.getDirectory());
+		return new Snapshot(refs, Collections.unmodifiableMap(models));
+	}
+}
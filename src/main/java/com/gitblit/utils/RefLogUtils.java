@@ -655,7 +655,7 @@ public class RefLogUtils {
                 	linearParent = null;
                 	digest.updateRef(branch, ReceiveCommand.Type.CREATE);
                 } else {
-                	linearParent = commit.getParents()[0].getId().getName();
+                	linearParent = commit.getParentId(0).getName();
                 	digest.updateRef(branch, ReceiveCommand.Type.UPDATE, linearParent, commit.getName());
                 }
 
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Pattern;
+
+import org.eclipse.jgit.lib.RepositoryCache.FileKey;
+import org.eclipse.jgit.util.FS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds git repositories within a folder tree.  Each folder is scanned by a
+ * fork-join task so that sibling folders are scanned concurrently.  Discovery
+ * on network or RAID storage is bound by filesystem latency, not cpu, so a
+ * parallelism greater than the number of processors may be beneficial.
+ *
+ * The repository names are relative to the search folder and are returned in
+ * the same order as {@link JGitUtils#getRepositoryList}.
+ *
+ * @author agent
+ *
+ */
+public class RepositoryDiscovery {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RepositoryDiscovery.class);
+
+	private final int parallelism;
+
+	/**
+	 * @param parallelism
+	 *            the number of folders to scan concurrently, 0 uses the number
+	 *            of available processors, 1 scans on the calling thread
+	 */
+	public RepositoryDiscovery(int parallelism) {
+		this.parallelism = parallelism <= 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Returns a sorted list of repository names found in the specified folder.
+	 *
+	 * @param repositoriesFolder
+	 * @param onlyBare
+	 *            if true, only bare repositories are listed. If false all
+	 *            repositories are included.
+	 * @param searchSubfolders
+	 *            recurse into subfolders to find grouped repositories
+	 * @param depth
+	 *            optional recursion depth, -1 = infinite recursion
+	 * @param exclusions
+	 *            list of regex exclusions for matching to folder names
+	 * @return list of repository names
+	 */
+	public List<String> find(File repositoriesFolder, boolean onlyBare, boolean searchSubfolders,
+			int depth, List<String> exclusions) {
+		List<String> list = new ArrayList<String>();
+		if (repositoriesFolder == null || !repositoriesFolder.exists()) {
+			return list;
+		}
+		List<Pattern> patterns = new ArrayList<Pattern>();
+		if (!ArrayUtils.isEmpty(exclusions)) {
+			for (String regex : exclusions) {
+				patterns.add(Pattern.compile(regex));
+			}
+		}
+		Options options = new Options(onlyBare, searchSubfolders, patterns);
+		ScanTask task = new ScanTask(options, repositoriesFolder.getAbsoluteFile().toPath(), "", depth);
+		if (parallelism == 1) {
+			list.addAll(task.compute());
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				list.addAll(pool.invoke(task));
+			} finally {
+				pool.shutdown();
+			}
+		}
+		StringUtils.sortRepositorynames(list);
+		list.remove(".git"); // issue-256
+		return list;
+	}
+
+	private static class Options {
+		final boolean onlyBare;
+		final boolean searchSubfolders;
+		final List<Pattern> patterns;
+
+		Options(boolean onlyBare, boolean searchSubfolders, List<Pattern> patterns) {
+			this.onlyBare = onlyBare;
+			this.searchSubfolders = searchSubfolders;
+			this.patterns = patterns;
+		}
+	}
+
+	/**
+	 * Scans one folder.  Subfolders which are not repositories are scanned
+	 * by forked tasks when running in a fork-join pool.
+	 */
+	private static class ScanTask extends RecursiveTask<List<String>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Options options;
+
+		private final Path folder;
+
+		private final String relativePath;
+
+		private final int depth;
+
+		ScanTask(Options options, Path folder, String relativePath, int depth) {
+			this.options = options;
+			this.folder = folder;
+			this.relativePath = relativePath;
+			this.depth = depth;
+		}
+
+		@Override
+		protected List<String> compute() {
+			List<String> list = new ArrayList<String>();
+			if (depth == 0) {
+				return list;
+			}
+			boolean forking = inForkJoinPool();
+			int nextDepth = (depth == -1) ? -1 : depth - 1;
+			List<ScanTask> subtasks = new ArrayList<ScanTask>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+				for (Path child : stream) {
+					if (!Files.isDirectory(child)) {
+						continue;
+					}
+					String name = child.getFileName().toString();
+					// the relative path is computed once per folder
+					String path = relativePath.isEmpty() ? name : relativePath + "/" + name;
+					if (isExcluded(path)) {
+						continue;
+					}
+
+					File file = child.toFile();
+					File gitDir = FileKey.resolve(file, FS.DETECTED);
+					if (gitDir != null) {
+						if (options.onlyBare && gitDir.getName().equals(".git")) {
+							continue;
+						}
+						if (gitDir.equals(file) || gitDir.getParentFile().equals(file)) {
+							list.add(path);
+							continue;
+						}
+					}
+					if (options.searchSubfolders && file.canRead()) {
+						// look for repositories in subfolders
+						ScanTask subtask = new ScanTask(options, child, path, nextDepth);
+						if (forking) {
+							subtask.fork();
+							subtasks.add(subtask);
+						} else {
+							list.addAll(subtask.compute());
+						}
+					}
+				}
+			} catch (IOException e) {
+				LOGGER.error(MessageFormat.format("Failed to scan {0} for repositories", folder), e);
+			}
+			for (ScanTask subtask : subtasks) {
+				list.addAll(subtask.join());
+			}
+			return list;
+		}
+
+		private boolean isExcluded(String path) {
+			for (Pattern pattern : options.patterns) {
+				if (pattern.matcher(path).matches()) {
+					LOGGER.debug(MessageFormat.format("excluding {0} because of rule {1}", path, pattern.pattern()));
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
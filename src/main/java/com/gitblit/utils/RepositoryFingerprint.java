@@ -0,0 +1,170 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.Constants;
+
+/**
+ * A cheap, filesystem-only fingerprint of the state of a repository.  The
+ * fingerprint is computed from file and folder timestamps and sizes so it can
+ * be used to decide if cached repository data is still current without
+ * opening the repository or parsing any objects.
+ *
+ * The config stamp covers the repository config file.  The refs stamp covers
+ * HEAD, packed-refs, and the loose refs.  Ref updates are performed by
+ * renaming a lock file so they always touch the timestamp of the containing
+ * folder.
+ *
+ * Timestamps may only have a resolution of a second and loose refs always
+ * have the same length, so two updates of a ref within the same second are
+ * not visible in the timestamp and size.  The content of HEAD and of the
+ * loose refs is therefore part of the refs stamp.  The other files are
+ * stamped by their file key as well, which changes when a file is replaced
+ * by renaming a lock file.
+ *
+ * @author agent
+ *
+ */
+public class RepositoryFingerprint implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The maximum length of a loose ref whose content is stamped.
+	 */
+	private static final int MAX_REF_LENGTH = 1024;
+
+	public final long config;
+
+	public final long refs;
+
+	public RepositoryFingerprint(long config, long refs) {
+		this.config = config;
+		this.refs = refs;
+	}
+
+	/**
+	 * Computes the fingerprint of the specified repository folder.
+	 *
+	 * @param gitDir
+	 * @return the fingerprint
+	 */
+	public static RepositoryFingerprint of(File gitDir) {
+		return new RepositoryFingerprint(configStamp(gitDir), refsStamp(gitDir));
+	}
+
+	/**
+	 * Returns a stamp of the repository config file.
+	 *
+	 * @param gitDir
+	 * @return the config stamp
+	 */
+	public static long configStamp(File gitDir) {
+		return stamp(17, new File(gitDir, "config"));
+	}
+
+	/**
+	 * Returns a stamp of HEAD, packed-refs, and all loose refs.
+	 *
+	 * @param gitDir
+	 * @return the refs stamp
+	 */
+	public static long refsStamp(File gitDir) {
+		long hash = 17;
+		hash = refStamp(hash, new File(gitDir, Constants.HEAD));
+		hash = stamp(hash, new File(gitDir, Constants.PACKED_REFS));
+		hash = folderStamp(hash, new File(gitDir, Constants.R_REFS));
+		return hash;
+	}
+
+	private static long stamp(long hash, File file) {
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+		} catch (IOException e) {
+			// missing file
+			return 31 * 31 * hash;
+		}
+		hash = 31 * hash + attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS);
+		hash = 31 * hash + attributes.size();
+		if (attributes.fileKey() != null) {
+			hash = 31 * hash + attributes.fileKey().hashCode();
+		}
+		return hash;
+	}
+
+	/**
+	 * Stamps a loose ref by its content, as the ref may be updated within the
+	 * resolution of its timestamp.
+	 */
+	private static long refStamp(long hash, File file) {
+		hash = stamp(hash, file);
+		if (file.length() > MAX_REF_LENGTH) {
+			return hash;
+		}
+		try {
+			hash = 31 * hash + Arrays.hashCode(Files.readAllBytes(file.toPath()));
+		} catch (IOException e) {
+			// deleted while stamping
+		}
+		return hash;
+	}
+
+	private static long folderStamp(long hash, File folder) {
+		hash = 31 * hash + folder.lastModified();
+		File[] files = folder.listFiles();
+		if (files == null) {
+			return hash;
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			hash = 31 * hash + file.getName().hashCode();
+			if (file.isDirectory()) {
+				hash = folderStamp(hash, file);
+			} else {
+				hash = refStamp(hash, file);
+			}
+		}
+		return hash;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (config ^ refs);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof RepositoryFingerprint) {
+			RepositoryFingerprint fp = (RepositoryFingerprint) o;
+			return config == fp.config && refs == fp.refs;
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return Long.toHexString(config) + ":" + Long.toHexString(refs);
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The fork graph of the cached repositories.
+ *
+ * Each cached repository is indexed by its repository key with an edge to the
+ * key of its origin repository, if it is a fork.  The reverse edges, from an
+ * origin to the names of its forks, are maintained with them so that the fork
+ * network of a repository can be traversed without scanning the repository
+ * list.  An origin which is not cached may still have indexed forks.
+ *
+ * @author agent
+ *
+ */
+public class RepositoryForkIndex {
+
+	private final Map<String, String> origins = new HashMap<String, String>();
+
+	private final Map<String, Map<String, String>> forks = new HashMap<String, Map<String, String>>();
+
+	/**
+	 * Indexes a repository, replacing any previous origin of the repository.
+	 *
+	 * @param key
+	 *            the repository key
+	 * @param name
+	 *            the repository name
+	 * @param originKey
+	 *            the repository key of the origin, may be null
+	 */
+	public synchronized void add(String key, String name, String originKey) {
+		unlink(key);
+		if (originKey == null) {
+			return;
+		}
+		origins.put(key, originKey);
+		Map<String, String> children = forks.get(originKey);
+		if (children == null) {
+			children = new TreeMap<String, String>();
+			forks.put(originKey, children);
+		}
+		children.put(key, name);
+	}
+
+	/**
+	 * Removes the edge from a repository to its origin.  The forks of the
+	 * repository remain indexed until they are removed themselves.
+	 *
+	 * @param key
+	 *            the repository key
+	 */
+	public synchronized void remove(String key) {
+		unlink(key);
+	}
+
+	/**
+	 * Removes all repositories from the index.
+	 */
+	public synchronized void clear() {
+		origins.clear();
+		forks.clear();
+	}
+
+	/**
+	 * Returns the repository key of the origin of a repository.
+	 *
+	 * @param key
+	 *            the repository key
+	 * @return the origin key or null if the repository is not an indexed fork
+	 */
+	public synchronized String getOrigin(String key) {
+		return origins.get(key);
+	}
+
+	/**
+	 * Returns the names of the direct forks of a repository.
+	 *
+	 * @param key
+	 *            the repository key
+	 * @return the sorted fork names, never null
+	 */
+	public synchronized List<String> getForks(String key) {
+		Map<String, String> children = forks.get(key);
+		if (children == null) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<String>(children.values());
+	}
+
+	private void unlink(String key) {
+		String originKey = origins.remove(key);
+		if (originKey == null) {
+			return;
+		}
+		Map<String, String> children = forks.get(originKey);
+		if (children != null) {
+			children.remove(key);
+			if (children.isEmpty()) {
+				forks.remove(originKey);
+			}
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gitblit.models.RepositoryModel;
+
+/**
+ * Persists the cached repository models to a compressed json file so that the
+ * repository list can be served immediately after a restart.  Each entry is
+ * stored with the {@link RepositoryFingerprint} of the repository at the time
+ * the model was loaded which allows cheap revalidation of the entries.
+ *
+ * The manifest is discarded if it was written by a different manifest version,
+ * for a different repositories folder, or with different repository list
+ * settings.
+ *
+ * @author agent
+ *
+ */
+public class RepositoryManifest {
+
+	public static final int VERSION = 1;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final Logger logger = LoggerFactory.getLogger(RepositoryManifest.class);
+
+	private final File file;
+
+	public RepositoryManifest(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * A cached repository model and the fingerprint of the repository when
+	 * the model was loaded.
+	 */
+	public static class Entry {
+
+		public final RepositoryModel model;
+
+		public final RepositoryFingerprint fingerprint;
+
+		public Entry(RepositoryModel model, RepositoryFingerprint fingerprint) {
+			this.model = model;
+			this.fingerprint = fingerprint;
+		}
+	}
+
+	private static class Manifest {
+		int version;
+		String folder;
+		String checksum;
+		List<Entry> repositories;
+	}
+
+	/**
+	 * @return the manifest file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Reads the manifest entries.  An empty list is returned if the manifest
+	 * does not exist, can not be read, or does not match the specified
+	 * repositories folder and settings checksum.
+	 *
+	 * @param repositoriesFolder
+	 * @param checksum
+	 *            the checksum of the settings which affect the repository list
+	 * @return the list of entries
+	 */
+	public List<Entry> read(File repositoriesFolder, String checksum) {
+		List<Entry> entries = new ArrayList<Entry>();
+		if (!file.exists()) {
+			return entries;
+		}
+		Manifest manifest = null;
+		try (Reader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), UTF8)) {
+			manifest = JsonUtils.gson().fromJson(reader, Manifest.class);
+		} catch (Exception e) {
+			logger.error(MessageFormat.format("Failed to read repository manifest {0}", file), e);
+			return entries;
+		}
+		if (manifest == null || manifest.version != VERSION || manifest.repositories == null) {
+			logger.info("Ignoring repository manifest {}, unsupported version", file);
+			return entries;
+		}
+		if (!repositoriesFolder.getAbsolutePath().equals(manifest.folder)) {
+			logger.info("Ignoring repository manifest {}, repositories folder has changed", file);
+			return entries;
+		}
+		if (!checksum.equals(manifest.checksum)) {
+			logger.info("Ignoring repository manifest {}, repository list settings have changed", file);
+			return entries;
+		}
+		for (Entry entry : manifest.repositories) {
+			if (entry == null || entry.model == null || entry.fingerprint == null
+					|| StringUtils.isEmpty(entry.model.name)) {
+				continue;
+			}
+			entries.add(entry);
+		}
+		return entries;
+	}
+
+	/**
+	 * Writes the manifest entries.  The manifest is written to a temporary file
+	 * which then replaces the existing manifest.
+	 *
+	 * @param repositoriesFolder
+	 * @param checksum
+	 *            the checksum of the settings which affect the repository list
+	 * @param entries
+	 * @return true if the manifest was written
+	 */
+	public boolean write(File repositoriesFolder, String checksum, Collection<Entry> entries) {
+		Manifest manifest = new Manifest();
+		manifest.version = VERSION;
+		manifest.folder = repositoriesFolder.getAbsolutePath();
+		manifest.checksum = checksum;
+		manifest.repositories = new ArrayList<Entry>(entries);
+
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (!parent.exists()) {
+			parent.mkdirs();
+		}
+		File temp = new File(parent, file.getName() + ".tmp");
+		try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(temp)), UTF8)) {
+			JsonUtils.gson().toJson(manifest, writer);
+		} catch (Exception e) {
+			logger.error(MessageFormat.format("Failed to write repository manifest {0}", temp), e);
+			temp.delete();
+			return false;
+		}
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			logger.error(MessageFormat.format("Failed to replace repository manifest {0}", file), e);
+			temp.delete();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Deletes the manifest.
+	 */
+	public void delete() {
+		if (file.exists()) {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.File;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.file.PackFile;
+import org.eclipse.jgit.lib.ObjectDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the on-disk size of repositories without recursively walking the
+ * repository folder on the request path.
+ *
+ * The size of a repository is split into the pack files, which are summed
+ * from the pack list that JGit already maintains for the object directory,
+ * and everything else (loose objects, refs, logs, indexes, etc) which is
+ * measured by a full traversal.  Full traversals are only performed the first
+ * time a repository is measured and by {@link #reconcile()} for repositories
+ * which have changed since their last traversal.  Received pushes are stored
+ * as pack files by JGit so they are accounted for immediately.
+ *
+ * @author agent
+ *
+ */
+public class RepositorySizeTracker {
+
+	private final Logger logger = LoggerFactory.getLogger(RepositorySizeTracker.class);
+
+	private final Map<String, Tracked> sizes = new ConcurrentHashMap<String, Tracked>();
+
+	private static class Tracked {
+		final File gitDir;
+		final long other;
+		final Set<String> packs;
+		volatile Date lastChange;
+		volatile boolean stale;
+
+		Tracked(File gitDir, long other, Set<String> packs, Date lastChange) {
+			this.gitDir = gitDir;
+			this.other = other;
+			this.packs = packs;
+			this.lastChange = lastChange;
+		}
+	}
+
+	private static class Packs {
+		final Set<String> names = new HashSet<String>();
+		long size;
+
+		void add(File file) {
+			names.add(file.getName());
+			size += file.length();
+		}
+	}
+
+	/**
+	 * Returns the size of the repository in bytes.  If the last change of the
+	 * repository differs from the last measurement, or if the pack list has
+	 * changed, the repository is flagged for reconciliation but the
+	 * current pack list is used immediately.
+	 *
+	 * @param name
+	 *            the repository name
+	 * @param repository
+	 * @param lastChange
+	 *            the date of the last change of the repository
+	 * @return the size in bytes
+	 */
+	public long getSize(String name, Repository repository, Date lastChange) {
+		Tracked tracked = sizes.get(name);
+		Packs packs = getPacks(repository);
+		if (tracked == null || !tracked.gitDir.equals(repository.getDirectory())) {
+			tracked = measure(repository.getDirectory(), packs, lastChange);
+			sizes.put(name, tracked);
+		} else {
+			if (lastChange != null && !lastChange.equals(tracked.lastChange)) {
+				tracked.lastChange = lastChange;
+				tracked.stale = true;
+			}
+			if (!packs.names.equals(tracked.packs)) {
+				// new packs or a repack, loose objects may have been packed or pruned
+				tracked.stale = true;
+			}
+		}
+		return tracked.other + packs.size;
+	}
+
+	/**
+	 * Flags a repository for reconciliation, e.g. after garbage collection.
+	 *
+	 * @param name
+	 */
+	public void invalidate(String name) {
+		Tracked tracked = sizes.get(name);
+		if (tracked != null) {
+			tracked.stale = true;
+		}
+	}
+
+	/**
+	 * Stops tracking a repository.
+	 *
+	 * @param name
+	 */
+	public void remove(String name) {
+		sizes.remove(name);
+	}
+
+	/**
+	 * Stops tracking all repositories.
+	 */
+	public void clear() {
+		sizes.clear();
+	}
+
+	/**
+	 * Re-measures the repositories which have changed since they were last
+	 * measured.
+	 *
+	 * @return the number of reconciled repositories
+	 */
+	public int reconcile() {
+		int count = 0;
+		for (Map.Entry<String, Tracked> entry : sizes.entrySet()) {
+			Tracked tracked = entry.getValue();
+			if (!tracked.stale) {
+				continue;
+			}
+			if (!tracked.gitDir.exists()) {
+				sizes.remove(entry.getKey(), tracked);
+				continue;
+			}
+			Packs packs = getPackFolder(tracked.gitDir);
+			Tracked reconciled = measure(tracked.gitDir, packs, tracked.lastChange);
+			sizes.replace(entry.getKey(), tracked, reconciled);
+			count++;
+		}
+		if (count > 0) {
+			logger.debug("reconciled the size of {} repositories", count);
+		}
+		return count;
+	}
+
+	private Tracked measure(File gitDir, Packs packs, Date lastChange) {
+		long total = FileUtils.folderSize(gitDir);
+		return new Tracked(gitDir, Math.max(0, total - packs.size), packs.names, lastChange);
+	}
+
+	/**
+	 * Sums the pack and index files of the repository from the pack list of
+	 * the object directory.
+	 */
+	private Packs getPacks(Repository repository) {
+		ObjectDatabase db = repository.getObjectDatabase();
+		if (!(db instanceof ObjectDirectory)) {
+			return getPackFolder(repository.getDirectory());
+		}
+		Packs packs = new Packs();
+		for (PackFile pack : ((ObjectDirectory) db).getPacks()) {
+			File packFile = pack.getPackFile();
+			String path = packFile.getPath();
+			packs.add(packFile);
+			packs.add(new File(path.substring(0, path.length() - ".pack".length()) + ".idx"));
+		}
+		return packs;
+	}
+
+	/**
+	 * Sums the pack and index files of the pack folder.  This is used when
+	 * the repository is not open.
+	 */
+	private Packs getPackFolder(File gitDir) {
+		Packs packs = new Packs();
+		File[] files = new File(gitDir, "objects/pack").listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (name.startsWith("pack-") && (name.endsWith(".pack") || name.endsWith(".idx"))) {
+					packs.add(file);
+				}
+			}
+		}
+		return packs;
+	}
+}
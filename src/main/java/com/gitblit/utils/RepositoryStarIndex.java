@@ -0,0 +1,182 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.gitblit.models.UserModel;
+
+/**
+ * Counts the users who have starred each repository.
+ *
+ * The index is loaded from all users on the first request of a star count and
+ * is then updated incrementally as users are updated or deleted.  Updates
+ * which race with the initial load cause the load to be repeated so that no
+ * update is lost.  The index is reloaded when the revision of the users
+ * changes, e.g. when the users are reloaded from disk.
+ *
+ * @author agent
+ *
+ */
+public abstract class RepositoryStarIndex {
+
+	private final Map<String, Set<String>> starred = new HashMap<String, Set<String>>();
+
+	private final Map<String, Integer> counts = new HashMap<String, Integer>();
+
+	private long modifications;
+
+	private boolean loaded;
+
+	private long revision;
+
+	/**
+	 * Returns all users.  Called without holding the lock of the index.
+	 *
+	 * @return all users
+	 */
+	protected abstract Collection<UserModel> loadUsers();
+
+	/**
+	 * Returns the revision of the users.  Called without holding the lock of
+	 * the index.
+	 *
+	 * @return the revision, which changes when the users are reloaded
+	 */
+	protected long getRevision() {
+		return 0;
+	}
+
+	/**
+	 * Returns the number of users who have starred the repository.
+	 *
+	 * @param repository
+	 * @return the star count
+	 */
+	public long getCount(String repository) {
+		long current = getRevision();
+		synchronized (this) {
+			if (loaded && revision != current) {
+				reset();
+			}
+		}
+		load(current);
+		synchronized (this) {
+			Integer count = counts.get(repository.toLowerCase());
+			return count == null ? 0 : count;
+		}
+	}
+
+	/**
+	 * Replaces the starred repositories of a user.
+	 *
+	 * @param username
+	 *            the previous username of the user
+	 * @param user
+	 */
+	public synchronized void update(String username, UserModel user) {
+		modifications++;
+		if (!loaded) {
+			return;
+		}
+		unstar(username);
+		unstar(user.username);
+		star(user);
+	}
+
+	/**
+	 * Removes the starred repositories of a deleted user.
+	 *
+	 * @param username
+	 */
+	public synchronized void remove(String username) {
+		modifications++;
+		if (!loaded) {
+			return;
+		}
+		unstar(username);
+	}
+
+	/**
+	 * Discards the index.  It is reloaded on the next request of a star count.
+	 */
+	public synchronized void reset() {
+		modifications++;
+		loaded = false;
+		starred.clear();
+		counts.clear();
+	}
+
+	private void load(long current) {
+		while (true) {
+			long mark;
+			synchronized (this) {
+				if (loaded) {
+					return;
+				}
+				mark = modifications;
+			}
+			Collection<UserModel> users = loadUsers();
+			synchronized (this) {
+				if (loaded) {
+					return;
+				}
+				if (mark == modifications) {
+					for (UserModel user : users) {
+						star(user);
+					}
+					loaded = true;
+					revision = current;
+					return;
+				}
+			}
+		}
+	}
+
+	private void star(UserModel user) {
+		Set<String> repositories = new HashSet<String>();
+		for (String repository : user.getPreferences().getStarredRepositories()) {
+			repositories.add(repository.toLowerCase());
+		}
+		if (repositories.isEmpty()) {
+			return;
+		}
+		starred.put(user.username, repositories);
+		for (String repository : repositories) {
+			Integer count = counts.get(repository);
+			counts.put(repository, count == null ? 1 : count + 1);
+		}
+	}
+
+	private void unstar(String username) {
+		Set<String> repositories = starred.remove(username);
+		if (repositories == null) {
+			return;
+		}
+		for (String repository : repositories) {
+			Integer count = counts.get(repository);
+			if (count == null || count <= 1) {
+				counts.remove(repository);
+			} else {
+				counts.put(repository, count - 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.gitblit.Constants.AccessPermission;
+import com.gitblit.models.PermissionMap;
+import com.gitblit.models.RepositoryModel;
+import com.gitblit.models.TeamModel;
+import com.gitblit.models.UserModel;
+
+/**
+ * Caches the set of repositories each user may view as a bitset over the
+ * ordinals of the sorted repository list.
+ *
+ * The index keeps its own copy of the sorted repository list.  The list has
+ * a generation which is advanced whenever a repository is added, removed, or
+ * reloaded.  An added or removed repository is patched into the list and into
+ * the bitsets of all indexed users, {@link #invalidate()} discards the list
+ * when the whole repository list is reloaded.  The visibility of a user is
+ * recomputed when the user, its permissions, or its teams are updated, which
+ * is detected by the modification counts of the permission maps.
+ *
+ * @author agent
+ *
+ */
+public abstract class RepositoryVisibilityIndex {
+
+	private static final Comparator<String> NAMES = new Comparator<String>() {
+		@Override
+		public int compare(String a, String b) {
+			return StringUtils.compareRepositoryNames(a, b);
+		}
+	};
+
+	private final AtomicLong generation = new AtomicLong();
+
+	private final Map<String, Visibility> visibilities = new ConcurrentHashMap<String, Visibility>();
+
+	private volatile Listing listing;
+
+	/**
+	 * The sorted repository list of one generation of the index.
+	 */
+	private static class Listing {
+		final long generation;
+		final List<String> names;
+
+		Listing(long generation, List<String> names) {
+			this.generation = generation;
+			this.names = names;
+		}
+	}
+
+	/**
+	 * The repositories visible to a user for one generation of the index.
+	 */
+	private static class Visibility {
+		final long generation;
+		final UserState state;
+		final BitSet visible;
+
+		Visibility(long generation, UserState state, BitSet visible) {
+			this.generation = generation;
+			this.state = state;
+			this.visible = visible;
+		}
+	}
+
+	/**
+	 * The repositories of the sorted repository list which are visible to a
+	 * user.
+	 */
+	public static class Visible {
+		public final long generation;
+		public final List<String> names;
+		public final BitSet visible;
+
+		Visible(long generation, List<String> names, BitSet visible) {
+			this.generation = generation;
+			this.names = names;
+			this.visible = visible;
+		}
+	}
+
+	/**
+	 * Everything that determines the repository permissions of a user.
+	 */
+	private static class UserState {
+		final UserModel user;
+		final boolean canAdmin;
+		final boolean authenticated;
+		final PermissionState permissions;
+		final List<TeamState> teams;
+
+		UserState(UserModel user) {
+			this.user = user;
+			this.canAdmin = user.canAdmin;
+			this.authenticated = user.isAuthenticated;
+			this.permissions = new PermissionState(user.permissions);
+			this.teams = new ArrayList<TeamState>(user.teams.size());
+			for (TeamModel team : user.teams) {
+				teams.add(new TeamState(team));
+			}
+		}
+
+		boolean isCurrent(UserModel user) {
+			if (user.canAdmin != canAdmin || user.isAuthenticated != authenticated
+					|| !permissions.isCurrent(user.permissions) || user.teams.size() != teams.size()) {
+				return false;
+			}
+			Iterator<TeamState> states = teams.iterator();
+			for (TeamModel team : user.teams) {
+				if (!states.next().isCurrent(team)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static class TeamState {
+		final String name;
+		final boolean canAdmin;
+		final PermissionState permissions;
+
+		TeamState(TeamModel team) {
+			this.name = team.name;
+			this.canAdmin = team.canAdmin;
+			this.permissions = new PermissionState(team.permissions);
+		}
+
+		boolean isCurrent(TeamModel team) {
+			return team.canAdmin == canAdmin && (name == null ? team.name == null : name.equals(team.name))
+					&& permissions.isCurrent(team.permissions);
+		}
+	}
+
+	/**
+	 * The permissions of a user or a team.  An unmodified permission map is
+	 * recognized by its modification count, a copy of the map, e.g. of a
+	 * user which was reloaded from the user service, is compared entry by
+	 * entry.
+	 */
+	private static class PermissionState {
+		final Map<String, AccessPermission> map;
+		final int modifications;
+		final String[] keys;
+		final AccessPermission[] values;
+
+		PermissionState(Map<String, AccessPermission> map) {
+			this.map = map;
+			this.modifications = getModifications(map);
+			this.keys = new String[map.size()];
+			this.values = new AccessPermission[map.size()];
+			int i = 0;
+			for (Map.Entry<String, AccessPermission> entry : map.entrySet()) {
+				if (i == keys.length) {
+					break;
+				}
+				keys[i] = entry.getKey();
+				values[i] = entry.getValue();
+				i++;
+			}
+		}
+
+		boolean isCurrent(Map<String, AccessPermission> map) {
+			if (map == this.map && map instanceof PermissionMap) {
+				return getModifications(map) == modifications;
+			}
+			if (map.size() != keys.length) {
+				return false;
+			}
+			int i = 0;
+			for (Map.Entry<String, AccessPermission> entry : map.entrySet()) {
+				if (i == keys.length || !keys[i].equals(entry.getKey()) || values[i] != entry.getValue()) {
+					return false;
+				}
+				i++;
+			}
+			return true;
+		}
+
+		private static int getModifications(Map<String, AccessPermission> map) {
+			return map instanceof PermissionMap ? ((PermissionMap) map).getModifications() : -1;
+		}
+	}
+
+	/**
+	 * Returns the cached repository model for the repository name.  The model
+	 * is only read and is not copied.
+	 *
+	 * @param name
+	 * @return the cached model or null
+	 */
+	protected abstract RepositoryModel getCachedModel(String name);
+
+	/**
+	 * Returns the current generation of the index.  A change of generation
+	 * during a listing indicates that a repository was added, removed, or
+	 * reloaded.
+	 *
+	 * @return the generation
+	 */
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * Advances the generation of the index and discards the repository list
+	 * and all visibilities.
+	 */
+	public synchronized void invalidate() {
+		generation.incrementAndGet();
+		listing = null;
+		visibilities.clear();
+	}
+
+	/**
+	 * Patches a repository which was added to or reloaded in the cached
+	 * repository list into the index.  The visibility of the repository is
+	 * evaluated for each indexed user.
+	 *
+	 * @param name
+	 */
+	public synchronized void add(String name) {
+		long next = generation.incrementAndGet();
+		Listing current = listing;
+		if (current == null) {
+			visibilities.clear();
+			return;
+		}
+		List<String> names = current.names;
+		int i = Collections.binarySearch(names, name, NAMES);
+		boolean inserted = i < 0;
+		if (inserted) {
+			i = -i - 1;
+			names = new ArrayList<String>(names);
+			names.add(i, name);
+		} else if (!names.get(i).equals(name)) {
+			names = new ArrayList<String>(names);
+			names.set(i, name);
+		}
+		RepositoryModel model = getCachedModel(name);
+		Iterator<Visibility> iterator = visibilities.values().iterator();
+		while (iterator.hasNext()) {
+			Visibility visibility = iterator.next();
+			if (visibility.generation != current.generation) {
+				iterator.remove();
+				continue;
+			}
+			BitSet visible = inserted ? insert(visibility.visible, i) : (BitSet) visibility.visible.clone();
+			visible.set(i, model != null && visibility.state.user.canView(model));
+			patch(visibility, next, visible);
+		}
+		listing = new Listing(next, names == current.names ? names : Collections.unmodifiableList(names));
+	}
+
+	/**
+	 * Patches a repository which was removed from the cached repository list
+	 * out of the index.
+	 *
+	 * @param name
+	 */
+	public synchronized void remove(String name) {
+		long next = generation.incrementAndGet();
+		Listing current = listing;
+		if (current == null) {
+			visibilities.clear();
+			return;
+		}
+		List<String> names = current.names;
+		int i = Collections.binarySearch(names, name, NAMES);
+		if (i >= 0) {
+			names = new ArrayList<String>(names);
+			names.remove(i);
+		}
+		Iterator<Visibility> iterator = visibilities.values().iterator();
+		while (iterator.hasNext()) {
+			Visibility visibility = iterator.next();
+			if (visibility.generation != current.generation) {
+				iterator.remove();
+				continue;
+			}
+			patch(visibility, next, i >= 0 ? delete(visibility.visible, i) : visibility.visible);
+		}
+		listing = new Listing(next, names == current.names ? names : Collections.unmodifiableList(names));
+	}
+
+	private void patch(Visibility visibility, long generation, BitSet visible) {
+		visibilities.put(visibility.state.user.username,
+				new Visibility(generation, visibility.state, visible));
+	}
+
+	/**
+	 * Returns true if the visibility of the user can be indexed.  Subclasses of
+	 * UserModel may implement their own access rules which are not covered by
+	 * the user state.
+	 *
+	 * @param user
+	 * @return true if the user can be indexed
+	 */
+	public boolean isIndexable(UserModel user) {
+		return user != null && user.getClass() == UserModel.class;
+	}
+
+	/**
+	 * Returns the repositories of the sorted repository list which are visible
+	 * to the user.  The visibility is computed from the cached models on the
+	 * first request and then served from the index until the user changes.
+	 *
+	 * @param user
+	 * @param names
+	 *            the sorted repository list, used if the index has no list
+	 * @param generation
+	 *            the generation of the index before the list was retrieved
+	 * @return the visible repositories
+	 */
+	public Visible getVisible(UserModel user, List<String> names, long generation) {
+		Listing current = listing;
+		if (current == null) {
+			current = new Listing(generation, Collections.unmodifiableList(new ArrayList<String>(names)));
+			synchronized (this) {
+				if (listing != null) {
+					current = listing;
+				} else if (generation == this.generation.get()) {
+					listing = current;
+				}
+			}
+		}
+
+		Visibility visibility = visibilities.get(user.username);
+		if (visibility != null && visibility.generation == current.generation
+				&& visibility.state.isCurrent(user)) {
+			return new Visible(current.generation, current.names, visibility.visible);
+		}
+
+		// the state is captured first, a concurrent change is seen as stale
+		UserState state = new UserState(user);
+		BitSet visible = new BitSet(current.names.size());
+		for (int i = 0; i < current.names.size(); i++) {
+			RepositoryModel model = getCachedModel(current.names.get(i));
+			if (model != null && user.canView(model)) {
+				visible.set(i);
+			}
+		}
+		synchronized (this) {
+			if (listing == current) {
+				visibilities.put(user.username, new Visibility(current.generation, state, visible));
+			}
+		}
+		return new Visible(current.generation, current.names, visible);
+	}
+
+	private static BitSet insert(BitSet bits, int index) {
+		BitSet result = bits.get(0, index);
+		for (int i = bits.nextSetBit(index); i >= 0; i = bits.nextSetBit(i + 1)) {
+			result.set(i + 1);
+		}
+		return result;
+	}
+
+	private static BitSet delete(BitSet bits, int index) {
+		BitSet result = bits.get(0, index);
+		for (int i = bits.nextSetBit(index + 1); i >= 0; i = bits.nextSetBit(i + 1)) {
+			result.set(i - 1);
+		}
+		return result;
+	}
+}
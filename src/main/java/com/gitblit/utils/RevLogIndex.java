@@ -0,0 +1,360 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.gitblit.cache.ServerCache;
+import com.gitblit.cache.Weigher;
+
+/**
+ * Pages through the log of a commit without walking the skipped commits.
+ *
+ * The log is walked newest commit first, like a default {@link RevWalk}.  The
+ * state of the walk after some commits is the set of commits which have been
+ * reached but not returned yet, the frontier.  A new walk started from the
+ * frontier returns the rest of the log, so a {@link Cursor} of the frontier
+ * continues the log from any position.
+ *
+ * The positions of the log of a tip are indexed by a cursor every interval
+ * commits.  A page at an offset resumes from the closest indexed cursor so
+ * deep pages only walk the commits after that cursor.  The index is extended
+ * as deeper pages are requested.
+ *
+ * A page token is signed with a key of the running server, so a token can
+ * not point the walk at commits outside the log of its tip.  Tokens of a
+ * previous run of the server are rejected and fall back to the offset.
+ *
+ * @author agent
+ *
+ */
+public class RevLogIndex extends ServerCache<ConcurrentSkipListMap<Integer, RevLogIndex.Cursor>> {
+
+	private static final RevLogIndex instance;
+
+	/**
+	 * The maximum frontier of a cursor which is encoded in a page link.
+	 */
+	public static final int MAX_LINK_FRONTIER = 16;
+
+	/**
+	 * The maximum frontier of an indexed cursor.
+	 */
+	private static final int MAX_INDEX_FRONTIER = 256;
+
+	/**
+	 * The number of hex characters of the signature of a page token.
+	 */
+	private static final int SIGNATURE_LENGTH = 20;
+
+	private static final SecretKeySpec KEY = new SecretKeySpec(new SecureRandom().randomBytes(32), "HmacSHA256");
+
+	protected volatile int interval;
+
+	public static RevLogIndex instance() {
+		return instance;
+	}
+
+	static {
+		instance = new RevLogIndex();
+	}
+
+	protected RevLogIndex() {
+		super("logIndex");
+		setInterval(1000);
+		setMaximumCursors(100000L);
+	}
+
+	/**
+	 * A position in the log of a tip.  The frontier holds the commits which
+	 * are returned next by a walk started from them.
+	 */
+	public static class Cursor {
+
+		/**
+		 * The tip of the log, null if unknown.
+		 */
+		public final ObjectId tip;
+
+		public final int position;
+
+		public final List<ObjectId> frontier;
+
+		public Cursor(int position, List<ObjectId> frontier) {
+			this(null, position, frontier);
+		}
+
+		public Cursor(ObjectId tip, int position, List<ObjectId> frontier) {
+			this.tip = tip;
+			this.position = position;
+			this.frontier = Collections.unmodifiableList(frontier);
+		}
+
+		/**
+		 * Encodes the cursor as a signed page token.
+		 *
+		 * @return the token
+		 */
+		public String encode() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(position);
+			sb.append('.').append(tip == null ? ObjectId.zeroId().getName() : tip.getName());
+			for (ObjectId id : frontier) {
+				sb.append('.').append(id.getName());
+			}
+			String signature = sign(sb.toString());
+			sb.append('.').append(signature);
+			return sb.toString();
+		}
+
+		/**
+		 * Decodes a signed page token.
+		 *
+		 * @param token
+		 * @return the cursor or null if the token is not a valid cursor of
+		 *         this server
+		 */
+		public static Cursor decode(String token) {
+			if (StringUtils.isEmpty(token)) {
+				return null;
+			}
+			int dot = token.lastIndexOf('.');
+			if (dot < 0 || !verify(token.substring(0, dot), token.substring(dot + 1))) {
+				return null;
+			}
+			String[] parts = token.substring(0, dot).split("\\.");
+			if (parts.length < 3 || parts.length > MAX_LINK_FRONTIER + 2) {
+				return null;
+			}
+			try {
+				int position = Integer.parseInt(parts[0]);
+				if (position < 0 || !ObjectId.isId(parts[1])) {
+					return null;
+				}
+				ObjectId tip = ObjectId.fromString(parts[1]);
+				List<ObjectId> frontier = new ArrayList<ObjectId>();
+				for (int i = 2; i < parts.length; i++) {
+					if (!ObjectId.isId(parts[i])) {
+						return null;
+					}
+					frontier.add(ObjectId.fromString(parts[i]));
+				}
+				return new Cursor(tip, position, frontier);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return encode();
+		}
+
+		private static String sign(String payload) {
+			try {
+				Mac mac = Mac.getInstance("HmacSHA256");
+				mac.init(KEY);
+				byte[] digest = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+				return StringUtils.toHex(digest).substring(0, SIGNATURE_LENGTH);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private static boolean verify(String payload, String signature) {
+			return signature.length() == SIGNATURE_LENGTH
+					&& MessageDigest.isEqual(sign(payload).getBytes(StandardCharsets.UTF_8),
+							signature.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * A page of the log.
+	 */
+	public static class Page {
+
+		public final List<RevCommit> commits;
+
+		/**
+		 * The cursor of the next page or null if this is the last page.  The
+		 * frontier of the cursor is empty if it is too wide for a page link,
+		 * the next page is then requested by its offset.
+		 */
+		public final Cursor next;
+
+		Page(List<RevCommit> commits, Cursor next) {
+			this.commits = commits;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * Sets the number of commits between indexed cursors.  This clears the
+	 * index.
+	 *
+	 * @param interval
+	 *            if <= 0 the log is not indexed
+	 */
+	public void setInterval(int interval) {
+		this.interval = interval;
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Sets the maximum number of indexed cursors.  The indexes of the least
+	 * recently used tips are evicted first.  This clears the index.
+	 *
+	 * @param maximumCursors
+	 */
+	public void setMaximumCursors(long maximumCursors) {
+		setMaximumWeight(maximumCursors, new Weigher<String, ConcurrentSkipListMap<Integer, Cursor>>() {
+			@Override
+			public int weigh(String key, ConcurrentSkipListMap<Integer, Cursor> cursors) {
+				return Math.max(1, cursors.size());
+			}
+		});
+	}
+
+	/**
+	 * Returns a page of the log of a commit at an offset.  The walk resumes
+	 * from the closest indexed cursor before the offset.
+	 *
+	 * @param repository
+	 * @param tip
+	 * @param offset
+	 * @param maxCount
+	 *            if < 0, all commits after the offset are returned
+	 * @return the page
+	 * @throws IOException
+	 */
+	public Page getPage(Repository repository, AnyObjectId tip, int offset, int maxCount) throws IOException {
+		offset = Math.max(0, offset);
+		Cursor start = new Cursor(tip.copy(), 0, Collections.singletonList(tip.copy()));
+		if (interval > 0) {
+			String key = tip.getName();
+			ConcurrentSkipListMap<Integer, Cursor> cursors = cache.get(key);
+			if (cursors == null) {
+				cursors = new ConcurrentSkipListMap<Integer, Cursor>();
+			}
+			Map.Entry<Integer, Cursor> closest = cursors.floorEntry(offset);
+			if (closest != null) {
+				start = closest.getValue();
+			}
+			int size = cursors.size();
+			Page page = walk(repository, start, offset - start.position, maxCount, cursors);
+			if (cursors.size() != size) {
+				// store or reweigh the extended index
+				cache.put(key, cursors);
+			}
+			return page;
+		}
+		return walk(repository, start, offset, maxCount, null);
+	}
+
+	/**
+	 * Returns the page of the log which starts at a cursor.
+	 *
+	 * @param repository
+	 * @param cursor
+	 * @param maxCount
+	 *            if < 0, all commits after the cursor are returned
+	 * @return the page
+	 * @throws IOException
+	 */
+	public Page getPage(Repository repository, Cursor cursor, int maxCount) throws IOException {
+		return walk(repository, cursor, 0, maxCount, null);
+	}
+
+	/**
+	 * Walks the log from a cursor, skipping the first commits.  The cursors
+	 * of the walked positions are indexed.
+	 */
+	private Page walk(Repository repository, Cursor start, int skip, int maxCount,
+			Map<Integer, Cursor> cursors) throws IOException {
+		List<RevCommit> list = new ArrayList<RevCommit>();
+		Cursor next = null;
+		RevWalk rw = new RevWalk(repository);
+		try {
+			RevFlag returned = rw.newFlag("RETURNED");
+			Set<RevCommit> frontier = new LinkedHashSet<RevCommit>();
+			for (ObjectId id : start.frontier) {
+				RevCommit commit = rw.parseCommit(id);
+				rw.markStart(commit);
+				frontier.add(commit);
+			}
+			int position = start.position;
+			for (RevCommit commit = rw.next(); commit != null; commit = rw.next()) {
+				if (cursors != null && position > start.position && position % interval == 0
+						&& frontier.size() <= MAX_INDEX_FRONTIER) {
+					cursors.put(position, newCursor(start.tip, position, frontier));
+				}
+				if (position - start.position >= skip) {
+					if (maxCount >= 0 && list.size() == maxCount) {
+						if (frontier.size() <= MAX_LINK_FRONTIER) {
+							next = newCursor(start.tip, position, frontier);
+						} else {
+							// too wide to link, the next page is found by its offset
+							next = new Cursor(start.tip, position, Collections.<ObjectId> emptyList());
+						}
+						break;
+					}
+					list.add(commit);
+				}
+				commit.add(returned);
+				frontier.remove(commit);
+				for (RevCommit parent : commit.getParents()) {
+					if (!parent.has(returned)) {
+						frontier.add(parent);
+					}
+				}
+				position++;
+			}
+		} finally {
+			rw.dispose();
+		}
+		return new Page(list, next);
+	}
+
+	private Cursor newCursor(ObjectId tip, int position, Set<RevCommit> frontier) {
+		List<ObjectId> ids = new ArrayList<ObjectId>(frontier.size());
+		for (RevCommit commit : frontier) {
+			ids.add(commit.copy());
+		}
+		return new Cursor(tip, position, ids);
+	}
+}
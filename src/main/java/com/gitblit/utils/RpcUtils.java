@@ -29,6 +29,7 @@ import com.gitblit.models.FederationModel;
 import com.gitblit.models.FederationProposal;
 import com.gitblit.models.FederationSet;
 import com.gitblit.models.FeedModel;
+import com.gitblit.models.LastCommitModel;
 import com.gitblit.models.RegistrantAccessPermission;
 import com.gitblit.models.RepositoryModel;
 import com.gitblit.models.ServerSettings;
@@ -72,6 +73,9 @@ public class RpcUtils {
 	private static final Type BRANCHES_TYPE = new TypeToken<Map<String, Collection<String>>>() {
 	}.getType();
 
+	private static final Type LAST_COMMITS_TYPE = new TypeToken<Collection<LastCommitModel>>() {
+	}.getType();
+
 	public static final Type REGISTRANT_PERMISSIONS_TYPE = new TypeToken<Collection<RegistrantAccessPermission>>() {
 	}.getType();
 
@@ -108,6 +112,29 @@ public class RpcUtils {
 				+ (name == null ? "" : ("&name=" + StringUtils.encodeURL(name)));
 	}
 
+	/**
+	 *
+	 * @param remoteURL
+	 *            the url of the remote gitblit instance
+	 * @param repositoryName
+	 * @param objectId
+	 *            if unspecified, HEAD is assumed.
+	 * @param path
+	 *            if unspecified, root folder is assumed.
+	 * @return the link of the last commits of a folder
+	 */
+	public static String asLastCommitsLink(String remoteURL, String repositoryName, String objectId,
+			String path) {
+		StringBuilder url = new StringBuilder(asLink(remoteURL, RpcRequest.LIST_LAST_COMMITS, repositoryName));
+		if (!StringUtils.isEmpty(objectId)) {
+			url.append("&objectId=").append(StringUtils.encodeURL(objectId));
+		}
+		if (!StringUtils.isEmpty(path)) {
+			url.append("&path=").append(StringUtils.encodeURL(path));
+		}
+		return url.toString();
+	}
+
 	/**
 	 * Returns the version of the RPC protocol on the server.
 	 *
@@ -653,6 +680,32 @@ public class RpcUtils {
 		return branches;
 	}
 
+	/**
+	 * Retrieves the commits which last changed the entries of a folder of a
+	 * repository.
+	 *
+	 * @param serverUrl
+	 * @param repositoryName
+	 * @param objectId
+	 *            if unspecified, HEAD is assumed.
+	 * @param path
+	 *            if unspecified, root folder is assumed.
+	 * @param account
+	 * @param password
+	 * @return the last commits of the entries, in the order of the entries
+	 * @throws IOException
+	 */
+	public static List<LastCommitModel> getLastCommits(String serverUrl, String repositoryName,
+			String objectId, String path, String account, char[] password) throws IOException {
+		String url = asLastCommitsLink(serverUrl, repositoryName, objectId, path);
+		Collection<LastCommitModel> commits = JsonUtils.retrieveJson(url, LAST_COMMITS_TYPE,
+				account, password);
+		if (commits == null) {
+			return new ArrayList<LastCommitModel>();
+		}
+		return new ArrayList<LastCommitModel>(commits);
+	}
+
 	/**
 	 * Retrieves a list of available branch feeds in the Gitblit server.
 	 *
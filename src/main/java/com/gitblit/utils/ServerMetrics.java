@@ -0,0 +1,404 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gitblit.models.CacheStatistics;
+
+/**
+ * The registry of the operational metrics of the server, e.g. cache
+ * statistics, queue depths and request latencies.
+ *
+ * Components register collectors which are sampled when the metrics are
+ * requested.  A collector which is registered with the id of a previously
+ * registered collector replaces it.  The samples are rendered in the
+ * Prometheus text format or as a flat map of sample names to values.
+ *
+ * @author agent
+ *
+ */
+public class ServerMetrics {
+
+	private static final ServerMetrics instance = new ServerMetrics();
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final Map<String, Collector> collectors = new ConcurrentHashMap<String, Collector>();
+
+	private final Map<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+	public static ServerMetrics instance() {
+		return instance;
+	}
+
+	/**
+	 * The type of a metric.
+	 */
+	public static enum Type {
+		gauge, counter, histogram
+	}
+
+	/**
+	 * Produces samples when the metrics are requested.
+	 */
+	public static interface Collector {
+
+		void collect(Samples samples);
+	}
+
+	/**
+	 * The current value of a gauge or counter.
+	 */
+	public static interface Gauge {
+
+		double getValue();
+	}
+
+	/**
+	 * The statistics of one or more caches.
+	 */
+	public static interface CacheSource {
+
+		List<CacheStatistics> getStatistics();
+	}
+
+	/**
+	 * The samples of all metrics, grouped by metric name.
+	 */
+	public static class Samples {
+
+		private final Map<String, Family> families = new TreeMap<String, Family>();
+
+		/**
+		 * Adds a sample.
+		 *
+		 * @param name
+		 *            the metric name
+		 * @param type
+		 * @param help
+		 *            the description of the metric
+		 * @param labels
+		 *            the labels of the sample, e.g. cache="commits", may be null
+		 * @param value
+		 */
+		public void add(String name, Type type, String help, String labels, double value) {
+			family(name, type, help).samples.put(labels == null ? "" : labels, value);
+		}
+
+		private Family family(String name, Type type, String help) {
+			Family family = families.get(name);
+			if (family == null) {
+				family = new Family(name, type, help);
+				families.put(name, family);
+			}
+			return family;
+		}
+	}
+
+	private static class Family {
+
+		final String name;
+
+		final Type type;
+
+		final String help;
+
+		/**
+		 * The sample values keyed by the sample name suffix and labels.
+		 */
+		final Map<String, Double> samples = new LinkedHashMap<String, Double>();
+
+		Family(String name, Type type, String help) {
+			this.name = name;
+			this.type = type;
+			this.help = help;
+		}
+	}
+
+	/**
+	 * A histogram of durations with fixed buckets.
+	 */
+	public static class Histogram {
+
+		private static final double[] BUCKETS = { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+		private final String name;
+
+		private final String help;
+
+		private final String labels;
+
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS.length);
+
+		private final AtomicLong count = new AtomicLong();
+
+		private final AtomicLong sum = new AtomicLong();
+
+		Histogram(String name, String help, String labels) {
+			this.name = name;
+			this.help = help;
+			this.labels = labels;
+		}
+
+		/**
+		 * Records a duration.
+		 *
+		 * @param nanos
+		 *            the duration in nanoseconds
+		 */
+		public void observe(long nanos) {
+			double seconds = nanos / 1e9;
+			for (int i = 0; i < BUCKETS.length; i++) {
+				if (seconds <= BUCKETS[i]) {
+					counts.incrementAndGet(i);
+					break;
+				}
+			}
+			count.incrementAndGet();
+			sum.addAndGet(nanos);
+		}
+
+		public long getCount() {
+			return count.get();
+		}
+
+		void collect(Samples samples) {
+			Family family = samples.family(name, Type.histogram, help);
+			String prefix = labels == null ? "" : labels + ",";
+			long cumulative = 0;
+			for (int i = 0; i < BUCKETS.length; i++) {
+				cumulative += counts.get(i);
+				family.samples.put("_bucket{" + prefix + "le=\"" + BUCKETS[i] + "\"}", (double) cumulative);
+			}
+			long total = count.get();
+			String suffix = labels == null ? "" : "{" + labels + "}";
+			family.samples.put("_bucket{" + prefix + "le=\"+Inf\"}", (double) total);
+			family.samples.put("_sum" + suffix, sum.get() / 1e9);
+			family.samples.put("_count" + suffix, (double) total);
+		}
+	}
+
+	/**
+	 * Registers a collector.
+	 *
+	 * @param id
+	 *            the unique id of the collector
+	 * @param collector
+	 */
+	public void register(String id, Collector collector) {
+		collectors.put(id, collector);
+	}
+
+	/**
+	 * Removes a collector.
+	 *
+	 * @param id
+	 */
+	public void unregister(String id) {
+		collectors.remove(id);
+	}
+
+	/**
+	 * Registers a gauge.
+	 *
+	 * @param name
+	 *            the metric name, also the id of the collector
+	 * @param help
+	 * @param gauge
+	 */
+	public void gauge(final String name, final String help, final Gauge gauge) {
+		register(name, new Collector() {
+			@Override
+			public void collect(Samples samples) {
+				samples.add(name, Type.gauge, help, null, gauge.getValue());
+			}
+		});
+	}
+
+	/**
+	 * Registers the statistics of caches.
+	 *
+	 * @param id
+	 *            the unique id of the collector
+	 * @param source
+	 */
+	public void caches(String id, final CacheSource source) {
+		register(id, new Collector() {
+			@Override
+			public void collect(Samples samples) {
+				for (CacheStatistics stats : source.getStatistics()) {
+					String labels = "cache=\"" + stats.name + "\"";
+					samples.add("gitblit_cache_entries", Type.gauge, "The number of cached entries.", labels, stats.entries);
+					samples.add("gitblit_cache_weight", Type.gauge, "The total weight of the cached entries.", labels, stats.weight);
+					samples.add("gitblit_cache_maximum_weight", Type.gauge, "The maximum weight of the cache, 0 if unbounded.", labels, stats.maximumWeight);
+					samples.add("gitblit_cache_hits_total", Type.counter, "The number of cache hits.", labels, stats.hits);
+					samples.add("gitblit_cache_misses_total", Type.counter, "The number of cache misses.", labels, stats.misses);
+					samples.add("gitblit_cache_evictions_total", Type.counter, "The number of evicted entries.", labels, stats.evictions);
+					samples.add("gitblit_cache_load_seconds_total", Type.counter, "The time spent loading entries.", labels, stats.loadTime / 1e9);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Registers the queue depth and thread counts of an executor.
+	 *
+	 * @param name
+	 *            the name of the executor
+	 * @param executor
+	 *            the executor, must be a ThreadPoolExecutor to be registered
+	 */
+	public void executor(String name, ExecutorService executor) {
+		if (!(executor instanceof ThreadPoolExecutor)) {
+			logger.debug("Executor {} can not be instrumented", name);
+			return;
+		}
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+		final String labels = "executor=\"" + name + "\"";
+		register("executor:" + name, new Collector() {
+			@Override
+			public void collect(Samples samples) {
+				samples.add("gitblit_executor_queue_depth", Type.gauge, "The number of queued tasks.", labels, pool.getQueue().size());
+				samples.add("gitblit_executor_active_threads", Type.gauge, "The number of threads executing tasks.", labels, pool.getActiveCount());
+				samples.add("gitblit_executor_completed_tasks_total", Type.counter, "The number of completed tasks.", labels, pool.getCompletedTaskCount());
+			}
+		});
+	}
+
+	/**
+	 * Returns a histogram, creating it on the first request.
+	 *
+	 * @param name
+	 *            the metric name
+	 * @param help
+	 * @param labels
+	 *            the labels of the histogram, may be null
+	 * @return the histogram
+	 */
+	public Histogram histogram(String name, String help, String labels) {
+		String key = labels == null ? name : name + "{" + labels + "}";
+		Histogram histogram = histograms.get(key);
+		if (histogram == null) {
+			synchronized (histograms) {
+				histogram = histograms.get(key);
+				if (histogram == null) {
+					histogram = new Histogram(name, help, labels);
+					histograms.put(key, histogram);
+				}
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * Samples all metrics.
+	 *
+	 * @return the samples
+	 */
+	public Samples collect() {
+		Samples samples = new Samples();
+		for (Map.Entry<String, Collector> entry : collectors.entrySet()) {
+			try {
+				entry.getValue().collect(samples);
+			} catch (Exception e) {
+				logger.error("Failed to collect metrics of " + entry.getKey(), e);
+			}
+		}
+		for (Histogram histogram : histograms.values()) {
+			histogram.collect(samples);
+		}
+		return samples;
+	}
+
+	/**
+	 * Returns the values of all samples keyed by their name and labels, e.g.
+	 * gitblit_cache_hits_total{cache="commits"}.  Samples without a value
+	 * are omitted because they can not be serialized to JSON.
+	 *
+	 * @return the sorted values
+	 */
+	public Map<String, Double> getValues() {
+		Map<String, Double> values = new TreeMap<String, Double>();
+		for (Family family : collect().families.values()) {
+			for (Map.Entry<String, Double> sample : family.samples.entrySet()) {
+				double value = sample.getValue();
+				if (Double.isNaN(value) || Double.isInfinite(value)) {
+					continue;
+				}
+				values.put(getSampleName(family, sample.getKey()), value);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Writes all samples in the Prometheus text exposition format.
+	 *
+	 * @param writer
+	 */
+	public void write(PrintWriter writer) {
+		for (Family family : collect().families.values()) {
+			writer.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+			writer.append("# TYPE ").append(family.name).append(' ').append(family.type.name()).append('\n');
+			for (Map.Entry<String, Double> sample : family.samples.entrySet()) {
+				writer.append(getSampleName(family, sample.getKey())).append(' ')
+					.append(format(sample.getValue())).append('\n');
+			}
+		}
+		writer.flush();
+	}
+
+	private static String getSampleName(Family family, String key) {
+		if (family.type == Type.histogram) {
+			// the key is the sample name suffix with its labels
+			return family.name + key;
+		}
+		return key.isEmpty() ? family.name : family.name + "{" + key + "}";
+	}
+
+	private static String format(double value) {
+		if (Double.isNaN(value)) {
+			return "NaN";
+		}
+		if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+			return Long.toString((long) value);
+		}
+		return Double.toString(value);
+	}
+
+	/**
+	 * Returns the names of the registered collectors.
+	 *
+	 * @return the collector ids
+	 */
+	public List<String> getCollectors() {
+		return new ArrayList<String>(new TreeMap<String, Collector>(collectors).keySet());
+	}
+}
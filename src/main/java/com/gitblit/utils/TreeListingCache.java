@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.utils;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+import com.gitblit.cache.CacheLoader;
+import com.gitblit.cache.ServerCache;
+import com.gitblit.cache.Weigher;
+import com.gitblit.models.PathModel;
+
+/**
+ * Caches the entries of the trees listed by the tree page.
+ *
+ * Trees are immutable so the entries are keyed by the tree id alone and are
+ * shared by all branches and repositories which hold the tree.  The cached
+ * entries have paths relative to their tree and no commit id.
+ *
+ * @author agent
+ *
+ */
+public class TreeListingCache extends ServerCache<List<PathModel>> {
+
+	private static final TreeListingCache instance;
+
+	public static TreeListingCache instance() {
+		return instance;
+	}
+
+	static {
+		instance = new TreeListingCache();
+	}
+
+	protected TreeListingCache() {
+		super("treeListings");
+		setMaximumEntries(100000L);
+	}
+
+	/**
+	 * Sets the maximum number of tree entries held by the cache.  The least
+	 * recently used trees are evicted first.  This clears the cache.
+	 *
+	 * @param maximumEntries
+	 */
+	public void setMaximumEntries(long maximumEntries) {
+		setMaximumWeight(maximumEntries, new Weigher<String, List<PathModel>>() {
+			@Override
+			public int weigh(String key, List<PathModel> entries) {
+				return Math.max(1, entries.size());
+			}
+		});
+	}
+
+	/**
+	 * Returns the entries of a tree, reading the tree if it is not cached.
+	 *
+	 * @param repository
+	 * @param treeId
+	 * @return the unmodifiable entries or null if the tree can not be read
+	 * @see JGitUtils#getTreeEntries(Repository, ObjectId)
+	 */
+	public List<PathModel> getEntries(final Repository repository, final ObjectId treeId) {
+		return cache.get(treeId.getName(), 0, new CacheLoader<String, List<PathModel>>() {
+			@Override
+			public List<PathModel> load(String key) {
+				try {
+					return Collections.unmodifiableList(JGitUtils.getTreeEntries(repository, treeId));
+				} catch (IOException e) {
+					logger.error(MessageFormat.format("Failed to read tree {0} of {1}", key,
+							repository.getDirectory()), e);
+					return null;
+				}
+			}
+		});
+	}
+}
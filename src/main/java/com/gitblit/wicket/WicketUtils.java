@@ -398,6 +398,15 @@ public class WicketUtils {
 		return new PageParameters(parameterMap);
 	}
 
+	public static PageParameters newLogPageParameter(String repositoryName,
+			String objectId, int pageNumber, String cursor) {
+		PageParameters params = newLogPageParameter(repositoryName, objectId, pageNumber);
+		if (pageNumber > 1 && !StringUtils.isEmpty(cursor)) {
+			params.put("c", cursor);
+		}
+		return params;
+	}
+
 	public static PageParameters newHistoryPageParameter(String repositoryName,
 			String objectId, String path, int pageNumber) {
 		Map<String, String> parameterMap = new HashMap<String, String>();
@@ -543,6 +552,10 @@ public class WicketUtils {
 		return params.getInt("pg", 1);
 	}
 
+	public static String getLogCursor(PageParameters params) {
+		return params.getString("c", null);
+	}
+
 	public static String getRegEx(PageParameters params) {
 		return params.getString("x", "");
 	}
@@ -46,6 +46,7 @@ import com.gitblit.utils.DiffUtils;
 import com.gitblit.utils.DiffUtils.DiffComparator;
 import com.gitblit.utils.DiffUtils.DiffOutput;
 import com.gitblit.utils.DiffUtils.DiffOutputType;
+import com.gitblit.utils.DiffUtils.DiffStat;
 import com.gitblit.utils.JGitUtils;
 import com.gitblit.wicket.CacheControl;
 import com.gitblit.wicket.GitBlitWebSession;
@@ -95,15 +96,26 @@ public class CommitDiffPage extends RepositoryPage {
 		final ImageDiffHandler handler = new ImageDiffHandler(this, repositoryName,
 				parents.isEmpty() ? null : parents.get(0), commit.getName(), imageExtensions);
 		final int tabLength = app().settings().getInteger(Keys.web.tabLength, 4);
-		final DiffOutput diff = DiffUtils.getCommitDiff(r, commit, diffComparator, DiffOutputType.HTML, handler, tabLength);
-		if (handler.getImgDiffCount() > 0) {
-			addBottomScript("scripts/imgdiff.js"); // Tiny support script for image diffs
+		final DiffStat lazyStat = getLazyDiffStat(r, null, commit, diffComparator);
+		final List<PathChangeModel> paths;
+		final String diffHtml;
+		if (lazyStat == null) {
+			final DiffOutput diff = DiffUtils.getCommitDiff(r, commit, diffComparator, DiffOutputType.HTML, handler, tabLength);
+			if (handler.getImgDiffCount() > 0) {
+				addBottomScript("scripts/imgdiff.js"); // Tiny support script for image diffs
+			}
+			paths = diff.stat.paths;
+			diffHtml = diff.content;
+		} else {
+			// large diff, the file diffs are loaded separately
+			paths = lazyStat.paths;
+			diffHtml = getLazyDiffHtml(lazyStat, null, commit.getName(), diffComparator);
 		}
 
 		// add commit diffstat
 		int insertions = 0;
 		int deletions = 0;
-		for (PathChangeModel pcm : diff.stat.paths) {
+		for (PathChangeModel pcm : paths) {
 			insertions += pcm.insertions;
 			deletions += pcm.deletions;
 		}
@@ -133,8 +145,8 @@ public class CommitDiffPage extends RepositoryPage {
 		add(notesView.setVisible(notes.size() > 0));
 
 		// changed paths list
-		add(new CommitLegendPanel("commitLegend", diff.stat.paths));
-		ListDataProvider<PathChangeModel> pathsDp = new ListDataProvider<PathChangeModel>(diff.stat.paths);
+		add(new CommitLegendPanel("commitLegend", paths));
+		ListDataProvider<PathChangeModel> pathsDp = new ListDataProvider<PathChangeModel>(paths);
 		DataView<PathChangeModel> pathsView = new DataView<PathChangeModel>("changedPath", pathsDp) {
 			private static final long serialVersionUID = 1L;
 			int counter;
@@ -289,7 +301,7 @@ public class CommitDiffPage extends RepositoryPage {
 			}
 		};
 		add(pathsView);
-		add(new Label("diffText", diff.content).setEscapeModelStrings(false));
+		add(new Label("diffText", diffHtml).setEscapeModelStrings(false));
 	}
 
 	@Override
@@ -48,6 +48,7 @@ import com.gitblit.utils.DiffUtils;
 import com.gitblit.utils.DiffUtils.DiffComparator;
 import com.gitblit.utils.DiffUtils.DiffOutput;
 import com.gitblit.utils.DiffUtils.DiffOutputType;
+import com.gitblit.utils.DiffUtils.DiffStat;
 import com.gitblit.utils.JGitUtils;
 import com.gitblit.utils.StringUtils;
 import com.gitblit.wicket.SessionlessForm;
@@ -121,15 +122,26 @@ public class ComparePage extends RepositoryPage {
 					fromCommit.getName(), toCommit.getName(), imageExtensions);
 			final DiffComparator diffComparator = WicketUtils.getDiffComparator(params);
 			final int tabLength = app().settings().getInteger(Keys.web.tabLength, 4);
-			final DiffOutput diff = DiffUtils.getDiff(r, fromCommit, toCommit, diffComparator, DiffOutputType.HTML, handler, tabLength);
-			if (handler.getImgDiffCount() > 0) {
-				addBottomScript("scripts/imgdiff.js"); // Tiny support script for image diffs
+			final DiffStat lazyStat = getLazyDiffStat(r, fromCommit, toCommit, diffComparator);
+			final List<PathChangeModel> paths;
+			final String diffHtml;
+			if (lazyStat == null) {
+				final DiffOutput diff = DiffUtils.getDiff(r, fromCommit, toCommit, diffComparator, DiffOutputType.HTML, handler, tabLength);
+				if (handler.getImgDiffCount() > 0) {
+					addBottomScript("scripts/imgdiff.js"); // Tiny support script for image diffs
+				}
+				paths = diff.stat.paths;
+				diffHtml = diff.content;
+			} else {
+				// large diff, the file diffs are loaded separately
+				paths = lazyStat.paths;
+				diffHtml = getLazyDiffHtml(lazyStat, startId, endId, diffComparator);
 			}
 
 			// add compare diffstat
 			int insertions = 0;
 			int deletions = 0;
-			for (PathChangeModel pcm : diff.stat.paths) {
+			for (PathChangeModel pcm : paths) {
 				insertions += pcm.insertions;
 				deletions += pcm.deletions;
 			}
@@ -143,8 +155,8 @@ public class ComparePage extends RepositoryPage {
 			comparison.add(new LogPanel("commitList", repositoryName, objectId, r, 0, 0, repository.showRemoteBranches));
 
 			// changed paths list
-			comparison.add(new CommitLegendPanel("commitLegend", diff.stat.paths));
-			ListDataProvider<PathChangeModel> pathsDp = new ListDataProvider<PathChangeModel>(diff.stat.paths);
+			comparison.add(new CommitLegendPanel("commitLegend", paths));
+			ListDataProvider<PathChangeModel> pathsDp = new ListDataProvider<PathChangeModel>(paths);
 			DataView<PathChangeModel> pathsView = new DataView<PathChangeModel>("changedPath", pathsDp) {
 				private static final long serialVersionUID = 1L;
 				int counter;
@@ -214,7 +226,7 @@ public class ComparePage extends RepositoryPage {
 				}
 			};
 			comparison.add(pathsView);
-			comparison.add(new Label("diffText", diff.content).setEscapeModelStrings(false));
+			comparison.add(new Label("diffText", diffHtml).setEscapeModelStrings(false));
 		}
 
 		// set the default DiffComparator
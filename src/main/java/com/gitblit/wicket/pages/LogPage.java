@@ -40,8 +40,9 @@ public class LogPage extends RepositoryPage {
 			refid = getRepositoryModel().HEAD;
 		}
 		LogPanel logPanel = new LogPanel("logPanel", repositoryName, refid, getRepository(), -1,
-				pageNumber - 1, getRepositoryModel().showRemoteBranches);
+				pageNumber - 1, WicketUtils.getLogCursor(params), getRepositoryModel().showRemoteBranches);
 		boolean hasMore = logPanel.hasMore();
+		String nextCursor = logPanel.getNextCursor();
 		add(logPanel);
 
 		add(new BookmarkablePageLink<Void>("firstPageTop", LogPage.class,
@@ -51,7 +52,7 @@ public class LogPage extends RepositoryPage {
 				WicketUtils.newLogPageParameter(repositoryName, objectId, prevPage))
 				.setEnabled(pageNumber > 1));
 		add(new BookmarkablePageLink<Void>("nextPageTop", LogPage.class,
-				WicketUtils.newLogPageParameter(repositoryName, objectId, nextPage))
+				WicketUtils.newLogPageParameter(repositoryName, objectId, nextPage, nextCursor))
 				.setEnabled(hasMore));
 
 		add(new BookmarkablePageLink<Void>("firstPageBottom", LogPage.class,
@@ -61,7 +62,7 @@ public class LogPage extends RepositoryPage {
 				WicketUtils.newLogPageParameter(repositoryName, objectId, prevPage))
 				.setEnabled(pageNumber > 1));
 		add(new BookmarkablePageLink<Void>("nextPageBottom", LogPage.class,
-				WicketUtils.newLogPageParameter(repositoryName, objectId, nextPage))
+				WicketUtils.newLogPageParameter(repositoryName, objectId, nextPage, nextCursor))
 				.setEnabled(hasMore));
 	}
 
@@ -15,6 +15,7 @@
  */
 package com.gitblit.wicket.pages;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -39,6 +40,8 @@ import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
 import org.apache.wicket.request.target.basic.RedirectRequestTarget;
 import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -52,17 +55,23 @@ import com.gitblit.extensions.RepositoryNavLinkExtension;
 import com.gitblit.models.NavLink;
 import com.gitblit.models.NavLink.ExternalNavLink;
 import com.gitblit.models.NavLink.PageNavLink;
+import com.gitblit.models.PathModel.PathChangeModel;
 import com.gitblit.models.ProjectModel;
 import com.gitblit.models.RefModel;
 import com.gitblit.models.RepositoryModel;
 import com.gitblit.models.SubmoduleModel;
 import com.gitblit.models.UserModel;
 import com.gitblit.models.UserRepositoryPreferences;
+import com.gitblit.servlet.DiffServlet;
 import com.gitblit.servlet.PagesServlet;
 import com.gitblit.servlet.SyndicationServlet;
 import com.gitblit.utils.ArrayUtils;
 import com.gitblit.utils.BugtraqProcessor;
 import com.gitblit.utils.DeepCopier;
+import com.gitblit.utils.DiffUtils;
+import com.gitblit.utils.DiffUtils.DiffComparator;
+import com.gitblit.utils.DiffUtils.DiffStat;
+import com.gitblit.utils.GitBlitDiffFormatter;
 import com.gitblit.utils.JGitUtils;
 import com.gitblit.utils.ModelUtils;
 import com.gitblit.utils.RefLogUtils;
@@ -598,6 +607,89 @@ public abstract class RepositoryPage extends RootPage {
 		add(new Label(wicketId, html).setEscapeModelStrings(false));
 	}
 
+	/**
+	 * Returns the diffstat of a diff whose changed files are larger than
+	 * web.lazyDiffSize. The file diffs of such a diff are not rendered with
+	 * the page but loaded separately.
+	 *
+	 * @param r
+	 * @param baseCommit
+	 *            if null the diff is to the primary parent of the commit
+	 * @param commit
+	 * @param comparator
+	 * @return the diffstat or null if the file diffs are rendered with the page
+	 */
+	protected DiffStat getLazyDiffStat(Repository r, RevCommit baseCommit, RevCommit commit,
+			DiffComparator comparator) {
+		long lazyDiffSize = app().settings().getFilesize(Keys.web.lazyDiffSize, 2 * 1024 * 1024L);
+		if (lazyDiffSize <= 0) {
+			return null;
+		}
+		try {
+			// the diffstat is only computed for diffs which are loaded lazily,
+			// other diffs are rendered with their diffstat
+			if (DiffUtils.getChangedBytes(r, baseCommit, commit) <= lazyDiffSize) {
+				return null;
+			}
+		} catch (IOException e) {
+			logger.error("Failed to determine the size of the diff of " + commit.getName(), e);
+			return null;
+		}
+		return DiffUtils.getDiffStat(r, baseCommit, commit, null, comparator);
+	}
+
+	/**
+	 * Returns the placeholders of the file diffs of a large diff and adds the
+	 * script which loads the file diffs into the placeholders.  The file
+	 * diffs are loaded automatically until the changed files exceed
+	 * web.maxDiffBytes, the remaining file diffs are loaded when clicked.
+	 *
+	 * @param stat
+	 *            the diffstat returned by getLazyDiffStat
+	 * @param baseId
+	 *            if null the diff is to the primary parent of the commit
+	 * @param commitId
+	 * @param comparator
+	 * @return the html of the placeholders
+	 */
+	protected String getLazyDiffHtml(DiffStat stat, String baseId, String commitId, DiffComparator comparator) {
+		long maxBytes = app().settings().getFilesize(Keys.web.maxDiffBytes, 8 * 1024 * 1024L);
+		long bytes = 0;
+		StringBuilder sb = new StringBuilder();
+		ObjectReader reader = getRepository().newObjectReader();
+		try {
+			for (PathChangeModel path : stat.paths) {
+				String oldPath = ChangeType.RENAME == path.changeType ? path.name : null;
+				String url = DiffServlet.asLink(getContextUrl(), repositoryName, baseId, commitId, path.path,
+						oldPath, comparator);
+				boolean load = bytes < maxBytes;
+				bytes += getChangedBytes(reader, path);
+				sb.append(GitBlitDiffFormatter.getPlaceholderHtml(path, url, load));
+			}
+		} finally {
+			reader.close();
+		}
+		addBottomScript("scripts/lazydiffs.js");
+		addBottomScriptInline("loadDiffs();");
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the size of a changed file.  The size of a path change is the
+	 * size of the new blob, a deleted file is sized by its deleted blob.
+	 */
+	private long getChangedBytes(ObjectReader reader, PathChangeModel path) {
+		if (ChangeType.DELETE != path.changeType) {
+			return path.size;
+		}
+		try {
+			return reader.getObjectSize(ObjectId.fromString(path.objectId),
+					org.eclipse.jgit.lib.Constants.OBJ_BLOB);
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
 	protected abstract String getPageName();
 
 	protected boolean isCommitPage() {
@@ -19,6 +19,7 @@ import java.io.OutputStream;
 import java.util.List;
 
 import org.apache.wicket.PageParameters;
+import org.apache.wicket.behavior.SimpleAttributeModifier;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.link.BookmarkablePageLink;
 import org.apache.wicket.markup.html.link.ExternalLink;
@@ -31,15 +32,19 @@ import org.apache.wicket.request.target.resource.ResourceStreamRequestTarget;
 import org.apache.wicket.util.resource.AbstractResourceStreamWriter;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 
+import com.gitblit.Keys;
 import com.gitblit.models.PathModel;
 import com.gitblit.models.SubmoduleModel;
 import com.gitblit.models.UserModel;
 import com.gitblit.servlet.RawServlet;
 import com.gitblit.utils.ByteFormat;
 import com.gitblit.utils.JGitUtils;
+import com.gitblit.utils.JsonUtils;
+import com.gitblit.utils.RpcUtils;
 import com.gitblit.wicket.CacheControl;
 import com.gitblit.wicket.GitBlitWebSession;
 import com.gitblit.wicket.CacheControl.LastModified;
@@ -101,6 +106,13 @@ public class TreePage extends RepositoryPage {
 				item.add(WicketUtils.setHtmlTooltip(new Label("filestore", ""), getString("gb.filestore"))
 									.setVisible(entry.isFilestoreItem()));
 
+				// the last commit is filled in by the lastcommits script
+				Label lastCommit = new Label("lastCommit", "");
+				if (!entry.isParentPath) {
+					lastCommit.add(new SimpleAttributeModifier("data-path", entry.path));
+				}
+				item.add(lastCommit);
+
 				if (entry.isParentPath) {
 					// parent .. path
 					item.add(WicketUtils.newBlankImage("pathIcon"));
@@ -269,6 +281,17 @@ public class TreePage extends RepositoryPage {
 			}
 		};
 		add(pathsView);
+
+		// load the last commits of the entries without blocking the listing
+		if (!paths.isEmpty() && app().settings().getBoolean(Keys.web.enableRpcServlet, true)) {
+			String placeholder = ObjectId.zeroId().getName();
+			String rpcUrl = RpcUtils.asLastCommitsLink(getContextUrl(), repositoryName, commit.getName(), path);
+			String commitUrl = urlFor(CommitPage.class, WicketUtils.newObjectParameter(repositoryName,
+					placeholder)).toString();
+			addBottomScript("scripts/lastcommits.js");
+			addBottomScriptInline("loadLastCommits(" + JsonUtils.toJsonString(rpcUrl) + ", "
+					+ JsonUtils.toJsonString(commitUrl) + ", " + JsonUtils.toJsonString(placeholder) + ");");
+		}
 	}
 
 	@Override
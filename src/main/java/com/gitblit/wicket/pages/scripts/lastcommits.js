@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Fills the last commit cells of the tree page once the commits which last
+ * changed the entries have been retrieved.  The cells stay empty if the
+ * request fails.
+ *
+ * - url: the rpc url of the last commits of the folder
+ * - commitUrl: the url of the commit page for the commit id placeholder
+ * - placeholder: the commit id placeholder of the commit url
+ */
+function loadLastCommits(url, commitUrl, placeholder) {
+	$.getJSON(url, function(commits) {
+		var byPath = {};
+		$.each(commits, function(i, commit) {
+			byPath[commit.path] = commit;
+		});
+		$('td.lastCommit span[data-path]').each(function() {
+			var commit = byPath[$(this).attr('data-path')];
+			if (!commit) {
+				return;
+			}
+			var date = new Date(commit.date);
+			var link = $('<a class="list"></a>')
+				.attr('href', commitUrl.replace(placeholder, commit.commitId))
+				.attr('title', commit.author + ', ' + date.toLocaleString())
+				.text(commit.shortMessage);
+			var age = $('<span class="lastCommitDate"></span>').text(date.toLocaleDateString());
+			$(this).empty().append(link).append(' ').append(age);
+		});
+	});
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Loads the file diffs of a large commitdiff or comparison into their
+ * placeholders.  The placeholders which the server marked with data-load are
+ * loaded one file after the other, the remaining file diffs are only loaded
+ * when they are clicked.
+ */
+function loadDiffs() {
+	var placeholders = $('div.lazyDiff[data-load]').toArray();
+
+	function load(placeholder, next) {
+		$.get($(placeholder).attr('data-url'), function(html) {
+			$(placeholder).replaceWith(html);
+			if (next) {
+				next();
+			}
+		}, 'html').fail(function() {
+			$(placeholder).find('div.diff').text('Failed to load the diff.');
+			if (next) {
+				next();
+			}
+		});
+	}
+
+	function loadNext() {
+		var placeholder = placeholders.shift();
+		if (placeholder) {
+			load(placeholder, loadNext);
+		}
+	}
+
+	$('div.lazyDiff[data-url]').not('[data-load]').each(function(i, placeholder) {
+		var link = $('<a href="#">Load the diff</a>').click(function(e) {
+			e.preventDefault();
+			$(this).replaceWith('Loading...');
+			load(placeholder);
+		});
+		$(placeholder).find('div.diff').empty().append(link);
+	});
+
+	loadNext();
+}
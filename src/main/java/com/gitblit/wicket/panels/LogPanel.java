@@ -37,6 +37,7 @@ import com.gitblit.Keys;
 import com.gitblit.models.RefModel;
 import com.gitblit.servlet.BranchGraphServlet;
 import com.gitblit.utils.JGitUtils;
+import com.gitblit.utils.RevLogIndex;
 import com.gitblit.utils.StringUtils;
 import com.gitblit.wicket.ExternalImage;
 import com.gitblit.wicket.WicketUtils;
@@ -52,8 +53,15 @@ public class LogPanel extends BasePanel {
 
 	private boolean hasMore;
 
+	private String nextCursor;
+
 	public LogPanel(String wicketId, final String repositoryName, final String objectId,
 			Repository r, int limit, int pageOffset, boolean showRemoteRefs) {
+		this(wicketId, repositoryName, objectId, r, limit, pageOffset, null, showRemoteRefs);
+	}
+
+	public LogPanel(String wicketId, final String repositoryName, final String objectId,
+			Repository r, int limit, int pageOffset, String cursor, boolean showRemoteRefs) {
 		super(wicketId);
 		boolean pageResults = limit <= 0;
 		int itemsPerPage = app().settings().getInteger(Keys.web.itemsPerPage, 50);
@@ -64,16 +72,22 @@ public class LogPanel extends BasePanel {
 		final Map<ObjectId, List<RefModel>> allRefs = JGitUtils.getAllRefs(r, showRemoteRefs);
 		List<RevCommit> commits;
 		if (pageResults) {
-			// Paging result set
-			commits = JGitUtils.getRevLog(r, objectId, pageOffset * itemsPerPage, itemsPerPage);
+			// Paging result set, continued from the cursor of the previous page
+			RevLogIndex.Page page = JGitUtils.getRevLogPage(r, objectId, cursor, pageOffset * itemsPerPage,
+					itemsPerPage);
+			commits = page.commits;
+			hasMore = page.next != null;
+			if (hasMore && !page.next.frontier.isEmpty()) {
+				nextCursor = page.next.encode();
+			}
 		} else {
 			// Fixed size result set
 			commits = JGitUtils.getRevLog(r, objectId, 0, limit);
-		}
 
-		// inaccurate way to determine if there are more commits.
-		// works unless commits.size() represents the exact end.
-		hasMore = commits.size() >= itemsPerPage;
+			// inaccurate way to determine if there are more commits.
+			// works unless commits.size() represents the exact end.
+			hasMore = commits.size() >= itemsPerPage;
+		}
 
 		final String baseUrl = WicketUtils.getGitblitURL(getRequest());
 		final boolean showGraph = app().settings().getBoolean(Keys.web.showBranchGraph, true);
@@ -195,4 +209,14 @@ public class LogPanel extends BasePanel {
 	public boolean hasMore() {
 		return hasMore;
 	}
+
+	/**
+	 * Returns the encoded cursor of the next page.
+	 *
+	 * @return the cursor or null if the next page must be requested by its
+	 *         offset
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.io.File;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gitblit.models.CacheStatistics;
+import com.gitblit.models.CommitRecords;
+import com.gitblit.models.RepositoryCommit;
+import com.gitblit.utils.CommitCache;
+import com.gitblit.utils.CommitCacheStore;
+import com.gitblit.utils.FileUtils;
+
+public class CommitCacheTest extends GitblitUnitTest {
+
+	private File folder;
+
+	private Git git;
+
+	private CommitCache cache;
+
+	private File storeFolder;
+
+	/**
+	 * Counts the full and incremental loads of the cache.
+	 */
+	private static class CountingCache extends CommitCache {
+
+		int full;
+
+		int incremental;
+
+		CountingCache(CommitCacheStore store) {
+			setCacheDays(14);
+			setStore(store);
+		}
+
+		@Override
+		protected CommitRecords get(String repositoryName, Repository repository, String branch, Date sinceDate) {
+			full++;
+			return super.get(repositoryName, repository, branch, sinceDate);
+		}
+
+		@Override
+		protected CommitRecords get(String repositoryName, Repository repository, String branch, ObjectId sinceCommit) {
+			incremental++;
+			return super.get(repositoryName, repository, branch, sinceCommit);
+		}
+	}
+
+	@Before
+	public void createRepository() throws Exception {
+		folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-commitcache-" + System.currentTimeMillis());
+		git = Git.init().setDirectory(folder).call();
+		git.commit().setMessage("first").call();
+		git.commit().setMessage("second").call();
+		git.checkout().setCreateBranch(true).setName("feature").call();
+		git.commit().setMessage("third").call();
+		cache = new CommitCache() {
+		};
+		cache.setCacheDays(14);
+		storeFolder = new File(folder.getParentFile(), folder.getName() + "-store");
+	}
+
+	@After
+	public void deleteRepository() throws Exception {
+		git.close();
+		FileUtils.delete(folder);
+		if (storeFolder.exists()) {
+			FileUtils.delete(storeFolder);
+		}
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		Repository repository = git.getRepository();
+		cache.setMaximumCommits(4);
+
+		assertEquals(2, cache.getCommits("test.git", repository, "refs/heads/master").size());
+		assertEquals(2, cache.getCommits("test.git", repository, "refs/heads/master").size());
+		assertStatistics(1, 2, 1, 1, 0);
+
+		// the least recently used branch is evicted
+		assertEquals(3, cache.getCommits("test.git", repository, "refs/heads/feature").size());
+		assertStatistics(1, 3, 1, 2, 1);
+
+		assertEquals(2, cache.getCommits("test.git", repository, "refs/heads/master").size());
+		assertStatistics(1, 2, 1, 3, 2);
+
+		// unbounded
+		cache.setMaximumCommits(0);
+		assertEquals(3, cache.getCommits("test.git", repository, "refs/heads/feature").size());
+		assertStatistics(2, 5, 1, 4, 2);
+
+		cache.clear("test.git", "refs/heads/master");
+		assertStatistics(1, 3, 1, 4, 2);
+		cache.clear("test.git");
+		assertStatistics(0, 0, 1, 4, 2);
+	}
+
+	@Test
+	public void testClearDuringLoad() throws Exception {
+		Repository repository = git.getRepository();
+		final String[] clear = { "test.git" };
+		cache = new CommitCache() {
+			@Override
+			protected CommitRecords get(String repositoryName, Repository repository, String branch, Date sinceDate) {
+				if (clear[0] != null) {
+					// the repository is cleared while its branch is loaded
+					clear(clear[0]);
+					clear[0] = null;
+				}
+				return super.get(repositoryName, repository, branch, sinceDate);
+			}
+		};
+		cache.setCacheDays(14);
+		cache.setMaximumCommits(4);
+
+		// the loaded branch is handed out but neither cached nor weighed
+		assertEquals(2, cache.getCommits("test.git", repository, "refs/heads/master").size());
+		assertStatistics(0, 0, 0, 1, 0);
+
+		assertEquals(2, cache.getCommits("test.git", repository, "refs/heads/master").size());
+		assertStatistics(1, 2, 0, 2, 0);
+		assertEquals(2, cache.getCommits("test.git", repository, "refs/heads/master").size());
+		assertStatistics(1, 2, 1, 2, 0);
+	}
+
+	@Test
+	public void testPersistence() throws Exception {
+		Repository repository = git.getRepository();
+		String master = "refs/heads/master";
+		String feature = "refs/heads/feature";
+		CommitCacheStore store = new CommitCacheStore(storeFolder);
+
+		CountingCache first = new CountingCache(store);
+		assertEquals(2, first.getCommits("test.git", repository, master).size());
+		assertEquals(3, first.getCommits("test.git", repository, feature).size());
+		first.save();
+		assertTrue(new File(storeFolder, "test.git.commits").exists());
+
+		// a restarted cache restores both branches without parsing
+		CountingCache second = new CountingCache(store);
+		List<RepositoryCommit> commits = second.getCommits("test.git", repository, feature);
+		assertEquals(3, commits.size());
+		assertEquals("third", commits.get(0).getShortMessage());
+		assertEquals(repository.resolve(feature), commits.get(0).getId());
+		assertEquals(0, second.full);
+		assertEquals(0, second.incremental);
+
+		// only the delta since the stored tip is parsed
+		git.checkout().setName("master").call();
+		git.commit().setMessage("fourth").setCommitter(later(1)).call();
+		commits = second.getCommits("test.git", repository, master);
+		assertEquals(3, commits.size());
+		assertEquals("fourth", commits.get(0).getShortMessage());
+		assertEquals(0, second.full);
+		assertEquals(1, second.incremental);
+		second.save();
+
+		// a rewritten branch is reloaded
+		git.reset().setMode(ResetType.HARD).setRef("HEAD~2").call();
+		git.commit().setMessage("rewritten").setCommitter(later(2)).call();
+		CountingCache third = new CountingCache(store);
+		commits = third.getCommits("test.git", repository, master);
+		assertEquals(2, commits.size());
+		assertEquals("rewritten", commits.get(0).getShortMessage());
+		assertEquals(1, third.full);
+		assertEquals(0, third.incremental);
+
+		// clearing a repository deletes its stored branches
+		third.clear("test.git");
+		assertFalse(new File(storeFolder, "test.git.commits").exists());
+	}
+
+	private PersonIdent later(int minutes) {
+		return new PersonIdent("tester", "tester@gitblit.com",
+				new Date(System.currentTimeMillis() + minutes * 60000L), TimeZone.getDefault());
+	}
+
+	private void assertStatistics(long entries, long weight, long hits, long misses, long evictions) {
+		CacheStatistics stats = cache.getStatistics();
+		assertEquals("entries", entries, stats.entries);
+		assertEquals("weight", weight, stats.weight);
+		assertEquals("hits", hits, stats.hits);
+		assertEquals("misses", misses, stats.misses);
+		assertEquals("evictions", evictions, stats.evictions);
+	}
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.Test;
+
+import com.gitblit.utils.ChangedPathFilter;
+import com.gitblit.utils.CommitGraph;
+import com.gitblit.utils.CommitGraphCache;
+import com.gitblit.utils.FileUtils;
+import com.gitblit.utils.JGitUtils;
+
+public class CommitGraphTest extends GitblitUnitTest {
+
+	@Test
+	public void testQueries() throws Exception {
+		Repository repository = GitBlitSuite.getTicgitRepository();
+		CommitGraph graph = CommitGraph.build(repository);
+		List<RevCommit> commits = getCommits(repository);
+		assertEquals(commits.size(), graph.size());
+
+		Random random = new Random(42);
+		RevWalk walk = new RevWalk(repository);
+		try {
+			for (int i = 0; i < 200; i++) {
+				RevCommit a = commits.get(random.nextInt(commits.size()));
+				RevCommit b = commits.get(random.nextInt(commits.size()));
+
+				walk.reset();
+				boolean merged = walk.isMergedInto(walk.parseCommit(a), walk.parseCommit(b));
+				assertEquals(merged, graph.isMergedInto(a, b));
+
+				walk.reset();
+				walk.markStart(walk.parseCommit(b));
+				walk.markUninteresting(walk.parseCommit(a));
+				int count = 0;
+				while (walk.next() != null) {
+					count++;
+				}
+				assertEquals(count, graph.countCommits(a, b));
+
+				walk.reset();
+				walk.setRevFilter(RevFilter.MERGE_BASE);
+				walk.markStart(walk.parseCommit(a));
+				walk.markStart(walk.parseCommit(b));
+				RevCommit expected = walk.next();
+				walk.reset();
+				walk.setRevFilter(RevFilter.ALL);
+				ObjectId base = graph.getMergeBase(a, b);
+				if (expected == null) {
+					assertEquals(ObjectId.zeroId(), base);
+				} else {
+					// criss-cross merges have several equally good merge bases
+					assertTrue(graph.isMergedInto(base, a));
+					assertTrue(graph.isMergedInto(base, b));
+					assertTrue(base.equals(expected) || !graph.isMergedInto(expected, base));
+				}
+			}
+		} finally {
+			walk.dispose();
+			repository.close();
+		}
+	}
+
+	@Test
+	public void testExtend() throws Exception {
+		File folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-graph-" + System.currentTimeMillis());
+		Git git = Git.init().setDirectory(folder).call();
+		try {
+			Repository repository = git.getRepository();
+			RevCommit root = git.commit().setMessage("root").call();
+			RevCommit first = git.commit().setMessage("first").call();
+			CommitGraph graph = CommitGraph.build(repository);
+			assertEquals(2, graph.size());
+			assertEquals(1, graph.getGeneration(root));
+			assertEquals(2, graph.getGeneration(first));
+			assertSame(graph, graph.extend(repository, Arrays.asList(first)));
+
+			// a topic branch merged back into master
+			git.checkout().setCreateBranch(true).setName("topic").call();
+			RevCommit topic = git.commit().setMessage("topic").call();
+			git.checkout().setName("master").call();
+			RevCommit second = git.commit().setMessage("second").call();
+			git.merge().include(topic).call();
+			ObjectId merge = repository.resolve(Constants.HEAD);
+
+			assertNull(graph.isMergedInto(first, merge));
+			CommitGraph extended = graph.extend(repository, Arrays.asList(merge));
+			assertEquals(5, extended.size());
+			assertEquals(2, graph.size());
+			assertEquals(4, extended.getGeneration(merge));
+			assertTrue(extended.isMergedInto(topic, merge));
+			assertFalse(extended.isMergedInto(topic, second));
+			assertFalse(extended.isMergedInto(merge, first));
+			assertEquals(first, extended.getMergeBase(topic, second));
+			assertEquals(topic, extended.getMergeBase(topic, merge));
+			assertEquals(3, extended.countCommits(first, merge));
+			assertEquals(2, extended.countCommits(second, merge));
+			assertEquals(0, extended.countCommits(merge, topic));
+
+			// round trip
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			extended.write(new DataOutputStream(bytes));
+			CommitGraph read = CommitGraph.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+			assertEquals(5, read.size());
+			assertEquals(first, read.getMergeBase(topic, second));
+			assertEquals(3, read.countCommits(first, merge));
+
+			// extending an index again does not change its first extension
+			CommitGraph other = graph.extend(repository, Arrays.asList(topic));
+			assertEquals(3, other.size());
+			assertFalse(other.contains(second));
+			assertEquals(5, extended.size());
+			assertTrue(extended.contains(second));
+			assertEquals(3, extended.countCommits(first, merge));
+
+			// unrelated histories have no merge base
+			git.checkout().setOrphan(true).setName("orphan").call();
+			RevCommit orphan = git.commit().setMessage("orphan").call();
+			read = read.extend(repository, Arrays.asList(orphan));
+			assertEquals(ObjectId.zeroId(), read.getMergeBase(orphan, merge));
+			assertEquals(1, read.countCommits(merge, orphan));
+
+			// commits appended one at a time are found and stored
+			List<RevCommit> appended = new ArrayList<RevCommit>();
+			for (int i = 0; i < 100; i++) {
+				RevCommit commit = git.commit().setMessage("appended " + i).call();
+				appended.add(commit);
+				read = read.extend(repository, Arrays.asList(commit));
+			}
+			bytes = new ByteArrayOutputStream();
+			read.write(new DataOutputStream(bytes));
+			CommitGraph reread = CommitGraph.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+			for (CommitGraph g : Arrays.asList(read, reread)) {
+				assertEquals(106, g.size());
+				for (int i = 0; i < appended.size(); i++) {
+					assertEquals(i + 2, g.getGeneration(appended.get(i)));
+				}
+				assertTrue(g.contains(first));
+				assertEquals(101, g.countCommits(merge, appended.get(99)));
+			}
+		} finally {
+			git.close();
+			FileUtils.delete(folder);
+		}
+	}
+
+	@Test
+	public void testCache() throws Exception {
+		File folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-graph-" + System.currentTimeMillis());
+		Git git = Git.init().setDirectory(folder).call();
+		CommitGraphCache.instance().setExecutor(null);
+		try {
+			Repository repository = git.getRepository();
+			RevCommit first = git.commit().setMessage("first").call();
+			RevCommit second = git.commit().setMessage("second").call();
+			File file = CommitGraphCache.instance().getFile(repository);
+			assertFalse(file.exists());
+
+			// the graph is built and stored when first needed
+			assertTrue(JGitUtils.isMergedInto(repository, first, second));
+			assertFalse(JGitUtils.isMergedInto(repository, second, first));
+			assertEquals(first.getName(), JGitUtils.getMergeBase(repository, first, second));
+			assertTrue(file.exists());
+			assertEquals(2, readGraph(file).size());
+
+			// unreferenced commits are only added to the cached graph
+			RevCommit third = git.commit().setMessage("third").call();
+			assertEquals(2, JGitUtils.countCommits(repository, new RevWalk(repository), first, third));
+			assertEquals(2, readGraph(file).size());
+
+			// pushed commits are stored
+			RevCommit fourth = git.commit().setMessage("fourth").call();
+			ReceiveCommand cmd = new ReceiveCommand(second, fourth, Constants.R_HEADS + "master");
+			cmd.setResult(ReceiveCommand.Result.OK);
+			CommitGraphCache.instance().clear(folder);
+			CommitGraphCache.instance().update(repository, Arrays.asList(cmd));
+			assertEquals(4, readGraph(file).size());
+			assertEquals(3, CommitGraphCache.instance().get(repository).countCommits(first, fourth));
+		} finally {
+			CommitGraphCache.instance().clear(folder);
+			git.close();
+			FileUtils.delete(folder);
+		}
+	}
+
+	@Test
+	public void testBackgroundBuild() throws Exception {
+		File folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-graph-" + System.currentTimeMillis());
+		Git git = Git.init().setDirectory(folder).call();
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+		CommitGraphCache cache = CommitGraphCache.instance();
+		cache.setExecutor(new Executor() {
+			@Override
+			public void execute(Runnable task) {
+				tasks.add(task);
+			}
+		});
+		try {
+			Repository repository = git.getRepository();
+			RevCommit first = git.commit().setMessage("first").call();
+			RevCommit second = git.commit().setMessage("second").call();
+
+			// the commits are walked while the graph is built
+			assertTrue(JGitUtils.isMergedInto(repository, first, second));
+			assertEquals(1, JGitUtils.countCommits(repository, new RevWalk(repository), first, second));
+			assertNull(cache.get(repository, second));
+			assertEquals(1, tasks.size());
+			assertFalse(cache.getFile(repository).exists());
+
+			tasks.get(0).run();
+			assertTrue(cache.getFile(repository).exists());
+			assertEquals(2, cache.get(repository, second).size());
+			assertEquals(1, tasks.size());
+		} finally {
+			cache.setExecutor(null);
+			cache.clear(folder);
+			git.close();
+			FileUtils.delete(folder);
+		}
+	}
+
+	@Test
+	public void testChangedPaths() throws Exception {
+		Repository repository = GitBlitSuite.getTicgitRepository();
+		try {
+			CommitGraph graph = CommitGraph.build(repository);
+			assertFalse(graph.hasFilters());
+			CommitGraph filtered = graph.computeFilters(repository);
+			assertEquals(0, filtered.getMissingFilters());
+			assertSame(filtered, filtered.computeFilters(repository));
+
+			// the filters survive a round trip and are carried to a new graph
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			filtered.write(new DataOutputStream(bytes));
+			CommitGraph read = CommitGraph.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+			assertEquals(0, read.getMissingFilters());
+			assertEquals(0, graph.withFilters(read).getMissingFilters());
+
+			ObjectId head = repository.resolve("master");
+			String[] paths = { "README.mkd", "lib", "lib/ticgit", "lib/ticgit-ng/base.rb", "bin/ti/", "missing.txt" };
+			int skipped = 0;
+			for (String path : paths) {
+				List<RevCommit> expected = new ArrayList<RevCommit>();
+				RevWalk walk = new RevWalk(repository);
+				walk.markStart(walk.parseCommit(head));
+				walk.setTreeFilter(AndTreeFilter.create(PathFilterGroup.createFromStrings(Collections.singleton(path)),
+						TreeFilter.ANY_DIFF));
+				for (RevCommit commit : walk) {
+					expected.add(commit);
+				}
+				walk.dispose();
+
+				List<RevCommit> actual = new ArrayList<RevCommit>();
+				walk = new RevWalk(repository);
+				walk.markStart(walk.parseCommit(head));
+				ChangedPathFilter filter = new ChangedPathFilter(walk, read, path);
+				walk.setRevFilter(filter);
+				for (RevCommit commit : walk) {
+					actual.add(commit);
+				}
+				walk.dispose();
+				assertEquals(path, expected, actual);
+				skipped += filter.getSkipped();
+
+				// a clone includes the same commits
+				actual.clear();
+				walk = new RevWalk(repository);
+				walk.markStart(walk.parseCommit(head));
+				walk.setRevFilter(new ChangedPathFilter(walk, read, path).clone());
+				for (RevCommit commit : walk) {
+					actual.add(commit);
+				}
+				walk.dispose();
+				assertEquals(path, expected, actual);
+			}
+			assertTrue(skipped > 0);
+		} finally {
+			repository.close();
+		}
+	}
+
+	@Test
+	public void testChangedPathsCache() throws Exception {
+		File folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-graph-" + System.currentTimeMillis());
+		Git git = Git.init().setDirectory(folder).call();
+		CommitGraphCache.instance().setExecutor(null);
+		try {
+			Repository repository = git.getRepository();
+			File a = new File(folder, "a.txt");
+			FileUtils.writeContent(a, "a");
+			git.add().addFilepattern("a.txt").call();
+			RevCommit first = git.commit().setMessage("first").call();
+			File b = new File(folder, "dir/b.txt");
+			b.getParentFile().mkdirs();
+			FileUtils.writeContent(b, "b");
+			git.add().addFilepattern("dir/b.txt").call();
+			RevCommit second = git.commit().setMessage("second").call();
+
+			// the filters are computed and stored with the first path log
+			assertEquals(Arrays.asList(first), JGitUtils.getRevLog(repository, null, "a.txt", 0, -1));
+			assertEquals(Arrays.asList(second), JGitUtils.getRevLog(repository, null, "dir", 0, -1));
+			CommitGraph graph = readGraph(CommitGraphCache.instance().getFile(repository));
+			assertEquals(0, graph.getMissingFilters());
+			assertFalse(graph.mayChangePath(second, new CommitGraph.PathKey("a.txt")));
+			assertTrue(graph.mayChangePath(second, new CommitGraph.PathKey("dir/")));
+			assertTrue(graph.mayChangePath(second, new CommitGraph.PathKey("dir/b.txt")));
+
+			// pushed commits get their filters
+			FileUtils.writeContent(a, "aa");
+			git.add().addFilepattern("a.txt").call();
+			RevCommit third = git.commit().setMessage("third").call();
+			ReceiveCommand cmd = new ReceiveCommand(second, third, Constants.R_HEADS + "master");
+			cmd.setResult(ReceiveCommand.Result.OK);
+			CommitGraphCache.instance().update(repository, Arrays.asList(cmd));
+			graph = readGraph(CommitGraphCache.instance().getFile(repository));
+			assertEquals(3, graph.size());
+			assertEquals(0, graph.getMissingFilters());
+			assertTrue(graph.mayChangePath(third, new CommitGraph.PathKey("a.txt")));
+			assertEquals(Arrays.asList(third, first), JGitUtils.getRevLog(repository, null, "a.txt", 0, -1));
+
+			// the filters are kept by a rebuild
+			assertTrue(CommitGraphCache.instance().rebuild(repository));
+			assertEquals(0, readGraph(CommitGraphCache.instance().getFile(repository)).getMissingFilters());
+		} finally {
+			CommitGraphCache.instance().clear(folder);
+			git.close();
+			FileUtils.delete(folder);
+		}
+	}
+
+	private CommitGraph readGraph(File file) throws Exception {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			return CommitGraph.read(in);
+		}
+	}
+
+	private List<RevCommit> getCommits(Repository repository) throws Exception {
+		List<RevCommit> commits = new ArrayList<RevCommit>();
+		RevWalk walk = new RevWalk(repository);
+		try {
+			for (Ref ref : repository.getRefDatabase().getRefs("").values()) {
+				ObjectId id = ref.getPeeledObjectId() == null ? ref.getObjectId() : ref.getPeeledObjectId();
+				try {
+					walk.markStart(walk.parseCommit(id));
+				} catch (Exception e) {
+					// not a commit
+				}
+			}
+			for (RevCommit commit : walk) {
+				commits.add(commit);
+			}
+		} finally {
+			walk.dispose();
+		}
+		return commits;
+	}
+}
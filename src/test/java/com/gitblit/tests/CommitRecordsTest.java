@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand.FastForwardMode;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gitblit.models.CommitRecords;
+import com.gitblit.models.RefModel;
+import com.gitblit.models.RepositoryCommit;
+import com.gitblit.utils.FileUtils;
+import com.gitblit.utils.JGitUtils;
+
+/**
+ * Tests that the compact commit records are equivalent to the parsed commits.
+ * Run with -Dgitblit.benchmark=true to also compare the memory footprint of
+ * the records with a list of parsed commits.
+ */
+public class CommitRecordsTest extends GitblitUnitTest {
+
+	private File folder;
+
+	private Git git;
+
+	@Before
+	public void createRepository() throws Exception {
+		folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-commitrecords-" + System.currentTimeMillis());
+		git = Git.init().setDirectory(folder).call();
+	}
+
+	@After
+	public void deleteRepository() throws Exception {
+		git.close();
+		FileUtils.delete(folder);
+	}
+
+	@Test
+	public void testEquivalence() throws Exception {
+		commit("alice", 1000, "first");
+		git.checkout().setCreateBranch(true).setName("feature").call();
+		RevCommit feature = commit("bob", 2000, "feature\n\nwith a body");
+		git.checkout().setName("master").call();
+		commit("alice", 3000, "second");
+		git.merge().include(feature).setFastForward(FastForwardMode.NO_FF).setMessage("merge").call();
+
+		Repository repository = git.getRepository();
+		List<RevCommit> revLog = JGitUtils.getRevLog(repository, "master", new Date(0));
+		assertEquals(4, revLog.size());
+		CommitRecords.Builder builder = new CommitRecords.Builder(1);
+		for (RevCommit commit : revLog) {
+			builder.add(commit, null);
+		}
+		CommitRecords records = builder.build();
+		assertEquals(revLog.size(), records.size());
+
+		List<RepositoryCommit> views = records.toList("test.git", "master", null);
+		for (int i = 0; i < revLog.size(); i++) {
+			assertEquivalent(new RepositoryCommit("test.git", "master", revLog.get(i)), views.get(i));
+		}
+		assertEquals(2, views.get(0).getParentCount());
+		assertEquals(revLog.get(0).getParent(1).getId(), views.get(0).getParentId(1));
+		@SuppressWarnings("deprecation")
+		RevCommit [] parents = views.get(0).getParents();
+		assertEquals(2, parents.length);
+		assertEquals(revLog.get(0).getParent(1).getId(), parents[1].getId());
+
+		// filter and concatenate
+		assertSame(records, records.since(new Date(0)));
+		CommitRecords recent = records.since(new Date(2000 * 1000L));
+		assertEquals(3, recent.size());
+		assertEquals(records.getId(0), recent.getId(0));
+		CommitRecords all = recent.concat(records.since(new Date(Long.MAX_VALUE)));
+		assertSame(recent, all);
+		assertEquals(7, recent.concat(records).size());
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		commit("alice", 1000, "first");
+		commit("bob", 2000, "second");
+		List<RevCommit> revLog = JGitUtils.getRevLog(git.getRepository(), "master", new Date(0));
+		CommitRecords.Builder builder = new CommitRecords.Builder(revLog.size());
+		List<RefModel> refs = JGitUtils.getAllRefs(git.getRepository(), false).get(revLog.get(0).getId());
+		builder.add(revLog.get(0), refs);
+		builder.add(revLog.get(1), null);
+		RepositoryCommit view = builder.build().toList("test.git", "master", null).get(0);
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(os);
+		oos.writeObject(view);
+		oos.close();
+		RepositoryCommit copy = (RepositoryCommit) new ObjectInputStream(
+				new ByteArrayInputStream(os.toByteArray())).readObject();
+		assertEquivalent(view, copy);
+		assertFalse(refs.isEmpty());
+		assertEquals(refs.size(), copy.getRefs().size());
+	}
+
+	@Test
+	public void testBenchmark() throws Exception {
+		Assume.assumeTrue(Boolean.getBoolean("gitblit.benchmark"));
+		for (int i = 0; i < 5000; i++) {
+			commit("author" + (i % 20), 1000 + i, "commit " + i + "\n\na longer commit message body");
+		}
+		Repository repository = git.getRepository();
+
+		// the previous cache entries retained the parsed commits
+		long base = usedMemory();
+		List<RevCommit> list = new ArrayList<RevCommit>(JGitUtils.getRevLog(repository, "master", new Date(0)));
+		long listMemory = usedMemory() - base;
+
+		base = usedMemory();
+		CommitRecords.Builder builder = new CommitRecords.Builder(list.size());
+		for (RevCommit commit : JGitUtils.getRevLog(repository, "master", new Date(0))) {
+			builder.add(commit, null);
+		}
+		CommitRecords records = builder.build();
+		long recordsMemory = usedMemory() - base;
+
+		System.out.println(MessageFormat.format("{0} commits: {1} bytes as parsed commits, {2} bytes as records",
+				records.size(), listMemory, recordsMemory));
+		assertEquals(list.size(), records.size());
+	}
+
+	private long usedMemory() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private RevCommit commit(String author, long seconds, String message) throws Exception {
+		PersonIdent ident = new PersonIdent(author, author + "@gitblit.com", new Date(seconds * 1000L),
+				TimeZone.getTimeZone("GMT+2"));
+		return git.commit().setAuthor(ident).setCommitter(ident).setMessage(message).call();
+	}
+
+	private void assertEquivalent(RepositoryCommit expected, RepositoryCommit actual) {
+		assertEquals(expected, actual);
+		assertEquals(expected.hashCode(), actual.hashCode());
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getShortMessage(), actual.getShortMessage());
+		assertEquals(expected.getCommitDate(), actual.getCommitDate());
+		assertEquals(expected.getParentCount(), actual.getParentCount());
+		assertEquals(expected.getAuthorIdent(), actual.getAuthorIdent());
+		assertEquals(expected.getAuthorIdent().getTimeZoneOffset(), actual.getAuthorIdent().getTimeZoneOffset());
+		assertEquals(expected.getCommitterIdent(), actual.getCommitterIdent());
+		assertEquals(expected.toString(), actual.toString());
+	}
+}
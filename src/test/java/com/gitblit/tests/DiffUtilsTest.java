@@ -15,16 +15,24 @@
  */
 package com.gitblit.tests;
 
+import java.io.File;
+import java.util.Collections;
 import java.util.List;
 
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.util.FileUtils;
 import org.junit.Test;
 
 import com.gitblit.models.AnnotatedLine;
+import com.gitblit.models.PathModel.PathChangeModel;
+import com.gitblit.utils.BlameCache;
+import com.gitblit.utils.DiffCache;
 import com.gitblit.utils.DiffUtils;
 import com.gitblit.utils.DiffUtils.DiffComparator;
 import com.gitblit.utils.DiffUtils.DiffOutputType;
+import com.gitblit.utils.DiffUtils.DiffStat;
 import com.gitblit.utils.JGitUtils;
 
 public class DiffUtilsTest extends GitblitUnitTest {
@@ -123,4 +131,162 @@ public class DiffUtilsTest extends GitblitUnitTest {
 		assertTrue(lines.size() > 0);
 		assertEquals(GitBlitSuite.helloworldSettings.getRequiredString(HelloworldKeys.commit.first), lines.get(0).commitId);
 	}
+
+	@Test
+	public void testDiffCache() throws Exception {
+		Repository repository = GitBlitSuite.getHelloworldRepository();
+		RevCommit commit = JGitUtils.getCommit(repository,
+				GitBlitSuite.helloworldSettings.getRequiredString(HelloworldKeys.commit.second));
+		DiffCache cache = DiffCache.instance();
+		cache.clear();
+		try {
+			DiffStat stat = DiffUtils.getDiffStat(repository, commit);
+			long hits = cache.getStatistics().hits;
+			DiffStat cached = DiffUtils.getDiffStat(repository, commit);
+			assertEquals(hits + 1, cache.getStatistics().hits);
+			assertEquals(stat.toString(), cached.toString());
+			assertEquals(commit.getName(), cached.paths.get(0).commitId);
+
+			// the cached diffstat is a copy
+			cached.paths.clear();
+			assertEquals(stat.paths.size(), DiffUtils.getDiffStat(repository, commit).paths.size());
+
+			// diffs are cached by output type and comparator
+			String plain = DiffUtils.getCommitDiff(repository, commit, DiffComparator.SHOW_WHITESPACE,
+					DiffOutputType.PLAIN, 3).content;
+			String ignoreWhitespace = DiffUtils.getCommitDiff(repository, commit, DiffComparator.IGNORE_WHITESPACE,
+					DiffOutputType.PLAIN, 3).content;
+			hits = cache.getStatistics().hits;
+			assertEquals(plain, DiffUtils.getCommitDiff(repository, commit, DiffComparator.SHOW_WHITESPACE,
+					DiffOutputType.PLAIN, 3).content);
+			assertEquals(ignoreWhitespace, DiffUtils.getCommitDiff(repository, commit, DiffComparator.IGNORE_WHITESPACE,
+					DiffOutputType.PLAIN, 3).content);
+			assertEquals(hits + 2, cache.getStatistics().hits);
+		} finally {
+			cache.clear();
+			repository.close();
+		}
+	}
+
+	@Test
+	public void testChangedBytesOfDeletion() throws Exception {
+		Repository repository = GitBlitSuite.getHelloworldRepository();
+		RevCommit commit = JGitUtils.getCommit(repository,
+				GitBlitSuite.helloworldSettings.getRequiredString(HelloworldKeys.commit.deleted));
+		try {
+			// deleted files are sized by their deleted blobs
+			DiffStat stat = DiffUtils.getDiffStat(repository, commit);
+			assertFalse(stat.paths.isEmpty());
+			for (PathChangeModel path : stat.paths) {
+				assertEquals(ChangeType.DELETE, path.changeType);
+			}
+			assertTrue(DiffUtils.getChangedBytes(repository, null, commit) > 0);
+		} finally {
+			repository.close();
+		}
+	}
+
+	@Test
+	public void testWriteDiff() throws Exception {
+		Repository repository = GitBlitSuite.getHelloworldRepository();
+		RevCommit commit = JGitUtils.getCommit(repository,
+				GitBlitSuite.helloworldSettings.getRequiredString(HelloworldKeys.commit.second));
+		try {
+			assertTrue(DiffUtils.getChangedBytes(repository, null, commit) > 0);
+			assertEquals(0, DiffUtils.getChangedBytes(repository, commit, commit));
+
+			DiffStat commitStat = DiffUtils.getDiffStat(repository, commit);
+			String path = commitStat.paths.get(0).path;
+			StringBuilder sb = new StringBuilder();
+			DiffStat stat = DiffUtils.writeDiff(repository, null, commit, path, null,
+					DiffComparator.SHOW_WHITESPACE, 4, 1024 * 1024, sb);
+			assertEquals(1, stat.paths.size());
+			assertEquals(path, stat.paths.get(0).path);
+			assertEquals(commitStat.paths.get(0).insertions, stat.paths.get(0).insertions);
+			assertEquals(commitStat.paths.get(0).deletions, stat.paths.get(0).deletions);
+			String html = sb.toString();
+			assertTrue(html.contains("<div class=\"diff\">"));
+			assertFalse(html.contains("Diff too large"));
+
+			// the diff is not shown if its html exceeds the limit
+			sb = new StringBuilder();
+			DiffUtils.writeDiff(repository, null, commit, path, null, DiffComparator.SHOW_WHITESPACE, 4, 64,
+					sb);
+			assertTrue(sb.toString().contains("Diff too large"));
+
+			// unchanged paths have no diff
+			assertNull(DiffUtils.writeDiff(repository, null, commit, "missing.txt", null,
+					DiffComparator.SHOW_WHITESPACE, 4, 0, new StringBuilder()));
+		} finally {
+			repository.close();
+		}
+	}
+
+	@Test
+	public void testBlameCache() throws Exception {
+		Repository repository = GitBlitSuite.getTicgitRepository();
+		String path = "lib/ticgit/cli.rb";
+		// the most recent change deleted the file
+		List<RevCommit> log = JGitUtils.getRevLog(repository, null, path, 1, 12);
+		Collections.reverse(log);
+		File folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-blame-" + System.currentTimeMillis());
+		BlameCache cache = BlameCache.instance();
+		cache.clear();
+		try {
+			// blamed from the cached blame of the previous change when possible
+			for (RevCommit commit : log) {
+				List<AnnotatedLine> lines = cache.getBlame(repository, path, commit);
+				List<AnnotatedLine> expected = DiffUtils.blame(repository, path, commit.getName());
+				assertEquals(expected.size(), lines.size());
+				for (int i = 0; i < expected.size(); i++) {
+					assertEquals(expected.get(i).commitId, lines.get(i).commitId);
+					assertEquals(expected.get(i).lineNumber, lines.get(i).lineNumber);
+					assertEquals(expected.get(i).data, lines.get(i).data);
+				}
+			}
+
+			// persisted blame survives clearing the cache
+			RevCommit commit = log.get(log.size() - 1);
+			cache.setFolder(folder);
+			cache.clear();
+			List<AnnotatedLine> lines = cache.getBlame(repository, path, commit);
+			assertTrue(folder.exists());
+			cache.clear();
+			List<AnnotatedLine> stored = cache.getBlame(repository, path, commit);
+			assertEquals(lines.size(), stored.size());
+			for (int i = 0; i < lines.size(); i++) {
+				assertEquals(lines.get(i).commitId, stored.get(i).commitId);
+				assertEquals(lines.get(i).data, stored.get(i).data);
+			}
+
+			// empty blames are not cached
+			long misses = cache.getStatistics().misses;
+			assertTrue(cache.getBlame(repository, "missing.txt", commit).isEmpty());
+			assertTrue(cache.getBlame(repository, "missing.txt", commit).isEmpty());
+			assertEquals(misses + 2, cache.getStatistics().misses);
+
+			// the persisted blames are pruned to the maximum size
+			cache.setMaximumFolderBytes(1);
+			cache.clear();
+			cache.getBlame(repository, path, log.get(0));
+			assertEquals(0, countFiles(folder));
+		} finally {
+			cache.setMaximumFolderBytes(256 * 1024 * 1024L);
+			cache.setFolder(null);
+			cache.clear();
+			FileUtils.delete(folder, FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+			repository.close();
+		}
+	}
+
+	private int countFiles(File folder) {
+		int count = 0;
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				count += file.isDirectory() ? countFiles(file) : 1;
+			}
+		}
+		return count;
+	}
 }
@@ -73,7 +73,14 @@ import com.gitblit.utils.JGitUtils;
 		ModelUtilsTest.class, JnaUtilsTest.class, LdapSyncServiceTest.class, FileTicketServiceTest.class,
 		BranchTicketServiceTest.class, RedisTicketServiceTest.class, AuthenticationManagerTest.class,
 		SshKeysDispatcherTest.class, UITicketTest.class, PathUtilsTest.class, SshKerberosAuthenticationTest.class,
-		GravatarTest.class, FilestoreManagerTest.class, FilestoreServletTest.class, TicketReferenceTest.class })
+		GravatarTest.class, FilestoreManagerTest.class, FilestoreServletTest.class, TicketReferenceTest.class,
+		SettingsSnapshotTest.class, RepositoryManifestTest.class,
+		RepositoryDiscoveryTest.class, RepositoryWatchServiceTest.class,
+		LastChangeCacheTest.class, RepositorySizeTrackerTest.class,
+		RepositoryVisibilityIndexTest.class, PermissionMatcherTest.class,
+		ModelCopyTest.class, RepositoryForkIndexTest.class, RepositoryStarIndexTest.class,
+		CommitCacheTest.class, CommitRecordsTest.class, MemoryCacheTest.class,
+		ServerMetricsTest.class, CommitGraphTest.class })
 public class GitBlitSuite {
 
 	public static final File BASEFOLDER = new File("data");
@@ -924,6 +924,55 @@ public class GitServletTest extends GitblitUnitTest {
 		delete(user);
 	}
 
+	@Test
+	public void testPushRefreshesCachedModel() throws Exception {
+		CredentialsProvider cp = new UsernamePasswordCredentialsProvider(account, password);
+
+		// create an empty repository
+		RepositoryModel model = new RepositoryModel("refchecks/lastchange.git", "", account, new Date(0));
+		repositories().updateRepositoryModel(model.name, model, true);
+
+		RepositoryModel created = repositories().getRepositoryModel(model.name);
+		assertFalse(created.hasCommits);
+		assertNotNull("the created model was not refreshed", created.size);
+
+		// clone the empty repository, commit a file and push it
+		File local = new File(GitBlitSuite.REPOSITORIES, "refchecks/lastchange-wc");
+		if (local.exists()) {
+			FileUtils.delete(local, FileUtils.RECURSIVE);
+		}
+		CloneCommand clone = Git.cloneRepository();
+		clone.setURI(MessageFormat.format("{0}/{1}", url, model.name));
+		clone.setDirectory(local);
+		clone.setCredentialsProvider(cp);
+		GitBlitSuite.close(clone.call());
+
+		Git git = Git.open(local);
+		File file = new File(local, "LASTCHANGE");
+		OutputStreamWriter os = new OutputStreamWriter(new FileOutputStream(file, true), Constants.CHARSET);
+		BufferedWriter w = new BufferedWriter(os);
+		w.write("// " + new Date().toString() + "\n");
+		w.close();
+		git.add().addFilepattern(file.getName()).call();
+		RevCommit commit = git.commit().setMessage("last change test").call();
+		Iterable<PushResult> results = git.push().setCredentialsProvider(cp).setRemote("origin")
+				.setRefSpecs(new RefSpec("refs/heads/master:refs/heads/master")).call();
+		GitBlitSuite.close(git);
+		for (PushResult result : results) {
+			for (RemoteRefUpdate update : result.getRemoteUpdates()) {
+				assertEquals(Status.OK, update.getStatus());
+			}
+		}
+
+		// the cached model shows the pushed commit
+		RepositoryModel pushed = repositories().getRepositoryModel(model.name);
+		assertTrue(pushed.hasCommits);
+		assertEquals(commit.getCommitterIdent().getWhen(), pushed.lastChange);
+
+		GitBlitSuite.close(local);
+		GitBlitSuite.close(new File(GitBlitSuite.REPOSITORIES, model.name));
+	}
+
 	@Test
 	public void testPushLog() throws IOException {
 		String name = "refchecks/ticgit.git";
@@ -26,7 +26,9 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.TimeZone;
 
+import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.diff.DiffEntry.ChangeType;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.FileMode;
@@ -41,19 +43,25 @@ import org.eclipse.jgit.revplot.PlotLane;
 import org.eclipse.jgit.revplot.PlotWalk;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.util.FS;
 import org.eclipse.jgit.util.FileUtils;
 import org.junit.Test;
 
 import com.gitblit.Constants.SearchType;
 import com.gitblit.models.GitNote;
+import com.gitblit.models.LastCommitModel;
 import com.gitblit.models.PathModel;
 import com.gitblit.models.PathModel.PathChangeModel;
 import com.gitblit.models.RefModel;
 import com.gitblit.utils.CompressionUtils;
 import com.gitblit.utils.JGitUtils;
 import com.gitblit.utils.JnaUtils;
+import com.gitblit.utils.LastCommitCache;
+import com.gitblit.utils.RefCache;
+import com.gitblit.utils.RevLogIndex;
 import com.gitblit.utils.StringUtils;
+import com.gitblit.utils.TreeListingCache;
 
 import static org.junit.Assume.assumeTrue;
 
@@ -614,6 +622,299 @@ public class JGitUtilsTest extends GitblitUnitTest {
 		repository.close();
 	}
 
+	@Test
+	public void testFilesInPath2Compression() throws Exception {
+		File folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-tree-" + System.currentTimeMillis());
+		Git git = Git.init().setDirectory(folder).call();
+		try {
+			for (String path : new String[] { "top.txt", "a/b/c/one.txt", "a/b/c/two.txt", "a/b/d.txt", "x/y/z/deep.txt" }) {
+				File file = new File(folder, path);
+				file.getParentFile().mkdirs();
+				Files.write(file.toPath(), path.getBytes("UTF-8"));
+			}
+			git.add().addFilepattern(".").call();
+			RevCommit commit = git.commit().setMessage("tree").call();
+			Repository repository = git.getRepository();
+
+			List<PathModel> files = JGitUtils.getFilesInPath2(repository, null, commit);
+			assertEquals(3, files.size());
+			assertTrue(files.get(0).isTree());
+			assertEquals("a/b", files.get(0).name);
+			assertEquals("a/b", files.get(0).path);
+			assertEquals("x/y/z", files.get(1).name);
+			assertEquals("top.txt", files.get(2).name);
+			assertEquals(7, files.get(2).size);
+			assertEquals(commit.getName(), files.get(2).commitId);
+
+			files = JGitUtils.getFilesInPath2(repository, "a", commit);
+			assertEquals(1, files.size());
+			assertEquals("b", files.get(0).name);
+			assertEquals("a/b", files.get(0).path);
+
+			files = JGitUtils.getFilesInPath2(repository, "a/b/", commit);
+			assertEquals(2, files.size());
+			assertEquals("c", files.get(0).name);
+			assertEquals("a/b/c", files.get(0).path);
+			assertEquals("d.txt", files.get(1).name);
+			assertEquals("a/b/d.txt", files.get(1).path);
+
+			assertEquals(0, JGitUtils.getFilesInPath2(repository, "top.txt", commit).size());
+			assertEquals(0, JGitUtils.getFilesInPath2(repository, "missing", commit).size());
+
+			// the entries of a tree are read once
+			long hits = TreeListingCache.instance().getStatistics().hits;
+			JGitUtils.getFilesInPath2(repository, "a/b", commit);
+			assertEquals(hits + 1, TreeListingCache.instance().getStatistics().hits);
+		} finally {
+			git.close();
+			FileUtils.delete(folder, FileUtils.RECURSIVE);
+		}
+	}
+
+	@Test
+	public void testRefCache() throws Exception {
+		File folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-refs-" + System.currentTimeMillis());
+		Git git = Git.init().setDirectory(folder).call();
+		try {
+			File file = new File(folder, "file.txt");
+			Files.write(file.toPath(), "one".getBytes("UTF-8"));
+			git.add().addFilepattern(".").call();
+			RevCommit first = git.commit().setMessage("first")
+					.setAuthor(new PersonIdent("A", "a@b.c", new Date(1000000000000L), TimeZone.getDefault())).call();
+			git.tag().setName("v1").setObjectId(first).setAnnotated(false).call();
+			git.branchCreate().setName("old").call();
+			Files.write(file.toPath(), "two".getBytes("UTF-8"));
+			RevCommit second = git.commit().setAll(true).setMessage("second").call();
+			git.tag().setName("v2").setObjectId(second).setAnnotated(false).call();
+			Repository repository = git.getRepository();
+
+			List<RefModel> branches = JGitUtils.getLocalBranches(repository, false, -1);
+			assertEquals(2, branches.size());
+			assertEquals("master", branches.get(0).displayName);
+			assertEquals("old", branches.get(1).displayName);
+			assertEquals("refs/heads/old", branches.get(1).getName());
+
+			// unchanged refs are served from the cache without parsing
+			RefModel tag = JGitUtils.getTags(repository, true, -1).get(1);
+			assertEquals("refs/tags/v1", tag.displayName);
+			assertTrue(tag == JGitUtils.getTags(repository, true, -1).get(1));
+
+			// pages of the sorted refs
+			assertEquals(4, JGitUtils.getRefs(repository, "refs/").size());
+			List<RefModel> page = JGitUtils.getLocalBranches(repository, true, 1);
+			assertEquals(1, page.size());
+			assertEquals("refs/heads/master", page.get(0).displayName);
+			assertEquals("v2", JGitUtils.getTags(repository, false, 1, 0).get(0).displayName);
+			assertEquals("v1", JGitUtils.getTags(repository, false, 1, 1).get(0).displayName);
+			assertEquals(0, JGitUtils.getTags(repository, false, 1, 5).size());
+
+			// new and deleted refs are picked up
+			git.branchCreate().setName("new").call();
+			assertEquals(3, JGitUtils.getLocalBranches(repository, false, -1).size());
+			git.branchDelete().setBranchNames("old").setForce(true).call();
+			branches = JGitUtils.getLocalBranches(repository, false, -1);
+			assertEquals(2, branches.size());
+			for (RefModel branch : branches) {
+				assertFalse("old".equals(branch.displayName));
+			}
+			assertTrue(tag.referencedObject == JGitUtils.getTags(repository, true, -1).get(1).referencedObject);
+		} finally {
+			git.close();
+			RefCache.instance().clear(folder);
+			FileUtils.delete(folder, FileUtils.RECURSIVE);
+		}
+	}
+
+	@Test
+	public void testLastCommits() throws Exception {
+		Repository repository = GitBlitSuite.getTicgitRepository();
+		RevCommit commit = JGitUtils.getCommit(repository, null);
+		for (String path : new String[] { null, "lib", "lib/ticgit-ng", "bin" }) {
+			List<PathModel> entries = JGitUtils.getFilesInPath2(repository, path, commit);
+			List<LastCommitModel> commits = JGitUtils.getLastCommits(repository, path, commit);
+			assertEquals(entries.size(), commits.size());
+			for (int i = 0; i < entries.size(); i++) {
+				// the same commit as a path-filtered log of the entry
+				String entryPath = entries.get(i).path;
+				RevCommit last = JGitUtils.getRevLog(repository, commit.getName(), entryPath, 0, 1).get(0);
+				assertEquals(entryPath, commits.get(i).path);
+				assertEquals(entryPath, last.getName(), commits.get(i).commitId);
+				assertEquals(last.getShortMessage(), commits.get(i).shortMessage);
+			}
+		}
+		assertEquals(0, JGitUtils.getLastCommits(repository, "missing", commit).size());
+
+		// persisted last commits survive clearing the cache
+		File folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-lastcommits-" + System.currentTimeMillis());
+		LastCommitCache cache = LastCommitCache.instance();
+		cache.setFolder(folder);
+		try {
+			cache.clear();
+			List<LastCommitModel> commits = cache.getLastCommits(repository, "lib/", commit);
+			assertTrue(commits.size() > 0);
+			assertTrue(folder.exists());
+			cache.clear();
+			long misses = cache.getStatistics().misses;
+			List<LastCommitModel> stored = cache.getLastCommits(repository, "lib", commit);
+			assertEquals(misses + 1, cache.getStatistics().misses);
+			assertEquals(commits.size(), stored.size());
+			for (int i = 0; i < commits.size(); i++) {
+				assertEquals(commits.get(i).path, stored.get(i).path);
+				assertEquals(commits.get(i).commitId, stored.get(i).commitId);
+				assertEquals(commits.get(i).date.getTime() / 1000, stored.get(i).date.getTime() / 1000);
+			}
+		} finally {
+			cache.setFolder(null);
+			cache.clear();
+			FileUtils.delete(folder, FileUtils.RECURSIVE);
+			repository.close();
+		}
+	}
+
+	@Test
+	public void testLastCommitsIncrementally() throws Exception {
+		Repository repository = GitBlitSuite.getTicgitRepository();
+		File folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-lastcommits-" + System.currentTimeMillis());
+		LastCommitCache cache = LastCommitCache.instance();
+		cache.setFolder(folder);
+		RevWalk rw = new RevWalk(repository);
+		try {
+			cache.clear();
+			RevCommit commit = rw.parseCommit(repository.resolve(Constants.HEAD));
+			RevCommit[] commits = new RevCommit[20];
+			for (int i = 0; i < commits.length; i++) {
+				commits[i] = commit;
+				commit = rw.parseCommit(commit.getParent(0));
+			}
+
+			// the unchanged entries keep their last commits at the ancestor
+			for (int i = 0; i < commits.length - 1; i++) {
+				for (String path : new String[] { null, "lib" }) {
+					List<LastCommitModel> ancestorCommits = JGitUtils.getLastCommits(repository, path, commits[i + 1]);
+					List<LastCommitModel> expected = JGitUtils.getLastCommits(repository, path, commits[i]);
+					List<LastCommitModel> reused = JGitUtils.getLastCommits(repository, path, commits[i],
+							commits[i + 1], ancestorCommits);
+					assertLastCommits(expected, reused);
+					if (path == null) {
+						int unchanged = 0;
+						for (LastCommitModel model : reused) {
+							if (ancestorCommits.contains(model)) {
+								unchanged++;
+							}
+						}
+						assertTrue(unchanged > 0);
+					}
+				}
+			}
+
+			// the cached root folder is resolved from the previous push
+			for (int i = commits.length - 1; i >= 0; i--) {
+				assertLastCommits(JGitUtils.getLastCommits(repository, null, commits[i]),
+						cache.getLastCommits(repository, null, commits[i]));
+			}
+			assertTrue(folder.exists());
+
+			// the persisted last commits are pruned to the maximum size
+			cache.setMaximumFolderBytes(1);
+			cache.clear();
+			cache.getLastCommits(repository, "bin", commits[0]);
+			assertEquals(0, countJsonFiles(folder));
+		} finally {
+			rw.dispose();
+			cache.setMaximumFolderBytes(256 * 1024 * 1024L);
+			cache.setFolder(null);
+			cache.clear();
+			FileUtils.delete(folder, FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+			repository.close();
+		}
+	}
+
+	private void assertLastCommits(List<LastCommitModel> expected, List<LastCommitModel> commits) {
+		assertEquals(expected.size(), commits.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).path, commits.get(i).path);
+			assertEquals(expected.get(i).path, expected.get(i).commitId, commits.get(i).commitId);
+		}
+	}
+
+	private int countJsonFiles(File folder) {
+		int count = 0;
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				count += file.isDirectory() ? countJsonFiles(file) : file.getName().endsWith(".json") ? 1 : 0;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testRevLogPages() throws Exception {
+		Repository repository = GitBlitSuite.getTicgitRepository();
+		List<RevCommit> log = JGitUtils.getRevLog(repository, null, 0, -1);
+		RevLogIndex index = RevLogIndex.instance();
+		index.setInterval(7);
+		try {
+			// pages at offsets resume from the indexed positions
+			for (int offset : new int[] { 40, 3, 21, 0, 50, log.size() - 2, log.size() }) {
+				List<RevCommit> page = JGitUtils.getRevLog(repository, null, offset, 10);
+				assertEquals(Math.max(0, Math.min(10, log.size() - offset)), page.size());
+				for (int i = 0; i < page.size(); i++) {
+					assertEquals(log.get(offset + i), page.get(i));
+				}
+			}
+			assertTrue(index.getStatistics().hits > 0);
+
+			// pages continued from the cursor of the previous page
+			int position = 0;
+			String cursor = null;
+			RevLogIndex.Page page;
+			do {
+				page = JGitUtils.getRevLogPage(repository, null, cursor, position, 25);
+				for (RevCommit commit : page.commits) {
+					assertEquals(log.get(position++), commit);
+				}
+				cursor = page.next == null ? null : page.next.encode();
+				if (page.next != null) {
+					assertEquals(position, page.next.position);
+				}
+			} while (page.next != null);
+			assertEquals(log.size(), position);
+
+			// cursors of another tip or position fall back to the offset
+			String other = new RevLogIndex.Cursor(log.get(1), 25, Arrays.<ObjectId> asList(log.get(1))).encode();
+			page = JGitUtils.getRevLogPage(repository, null, other, 25, 10);
+			assertEquals(log.get(25), page.commits.get(0));
+			String moved = new RevLogIndex.Cursor(log.get(0), 25, Arrays.<ObjectId> asList(log.get(1))).encode();
+			page = JGitUtils.getRevLogPage(repository, null, moved, 50, 10);
+			assertEquals(log.get(50), page.commits.get(0));
+
+			// a forged frontier falls back to the offset
+			String valid = new RevLogIndex.Cursor(log.get(0), 25, Arrays.<ObjectId> asList(log.get(25))).encode();
+			String signature = valid.substring(valid.lastIndexOf('.'));
+			String forged = "25." + log.get(0).getName() + "." + log.get(40).getName() + signature;
+			page = JGitUtils.getRevLogPage(repository, null, forged, 25, 10);
+			assertEquals(log.get(25), page.commits.get(0));
+		} finally {
+			index.setInterval(1000);
+			repository.close();
+		}
+
+		assertNull(RevLogIndex.Cursor.decode(null));
+		assertNull(RevLogIndex.Cursor.decode("25"));
+		assertNull(RevLogIndex.Cursor.decode("-1." + log.get(0).getName()));
+		assertNull(RevLogIndex.Cursor.decode("25.master"));
+		assertNull(RevLogIndex.Cursor.decode("25." + log.get(0).getName()));
+		String unsigned = "25." + log.get(0).getName() + "." + log.get(1).getName();
+		assertNull(RevLogIndex.Cursor.decode(unsigned));
+		assertNull(RevLogIndex.Cursor.decode(unsigned + ".0123456789abcdef0123"));
+		RevLogIndex.Cursor cursor = RevLogIndex.Cursor.decode(
+				new RevLogIndex.Cursor(log.get(0), 25, Arrays.<ObjectId> asList(log.get(1))).encode());
+		assertEquals(25, cursor.position);
+		assertEquals(log.get(0), cursor.tip);
+		assertEquals(log.get(1), cursor.frontier.get(0));
+	}
+
 	@Test
 	public void testDocuments() throws Exception {
 		Repository repository = GitBlitSuite.getTicgitRepository();
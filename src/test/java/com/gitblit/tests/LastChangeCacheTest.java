@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gitblit.utils.FileUtils;
+import com.gitblit.utils.JGitUtils;
+import com.gitblit.utils.JGitUtils.LastChange;
+import com.gitblit.utils.LastChangeCache;
+
+public class LastChangeCacheTest extends GitblitUnitTest {
+
+	private File folder;
+
+	private Git git;
+
+	@Before
+	public void createRepository() throws Exception {
+		folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-lastchange-" + System.currentTimeMillis());
+		git = Git.init().setDirectory(folder).call();
+	}
+
+	@After
+	public void deleteRepository() throws Exception {
+		git.close();
+		FileUtils.delete(folder);
+	}
+
+	@Test
+	public void testLastChange() throws Exception {
+		Repository repository = git.getRepository();
+		LastChange empty = JGitUtils.getLastChange(repository);
+		assertNull(empty.who);
+
+		commit("alice", 1000);
+		assertLastChange("alice", 1000, JGitUtils.getLastChange(repository));
+
+		// a new branch with a more recent commit
+		git.checkout().setCreateBranch(true).setName("feature").call();
+		commit("bob", 2000);
+		assertLastChange("bob", 2000, JGitUtils.getLastChange(repository));
+
+		// deleting the branch reverts to the older branch
+		git.checkout().setName("master").call();
+		git.branchDelete().setBranchNames("feature").setForce(true).call();
+		assertLastChange("alice", 1000, JGitUtils.getLastChange(repository));
+	}
+
+	@Test
+	public void testPushUpdate() throws Exception {
+		Repository repository = git.getRepository();
+		RevCommit first = commit("alice", 1000);
+		assertLastChange("alice", 1000, JGitUtils.getLastChange(repository));
+
+		// simulate a push which created a branch
+		RevCommit second = commit("carol", 3000);
+		git.reset().setRef(first.getName()).call();
+		ReceiveCommand create = new ReceiveCommand(ObjectId.zeroId(), second.getId(), "refs/heads/pushed");
+		create.setResult(ReceiveCommand.Result.OK);
+		JGitUtils.setBranchRef(repository, "refs/heads/pushed", second.getName());
+		LastChangeCache.instance().update(repository, Arrays.asList(create));
+		assertLastChange("carol", 3000, JGitUtils.getLastChange(repository));
+
+		// rejected commands are ignored
+		ReceiveCommand delete = new ReceiveCommand(second.getId(), ObjectId.zeroId(), "refs/heads/pushed");
+		delete.setResult(ReceiveCommand.Result.REJECTED_OTHER_REASON);
+		LastChangeCache.instance().update(repository, Arrays.asList(delete));
+		assertLastChange("carol", 3000, JGitUtils.getLastChange(repository));
+	}
+
+	@Test
+	public void testWatchedRepository() throws Exception {
+		Repository repository = git.getRepository();
+		File gitDir = repository.getDirectory();
+		LastChangeCache.instance().watch(gitDir);
+		try {
+			RevCommit first = commit("alice", 1000);
+			assertLastChange("alice", 1000, JGitUtils.getLastChange(repository));
+
+			// the refs of a watched repository are not read until a change is reported
+			commit("bob", 2000);
+			assertLastChange("alice", 1000, JGitUtils.getLastChange(repository));
+			LastChangeCache.instance().changed(gitDir);
+			assertLastChange("bob", 2000, JGitUtils.getLastChange(repository));
+
+			// a push updates the entry without a reported change
+			RevCommit third = commit("carol", 3000);
+			git.reset().setRef(first.getName()).call();
+			ReceiveCommand create = new ReceiveCommand(ObjectId.zeroId(), third.getId(), "refs/heads/pushed");
+			create.setResult(ReceiveCommand.Result.OK);
+			JGitUtils.setBranchRef(repository, "refs/heads/pushed", third.getName());
+			LastChangeCache.instance().update(repository, Arrays.asList(create));
+			assertLastChange("carol", 3000, JGitUtils.getLastChange(repository));
+		} finally {
+			LastChangeCache.instance().unwatch(gitDir);
+		}
+
+		// an unwatched repository is validated by its refs stamp again
+		git.branchDelete().setBranchNames("pushed").setForce(true).call();
+		assertLastChange("alice", 1000, JGitUtils.getLastChange(repository));
+	}
+
+	private RevCommit commit(String author, long seconds) throws Exception {
+		PersonIdent ident = new PersonIdent(author, author + "@gitblit.com", new Date(seconds * 1000L),
+				TimeZone.getTimeZone("UTC"));
+		return git.commit().setAuthor(ident).setCommitter(ident).setMessage("commit by " + author).call();
+	}
+
+	private void assertLastChange(String who, long seconds, LastChange lastChange) {
+		assertEquals(who, lastChange.who);
+		assertEquals(seconds * 1000L, lastChange.when.getTime());
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.gitblit.cache.CacheConfig;
+import com.gitblit.cache.CacheLoader;
+import com.gitblit.cache.ICache;
+import com.gitblit.cache.ICacheProvider;
+import com.gitblit.cache.MemoryCacheProvider;
+import com.gitblit.cache.Weigher;
+import com.gitblit.models.CacheStatistics;
+
+public class MemoryCacheTest extends GitblitUnitTest {
+
+	@Test
+	public void testMaximumSize() throws Exception {
+		ICache<String, String> cache = new MemoryCacheProvider().getCache(
+				new CacheConfig<String, String>("size").maximumSize(2));
+		cache.put("a", "alpha");
+		cache.put("b", "beta");
+		assertEquals("alpha", cache.get("a"));
+		// b is the least recently used entry
+		cache.put("c", "gamma");
+		assertEquals(2, cache.size());
+		assertNull(cache.get("b"));
+		assertEquals("alpha", cache.get("a"));
+		assertEquals("gamma", cache.get("c"));
+
+		CacheStatistics stats = cache.getStatistics();
+		assertEquals(3, stats.hits);
+		assertEquals(1, stats.misses);
+		assertEquals(1, stats.evictions);
+		assertEquals(2, stats.maximumWeight);
+
+		// peeks are not counted
+		assertEquals("alpha", cache.peek("a"));
+		assertNull(cache.peek("b"));
+		assertEquals(3, cache.getStatistics().hits);
+		assertEquals(1, cache.getStatistics().misses);
+	}
+
+	@Test
+	public void testMaximumWeight() throws Exception {
+		ICache<String, String> cache = new MemoryCacheProvider().getCache(
+				new CacheConfig<String, String>("weight").maximumWeight(10, new Weigher<String, String>() {
+					@Override
+					public int weigh(String key, String value) {
+						return value.length();
+					}
+				}));
+		cache.put("a", "alpha");
+		cache.put("b", "beta");
+		assertEquals(9, cache.getStatistics().weight);
+		cache.put("c", "gamma");
+		assertNull(cache.get("a"));
+		assertEquals("beta", cache.get("b"));
+		assertEquals(9, cache.getStatistics().weight);
+		assertEquals("beta", cache.remove("b"));
+		assertEquals(5, cache.getStatistics().weight);
+	}
+
+	@Test
+	public void testStamp() throws Exception {
+		ICache<String, String> cache = new MemoryCacheProvider().getCache(new CacheConfig<String, String>("stamp"));
+		final AtomicInteger loads = new AtomicInteger();
+		CacheLoader<String, String> loader = new CacheLoader<String, String>() {
+			@Override
+			public String load(String key) {
+				return key + loads.incrementAndGet();
+			}
+		};
+		assertEquals("a1", cache.get("a", 1, loader));
+		assertEquals("a1", cache.get("a", 1, loader));
+		assertEquals("a1", cache.get("a", 1));
+		assertNull(cache.get("a", 2));
+		assertEquals("a2", cache.get("a", 2, loader));
+		assertEquals("a2", cache.get("a"));
+		assertEquals(2, loads.get());
+
+		// null values are not cached
+		assertNull(cache.get("b", 1, new CacheLoader<String, String>() {
+			@Override
+			public String load(String key) {
+				return null;
+			}
+		}));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testExpiration() throws Exception {
+		ICache<String, String> cache = new MemoryCacheProvider().getCache(
+				new CacheConfig<String, String>("expiration").expireAfterWrite(20, TimeUnit.MILLISECONDS));
+		cache.put("a", "alpha");
+		assertEquals("alpha", cache.get("a"));
+		Thread.sleep(50);
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testSingleLoad() throws Exception {
+		final ICache<String, String> cache = new MemoryCacheProvider().getCache(new CacheConfig<String, String>("load"));
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CacheLoader<String, String> loader = new CacheLoader<String, String>() {
+			@Override
+			public String load(String key) {
+				loads.incrementAndGet();
+				loading.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "value";
+			}
+		};
+		final List<String> values = new ArrayList<String>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 8; i++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					String value = cache.get("key", 1, loader);
+					synchronized (values) {
+						values.add(value);
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+			if (i == 0) {
+				// the first thread loads the value while the others wait
+				assertTrue(loading.await(5, TimeUnit.SECONDS));
+			}
+		}
+		Thread.sleep(50);
+		release.countDown();
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+		assertEquals(1, loads.get());
+		assertEquals(8, values.size());
+		for (String value : values) {
+			assertEquals("value", value);
+		}
+	}
+
+	@Test
+	public void testProvider() throws Exception {
+		ICacheProvider provider = new MemoryCacheProvider();
+		ICache<String, String> b = provider.getCache(new CacheConfig<String, String>("b"));
+		ICache<String, String> a = provider.getCache(new CacheConfig<String, String>("a"));
+		assertSame(a, provider.getCache(new CacheConfig<String, String>("a")));
+		a.put("key", "value");
+		b.put("key", "value");
+		List<CacheStatistics> stats = provider.getStatistics();
+		assertEquals(2, stats.size());
+		assertEquals("a", stats.get(0).name);
+		assertEquals(1, stats.get(0).entries);
+		provider.clear();
+		assertEquals(0, a.size());
+		assertEquals(0, b.size());
+	}
+}
@@ -15,13 +15,20 @@
  */
 package com.gitblit.tests;
 
+import java.io.File;
+import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
 
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Repository;
 import org.junit.Test;
 
 import com.gitblit.models.Metric;
+import com.gitblit.utils.BranchMetrics;
+import com.gitblit.utils.FileUtils;
 import com.gitblit.utils.MetricUtils;
 
 public class MetricUtilsTest extends GitblitUnitTest {
@@ -48,4 +55,83 @@ public class MetricUtilsTest extends GitblitUnitTest {
 		assertEquals("No author metrics found!", GitBlitSuite.helloworldSettings.getInteger(HelloworldKeys.users.byEmail, -1), byEmail.size());
 		assertEquals("No author metrics found!", GitBlitSuite.helloworldSettings.getInteger(HelloworldKeys.users.byName, -1), byName.size());
 	}
+
+	@Test
+	public void testIncrementalMetrics() throws Exception {
+		Repository repository = GitBlitSuite.getTicgitRepository();
+		TimeZone timezone = TimeZone.getDefault();
+		BranchMetrics previous = MetricUtils.getBranchMetrics(repository, "HEAD~20", timezone, null);
+		BranchMetrics updated = MetricUtils.getBranchMetrics(repository, null, timezone, previous);
+		BranchMetrics full = MetricUtils.getBranchMetrics(repository, null, timezone, null);
+		assertSame(updated, MetricUtils.getBranchMetrics(repository, null, timezone, updated));
+		repository.close();
+
+		assertTrue(previous.getCount() < updated.getCount());
+		assertEquals(full.getTip(), updated.getTip());
+		assertEquals(full.getCount(), updated.getCount());
+		assertMetrics(full.getDateMetrics(true, null), updated.getDateMetrics(true, null));
+		assertMetrics(full.getDateMetrics(false, "E"), updated.getDateMetrics(false, "E"));
+		assertMetrics(full.getAuthorMetrics(true), updated.getAuthorMetrics(true));
+		assertMetrics(full.getAuthorMetrics(false), updated.getAuthorMetrics(false));
+	}
+
+	@Test
+	public void testRewrittenMetrics() throws Exception {
+		File folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-metrics-" + System.currentTimeMillis());
+		Git git = Git.init().setDirectory(folder).call();
+		try {
+			TimeZone timezone = TimeZone.getTimeZone("UTC");
+			commit(git, "first", "2020-01-01");
+			commit(git, "second", "2020-01-02");
+			git.tag().setName("v1").call();
+			BranchMetrics previous = MetricUtils.getBranchMetrics(git.getRepository(), null, timezone, null);
+			assertEquals(2, previous.getCount());
+
+			// a fast-forward update counts the new commits
+			commit(git, "third", "2020-01-02");
+			BranchMetrics updated = MetricUtils.getBranchMetrics(git.getRepository(), null, timezone, previous);
+			assertEquals(3, updated.getCount());
+			List<Metric> metrics = updated.getDateMetrics(true, null);
+			assertEquals(3, metrics.size());
+			assertEquals(3, metrics.get(0).count, 0);
+			assertEquals(1, metrics.get(0).tag, 0);
+			assertEquals("2020-01-02", metrics.get(2).name);
+			assertEquals(2, metrics.get(2).count, 0);
+			assertEquals(1, metrics.get(2).tag, 0);
+
+			// a tag of a counted commit is reflected without a walk
+			git.tag().setName("v0").setObjectId(git.log().call().iterator().next().getParent(0).getParent(0)).call();
+			updated = MetricUtils.getBranchMetrics(git.getRepository(), null, timezone, updated);
+			assertEquals(2, updated.getDateMetrics(true, null).get(0).tag, 0);
+			assertEquals(1, updated.getDateMetrics(true, null).get(1).tag, 0);
+
+			// a rewritten branch is recomputed
+			git.reset().setMode(ResetType.HARD).setRef("HEAD~2").call();
+			commit(git, "rewritten", "2020-01-03");
+			BranchMetrics rewritten = MetricUtils.getBranchMetrics(git.getRepository(), null, timezone, updated);
+			assertEquals(2, rewritten.getCount());
+			metrics = rewritten.getDateMetrics(true, null);
+			assertEquals("2020-01-03", metrics.get(2).name);
+			assertEquals(1, metrics.get(0).tag, 0);
+		} finally {
+			git.close();
+			FileUtils.delete(folder);
+		}
+	}
+
+	private void commit(Git git, String message, String day) throws Exception {
+		Date date = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm Z").parse(day + " 12:00 +0000");
+		PersonIdent ident = new PersonIdent("tester", "tester@gitblit.com", date, TimeZone.getTimeZone("UTC"));
+		git.commit().setMessage(message).setAuthor(ident).setCommitter(ident).call();
+	}
+
+	private void assertMetrics(List<Metric> expected, List<Metric> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).name, actual.get(i).name);
+			assertEquals(expected.get(i).name, expected.get(i).count, actual.get(i).count, 0);
+			assertEquals(expected.get(i).name, expected.get(i).tag, actual.get(i).tag, 0);
+			assertEquals(expected.get(i).duration, actual.get(i).duration);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.gitblit.Constants.AccessPermission;
+import com.gitblit.Constants.Transport;
+import com.gitblit.models.RepositoryModel;
+import com.gitblit.models.TeamModel;
+import com.gitblit.models.UserModel;
+import com.gitblit.models.UserRepositoryPreferences;
+import com.gitblit.utils.DeepCopier;
+import com.gitblit.utils.JsonUtils;
+
+/**
+ * Tests that the structural copies of the models are equivalent to a
+ * serialization round-trip.  Every serialized field is populated by
+ * reflection, so a field which is added to a model but not to its copy method
+ * fails this test.
+ */
+public class ModelCopyTest extends GitblitUnitTest {
+
+	@Test
+	public void testRepositoryModel() throws Exception {
+		RepositoryModel model = populate(new RepositoryModel("group/repository.git", "description", "james", new Date()));
+		model.customFields = new LinkedHashMap<String, String>();
+		model.customFields.put("field", "value");
+		model.forks = new TreeSet<String>(Arrays.asList("~james/repository.git"));
+		model.toString();
+
+		RepositoryModel copy = model.copy();
+		assertEquivalent(DeepCopier.copy(model), copy);
+		assertNotSame(model.owners, copy.owners);
+		assertNotSame(model.customFields, copy.customFields);
+		assertNotSame(model.forks, copy.forks);
+		assertNotSame(model.lastChange, copy.lastChange);
+	}
+
+	@Test
+	public void testTeamModel() throws Exception {
+		TeamModel team = newTeam("developers");
+		TeamModel copy = team.copy();
+		assertEquivalent(DeepCopier.copy(team), copy);
+		assertNotSame(team.permissions, copy.permissions);
+		assertNotSame(team.users, copy.users);
+	}
+
+	@Test
+	public void testUserModel() throws Exception {
+		UserModel user = populate(new UserModel("james"));
+		user.permissions.put("private/.*", AccessPermission.PUSH);
+		user.repositories.add("private/.*");
+		user.teams.add(newTeam("developers"));
+		user.getPreferences().setLocale("en_US");
+		user.getPreferences().setTransport(Transport.SSH);
+		user.getPreferences().setEmailMeOnMyTicketChanges(false);
+		UserRepositoryPreferences prefs = user.getPreferences().getRepositoryPreferences("helloworld.git");
+		prefs.starred = true;
+
+		UserModel copy = user.copy();
+		assertEquivalent(DeepCopier.copy(user), copy);
+		assertNotSame(user.teams.iterator().next(), copy.teams.iterator().next());
+		assertNotSame(prefs, copy.getPreferences().getRepositoryPreferences("helloworld.git"));
+
+		UserModel anonymous = UserModel.ANONYMOUS.copy();
+		assertEquivalent(DeepCopier.copy(UserModel.ANONYMOUS), anonymous);
+		assertFalse(anonymous.isAuthenticated);
+	}
+
+	@Test
+	public void testSharedTeams() throws Exception {
+		TeamModel team = newTeam("developers");
+		UserModel a = new UserModel("a");
+		UserModel b = new UserModel("b");
+		a.teams.add(team);
+		b.teams.add(team);
+		Map<TeamModel, TeamModel> copies = new IdentityHashMap<TeamModel, TeamModel>();
+		TeamModel copyA = a.copy(copies).teams.iterator().next();
+		TeamModel copyB = b.copy(copies).teams.iterator().next();
+		assertSame(copyA, copyB);
+		assertNotSame(team, copyA);
+	}
+
+	private TeamModel newTeam(String name) throws Exception {
+		TeamModel team = populate(new TeamModel(name));
+		team.users.add("james");
+		team.repositories.add("helloworld.git");
+		team.permissions.put("helloworld.git", AccessPermission.CLONE);
+		team.mailingLists.add("developers@gitblit.com");
+		team.preReceiveScripts.add("blockpush");
+		team.postReceiveScripts.add("sendmail");
+		return team;
+	}
+
+	/**
+	 * Sets every mutable, serialized field of the model which has a
+	 * default value to a non-default value.
+	 */
+	private <X> X populate(X model) throws Exception {
+		int i = 0;
+		for (Field field : model.getClass().getDeclaredFields()) {
+			int modifiers = field.getModifiers();
+			if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || Modifier.isFinal(modifiers)) {
+				continue;
+			}
+			field.setAccessible(true);
+			Class<?> type = field.getType();
+			i++;
+			if (type == String.class) {
+				field.set(model, field.getName() + i);
+			} else if (type == boolean.class) {
+				field.setBoolean(model, !field.getBoolean(model));
+			} else if (type == int.class) {
+				field.setInt(model, i);
+			} else if (type == Date.class) {
+				field.set(model, new Date(i * 1000L));
+			} else if (type.isEnum()) {
+				Object [] constants = type.getEnumConstants();
+				field.set(model, constants[constants.length - 1]);
+			} else if (type == List.class) {
+				field.set(model, new ArrayList<String>(Arrays.asList(field.getName() + i)));
+			} else if (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)
+					|| field.get(model) != null) {
+				// populated by the caller
+				continue;
+			} else {
+				fail("unhandled field " + field.getName());
+			}
+		}
+		return model;
+	}
+
+	private void assertEquivalent(Object expected, Object actual) {
+		assertEquals(expected.getClass(), actual.getClass());
+		assertEquals(JsonUtils.toJsonString(expected), JsonUtils.toJsonString(actual));
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.gitblit.Constants.AccessPermission;
+import com.gitblit.Constants.AccessRestrictionType;
+import com.gitblit.models.RepositoryModel;
+import com.gitblit.models.UserModel;
+import com.gitblit.utils.PermissionMatcher;
+import com.gitblit.utils.StringUtils;
+
+/**
+ * Tests that the compiled permission matcher is equivalent to matching each
+ * permission key as a regular expression.  Run with -Dgitblit.benchmark=true
+ * to also time the permission lookup of a user with many regex permissions.
+ */
+public class PermissionMatcherTest extends GitblitUnitTest {
+
+	private static final String [] KEYS = { "myrepo.git", "private/.*", "[a-c].*\\.git", "readme",
+			"\u00dcBER.git", "frameworks/.*\\.git", "caf\u00e9" };
+
+	private static final String [] NAMES = { "myrepo.git", "MyRepo.git", "myrepoXgit", "private/a.git",
+			"PRIVATE/b.git", "b.git", "B.GIT", "d.git", "readme", "README", "readme2", "\u00fcber.git",
+			"\u00dcBER.git", "frameworks/x.git", "caf\u00e9", "CAF\u00c9" };
+
+	@Test
+	public void testEquivalence() {
+		Map<String, AccessPermission> permissions = new LinkedHashMap<String, AccessPermission>();
+		for (String key : KEYS) {
+			permissions.put(key, AccessPermission.CLONE);
+		}
+		PermissionMatcher matcher = PermissionMatcher.of(null, permissions);
+		assertEquals(KEYS.length, matcher.getEntries().size());
+		for (PermissionMatcher.Entry entry : matcher.getEntries()) {
+			for (String name : NAMES) {
+				assertEquals(entry.key + " ~ " + name, StringUtils.matchesIgnoreCase(name, entry.key),
+						entry.matchesIgnoreCase(name));
+				assertEquals(entry.key + " = " + name, name.matches(entry.key), entry.matches(name));
+			}
+		}
+	}
+
+	@Test
+	public void testReuse() {
+		Map<String, AccessPermission> permissions = new LinkedHashMap<String, AccessPermission>();
+		permissions.put("a.*", AccessPermission.VIEW);
+		PermissionMatcher matcher = PermissionMatcher.of(null, permissions);
+		assertSame(matcher, PermissionMatcher.of(matcher, permissions));
+
+		permissions.put("a.*", AccessPermission.PUSH);
+		PermissionMatcher changed = PermissionMatcher.of(matcher, permissions);
+		assertNotSame(matcher, changed);
+		assertEquals(AccessPermission.PUSH, changed.getEntries().get(0).permission);
+
+		permissions.put("b.*", AccessPermission.PUSH);
+		assertNotSame(changed, PermissionMatcher.of(changed, permissions));
+	}
+
+	@Test
+	public void testUserPermissionChanges() {
+		RepositoryModel repository = new RepositoryModel("private/a.git", null, null, null);
+		repository.accessRestriction = AccessRestrictionType.VIEW;
+		UserModel user = new UserModel("james");
+		assertFalse(user.canView(repository));
+		user.setRepositoryPermission("private/.*", AccessPermission.VIEW);
+		assertTrue(user.canView(repository));
+		user.permissions.clear();
+		assertFalse(user.canView(repository));
+	}
+
+	@Test
+	public void testModificationCount() {
+		UserModel user = new UserModel("james");
+		user.setRepositoryPermission("a.*", AccessPermission.VIEW);
+		PermissionMatcher matcher = PermissionMatcher.of(null, user.permissions);
+		assertTrue(matcher.isCurrent(user.permissions));
+		assertSame(matcher, PermissionMatcher.of(matcher, user.permissions));
+
+		// any modification is noticed, an unchanged one keeps the compiled entries
+		user.setRepositoryPermission("a.*", AccessPermission.VIEW);
+		assertFalse(matcher.isCurrent(user.permissions));
+		PermissionMatcher modified = PermissionMatcher.of(matcher, user.permissions);
+		assertSame(matcher.getEntries(), modified.getEntries());
+		assertTrue(modified.isCurrent(user.permissions));
+		user.permissions.clear();
+		assertFalse(modified.isCurrent(user.permissions));
+		assertTrue(PermissionMatcher.of(modified, user.permissions).getEntries().isEmpty());
+
+		// the permissions are only modified through the map
+		try {
+			user.permissions.keySet().clear();
+			fail("modified the permissions through a view");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@Test(expected = PatternSyntaxException.class)
+	public void testInvalidRegex() {
+		Map<String, AccessPermission> permissions = new LinkedHashMap<String, AccessPermission>();
+		permissions.put("broken[.git", AccessPermission.VIEW);
+		PermissionMatcher.of(null, permissions).getEntries().get(0).matchesIgnoreCase("broken.git");
+	}
+
+	@Test
+	public void testBenchmark() {
+		Assume.assumeTrue(Boolean.getBoolean("gitblit.benchmark"));
+		UserModel user = new UserModel("james");
+		for (int i = 0; i < 200; i++) {
+			user.setRepositoryPermission("project" + i + "/.*", AccessPermission.CLONE);
+		}
+		RepositoryModel repository = new RepositoryModel("unmatched/repository.git", null, null, null);
+		repository.accessRestriction = AccessRestrictionType.VIEW;
+		int iterations = 2000;
+
+		// the previous path, a regex compiled for every key on every call
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			for (String key : user.permissions.keySet()) {
+				StringUtils.matchesIgnoreCase(repository.name, key);
+			}
+		}
+		long uncompiled = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			user.getRepositoryPermission(repository);
+		}
+		long compiled = System.nanoTime() - start;
+		System.out.println(MessageFormat.format("{0} lookups of 200 regex permissions: {1} msecs uncompiled, {2} msecs compiled",
+				iterations, uncompiled / 1000000L, compiled / 1000000L));
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.io.File;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.gitblit.utils.FileUtils;
+import com.gitblit.utils.JGitUtils;
+
+/**
+ * Tests the fork-join repository discovery against a synthetic repository
+ * layout.  Run with -Dgitblit.benchmark=true to also time the discovery of a
+ * 50,000 repository layout.
+ */
+public class RepositoryDiscoveryTest extends GitblitUnitTest {
+
+	private static File folder;
+
+	@BeforeClass
+	public static void createLayout() throws Exception {
+		folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-discovery-" + System.currentTimeMillis());
+		createBare(folder, "a.git");
+		createBare(folder, "group/b.git");
+		createBare(folder, "group/sub/c.git");
+		createBare(folder, "excluded/d.git");
+		createBare(folder, "deep/1/2/3/e.git");
+		createWorking(folder, "working");
+		new File(folder, "empty/folder").mkdirs();
+	}
+
+	@AfterClass
+	public static void deleteLayout() throws Exception {
+		FileUtils.delete(folder);
+	}
+
+	@Test
+	public void testDiscovery() throws Exception {
+		List<String> expected = Arrays.asList("a.git", "working", "deep/1/2/3/e.git",
+				"excluded/d.git", "group/b.git", "group/sub/c.git");
+		for (int parallelism : new int[] { 1, 0, 8 }) {
+			assertEquals(expected, JGitUtils.getRepositoryList(folder, false, true, -1, null, parallelism));
+		}
+	}
+
+	@Test
+	public void testOptions() throws Exception {
+		for (int parallelism : new int[] { 1, 8 }) {
+			assertEquals(Arrays.asList("a.git", "working", "excluded/d.git", "group/b.git"),
+					JGitUtils.getRepositoryList(folder, false, true, 2, null, parallelism));
+			assertEquals(Arrays.asList("a.git", "working"),
+					JGitUtils.getRepositoryList(folder, false, false, -1, null, parallelism));
+			assertEquals(Arrays.asList("a.git", "group/b.git", "group/sub/c.git"),
+					JGitUtils.getRepositoryList(folder, true, true, -1,
+							Arrays.asList("excluded", "deep/1/2"), parallelism));
+		}
+	}
+
+	@Test
+	public void testBenchmark() throws Exception {
+		Assume.assumeTrue(Boolean.getBoolean("gitblit.benchmark"));
+		File root = new File(System.getProperty("java.io.tmpdir"), "gitblit-discovery-benchmark");
+		int count = 50000;
+		if (!root.exists()) {
+			// 50 projects, 100 groups per project, 10 repositories per group
+			for (int i = 0; i < count; i++) {
+				createBare(root, "project" + (i / 1000) + "/group" + ((i / 10) % 100) + "/repository" + i + ".git");
+			}
+		}
+		int processors = Runtime.getRuntime().availableProcessors();
+		for (int parallelism : new int[] { 1, processors, processors * 4 }) {
+			// warm up once then average three runs
+			JGitUtils.getRepositoryList(root, false, true, -1, null, parallelism);
+			long start = System.nanoTime();
+			for (int i = 0; i < 3; i++) {
+				assertEquals(count, JGitUtils.getRepositoryList(root, false, true, -1, null, parallelism).size());
+			}
+			long msecs = (System.nanoTime() - start) / 3 / 1000000L;
+			System.out.println(MessageFormat.format("discovered {0} repositories with parallelism {1} in {2} msecs",
+					count, parallelism, msecs));
+		}
+	}
+
+	private static void createBare(File base, String name) throws Exception {
+		createGitDir(new File(base, name));
+	}
+
+	private static void createWorking(File base, String name) throws Exception {
+		createGitDir(new File(new File(base, name), ".git"));
+	}
+
+	private static void createGitDir(File gitDir) throws Exception {
+		new File(gitDir, "objects").mkdirs();
+		new File(gitDir, "refs/heads").mkdirs();
+		FileUtils.writeContent(new File(gitDir, "HEAD"), "ref: refs/heads/master\n");
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.gitblit.utils.RepositoryForkIndex;
+
+public class RepositoryForkIndexTest extends GitblitUnitTest {
+
+	@Test
+	public void testForkGraph() {
+		RepositoryForkIndex index = new RepositoryForkIndex();
+		index.add("origin", "Origin.git", null);
+		index.add("~james/origin", "~james/Origin.git", "origin");
+		index.add("~john/origin", "~john/Origin.git", "origin");
+		index.add("~jane/origin", "~jane/Origin.git", "~john/origin");
+
+		assertNull(index.getOrigin("origin"));
+		assertEquals("origin", index.getOrigin("~john/origin"));
+		assertEquals("~john/origin", index.getOrigin("~jane/origin"));
+		assertEquals(Arrays.asList("~james/Origin.git", "~john/Origin.git"), index.getForks("origin"));
+		assertEquals(Arrays.asList("~jane/Origin.git"), index.getForks("~john/origin"));
+
+		// a deleted fork is removed from its origin, its own forks remain
+		index.remove("~john/origin");
+		assertEquals(Arrays.asList("~james/Origin.git"), index.getForks("origin"));
+		assertEquals(Arrays.asList("~jane/Origin.git"), index.getForks("~john/origin"));
+
+		// a changed origin moves the fork
+		index.add("~jane/origin", "~jane/Origin.git", "origin");
+		assertEquals(Collections.emptyList(), index.getForks("~john/origin"));
+		assertEquals(Arrays.asList("~james/Origin.git", "~jane/Origin.git"), index.getForks("origin"));
+
+		index.clear();
+		assertNull(index.getOrigin("~james/origin"));
+		assertEquals(Collections.emptyList(), index.getForks("origin"));
+	}
+}
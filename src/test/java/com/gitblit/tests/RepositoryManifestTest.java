@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.jgit.lib.Repository;
+import org.junit.Test;
+
+import com.gitblit.models.RepositoryModel;
+import com.gitblit.utils.FileUtils;
+import com.gitblit.utils.JGitUtils;
+import com.gitblit.utils.RepositoryFingerprint;
+import com.gitblit.utils.RepositoryManifest;
+
+public class RepositoryManifestTest extends GitblitUnitTest {
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		File folder = new File(GitBlitSuite.REPOSITORIES, "manifest-test");
+		File file = File.createTempFile("gitblit-", ".manifest");
+		file.deleteOnExit();
+
+		RepositoryModel model = new RepositoryModel("ticgit.git", "a description", "owner", new Date());
+		model.addFork("~owner/ticgit.git");
+		RepositoryFingerprint fingerprint = new RepositoryFingerprint(1, 2);
+
+		RepositoryManifest manifest = new RepositoryManifest(file);
+		assertTrue(manifest.write(folder, "abc", Arrays.asList(new RepositoryManifest.Entry(model, fingerprint))));
+
+		List<RepositoryManifest.Entry> entries = manifest.read(folder, "abc");
+		assertEquals(1, entries.size());
+		RepositoryManifest.Entry entry = entries.get(0);
+		assertEquals("ticgit.git", entry.model.name);
+		assertEquals("a description", entry.model.description);
+		assertTrue(entry.model.forks.contains("~owner/ticgit.git"));
+		assertEquals(fingerprint, entry.fingerprint);
+
+		// mismatched settings or folder discard the manifest
+		assertTrue(manifest.read(folder, "def").isEmpty());
+		assertTrue(manifest.read(new File(folder, "other"), "abc").isEmpty());
+
+		// corrupt manifests are ignored
+		FileUtils.writeContent(file, "not a manifest");
+		assertTrue(manifest.read(folder, "abc").isEmpty());
+
+		manifest.delete();
+		assertFalse(file.exists());
+		assertTrue(manifest.read(folder, "abc").isEmpty());
+	}
+
+	@Test
+	public void testFingerprint() throws Exception {
+		Repository repository = GitBlitSuite.getHelloworldRepository();
+		File dir = repository.getDirectory();
+		RepositoryFingerprint fingerprint = RepositoryFingerprint.of(dir);
+		assertEquals(fingerprint, RepositoryFingerprint.of(dir));
+
+		// creating a ref changes the refs stamp but not the config stamp
+		String branch = "refs/heads/manifest-test";
+		JGitUtils.setBranchRef(repository, branch, repository.resolve("HEAD").getName());
+		try {
+			RepositoryFingerprint changed = RepositoryFingerprint.of(dir);
+			assertFalse(fingerprint.equals(changed));
+			assertEquals(fingerprint.config, changed.config);
+
+			// moving the ref within the resolution of the timestamp changes the refs stamp
+			File ref = new File(dir, branch);
+			long lastModified = ref.lastModified();
+			JGitUtils.setBranchRef(repository, branch, repository.resolve("HEAD~1").getName());
+			ref.setLastModified(lastModified);
+			assertFalse(changed.refs == RepositoryFingerprint.of(dir).refs);
+		} finally {
+			JGitUtils.deleteBranchRef(repository, branch);
+			repository.close();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.io.File;
+import java.util.Date;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gitblit.utils.FileUtils;
+import com.gitblit.utils.RepositorySizeTracker;
+
+public class RepositorySizeTrackerTest extends GitblitUnitTest {
+
+	private File folder;
+
+	private Git git;
+
+	@Before
+	public void createRepository() throws Exception {
+		folder = new File(System.getProperty("java.io.tmpdir"), "gitblit-size-" + System.currentTimeMillis());
+		git = Git.init().setDirectory(folder).call();
+		commit("first");
+	}
+
+	@After
+	public void deleteRepository() throws Exception {
+		git.close();
+		FileUtils.delete(folder);
+	}
+
+	@Test
+	public void testTracking() throws Exception {
+		Repository repository = git.getRepository();
+		File gitDir = repository.getDirectory();
+		RepositorySizeTracker tracker = new RepositorySizeTracker();
+
+		Date lastChange = new Date(1000);
+		assertEquals(FileUtils.folderSize(gitDir), tracker.getSize("size.git", repository, lastChange));
+
+		// unchanged repositories are not reconciled
+		assertEquals(0, tracker.reconcile());
+
+		// new loose objects are counted once the change is reconciled
+		commit("second");
+		tracker.getSize("size.git", repository, new Date(2000));
+		assertEquals(1, tracker.reconcile());
+		assertEquals(FileUtils.folderSize(gitDir), tracker.getSize("size.git", repository, new Date(2000)));
+
+		// new packs are counted immediately and flag a reconciliation
+		git.gc().call();
+		long size = tracker.getSize("size.git", repository, new Date(2000));
+		assertTrue(size > 0);
+		assertEquals(1, tracker.reconcile());
+		assertEquals(FileUtils.folderSize(gitDir), tracker.getSize("size.git", repository, new Date(2000)));
+
+		tracker.invalidate("size.git");
+		assertEquals(1, tracker.reconcile());
+		assertEquals(0, tracker.reconcile());
+	}
+
+	private void commit(String message) throws Exception {
+		File file = new File(folder, message + ".txt");
+		FileUtils.writeContent(file, message);
+		git.add().addFilepattern(file.getName()).call();
+		git.commit().setMessage(message).call();
+	}
+}
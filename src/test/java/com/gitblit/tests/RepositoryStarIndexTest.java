@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.gitblit.models.UserModel;
+import com.gitblit.utils.RepositoryStarIndex;
+
+public class RepositoryStarIndexTest extends GitblitUnitTest {
+
+	private final List<UserModel> users = new ArrayList<UserModel>();
+
+	private int loads;
+
+	private long revision;
+
+	private final RepositoryStarIndex index = new RepositoryStarIndex() {
+		@Override
+		protected Collection<UserModel> loadUsers() {
+			loads++;
+			return new ArrayList<UserModel>(users);
+		}
+
+		@Override
+		protected long getRevision() {
+			return revision;
+		}
+	};
+
+	@Test
+	public void testStarCounts() {
+		users.add(user("james", "helloworld.git", "Ticgit.git"));
+		users.add(user("john", "helloworld.git"));
+		assertEquals(2, index.getCount("helloworld.git"));
+		assertEquals(1, index.getCount("ticgit.git"));
+		assertEquals(0, index.getCount("other.git"));
+		assertEquals(1, loads);
+
+		// unstar and star
+		UserModel john = user("john", "ticgit.git");
+		index.update("john", john);
+		assertEquals(1, index.getCount("helloworld.git"));
+		assertEquals(2, index.getCount("TICGIT.git"));
+
+		// rename
+		index.update("john", user("jack", "ticgit.git"));
+		assertEquals(2, index.getCount("ticgit.git"));
+
+		// delete
+		index.remove("james");
+		assertEquals(0, index.getCount("helloworld.git"));
+		assertEquals(1, index.getCount("ticgit.git"));
+		assertEquals(1, loads);
+
+		// reset reloads
+		index.reset();
+		assertEquals(2, index.getCount("helloworld.git"));
+		assertEquals(2, loads);
+	}
+
+	@Test
+	public void testRevision() {
+		users.add(user("james", "helloworld.git"));
+		assertEquals(1, index.getCount("helloworld.git"));
+		assertEquals(1, loads);
+
+		// users reloaded from disk
+		users.add(user("john", "helloworld.git"));
+		assertEquals(1, index.getCount("helloworld.git"));
+		revision++;
+		assertEquals(2, index.getCount("helloworld.git"));
+		assertEquals(2, loads);
+		assertEquals(2, index.getCount("helloworld.git"));
+		assertEquals(2, loads);
+	}
+
+	private UserModel user(String username, String... starred) {
+		UserModel user = new UserModel(username);
+		for (String repository : starred) {
+			user.getPreferences().getRepositoryPreferences(repository).starred = true;
+		}
+		return user;
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gitblit.Constants.AccessPermission;
+import com.gitblit.Constants.AccessRestrictionType;
+import com.gitblit.models.RepositoryModel;
+import com.gitblit.models.TeamModel;
+import com.gitblit.models.UserModel;
+import com.gitblit.utils.RepositoryVisibilityIndex;
+import com.gitblit.utils.StringUtils;
+
+public class RepositoryVisibilityIndexTest extends GitblitUnitTest {
+
+	private Map<String, RepositoryModel> models;
+
+	private List<String> names;
+
+	private RepositoryVisibilityIndex index;
+
+	@Before
+	public void createIndex() {
+		models = new HashMap<String, RepositoryModel>();
+		names = new ArrayList<String>();
+		add("open.git", AccessRestrictionType.NONE);
+		add("private/a.git", AccessRestrictionType.VIEW);
+		add("private/b.git", AccessRestrictionType.VIEW);
+		add("teams/team.git", AccessRestrictionType.VIEW);
+		StringUtils.sortRepositorynames(names);
+		index = new RepositoryVisibilityIndex() {
+			@Override
+			protected RepositoryModel getCachedModel(String name) {
+				return models.get(name);
+			}
+		};
+	}
+
+	@Test
+	public void testVisibility() {
+		UserModel user = new UserModel("james");
+		user.isAuthenticated = true;
+		assertEquals(bits(0), visible(user));
+		assertEquals(bits(0), visible(UserModel.ANONYMOUS));
+
+		// regex permission
+		user.setRepositoryPermission("private/.*", AccessPermission.VIEW);
+		assertEquals(bits(0, 1, 2), visible(user));
+
+		// team permission
+		TeamModel team = new TeamModel("developers");
+		team.setRepositoryPermission("teams/team.git", AccessPermission.CLONE);
+		user.teams.add(team);
+		assertEquals(bits(0, 1, 2, 3), visible(user));
+
+		// a changed access restriction is visible after invalidation
+		models.get("teams/team.git").accessRestriction = AccessRestrictionType.NONE;
+		team.permissions.clear();
+		user.permissions.clear();
+		assertEquals(bits(0, 3), visible(user));
+		models.get("teams/team.git").accessRestriction = AccessRestrictionType.VIEW;
+		index.invalidate();
+		assertEquals(bits(0), visible(user));
+
+		// administrators see everything
+		user.canAdmin = true;
+		assertEquals(bits(0, 1, 2, 3), visible(user));
+	}
+
+	@Test
+	public void testPatch() {
+		UserModel user = new UserModel("james");
+		user.isAuthenticated = true;
+		user.setRepositoryPermission("private/.*", AccessPermission.VIEW);
+		assertEquals(bits(0, 1, 2), visible(user));
+		assertEquals(bits(0), visible(UserModel.ANONYMOUS));
+
+		// an added repository shifts the ordinals of the following repositories
+		add("another.git", AccessRestrictionType.VIEW);
+		index.add("another.git");
+		RepositoryVisibilityIndex.Visible visible = index.getVisible(user, names, index.getGeneration());
+		assertEquals(index.getGeneration(), visible.generation);
+		assertEquals("another.git", visible.names.get(0));
+		assertEquals(bits(1, 2, 3), visible.visible);
+		add("private/c.git", AccessRestrictionType.VIEW);
+		index.add("private/c.git");
+		assertEquals(bits(1, 2, 3, 4), visible(user));
+		assertEquals(bits(1), visible(UserModel.ANONYMOUS));
+
+		// a reloaded repository keeps its ordinal
+		models.get("private/c.git").accessRestriction = AccessRestrictionType.NONE;
+		index.add("private/c.git");
+		assertEquals(bits(1, 4), visible(UserModel.ANONYMOUS));
+
+		// a removed repository shifts the ordinals of the following repositories
+		models.remove("another.git");
+		index.remove("another.git");
+		visible = index.getVisible(user, names, index.getGeneration());
+		assertEquals("open.git", visible.names.get(0));
+		assertEquals(5, visible.names.size());
+		assertEquals(bits(0, 1, 2, 3), visible.visible);
+		assertEquals(bits(0, 3), visible(UserModel.ANONYMOUS));
+
+		// the patched index matches a full evaluation
+		index.invalidate();
+		assertEquals(bits(0, 1, 2, 3), index.getVisible(user, visible.names, index.getGeneration()).visible);
+	}
+
+	@Test
+	public void testCopiedUser() {
+		UserModel user = new UserModel("james");
+		user.isAuthenticated = true;
+		user.setRepositoryPermission("private/a.git", AccessPermission.VIEW);
+		assertEquals(bits(0, 1), visible(user));
+
+		// a reloaded user with the same permissions is served from the index
+		UserModel copy = new UserModel("james");
+		copy.isAuthenticated = true;
+		copy.setRepositoryPermission("private/a.git", AccessPermission.VIEW);
+		assertEquals(bits(0, 1), visible(copy));
+
+		// a reloaded user with different permissions is evaluated again
+		copy = new UserModel("james");
+		copy.isAuthenticated = true;
+		copy.setRepositoryPermission("private/b.git", AccessPermission.VIEW);
+		assertEquals(bits(0, 2), visible(copy));
+	}
+
+	@Test
+	public void testIndexable() {
+		assertTrue(index.isIndexable(new UserModel("james")));
+		assertFalse(index.isIndexable(null));
+		assertFalse(index.isIndexable(new UserModel("custom") {
+			private static final long serialVersionUID = 1L;
+		}));
+	}
+
+	private void add(String name, AccessRestrictionType restriction) {
+		RepositoryModel model = new RepositoryModel(name, "", "", new Date());
+		model.accessRestriction = restriction;
+		models.put(name, model);
+		names.add(name);
+	}
+
+	private BitSet visible(UserModel user) {
+		return index.getVisible(user, names, index.getGeneration()).visible;
+	}
+
+	private BitSet bits(int... ordinals) {
+		BitSet bits = new BitSet();
+		for (int i : ordinals) {
+			bits.set(i);
+		}
+		return bits;
+	}
+}
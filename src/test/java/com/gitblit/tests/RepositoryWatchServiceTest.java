@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gitblit.Keys;
+import com.gitblit.service.RepositoryWatchService;
+import com.gitblit.tests.mock.MemorySettings;
+import com.gitblit.utils.FileUtils;
+
+public class RepositoryWatchServiceTest extends GitblitUnitTest {
+
+	private File gitDir;
+
+	@Before
+	public void createRepository() throws Exception {
+		gitDir = new File(System.getProperty("java.io.tmpdir"), "gitblit-watch-" + System.currentTimeMillis() + ".git");
+		new File(gitDir, "objects").mkdirs();
+		new File(gitDir, "refs/heads").mkdirs();
+		FileUtils.writeContent(new File(gitDir, "HEAD"), "ref: refs/heads/master\n");
+		FileUtils.writeContent(new File(gitDir, "config"), "[core]\n");
+	}
+
+	@After
+	public void deleteRepository() throws Exception {
+		FileUtils.delete(gitDir);
+	}
+
+	@Test
+	public void testNativeWatch() throws Exception {
+		RepositoryWatchService service = newService("auto");
+		try {
+			assertFalse(service.isChanged("watched.git"));
+			assertTrue("unwatched repositories are always changed", service.isChanged("other.git"));
+
+			// ignored files do not flag a change
+			FileUtils.writeContent(new File(gitDir, "FETCH_HEAD"), "");
+			FileUtils.writeContent(new File(gitDir, "refs/heads/master.lock"), "");
+			Thread.sleep(250);
+			assertFalse(service.isChanged("watched.git"));
+
+			FileUtils.writeContent(new File(gitDir, "refs/heads/master"), "0000000000000000000000000000000000000001\n");
+			assertTrue(awaitChange(service, "watched.git"));
+
+			// new ref folders are watched too
+			service.clearChanged("watched.git");
+			new File(gitDir, "refs/heads/feature").mkdirs();
+			assertTrue(awaitChange(service, "watched.git"));
+			service.clearChanged("watched.git");
+			FileUtils.writeContent(new File(gitDir, "refs/heads/feature/a"), "0000000000000000000000000000000000000002\n");
+			assertTrue(awaitChange(service, "watched.git"));
+
+			service.clearChanged("watched.git");
+			FileUtils.writeContent(new File(gitDir, "config"), "[core]\n\tbare = true\n");
+			assertTrue(awaitChange(service, "watched.git"));
+
+			// config edits are visible before the native event is delivered
+			service.clearChanged("watched.git");
+			FileUtils.writeContent(new File(gitDir, "config"), "[core]\n\tbare = false\n");
+			assertTrue(service.isChanged("watched.git"));
+
+			service.unwatch("watched.git");
+			assertTrue(service.isChanged("watched.git"));
+		} finally {
+			service.close();
+		}
+	}
+
+	@Test
+	public void testPolling() throws Exception {
+		RepositoryWatchService service = newService("poll");
+		try {
+			assertFalse(service.isNative());
+			service.run();
+			assertFalse(service.isChanged("watched.git"));
+
+			FileUtils.writeContent(new File(gitDir, "packed-refs"), "# pack-refs with: peeled\n");
+			service.run();
+			assertTrue(service.isChanged("watched.git"));
+
+			service.clearChanged("watched.git");
+			service.run();
+			assertFalse(service.isChanged("watched.git"));
+		} finally {
+			service.close();
+		}
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		RepositoryWatchService service = newService("off");
+		assertFalse(service.isReady());
+		assertTrue(service.isChanged("watched.git"));
+	}
+
+	private RepositoryWatchService newService(String mode) {
+		MemorySettings settings = new MemorySettings();
+		settings.put(Keys.git.watchRepositories, mode);
+		RepositoryWatchService service = new RepositoryWatchService(settings);
+		service.start();
+		service.watch("watched.git", gitDir);
+		return service;
+	}
+
+	private boolean awaitChange(RepositoryWatchService service, String name) throws Exception {
+		for (int i = 0; i < 100; i++) {
+			if (service.isChanged(name)) {
+				return true;
+			}
+			Thread.sleep(50);
+		}
+		return false;
+	}
+}
@@ -38,6 +38,7 @@ import com.gitblit.Keys;
 import com.gitblit.models.FederationModel;
 import com.gitblit.models.FederationProposal;
 import com.gitblit.models.FederationSet;
+import com.gitblit.models.LastCommitModel;
 import com.gitblit.models.RegistrantAccessPermission;
 import com.gitblit.models.RepositoryModel;
 import com.gitblit.models.ServerSettings;
@@ -370,6 +371,8 @@ public class RpcTests extends GitblitUnitTest {
 	public void testServerStatus() throws Exception {
 		ServerStatus status = RpcUtils.getStatus(url, account, password.toCharArray());
 		assertNotNull("No status was retrieved!", status);
+		assertNotNull("No metrics were retrieved!", status.metrics);
+		assertTrue(status.metrics.containsKey("gitblit_cache_entries{cache=\"commits\"}"));
 	}
 
 	@Test
@@ -409,6 +412,17 @@ public class RpcTests extends GitblitUnitTest {
 		assertTrue(branches.size() > 0);
 	}
 
+	@Test
+	public void testLastCommits() throws Exception {
+		List<LastCommitModel> commits = RpcUtils.getLastCommits(url, "ticgit.git", null, "lib", account,
+				password.toCharArray());
+		assertTrue(commits.size() > 0);
+		for (LastCommitModel commit : commits) {
+			assertTrue(commit.path.startsWith("lib/"));
+			assertNotNull(commit.commitId);
+		}
+	}
+
 	@Test
 	public void testFork() throws Exception {
 		// test forking by an administrator
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.gitblit.models.CacheStatistics;
+import com.gitblit.utils.ServerMetrics;
+
+public class ServerMetricsTest extends GitblitUnitTest {
+
+	private static final String PREFIX = "test_";
+
+	private final ServerMetrics metrics = ServerMetrics.instance();
+
+	@After
+	public void tearDown() {
+		metrics.unregister(PREFIX + "gauge");
+		metrics.unregister(PREFIX + "caches");
+		metrics.unregister("executor:" + PREFIX + "executor");
+	}
+
+	@Test
+	public void testGauge() throws Exception {
+		metrics.gauge(PREFIX + "gauge", "A test gauge.", new ServerMetrics.Gauge() {
+			@Override
+			public double getValue() {
+				return 1;
+			}
+		});
+		// a collector registered with the same id replaces the previous one
+		metrics.gauge(PREFIX + "gauge", "A test gauge.", new ServerMetrics.Gauge() {
+			@Override
+			public double getValue() {
+				return 42;
+			}
+		});
+		assertEquals(42, metrics.getValues().get(PREFIX + "gauge"), 0);
+
+		String text = write();
+		assertTrue(text.contains("# HELP test_gauge A test gauge.\n"));
+		assertTrue(text.contains("# TYPE test_gauge gauge\n"));
+		assertTrue(text.contains("\ntest_gauge 42\n"));
+
+		metrics.unregister(PREFIX + "gauge");
+		assertNull(metrics.getValues().get(PREFIX + "gauge"));
+	}
+
+	@Test
+	public void testCaches() throws Exception {
+		metrics.caches(PREFIX + "caches", new ServerMetrics.CacheSource() {
+			@Override
+			public List<CacheStatistics> getStatistics() {
+				return Arrays.asList(
+						new CacheStatistics("test_a", 3, 30, 100, 7, 2, 1, 1500000000L),
+						new CacheStatistics("test_b", 0, 0, 0, 0, 0, 0, 0));
+			}
+		});
+		Map<String, Double> values = metrics.getValues();
+		assertEquals(3, values.get("gitblit_cache_entries{cache=\"test_a\"}"), 0);
+		assertEquals(30, values.get("gitblit_cache_weight{cache=\"test_a\"}"), 0);
+		assertEquals(7, values.get("gitblit_cache_hits_total{cache=\"test_a\"}"), 0);
+		assertEquals(2, values.get("gitblit_cache_misses_total{cache=\"test_a\"}"), 0);
+		assertEquals(1, values.get("gitblit_cache_evictions_total{cache=\"test_a\"}"), 0);
+		assertEquals(1.5, values.get("gitblit_cache_load_seconds_total{cache=\"test_a\"}"), 0.0001);
+		assertEquals(0, values.get("gitblit_cache_hits_total{cache=\"test_b\"}"), 0);
+
+		String text = write();
+		assertTrue(text.contains("# TYPE gitblit_cache_hits_total counter\n"));
+		assertTrue(text.contains("\ngitblit_cache_hits_total{cache=\"test_a\"} 7\n"));
+		assertTrue(text.contains("\ngitblit_cache_load_seconds_total{cache=\"test_a\"} 1.5\n"));
+	}
+
+	@Test
+	public void testExecutor() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(1);
+		try {
+			metrics.executor(PREFIX + "executor", executor);
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {
+				}
+			}).get();
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+			Map<String, Double> values = metrics.getValues();
+			assertEquals(0, values.get("gitblit_executor_queue_depth{executor=\"test_executor\"}"), 0);
+			assertEquals(1, values.get("gitblit_executor_completed_tasks_total{executor=\"test_executor\"}"), 0);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testHistogram() throws Exception {
+		String labels = "servlet=\"test\"";
+		ServerMetrics.Histogram histogram = metrics.histogram(PREFIX + "duration_seconds", "A test histogram.", labels);
+		assertSame(histogram, metrics.histogram(PREFIX + "duration_seconds", "A test histogram.", labels));
+		long count = histogram.getCount();
+		histogram.observe(TimeUnit.MILLISECONDS.toNanos(2));
+		histogram.observe(TimeUnit.MILLISECONDS.toNanos(200));
+		histogram.observe(TimeUnit.SECONDS.toNanos(20));
+		assertEquals(count + 3, histogram.getCount());
+
+		Map<String, Double> values = metrics.getValues();
+		assertEquals(count + 1, values.get("test_duration_seconds_bucket{servlet=\"test\",le=\"0.005\"}"), 0);
+		assertEquals(count + 2, values.get("test_duration_seconds_bucket{servlet=\"test\",le=\"0.25\"}"), 0);
+		assertEquals(count + 2, values.get("test_duration_seconds_bucket{servlet=\"test\",le=\"10.0\"}"), 0);
+		assertEquals(count + 3, values.get("test_duration_seconds_bucket{servlet=\"test\",le=\"+Inf\"}"), 0);
+		assertEquals(count + 3, values.get("test_duration_seconds_count{servlet=\"test\"}"), 0);
+
+		String text = write();
+		assertTrue(text.contains("# TYPE test_duration_seconds histogram\n"));
+		assertTrue(text.contains("\ntest_duration_seconds_sum{servlet=\"test\"} "));
+	}
+
+	private String write() {
+		StringWriter writer = new StringWriter();
+		metrics.write(new PrintWriter(writer));
+		return writer.toString();
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 gitblit.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gitblit.tests;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.gitblit.FileSettings;
+import com.gitblit.SettingsSnapshot;
+import com.gitblit.tests.mock.MemorySettings;
+import com.gitblit.utils.FileUtils;
+
+public class SettingsSnapshotTest extends GitblitUnitTest {
+
+	@Test
+	public void testTypedValues() throws Exception {
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("a.boolean", " true ");
+		map.put("a.integer", "42");
+		map.put("a.badInteger", "forty-two");
+		map.put("a.long", "9000000000");
+		map.put("a.filesize", "50m");
+		map.put("a.strings", "alpha \"beta gamma\" delta");
+		map.put("a.integers", "1,2,x,3");
+		MemorySettings settings = new MemorySettings(map);
+
+		assertTrue(settings.getBoolean("a.boolean", false));
+		assertEquals(42, settings.getInteger("a.integer", 0));
+		assertEquals(7, settings.getInteger("a.badInteger", 7));
+		assertEquals(9000000000L, settings.getLong("a.long", 0L));
+		assertEquals(50 * 1024 * 1024, settings.getFilesize("a.filesize", 0));
+		assertEquals(1L, settings.getFilesize("a.missing", 1L));
+		assertEquals(Arrays.asList("alpha", "beta gamma", "delta"), settings.getStrings("a.strings"));
+		assertEquals(Arrays.asList(1, 2, 3), settings.getIntegers("a.integers", ","));
+		assertEquals(7, settings.getAllKeys("a.").size());
+
+		// returned lists must be private copies
+		List<String> strings = settings.getStrings("a.strings");
+		strings.clear();
+		assertEquals(3, settings.getStrings("a.strings").size());
+
+		// MemorySettings can not detect changes so every read sees the backing map
+		map.put("a.integer", "43");
+		assertEquals(43, settings.getInteger("a.integer", 0));
+	}
+
+	@Test
+	public void testOverrides() throws Exception {
+		MemorySettings settings = new MemorySettings();
+		settings.put("b.value", "one");
+		SettingsSnapshot before = settings.getSnapshot();
+
+		settings.overrideSetting("b.value", "two");
+		assertEquals("two", settings.getString("b.value", null));
+
+		// published snapshots are immutable
+		assertEquals("one", before.getString("b.value", null));
+
+		settings.overrideSetting("b.other", true);
+		assertTrue(settings.getBoolean("b.other", false));
+		settings.removeSetting("b.other");
+		assertFalse(settings.hasSettings("b.other"));
+	}
+
+	@Test
+	public void testFileSettingsReload() throws Exception {
+		File file = File.createTempFile("gitblit-", ".properties");
+		file.deleteOnExit();
+		FileUtils.writeContent(file, "c.value = 1\n");
+
+		FileSettings settings = new FileSettings(file.getAbsolutePath());
+		settings.setReloadCheckInterval(0);
+		SettingsSnapshot snapshot = settings.getSnapshot();
+		assertEquals(1, settings.getInteger("c.value", 0));
+		assertSame("snapshot was rebuilt without a change", snapshot, settings.getSnapshot());
+
+		// saving forces a reload regardless of file timestamp resolution
+		Map<String, String> updates = new HashMap<String, String>();
+		updates.put("c.value", "2");
+		settings.saveSettings(updates);
+		assertEquals(2, settings.getInteger("c.value", 0));
+
+		// external edits are picked up once the file timestamp moves
+		FileUtils.writeContent(file, "c.value = 3\n");
+		file.setLastModified(System.currentTimeMillis() + 5000);
+		assertEquals(3, settings.getInteger("c.value", 0));
+	}
+}
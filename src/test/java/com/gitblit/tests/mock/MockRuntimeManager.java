@@ -23,6 +23,8 @@ import java.util.TimeZone;
 
 import com.gitblit.Constants;
 import com.gitblit.IStoredSettings;
+import com.gitblit.cache.ICacheProvider;
+import com.gitblit.cache.MemoryCacheProvider;
 import com.gitblit.manager.IManager;
 import com.gitblit.manager.IRuntimeManager;
 import com.gitblit.models.ServerSettings;
@@ -42,6 +44,8 @@ public class MockRuntimeManager implements IRuntimeManager {
 
 	ServerSettings serverSettings;
 
+	ICacheProvider cacheProvider = new MemoryCacheProvider();
+
 	public MockRuntimeManager() {
 		this(new MemorySettings());
 	}
@@ -140,6 +144,11 @@ public class MockRuntimeManager implements IRuntimeManager {
 		return new AllowXssFilter();
 	}
 
+	@Override
+	public ICacheProvider getCacheProvider() {
+		return cacheProvider;
+	}
+
 	@Override
 	public boolean updateSettings(Map<String, String> updatedSettings) {
 		return settings.saveSettings(updatedSettings);